@@ -406,6 +406,37 @@ public class BulkBuilder extends RequestBuilder<BulkResponse>
     return maxNumberOfOperations;
   }
 
+  /**
+   * walks through the given node of a bulk operation and checks if any textual node holds a bulkId reference.
+   * This is done on the json-structure itself so that the whole request does not need to be serialized. Complex
+   * values that were given as json-strings (e.g. within patch operations) are detected by a quoted
+   * bulkId-prefix within the text
+   *
+   * @param jsonNode the node to check
+   * @return true if a bulkId reference was found
+   */
+  static boolean containsBulkIdReference(JsonNode jsonNode)
+  {
+    if (jsonNode == null)
+    {
+      return false;
+    }
+    if (jsonNode.isTextual())
+    {
+      String bulkIdPrefix = String.format("%s:", AttributeNames.RFC7643.BULK_ID);
+      String text = jsonNode.textValue();
+      return text.startsWith(bulkIdPrefix) || text.contains("\"" + bulkIdPrefix);
+    }
+    for ( JsonNode childNode : jsonNode )
+    {
+      if (containsBulkIdReference(childNode))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * splits the currently created bulk-request into several requests and tries to sort them based on their
    * dependencies of other resources. Afterwards all responses will be put together into a single response
@@ -423,7 +454,8 @@ public class BulkBuilder extends RequestBuilder<BulkResponse>
                                                                 Consumer<ServerResponse<BulkResponse>> responseHandler,
                                                                 boolean runSplittedRequestsParallel)
   {
-    boolean containsBulkIdReferences = getResource().contains(String.format("\"%s:", AttributeNames.RFC7643.BULK_ID));
+    // the whole operations are checked because the relations are resolved on the whole operations as well
+    boolean containsBulkIdReferences = bulkRequestOperationList.stream().anyMatch(BulkBuilder::containsBulkIdReference);
 
     BulkRequestIdResolverWrapper bulkRequestIdResolverWrapper;
     if (containsBulkIdReferences)
@@ -36,8 +36,11 @@ import de.captaingoldfish.scim.sdk.common.constants.HttpHeader;
 import de.captaingoldfish.scim.sdk.common.constants.HttpStatus;
 import de.captaingoldfish.scim.sdk.common.constants.ResourceTypeNames;
 import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
+import de.captaingoldfish.scim.sdk.common.constants.enums.PatchOp;
 import de.captaingoldfish.scim.sdk.common.request.BulkRequest;
 import de.captaingoldfish.scim.sdk.common.request.BulkRequestOperation;
+import de.captaingoldfish.scim.sdk.common.request.PatchOpRequest;
+import de.captaingoldfish.scim.sdk.common.request.PatchRequestOperation;
 import de.captaingoldfish.scim.sdk.common.resources.Group;
 import de.captaingoldfish.scim.sdk.common.resources.User;
 import de.captaingoldfish.scim.sdk.common.resources.complex.Name;
@@ -543,6 +546,102 @@ public class BulkBuilderTest extends HttpServerMockup
     }
   }
 
+  /**
+   * verifies that operations without bulkId references are not detected as operations with references. The
+   * bulkId of the operation itself and the bulkId-attribute name must not be mistaken for a reference
+   */
+  @Test
+  public void testContainsNoBulkIdReference()
+  {
+    BulkRequestOperation createOperation = createBulkRequestOperation("bulkId", "bulkId");
+    Assertions.assertFalse(BulkBuilder.containsBulkIdReference(createOperation));
+
+    Group group = Group.builder()
+                       .displayName("bulkId")
+                       .members(Collections.singletonList(Member.builder().value("bulkId").build()))
+                       .build();
+    BulkRequestOperation groupOperation = BulkRequestOperation.builder()
+                                                              .bulkId(UUID.randomUUID().toString())
+                                                              .method(HttpMethod.POST)
+                                                              .path(EndpointPaths.GROUPS)
+                                                              .data(group.toString())
+                                                              .build();
+    Assertions.assertFalse(BulkBuilder.containsBulkIdReference(groupOperation));
+
+    BulkRequestOperation deleteOperation = BulkRequestOperation.builder()
+                                                               .method(HttpMethod.DELETE)
+                                                               .path(EndpointPaths.USERS + "/123")
+                                                               .build();
+    Assertions.assertFalse(BulkBuilder.containsBulkIdReference(deleteOperation));
+    Assertions.assertFalse(BulkBuilder.containsBulkIdReference(null));
+  }
+
+  /**
+   * verifies that bulkId references are detected within nested complex and multivalued complex attributes
+   */
+  @Test
+  public void testContainsNestedBulkIdReference()
+  {
+    BulkRequestOperation groupOperation = createDependentBulkRequestOperation("1", "admins", "2");
+    Assertions.assertTrue(BulkBuilder.containsBulkIdReference(groupOperation));
+
+    String enterpriseUser = "{\"schemas\": [\"urn:ietf:params:scim:schemas:core:2.0:User\", "
+                            + "\"urn:ietf:params:scim:schemas:extension:enterprise:2.0:User\"],"
+                            + "\"userName\": \"goldfish\","
+                            + "\"urn:ietf:params:scim:schemas:extension:enterprise:2.0:User\": {"
+                            + "  \"manager\": {\"value\": \"bulkId:2\"}" + "}}";
+    BulkRequestOperation userOperation = BulkRequestOperation.builder()
+                                                             .bulkId("1")
+                                                             .method(HttpMethod.POST)
+                                                             .path(EndpointPaths.USERS)
+                                                             .data(enterpriseUser)
+                                                             .build();
+    Assertions.assertTrue(BulkBuilder.containsBulkIdReference(userOperation));
+  }
+
+  /**
+   * verifies that bulkId references are detected within the values of patch operations. The values of patch
+   * operations may be simple strings or complex values that were given as json-strings
+   */
+  @Test
+  public void testContainsBulkIdReferenceInPatchOperations()
+  {
+    Function<PatchRequestOperation, BulkRequestOperation> toBulkOperation = patchOperation -> {
+      PatchOpRequest patchOpRequest = PatchOpRequest.builder()
+                                                    .operations(Collections.singletonList(patchOperation))
+                                                    .build();
+      return BulkRequestOperation.builder()
+                                 .bulkId(UUID.randomUUID().toString())
+                                 .method(HttpMethod.PATCH)
+                                 .path(EndpointPaths.GROUPS + "/123")
+                                 .data(patchOpRequest.toString())
+                                 .build();
+    };
+
+    PatchRequestOperation simpleValue = PatchRequestOperation.builder()
+                                                             .op(PatchOp.ADD)
+                                                             .path("members.value")
+                                                             .values(Collections.singletonList("bulkId:2"))
+                                                             .build();
+    Assertions.assertTrue(BulkBuilder.containsBulkIdReference(toBulkOperation.apply(simpleValue)));
+
+    String member = Member.builder().value("bulkId:2").type(ResourceTypeNames.USER).build().toString();
+    PatchRequestOperation complexStringValue = PatchRequestOperation.builder()
+                                                                    .op(PatchOp.ADD)
+                                                                    .path("members")
+                                                                    .values(Collections.singletonList(member))
+                                                                    .build();
+    Assertions.assertTrue(BulkBuilder.containsBulkIdReference(toBulkOperation.apply(complexStringValue)));
+
+    String memberWithoutReference = Member.builder().value("2").type(ResourceTypeNames.USER).build().toString();
+    PatchRequestOperation noReference = PatchRequestOperation.builder()
+                                                             .op(PatchOp.ADD)
+                                                             .path("members")
+                                                             .values(Collections.singletonList(memberWithoutReference))
+                                                             .build();
+    Assertions.assertFalse(BulkBuilder.containsBulkIdReference(toBulkOperation.apply(noReference)));
+  }
+
   private BulkRequestOperation createBulkRequestOperation(String username)
   {
     return BulkRequestOperation.builder()
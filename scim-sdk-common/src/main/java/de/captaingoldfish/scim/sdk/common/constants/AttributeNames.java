@@ -40,6 +40,22 @@ public final class AttributeNames
      */
     public static final String RESOURCE_TYPE_DISABLED = "disabled";
 
+    /**
+     * the attribute key for validating only the attributes that were touched by a patch request on a specific
+     * resource
+     */
+    public static final String PARTIAL_PATCH_VALIDATION = "partialPatchValidation";
+
+    /**
+     * the attribute key for skipping update requests that do not change a resource of a specific resource type
+     */
+    public static final String SKIP_UNCHANGED_UPDATES = "skipUnchangedUpdates";
+
+    /**
+     * the attribute key for passing the filter to the resource handler even if auto-filtering is enabled
+     */
+    public static final String FILTER_PUSHDOWN = "filterPushdown";
+
     /**
      * an extension attribute for resource type control that allows to disable certain endpoints for a resource
      * type
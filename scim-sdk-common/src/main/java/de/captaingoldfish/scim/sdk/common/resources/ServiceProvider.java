@@ -50,6 +50,15 @@ public class ServiceProvider extends ResourceNode
   @Getter
   private ForkJoinPool threadPool = ForkJoinPool.commonPool();
 
+  /**
+   * auto-filtering and auto-sorting process lists with fewer resources than this threshold sequentially within
+   * the calling thread. Larger lists are processed in parallel within the {@link #threadPool} as long as the
+   * pool is not saturated
+   */
+  @Getter
+  @Setter
+  private int parallelThreshold = 1024;
+
   /**
    * if the attributes within the resource objects should be extracted case-insensitive or case exact by their
    * attribute-names.<br>
@@ -101,6 +110,25 @@ public class ServiceProvider extends ResourceNode
   @Getter
   private boolean lenientContentTypeChecking = false;
 
+  /**
+   * if consecutive patch operations on the same resource within a bulk request should be merged into a single
+   * patch request. The merged request is executed only once and its result is returned for each of the original
+   * operations. If the merged request fails all of the original operations are reported as failed with the
+   * error of the merged request.
+   */
+  @Getter
+  @Setter
+  private boolean coalesceBulkPatchOperations = false;
+
+  /**
+   * if the operations of a patch request should be folded into an equivalent minimal set of operations before
+   * they are executed. Replace operations on the same simple attribute will be reduced to the last one and
+   * consecutive add operations on the same multivalued complex attribute will be merged.
+   */
+  @Getter
+  @Setter
+  private boolean normalizePatchOperations = false;
+
   /**
    * @param documentationUri the URL to the documentation of the application
    * @param patchConfig the patch configuration
@@ -11,6 +11,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -664,7 +665,56 @@ public final class JsonHelper
    */
   public static <T extends JsonNode> boolean containsEqualObject(List<T> originalNodes, T jsonNode)
   {
-    return originalNodes.parallelStream().anyMatch(originalNode -> isEqual(originalNode, jsonNode));
+    if (originalNodes.isEmpty())
+    {
+      return false;
+    }
+    final int hash = getCanonicalHash(jsonNode);
+    return originalNodes.stream()
+                        .anyMatch(originalNode -> getCanonicalHash(originalNode) == hash
+                                                  && isEqual(originalNode, jsonNode));
+  }
+
+  /**
+   * calculates a hash value that is identical for all nodes that are considered equal by
+   * {@link #isEqual(JsonNode, JsonNode)}. This makes it possible to find equal nodes within large collections
+   * by their hash values so that the expensive comparison is only necessary on hash collisions
+   *
+   * @param jsonNode the node to hash
+   * @return the hash value of the given node
+   */
+  public static int getCanonicalHash(JsonNode jsonNode)
+  {
+    if (jsonNode == null || jsonNode.isNull())
+    {
+      return 0;
+    }
+    if (jsonNode.isObject())
+    {
+      // the order of the fields is irrelevant for the comparison
+      int hash = 1;
+      for ( Map.Entry<String, JsonNode> field : jsonNode.properties() )
+      {
+        hash += field.getKey().hashCode() ^ getCanonicalHash(field.getValue());
+      }
+      return hash;
+    }
+    if (jsonNode.isArray())
+    {
+      int hash = 2;
+      for ( JsonNode element : jsonNode )
+      {
+        hash = 31 * hash + getCanonicalHash(element);
+      }
+      return hash;
+    }
+    if (jsonNode.isNumber())
+    {
+      // numbers are compared by their values so int and long nodes must get the same hash. Adding 0.0 turns
+      // negative zero into positive zero
+      return Double.hashCode(jsonNode.doubleValue() + 0.0);
+    }
+    return jsonNode.asText().hashCode();
   }
 
   /**
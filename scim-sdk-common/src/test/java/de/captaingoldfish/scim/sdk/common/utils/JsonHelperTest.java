@@ -3,6 +3,8 @@ package de.captaingoldfish.scim.sdk.common.utils;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import de.captaingoldfish.scim.sdk.common.constants.ClassPathReferences;
@@ -213,4 +216,24 @@ public class JsonHelperTest
     String value = valueOptional.get();
     Assertions.assertEquals("world", value);
   }
+
+  /**
+   * verifies that nodes that are considered equal get the same canonical hash and are found within a list
+   */
+  @Test
+  public void testEqualNodesHaveTheSameCanonicalHash()
+  {
+    JsonNode intNode = JsonHelper.readJsonDocument("{\"value\": \"123\", \"number\": 5, \"list\": [1, 2]}");
+    ObjectNode longNode = (ObjectNode)JsonHelper.readJsonDocument("{\"list\": [1, 2], \"number\": 5.0, "
+                                                                  + "\"value\": \"123\"}");
+    Assertions.assertTrue(JsonHelper.isEqual(intNode, longNode));
+    Assertions.assertEquals(JsonHelper.getCanonicalHash(intNode), JsonHelper.getCanonicalHash(longNode));
+    Assertions.assertTrue(JsonHelper.containsEqualObject(Arrays.asList(new ObjectNode(JsonNodeFactory.instance),
+                                                                       intNode),
+                                                         longNode));
+
+    longNode.put("value", "456");
+    Assertions.assertFalse(JsonHelper.containsEqualObject(Arrays.asList(intNode), longNode));
+    Assertions.assertFalse(JsonHelper.containsEqualObject(Collections.emptyList(), longNode));
+  }
 }
@@ -3,15 +3,18 @@ package de.captaingoldfish.scim.sdk.server.endpoints;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -30,6 +33,8 @@ import de.captaingoldfish.scim.sdk.common.exceptions.PreconditionFailedException
 import de.captaingoldfish.scim.sdk.common.exceptions.ScimException;
 import de.captaingoldfish.scim.sdk.common.request.BulkRequest;
 import de.captaingoldfish.scim.sdk.common.request.BulkRequestOperation;
+import de.captaingoldfish.scim.sdk.common.request.PatchOpRequest;
+import de.captaingoldfish.scim.sdk.common.request.PatchRequestOperation;
 import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
 import de.captaingoldfish.scim.sdk.common.resources.base.ScimObjectNode;
 import de.captaingoldfish.scim.sdk.common.resources.complex.BulkConfig;
@@ -47,6 +52,7 @@ import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
 import de.captaingoldfish.scim.sdk.server.endpoints.bulkget.BulkGetResolver;
 import de.captaingoldfish.scim.sdk.server.endpoints.bulkid.BulkIdResolver;
 import de.captaingoldfish.scim.sdk.server.endpoints.bulkid.BulkIdResolverAbstract;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimPhase;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
 import de.captaingoldfish.scim.sdk.server.schemas.SchemaFactory;
@@ -131,6 +137,7 @@ class BulkEndpoint
     final int failOnErrors = RequestUtils.getEffectiveFailOnErrors(bulkRequest);
     context.getBulkRequestContext().get().setFailOnErrors(failOnErrors);
     int httpStatus = handleBulkOperationList(baseUri, operations, responseOperations, failOnErrors, context);
+    responseOperations.forEach(this::recordBulkOperation);
     return BulkResponse.builder().httpStatus(httpStatus).bulkResponseOperation(responseOperations).build();
   }
 
@@ -203,6 +210,35 @@ class BulkEndpoint
         operations.remove(0);
         continue;
       }
+      if (serviceProvider.isCoalesceBulkPatchOperations())
+      {
+        List<BulkRequestOperation> coalescableOperations = getCoalescablePatchOperations(operations);
+        if (coalescableOperations.size() > 1)
+        {
+          context.getBulkRequestContext().get().setLastOperation(operations.size() == coalescableOperations.size());
+          List<BulkResponseOperation> coalescedResponses = handleCoalescedPatchOperations(baseUri,
+                                                                                          coalescableOperations,
+                                                                                          context);
+          for ( BulkResponseOperation coalescedResponse : coalescedResponses )
+          {
+            BulkRequestOperation coalescedOperation = operations.remove(0);
+            context.getBulkRequestContext().get().setCurrentlyHandledOperation(coalescedOperation);
+            context.getBulkRequestContext().get().setLastOperation(operations.isEmpty());
+            if (isSuccessResponseCode(coalescedOperation, coalescedResponse))
+            {
+              context.getBulkRequestContext().get().addSuccessOperation(coalescedOperation, coalescedResponse);
+            }
+            else
+            {
+              errorCounter++;
+              context.getBulkRequestContext().get().setCurrentNumberOfErrors(errorCounter);
+              context.getBulkRequestContext().get().addFailedOperation(coalescedOperation, coalescedResponse);
+            }
+            responseOperations.add(coalescedResponse);
+          }
+          continue;
+        }
+      }
       BulkResponseOperation bulkResponseOperation = handleSingleBulkOperation(baseUri, requestOperation, context);
       if (bulkResponseOperation == null)
       {
@@ -245,6 +281,139 @@ class BulkEndpoint
     return httpStatus;
   }
 
+  /**
+   * gets the consecutive patch operations from the start of the given list that target the same resource and
+   * that might be merged into a single patch request. Operations that are bound to a specific version, that
+   * contain bulkId-references, that are invalid or that were already moved to the end of the list are never
+   * coalesced
+   *
+   * @param operations the operations that are not yet handled
+   * @return the coalescable operations starting with the first operation of the list. If the first operation is
+   *         not coalescable the list is empty
+   */
+  private List<BulkRequestOperation> getCoalescablePatchOperations(List<BulkRequestOperation> operations)
+  {
+    final String bulkIdPrefix = String.format("%s:", AttributeNames.RFC7643.BULK_ID);
+    final String resourcePath = operations.get(0).getPath();
+    List<BulkRequestOperation> coalescableOperations = new ArrayList<>();
+    Set<String> bulkIds = new HashSet<>();
+    for ( BulkRequestOperation operation : operations )
+    {
+      boolean isCoalescable = HttpMethod.PATCH.equals(operation.getMethod())
+                              && StringUtils.equals(resourcePath, operation.getPath())
+                              && !Strings.CS.contains(operation.getPath(), bulkIdPrefix)
+                              && !operation.getVersion().isPresent() && operation.getUniqueIdentifier() == null
+                              && operation.getData().map(data -> !Strings.CS.contains(data, bulkIdPrefix)).orElse(false)
+                              && isValidOperation(operation);
+      String bulkId = operation.getBulkId().orElse(null);
+      boolean isUniqueBulkId = bulkId == null || !bulkIdResolver.isDuplicateBulkId(bulkId) && bulkIds.add(bulkId);
+      if (!isCoalescable || !isUniqueBulkId)
+      {
+        break;
+      }
+      coalescableOperations.add(operation);
+    }
+    return coalescableOperations;
+  }
+
+  /**
+   * merges the given patch operations into a single patch request that is executed only once. The result of the
+   * merged request is then returned for each of the original operations. If the merged request fails, all
+   * operations are reported as failed with the error of the merged request. They are not executed again one by
+   * one because the resource handler might already have written parts of the merged request.<br>
+   * <br>
+   * While the merged request is executed the
+   * {@link de.captaingoldfish.scim.sdk.server.endpoints.bulkcontext.BulkRequestContext#getCurrentlyHandledOperation()}
+   * is the merged operation. It holds the patch operations of all coalesced operations and has no bulkId
+   *
+   * @param baseUri the base uri of all SCIM endpoints
+   * @param coalescableOperations the patch operations that target the same resource
+   * @param context the current context of the request that might hold authorization details and other context
+   *          based information
+   * @return the response operations in the same order as the given request operations
+   */
+  private List<BulkResponseOperation> handleCoalescedPatchOperations(String baseUri,
+                                                                     List<BulkRequestOperation> coalescableOperations,
+                                                                     Context context)
+  {
+    List<PatchRequestOperation> patchOperations = new ArrayList<>();
+    for ( BulkRequestOperation operation : coalescableOperations )
+    {
+      PatchOpRequest patchOpRequest = JsonHelper.readJsonDocument(operation.getData().get(), PatchOpRequest.class);
+      patchOperations.addAll(patchOpRequest.getOperations());
+    }
+    BulkRequestOperation mergedOperation = BulkRequestOperation.builder()
+                                                               .method(HttpMethod.PATCH)
+                                                               .path(coalescableOperations.get(0).getPath())
+                                                               .data(new PatchOpRequest(patchOperations).toString())
+                                                               .build();
+    log.trace("Coalesced '{}' patch operations on resource '{}'",
+              coalescableOperations.size(),
+              mergedOperation.getPath());
+    context.getBulkRequestContext().get().setCurrentlyHandledOperation(mergedOperation);
+
+    // the merged operation is passed directly to the resource endpoint because it contains no bulkId references
+    // and must not be registered at the bulkId resolver
+    UriInfos operationUriInfo = UriInfos.getRequestUrlInfos(getResourceTypeFactory(),
+                                                            baseUri + mergedOperation.getPath(),
+                                                            HttpMethod.PATCH,
+                                                            getHttpHeadersForBulk(mergedOperation),
+                                                            context.isLenientContentTypeChecking());
+    operationUriInfo.getQueryParameters().putAll(originalQueryParams);
+    ScimResponse scimResponse = resourceEndpoint.resolveRequest(HttpMethod.PATCH,
+                                                                mergedOperation.getData().get(),
+                                                                operationUriInfo,
+                                                                doBeforeExecution,
+                                                                context);
+    final boolean isErrorResponse = ErrorResponse.class.isAssignableFrom(scimResponse.getClass());
+    final String resourceId = isErrorResponse ? operationUriInfo.getResourceId()
+      : Optional.ofNullable(scimResponse.get(AttributeNames.RFC7643.ID))
+                .map(JsonNode::textValue)
+                .orElse(operationUriInfo.getResourceId());
+    final String location = baseUri + operationUriInfo.getResourceEndpoint()
+                            + Optional.ofNullable(resourceId).map(id -> "/" + id).orElse("");
+    final ETag resourceVersion = isErrorResponse ? null : getResourceVersion(scimResponse);
+
+    List<BulkResponseOperation> responseOperations = new ArrayList<>();
+    for ( BulkRequestOperation operation : coalescableOperations )
+    {
+      BulkResponseOperation.BulkResponseOperationBuilder responseBuilder = BulkResponseOperation.builder()
+                                                                                                .bulkId(operation.getBulkId()
+                                                                                                                 .orElse(null))
+                                                                                                .method(operation.getMethod())
+                                                                                                .status(scimResponse.getHttpStatus())
+                                                                                                .location(location);
+      if (isErrorResponse)
+      {
+        responseBuilder.response(scimResponse);
+      }
+      else
+      {
+        responseBuilder.version(resourceVersion).resourceId(resourceId);
+        addResponse(operation, scimResponse, operationUriInfo.getResourceType(), responseBuilder);
+        operation.getBulkId().ifPresent(bulkId -> bulkIdResolver.addResolvedBulkId(bulkId, resourceId));
+      }
+      responseOperations.add(responseBuilder.build());
+    }
+    return responseOperations;
+  }
+
+  /**
+   * tells if the given operation passes {@link #validateOperation(BulkRequestOperation)}
+   */
+  private boolean isValidOperation(BulkRequestOperation operation)
+  {
+    try
+    {
+      validateOperation(operation);
+      return true;
+    }
+    catch (BadRequestException ex)
+    {
+      return false;
+    }
+  }
+
   /**
    * verifies that the correct response code is returned based on the given http method
    *
@@ -348,12 +517,15 @@ class BulkEndpoint
         BiFunction<String, ResourceType, ScimResponse> bulkGetOpCaller = getTransitiveBulkGetResolver(baseUri,
                                                                                                       httpHeaders,
                                                                                                       context);
+        BiFunction<List<String>, ResourceType, Map<String, ScimResponse>> bulkGetBatchCaller = //
+          getTransitiveBulkGetBatchResolver(baseUri, httpHeaders, context);
         BulkGetResolver bulkGetResolver = BulkGetResolver.builder()
                                                          .maxResourceLevel(operation.getMaxResourceLevel())
                                                          .parentResourceResponse(scimResponse)
                                                          .resourceTypeFactory(resourceTypeFactory)
                                                          .resourceType(operationUriInfo.getResourceType())
                                                          .callResourceEndpoint(bulkGetOpCaller)
+                                                         .callResourceEndpointBatch(bulkGetBatchCaller)
                                                          .build();
         List<BulkResponseGetOperation> children = bulkGetResolver.getTransitiveResources();
         BulkResponseGetOperation bulkResponseGetOperation = BulkResponseGetOperation.builder()
@@ -394,14 +566,7 @@ class BulkEndpoint
       }
       else
       {
-        final ETag resourceVersion = Optional.ofNullable(scimResponse.get(AttributeNames.RFC7643.META))
-                                             .map(JsonNode::toString)
-                                             .map(metaResource -> {
-                                               Meta meta = JsonHelper.readJsonDocument(metaResource, Meta.class);
-                                               return meta.getVersion().orElse(null);
-                                             })
-                                             .orElse(null);
-        responseBuilder.version(resourceVersion);
+        responseBuilder.version(getResourceVersion(scimResponse));
         final String resourceId = Optional.ofNullable(scimResponse.get(AttributeNames.RFC7643.ID))
                                           .map(JsonNode::textValue)
                                           .orElse(null);
@@ -438,6 +603,30 @@ class BulkEndpoint
     };
   }
 
+  /**
+   * calls the resource endpoint for several resources of the same resource type at once for the
+   * bulk-get-feature. This call will be executed once per resource type for each level of child resources
+   *
+   * @param baseUri the base uri of this server
+   * @param httpHeaders the http headers from the current request
+   * @param context the current request context
+   * @return a function to call the {@link ResourceEndpoint} from {@link BulkGetResolver}
+   */
+  private BiFunction<List<String>, ResourceType, Map<String, ScimResponse>> getTransitiveBulkGetBatchResolver(String baseUri,
+                                                                                                              Map<String, String> httpHeaders,
+                                                                                                              Context context)
+  {
+    boolean lenientContentTypeChecking = context.isLenientContentTypeChecking();
+    return (resourceIds, resourceType) -> {
+      UriInfos uriInfos = UriInfos.getRequestUrlInfos(getResourceTypeFactory(),
+                                                      baseUri + resourceType.getEndpoint(),
+                                                      HttpMethod.GET,
+                                                      httpHeaders,
+                                                      lenientContentTypeChecking);
+      return resourceEndpoint.resolveGetRequests(resourceIds, uriInfos, doBeforeExecution, context);
+    };
+  }
+
   /**
    * this method will try to resolve all currently resolved bulkIds within the given bulk-request-operation
    *
@@ -492,6 +681,21 @@ class BulkEndpoint
     return Optional.of(resolverForBulkIds);
   }
 
+  /**
+   * @param scimResponse a successful response of the {@link ResourceEndpointHandler}
+   * @return the version from the meta attribute of the given response or null if not present
+   */
+  private ETag getResourceVersion(ScimResponse scimResponse)
+  {
+    return Optional.ofNullable(scimResponse.get(AttributeNames.RFC7643.META))
+                   .map(JsonNode::toString)
+                   .map(metaResource -> {
+                     Meta meta = JsonHelper.readJsonDocument(metaResource, Meta.class);
+                     return meta.getVersion().orElse(null);
+                   })
+                   .orElse(null);
+  }
+
   /**
    * adds the response to the bulk response builder if allowed based on the service-provider and resource type
    * configuration
@@ -542,6 +746,34 @@ class BulkEndpoint
     return httpHeaders;
   }
 
+  /**
+   * passes the given operation to the {@link ResourceEndpoint#getScimMetrics()}. The failure reason of a failed
+   * operation is the scimType of its error or its http status if the error has no scimType
+   *
+   * @param responseOperation the response of a single bulk operation
+   */
+  private void recordBulkOperation(BulkResponseOperation responseOperation)
+  {
+    // the method and the status are read directly because the getters fail on malformed operations
+    HttpMethod method = Optional.ofNullable(responseOperation.get(AttributeNames.RFC7643.METHOD))
+                                .map(JsonNode::textValue)
+                                .map(HttpMethod::valueOf)
+                                .orElse(null);
+    int status = Optional.ofNullable(responseOperation.get(AttributeNames.RFC7643.STATUS))
+                         .filter(JsonNode::canConvertToInt)
+                         .map(JsonNode::intValue)
+                         .orElse(HttpStatus.INTERNAL_SERVER_ERROR);
+    String failureReason = null;
+    if (status >= HttpStatus.BAD_REQUEST)
+    {
+      failureReason = responseOperation.getResponse(ErrorResponse.class)
+                                       .flatMap(ErrorResponse::getScimType)
+                                       .orElse(String.valueOf(status));
+    }
+    final String bulkFailureReason = failureReason;
+    resourceEndpoint.recordMetrics(metrics -> metrics.recordBulkOperation(method, status, bulkFailureReason));
+  }
+
   /**
    * tries to parse the bulk request and validates it eventually
    *
@@ -557,13 +789,16 @@ class BulkEndpoint
     }
     try
     {
+      long phaseStart = System.nanoTime();
       JsonNode jsonNode = JsonHelper.readJsonDocument(requestBody);
+      phaseStart = resourceEndpoint.recordPhase(null, null, ScimPhase.BODY_PARSING, phaseStart);
       SchemaFactory schemaFactory = getResourceTypeFactory().getSchemaFactory();
       Schema bulkRequestSchema = schemaFactory.getMetaSchema(SchemaUris.BULK_REQUEST_URI);
       JsonNode validatedRequest = new RequestSchemaValidator(new Context(null), ScimObjectNode.class,
                                                              HttpMethod.POST).validateDocument(bulkRequestSchema,
                                                                                                jsonNode);
       BulkRequest bulkRequest = JsonHelper.copyResourceToObject(validatedRequest, BulkRequest.class);
+      resourceEndpoint.recordPhase(null, null, ScimPhase.REQUEST_VALIDATION, phaseStart);
       if (bulkConfig.getMaxOperations() < bulkRequest.getBulkRequestOperations().size())
       {
         throw new BadRequestException("too many operations maximum number of operations is '"
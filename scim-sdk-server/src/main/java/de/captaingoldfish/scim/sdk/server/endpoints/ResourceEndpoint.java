@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
 import de.captaingoldfish.scim.sdk.common.constants.EndpointPaths;
@@ -21,6 +22,7 @@ import de.captaingoldfish.scim.sdk.server.endpoints.authorize.Authorization;
 import de.captaingoldfish.scim.sdk.server.endpoints.bulkcontext.BulkRequestContext;
 import de.captaingoldfish.scim.sdk.server.endpoints.features.EndpointFeatureHandler;
 import de.captaingoldfish.scim.sdk.server.endpoints.features.EndpointType;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimPhase;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
 import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
 import de.captaingoldfish.scim.sdk.server.utils.UriInfos;
@@ -177,12 +179,15 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
                                     Context context)
   {
     ScimResponse scimResponse;
+    ResourceType resourceType = null;
+    EndpointType endpointType = null;
     Context effectiveContext = Optional.ofNullable(context).orElseGet(() -> new Context(null));
     effectiveContext.mergeWithServiceProviderConfig(getServiceProvider());
     boolean lenientContentTypeChecking = effectiveContext.isLenientContentTypeChecking();
 
     handleScimRequest: try
     {
+      long phaseStart = System.nanoTime();
       UriInfos uriInfos = UriInfos.getRequestUrlInfos(getResourceTypeFactory(),
                                                       requestUrl,
                                                       httpMethod,
@@ -190,6 +195,7 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
                                                       lenientContentTypeChecking);
       if (EndpointPaths.BULK.equals(uriInfos.getResourceEndpoint()))
       {
+        recordPhase(null, null, ScimPhase.URL_ROUTING, phaseStart);
         BulkEndpoint bulkEndpoint = new BulkEndpoint(this, getServiceProvider(), getResourceTypeFactory(),
                                                      uriInfos.getHttpHeaders(), uriInfos.getQueryParameters(),
                                                      doBeforeExecution);
@@ -200,6 +206,9 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
         scimResponse = bulkEndpoint.bulk(uriInfos.getBaseUri(), requestBody, effectiveContext);
         break handleScimRequest;
       }
+      resourceType = uriInfos.getResourceType();
+      endpointType = getEndpointType(httpMethod, uriInfos);
+      recordPhase(resourceType, endpointType, ScimPhase.URL_ROUTING, phaseStart);
       scimResponse = resolveRequest(httpMethod, requestBody, uriInfos, doBeforeExecution, effectiveContext);
     }
     catch (ScimException ex)
@@ -210,6 +219,10 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
     {
       scimResponse = new ErrorResponse(new InternalServerException(ex.getMessage(), ex, null));
     }
+    final String resourceTypeName = resourceType == null ? null : resourceType.getName();
+    final EndpointType requestEndpointType = endpointType;
+    final int httpStatus = scimResponse.getHttpStatus();
+    recordMetrics(metrics -> metrics.recordRequest(resourceTypeName, requestEndpointType, httpStatus));
 
     if (doAfterExecution != null)
     {
@@ -239,74 +252,55 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
   {
     Optional.ofNullable(doBeforeExecution).ifPresent(consumer -> consumer.accept(uriInfos.getResourceType()));
     Context effectiveContext = getEffectiveContext(uriInfos, requestBody, context);
+    EndpointType endpointType = getEndpointType(httpMethod, uriInfos);
+    long phaseStart = System.nanoTime();
     authenticateClient(uriInfos, effectiveContext.getAuthorization());
-    switch (httpMethod)
+    // the roles of patch requests are defined by the update endpoint
+    EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
+                                                  EndpointType.PATCH.equals(endpointType) ? EndpointType.UPDATE
+                                                    : endpointType,
+                                                  effectiveContext.getAuthorization());
+    recordPhase(uriInfos.getResourceType(), endpointType, ScimPhase.AUTHORIZATION, phaseStart);
+    switch (endpointType)
     {
-      case POST:
-        if (uriInfos.isSearchRequest())
+      case LIST:
+        if (HttpMethod.POST.equals(httpMethod))
         {
-          EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
-                                                        EndpointType.LIST,
-                                                        effectiveContext.getAuthorization());
           return listResources(uriInfos.getResourceEndpoint(), requestBody, uriInfos::getBaseUri, effectiveContext);
         }
-        else
-        {
-          EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
-                                                        EndpointType.CREATE,
-                                                        effectiveContext.getAuthorization());
-          return createResource(uriInfos.getResourceEndpoint(), requestBody, uriInfos::getBaseUri, effectiveContext);
-        }
-      case GET:
-        if (uriInfos.isSearchRequest() && !uriInfos.getResourceType().getFeatures().isSingletonEndpoint())
-        {
-          EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
-                                                        EndpointType.LIST,
-                                                        effectiveContext.getAuthorization());
-          String startIndex = uriInfos.getQueryParameters().get(AttributeNames.RFC7643.START_INDEX.toLowerCase());
-          String count = uriInfos.getQueryParameters().get(AttributeNames.RFC7643.COUNT);
-          // RFC 9865: presence of the cursor query parameter (even with an empty value) selects cursor-based
-          // pagination. UriInfos populates "" for both ?cursor and ?cursor=, so a non-null value distinguishes
-          // "cursor pagination requested" from "no cursor parameter".
-          String cursor = uriInfos.getQueryParameters().get(AttributeNames.RFC9865.CURSOR);
-          return listResources(uriInfos.getResourceEndpoint(),
-                               RequestUtils.parseStartIndex(startIndex).orElse(null),
-                               RequestUtils.parseCount(count).orElse(null),
-                               uriInfos.getQueryParameters().get(AttributeNames.RFC7643.FILTER),
-                               uriInfos.getQueryParameters().get(AttributeNames.RFC7643.SORT_BY.toLowerCase()),
-                               uriInfos.getQueryParameters().get(AttributeNames.RFC7643.SORT_ORDER.toLowerCase()),
-                               getAttributeList(uriInfos, AttributeNames.RFC7643.ATTRIBUTES),
-                               getAttributeList(uriInfos, AttributeNames.RFC7643.EXCLUDED_ATTRIBUTES.toLowerCase()),
-                               cursor,
-                               uriInfos::getBaseUri,
-                               effectiveContext);
-        }
-        else
-        {
-          EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
-                                                        EndpointType.GET,
-                                                        effectiveContext.getAuthorization());
-          return getResource(uriInfos.getResourceEndpoint(),
-                             uriInfos.getResourceId(),
-                             uriInfos.getQueryParameters().get(AttributeNames.RFC7643.ATTRIBUTES),
-                             uriInfos.getQueryParameters()
-                                     .get(AttributeNames.RFC7643.EXCLUDED_ATTRIBUTES.toLowerCase()),
+        String startIndex = uriInfos.getQueryParameters().get(AttributeNames.RFC7643.START_INDEX.toLowerCase());
+        String count = uriInfos.getQueryParameters().get(AttributeNames.RFC7643.COUNT);
+        // RFC 9865: presence of the cursor query parameter (even with an empty value) selects cursor-based
+        // pagination. UriInfos populates "" for both ?cursor and ?cursor=, so a non-null value distinguishes
+        // "cursor pagination requested" from "no cursor parameter".
+        String cursor = uriInfos.getQueryParameters().get(AttributeNames.RFC9865.CURSOR);
+        return listResources(uriInfos.getResourceEndpoint(),
+                             RequestUtils.parseStartIndex(startIndex).orElse(null),
+                             RequestUtils.parseCount(count).orElse(null),
+                             uriInfos.getQueryParameters().get(AttributeNames.RFC7643.FILTER),
+                             uriInfos.getQueryParameters().get(AttributeNames.RFC7643.SORT_BY.toLowerCase()),
+                             uriInfos.getQueryParameters().get(AttributeNames.RFC7643.SORT_ORDER.toLowerCase()),
+                             getAttributeList(uriInfos, AttributeNames.RFC7643.ATTRIBUTES),
+                             getAttributeList(uriInfos, AttributeNames.RFC7643.EXCLUDED_ATTRIBUTES.toLowerCase()),
+                             cursor,
                              uriInfos::getBaseUri,
                              effectiveContext);
-        }
-      case PUT:
-        EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
-                                                      EndpointType.UPDATE,
-                                                      effectiveContext.getAuthorization());
+      case CREATE:
+        return createResource(uriInfos.getResourceEndpoint(), requestBody, uriInfos::getBaseUri, effectiveContext);
+      case GET:
+        return getResource(uriInfos.getResourceEndpoint(),
+                           uriInfos.getResourceId(),
+                           uriInfos.getQueryParameters().get(AttributeNames.RFC7643.ATTRIBUTES),
+                           uriInfos.getQueryParameters().get(AttributeNames.RFC7643.EXCLUDED_ATTRIBUTES.toLowerCase()),
+                           uriInfos::getBaseUri,
+                           effectiveContext);
+      case UPDATE:
         return updateResource(uriInfos.getResourceEndpoint(),
                               uriInfos.getResourceId(),
                               requestBody,
                               uriInfos::getBaseUri,
                               effectiveContext);
       case PATCH:
-        EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
-                                                      EndpointType.UPDATE,
-                                                      effectiveContext.getAuthorization());
         return patchResource(uriInfos.getResourceEndpoint(),
                              uriInfos.getResourceId(),
                              requestBody,
@@ -316,9 +310,6 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
                              uriInfos::getBaseUri,
                              effectiveContext);
       default:
-        EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
-                                                      EndpointType.DELETE,
-                                                      effectiveContext.getAuthorization());
         return deleteResource(uriInfos.getResourceEndpoint(),
                               uriInfos.getResourceId(),
                               uriInfos.getHttpHeaders(),
@@ -326,6 +317,69 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
     }
   }
 
+  /**
+   * serializes the given response into its JSON string representation and records the duration as
+   * {@link ScimPhase#SERIALIZATION}. The response must have been returned by one of the handleRequest-methods
+   * with the given context
+   *
+   * @param scimResponse the response to serialize
+   * @param context the context that was passed to the handleRequest-method. Used to determine the resource type
+   *          and the endpoint type of the request. May be null
+   * @return the JSON string representation of the response
+   */
+  public String serializeResponse(ScimResponse scimResponse, Context context)
+  {
+    Optional<UriInfos> uriInfos = Optional.ofNullable(context).map(Context::getUriInfos);
+    ResourceType resourceType = uriInfos.map(UriInfos::getResourceType).orElse(null);
+    EndpointType endpointType = uriInfos.filter(infos -> infos.getResourceType() != null)
+                                        .map(infos -> getEndpointType(infos.getHttpMethod(), infos))
+                                        .orElse(null);
+    long phaseStart = System.nanoTime();
+    String responseBody = scimResponse.toString();
+    recordPhase(resourceType, endpointType, ScimPhase.SERIALIZATION, phaseStart);
+    return responseBody;
+  }
+
+  /**
+   * retrieves several resources of the same resource type with a single call to the
+   * {@link ResourceHandler#getResources(java.util.Collection, List, List, Context)} method. This is used by the
+   * bulk-get feature to resolve transitive resources. In contrast to
+   * {@link #resolveRequest(HttpMethod, String, UriInfos, Consumer, Context)} an error during authentication or
+   * authorization will not abort the request but is returned as error-response for each of the given ids
+   *
+   * @param ids the ids of the resources to retrieve
+   * @param uriInfos the parsed information's of the resource-types endpoint url
+   * @param doBeforeExecution arbitrary code that is executed before the endpoint is called. This might be used
+   *          to execute authentication on dedicated resource types
+   * @param context the current request context
+   * @return a response for each of the given ids
+   */
+  protected Map<String, ScimResponse> resolveGetRequests(List<String> ids,
+                                                         UriInfos uriInfos,
+                                                         Consumer<ResourceType> doBeforeExecution,
+                                                         Context context)
+  {
+    try
+    {
+      Optional.ofNullable(doBeforeExecution).ifPresent(consumer -> consumer.accept(uriInfos.getResourceType()));
+      Context effectiveContext = getEffectiveContext(uriInfos, null, context);
+      authenticateClient(uriInfos, effectiveContext.getAuthorization());
+      EndpointFeatureHandler.handleEndpointFeatures(uriInfos.getResourceType(),
+                                                    EndpointType.GET,
+                                                    effectiveContext.getAuthorization());
+      return getResources(uriInfos.getResourceEndpoint(),
+                          ids,
+                          uriInfos.getQueryParameters().get(AttributeNames.RFC7643.ATTRIBUTES),
+                          uriInfos.getQueryParameters().get(AttributeNames.RFC7643.EXCLUDED_ATTRIBUTES.toLowerCase()),
+                          uriInfos::getBaseUri,
+                          effectiveContext);
+    }
+    catch (ScimException ex)
+    {
+      return ids.stream().distinct().collect(Collectors.toMap(id -> id, id -> new ErrorResponse(ex)));
+    }
+  }
+
   /**
    * Gets the list representation of the comma separated list of attribute-names<br/>
    * <br/>
@@ -363,6 +417,31 @@ public final class ResourceEndpoint extends ResourceEndpointHandler
     return effectiveContext;
   }
 
+  /**
+   * determines the endpoint type of a request on a resource type
+   *
+   * @param httpMethod the http method of the request
+   * @param uriInfos the parsed information's of the request url
+   * @return the endpoint type of the request
+   */
+  private EndpointType getEndpointType(HttpMethod httpMethod, UriInfos uriInfos)
+  {
+    switch (httpMethod)
+    {
+      case POST:
+        return uriInfos.isSearchRequest() ? EndpointType.LIST : EndpointType.CREATE;
+      case GET:
+        return uriInfos.isSearchRequest() && !uriInfos.getResourceType().getFeatures().isSingletonEndpoint()
+          ? EndpointType.LIST : EndpointType.GET;
+      case PUT:
+        return EndpointType.UPDATE;
+      case PATCH:
+        return EndpointType.PATCH;
+      default:
+        return EndpointType.DELETE;
+    }
+  }
+
   /**
    * checks if the given response is an error response or a successful response
    *
@@ -3,14 +3,18 @@ package de.captaingoldfish.scim.sdk.server.endpoints;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -23,6 +27,7 @@ import de.captaingoldfish.scim.sdk.common.constants.SchemaUris;
 import de.captaingoldfish.scim.sdk.common.constants.ScimType;
 import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
 import de.captaingoldfish.scim.sdk.common.constants.enums.SortOrder;
+import de.captaingoldfish.scim.sdk.common.etag.ETag;
 import de.captaingoldfish.scim.sdk.common.exceptions.BadRequestException;
 import de.captaingoldfish.scim.sdk.common.exceptions.IOException;
 import de.captaingoldfish.scim.sdk.common.exceptions.InternalServerException;
@@ -48,6 +53,7 @@ import de.captaingoldfish.scim.sdk.common.schemas.Schema;
 import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
 import de.captaingoldfish.scim.sdk.common.utils.EncodingUtils;
 import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.common.utils.ResourceComparator;
 import de.captaingoldfish.scim.sdk.server.endpoints.base.ResourceTypeEndpointDefinition;
 import de.captaingoldfish.scim.sdk.server.endpoints.base.SchemaEndpointDefinition;
 import de.captaingoldfish.scim.sdk.server.endpoints.base.ServiceProviderEndpointDefinition;
@@ -56,8 +62,12 @@ import de.captaingoldfish.scim.sdk.server.endpoints.validation.RequestContextExc
 import de.captaingoldfish.scim.sdk.server.endpoints.validation.RequestValidatorHandler;
 import de.captaingoldfish.scim.sdk.server.etag.ETagHandler;
 import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import de.captaingoldfish.scim.sdk.server.filter.FilterPushdown;
 import de.captaingoldfish.scim.sdk.server.filter.resources.FilterResourceResolver;
 import de.captaingoldfish.scim.sdk.server.interceptor.Interceptor;
+import de.captaingoldfish.scim.sdk.server.metrics.NoOpScimMetrics;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimMetrics;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimPhase;
 import de.captaingoldfish.scim.sdk.server.patch.PatchRequestHandler;
 import de.captaingoldfish.scim.sdk.server.patch.workarounds.PatchWorkaround;
 import de.captaingoldfish.scim.sdk.server.patch.workarounds.msazure.MsAzurePatchComplexValueRebuilder;
@@ -71,7 +81,11 @@ import de.captaingoldfish.scim.sdk.server.schemas.validation.AbstractResourceVal
 import de.captaingoldfish.scim.sdk.server.schemas.validation.RequestResourceValidator;
 import de.captaingoldfish.scim.sdk.server.schemas.validation.RequestSchemaValidator;
 import de.captaingoldfish.scim.sdk.server.sort.ResourceNodeComparator;
+import de.captaingoldfish.scim.sdk.server.uniqueness.UniquenessIndex;
+import de.captaingoldfish.scim.sdk.server.utils.AdaptiveParallelExecutor;
+import de.captaingoldfish.scim.sdk.server.utils.CursorSnapshotCache;
 import de.captaingoldfish.scim.sdk.server.utils.IndexRange;
+import de.captaingoldfish.scim.sdk.server.utils.ListQueryStatistics;
 import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -108,6 +122,12 @@ class ResourceEndpointHandler
   @Getter(AccessLevel.PROTECTED)
   private ResourceTypeFactory resourceTypeFactory;
 
+  /**
+   * receives the timings of the phases of each request and the counters of the requests and bulk operations
+   */
+  @Getter
+  private ScimMetrics scimMetrics = NoOpScimMetrics.INSTANCE;
+
   /**
    * this constructor was introduced for unit tests to add a specific resourceTypeFactory instance which will
    * prevent application context pollution within unit tests
@@ -125,6 +145,14 @@ class ResourceEndpointHandler
     addDefaultPatchWorkarounds();
   }
 
+  /**
+   * @see #scimMetrics
+   */
+  public void setScimMetrics(ScimMetrics scimMetrics)
+  {
+    this.scimMetrics = Objects.requireNonNull(scimMetrics);
+  }
+
   /**
    * adds the default patch-workaround-handlers to the given serviceprovider configuration
    */
@@ -250,6 +278,7 @@ class ResourceEndpointHandler
         throw new BadRequestException("the request body is empty", null, ScimType.Custom.INVALID_PARAMETERS);
       }
       ResourceType resourceType = getResourceType(endpoint);
+      long phaseStart = System.nanoTime();
       JsonNode resource;
       try
       {
@@ -259,6 +288,7 @@ class ResourceEndpointHandler
       {
         throw new BadRequestException(ex.getMessage(), ex, ScimType.Custom.UNPARSEABLE_REQUEST);
       }
+      phaseStart = recordPhase(resourceType, EndpointType.CREATE, ScimPhase.BODY_PARSING, phaseStart);
       resourceHandler = resourceType.getResourceHandlerImpl();
       RequestResourceValidator resourceValidator = new RequestResourceValidator(context, resourceType, HttpMethod.POST);
       resourceNode = (ResourceNode)resourceValidator.validateDocument(resource);
@@ -267,11 +297,15 @@ class ResourceEndpointHandler
       resourceNode.remove(AttributeNames.RFC7643.META);
       resourceNode.setMeta(meta);
       new RequestValidatorHandler(resourceHandler, resourceValidator, context).validateCreate(resourceNode);
+      phaseStart = recordPhase(resourceType, EndpointType.CREATE, ScimPhase.REQUEST_VALIDATION, phaseStart);
       Interceptor interceptor = resourceHandler.getInterceptor(EndpointType.CREATE);
       ResourceNode finalResourceNode = resourceNode;
       resourceNodeCreated = interceptor.doAround(() -> {
-        return resourceType.getResourceHandlerImpl().createResource(finalResourceNode, context);
+        return executeWithUniquenessIndex(resourceType, null, finalResourceNode, () -> {
+          return resourceType.getResourceHandlerImpl().createResource(finalResourceNode, context);
+        });
       }, context);
+      recordPhase(resourceType, EndpointType.CREATE, ScimPhase.HANDLER, phaseStart);
       if (resourceNodeCreated == null)
       {
         throw new NotImplementedException("create was not implemented for resourceType '" + resourceType.getName()
@@ -299,15 +333,13 @@ class ResourceEndpointHandler
         createdMeta.setLocation(location);
       }
       createdMeta.setResourceType(resourceType.getName());
-      ETagHandler.getResourceVersion(serviceProvider, resourceType, resourceNodeCreated)
-                 .ifPresent(createdMeta::setVersion);
+      getResourceVersion(resourceType, EndpointType.CREATE, resourceNodeCreated).ifPresent(createdMeta::setVersion);
       Optional<AbstractResourceValidator> responseValidator = //
         resourceHandler.getResponseValidator(context, null, null, resource, getReferenceUrlSupplier(baseUrlSupplier));
-      JsonNode responseResource = resourceNodeCreated;
-      if (responseValidator.isPresent())
-      {
-        responseResource = responseValidator.get().validateDocument(resourceNodeCreated);
-      }
+      JsonNode responseResource = validateResponse(resourceType,
+                                                   EndpointType.CREATE,
+                                                   responseValidator,
+                                                   resourceNodeCreated);
       return new CreateResponse(responseResource, location, createdMeta);
     }
     catch (RequestContextException ex)
@@ -379,64 +411,185 @@ class ResourceEndpointHandler
       final List<SchemaAttribute> attributesList = RequestUtils.getAttributes(resourceType, attributes);
       final List<SchemaAttribute> excludedAttributesList = RequestUtils.getAttributes(resourceType, excludedAttributes);
       Interceptor interceptor = resourceHandler.getInterceptor(EndpointType.GET);
+      long phaseStart = System.nanoTime();
       ResourceNode resourceNode = interceptor.doAround(() -> {
         return resourceHandler.getResource(id, attributesList, excludedAttributesList, context);
       }, context);
-      if (resourceNode == null)
+      recordPhase(resourceType, EndpointType.GET, ScimPhase.HANDLER, phaseStart);
+      return toGetResponse(resourceType,
+                           resourceHandler,
+                           id,
+                           resourceNode,
+                           attributesList,
+                           excludedAttributesList,
+                           baseUrlSupplier,
+                           context);
+    }
+    catch (ScimException ex)
+    {
+      return new ErrorResponse(ex);
+    }
+    catch (Exception ex)
+    {
+      return new ErrorResponse(new InternalServerException(ex.getMessage(), ex, null));
+    }
+  }
+
+  /**
+   * retrieves several resources of the same resource type at once. The resources are retrieved with a single
+   * call to {@link ResourceHandler#getResources(java.util.Collection, List, List, Context)}. If the handler
+   * does not support this method the resources are retrieved one by one with
+   * {@link #getResource(String, String, String, String, Supplier, Context)}
+   *
+   * @param endpoint the resource endpoint that was called
+   * @param ids the ids of the resources that were requested
+   * @param attributes the attributes that should be returned to the client
+   * @param excludedAttributes the attributes that should not be returned to the client
+   * @param baseUrlSupplier this supplier is an optional attribute that should be used to supply the information
+   *          of the base URL of this application e.g.: https://example.com/scim/v2.
+   * @param context the current request context that holds additional useful information. This object is never
+   *          null
+   * @return a response for each given id in the order of the given ids. Ids that could not be retrieved will
+   *         have an {@link ErrorResponse} assigned
+   */
+  protected Map<String, ScimResponse> getResources(String endpoint,
+                                                   List<String> ids,
+                                                   String attributes,
+                                                   String excludedAttributes,
+                                                   Supplier<String> baseUrlSupplier,
+                                                   Context context)
+  {
+    Map<String, ScimResponse> responses = new LinkedHashMap<>();
+    try
+    {
+      ResourceType resourceType = getResourceType(endpoint);
+      ResourceHandler resourceHandler = resourceType.getResourceHandlerImpl();
+      final List<SchemaAttribute> attributesList = RequestUtils.getAttributes(resourceType, attributes);
+      final List<SchemaAttribute> excludedAttributesList = RequestUtils.getAttributes(resourceType, excludedAttributes);
+      Interceptor interceptor = resourceHandler.getInterceptor(EndpointType.GET);
+      long phaseStart = System.nanoTime();
+      List<ResourceNode> resourceNodes = interceptor.doAround(() -> {
+        return resourceHandler.getResources(ids, attributesList, excludedAttributesList, context);
+      }, context);
+      recordPhase(resourceType, EndpointType.GET, ScimPhase.HANDLER, phaseStart);
+      if (resourceNodes == null)
       {
-        throw new ResourceNotFoundException("the '" + resourceType.getName() + "' resource with id '" + id + "' does "
-                                            + "not exist", null, null);
+        log.trace("Batched retrieval not supported by resource type '{}'. Retrieving resources one by one",
+                  resourceType.getName());
+        for ( String id : ids )
+        {
+          responses.put(id, getResource(endpoint, id, attributes, excludedAttributes, baseUrlSupplier, context));
+        }
+        return responses;
+      }
+      Map<String, ResourceNode> resourcesById = new HashMap<>();
+      for ( ResourceNode resourceNode : resourceNodes )
+      {
+        resourceNode.getId().ifPresent(id -> resourcesById.put(id, resourceNode));
       }
-      ETagHandler.validateVersion(serviceProvider,
-                                  resourceType,
-                                  () -> resourceNode,
-                                  context.getUriInfos().getHttpHeaders());
-      String resourceId = resourceNode.getId().orElse(null);
-      if (resourceId != null && !resourceId.equals(id))
+      for ( String id : ids )
       {
-        ResourceTypeFeatures resourceTypeFeatures = resourceType.getFeatures();
-        if (resourceTypeFeatures != null && !resourceTypeFeatures.isSingletonEndpoint())
+        ScimResponse scimResponse;
+        try
         {
-          throw new InternalServerException("the id of the returned resource does not match the "
-                                            + "requested id: requestedId: '" + id + "', returnedId: '" + resourceId
-                                            + "'", null, null);
+          scimResponse = toGetResponse(resourceType,
+                                       resourceHandler,
+                                       id,
+                                       resourcesById.get(id),
+                                       attributesList,
+                                       excludedAttributesList,
+                                       baseUrlSupplier,
+                                       context);
         }
-      }
-      final String location = getLocation(resourceType, resourceId, baseUrlSupplier);
-      resourceNode.getMeta().ifPresent(meta -> {
-        if (!meta.getLastModified().isPresent())
+        catch (ScimException ex)
         {
-          meta.setLastModified(meta.getCreated().orElse(null));
+          scimResponse = new ErrorResponse(ex);
         }
-        if (!meta.getLocation().isPresent())
+        catch (Exception ex)
         {
-          meta.setLocation(location);
+          scimResponse = new ErrorResponse(new InternalServerException(ex.getMessage(), ex, null));
         }
-        meta.setResourceType(resourceType.getName());
-        ETagHandler.getResourceVersion(serviceProvider, resourceType, resourceNode).ifPresent(meta::setVersion);
-      });
-
-      Optional<AbstractResourceValidator> responseValidator = //
-        resourceHandler.getResponseValidator(context,
-                                             attributesList,
-                                             excludedAttributesList,
-                                             null,
-                                             getReferenceUrlSupplier(baseUrlSupplier));
-      JsonNode responseResource = resourceNode;
-      if (responseValidator.isPresent())
-      {
-        responseResource = responseValidator.get().validateDocument(resourceNode);
+        responses.put(id, scimResponse);
       }
-      return new GetResponse(responseResource, location, resourceNode.getMeta().orElse(null));
     }
     catch (ScimException ex)
     {
-      return new ErrorResponse(ex);
+      ids.forEach(id -> responses.putIfAbsent(id, new ErrorResponse(ex)));
     }
     catch (Exception ex)
     {
-      return new ErrorResponse(new InternalServerException(ex.getMessage(), ex, null));
+      ids.forEach(id -> {
+        responses.putIfAbsent(id, new ErrorResponse(new InternalServerException(ex.getMessage(), ex, null)));
+      });
+    }
+    return responses;
+  }
+
+  /**
+   * validates a resource that was returned from the {@link ResourceHandler} and builds the get-response for the
+   * client
+   *
+   * @param resourceType the resource type of the returned resource
+   * @param resourceHandler the handler that returned the resource
+   * @param id the id of the resource that was requested
+   * @param resourceNode the resource returned by the handler. Might be null if the resource does not exist
+   * @param attributesList the attributes that should be returned to the client
+   * @param excludedAttributesList the attributes that should not be returned to the client
+   * @param baseUrlSupplier supplies the base URL of this application to build the location of the resource
+   * @param context the current request context
+   * @return the get-response for the given resource
+   */
+  private ScimResponse toGetResponse(ResourceType resourceType,
+                                     ResourceHandler resourceHandler,
+                                     String id,
+                                     ResourceNode resourceNode,
+                                     List<SchemaAttribute> attributesList,
+                                     List<SchemaAttribute> excludedAttributesList,
+                                     Supplier<String> baseUrlSupplier,
+                                     Context context)
+  {
+    if (resourceNode == null)
+    {
+      throw new ResourceNotFoundException("the '" + resourceType.getName() + "' resource with id '" + id + "' does "
+                                          + "not exist", null, null);
+    }
+    ETagHandler.validateVersion(serviceProvider,
+                                resourceType,
+                                () -> resourceNode,
+                                context.getUriInfos().getHttpHeaders());
+    String resourceId = resourceNode.getId().orElse(null);
+    if (resourceId != null && !resourceId.equals(id))
+    {
+      ResourceTypeFeatures resourceTypeFeatures = resourceType.getFeatures();
+      if (resourceTypeFeatures != null && !resourceTypeFeatures.isSingletonEndpoint())
+      {
+        throw new InternalServerException("the id of the returned resource does not match the "
+                                          + "requested id: requestedId: '" + id + "', returnedId: '" + resourceId + "'",
+                                          null, null);
+      }
     }
+    final String location = getLocation(resourceType, resourceId, baseUrlSupplier);
+    resourceNode.getMeta().ifPresent(meta -> {
+      if (!meta.getLastModified().isPresent())
+      {
+        meta.setLastModified(meta.getCreated().orElse(null));
+      }
+      if (!meta.getLocation().isPresent())
+      {
+        meta.setLocation(location);
+      }
+      meta.setResourceType(resourceType.getName());
+      getResourceVersion(resourceType, EndpointType.GET, resourceNode).ifPresent(meta::setVersion);
+    });
+
+    Optional<AbstractResourceValidator> responseValidator = //
+      resourceHandler.getResponseValidator(context,
+                                           attributesList,
+                                           excludedAttributesList,
+                                           null,
+                                           getReferenceUrlSupplier(baseUrlSupplier));
+    JsonNode responseResource = validateResponse(resourceType, EndpointType.GET, responseValidator, resourceNode);
+    return new GetResponse(responseResource, location, resourceNode.getMeta().orElse(null));
   }
 
   /**
@@ -462,11 +615,11 @@ class ResourceEndpointHandler
                                        Supplier<String> baseUrlSupplier,
                                        Context context)
   {
-    return listResources(endpoint,
-                         StringUtils.isBlank(searchRequest) ? SearchRequest.builder().build()
-                           : JsonHelper.readJsonDocument(searchRequest, SearchRequest.class),
-                         baseUrlSupplier,
-                         context);
+    long phaseStart = System.nanoTime();
+    SearchRequest parsedSearchRequest = StringUtils.isBlank(searchRequest) ? SearchRequest.builder().build()
+      : JsonHelper.readJsonDocument(searchRequest, SearchRequest.class);
+    recordPhase(resourceTypeFactory.getResourceType(endpoint), EndpointType.LIST, ScimPhase.BODY_PARSING, phaseStart);
+    return listResources(endpoint, parsedSearchRequest, baseUrlSupplier, context);
   }
 
   /**
@@ -660,6 +813,7 @@ class ResourceEndpointHandler
       final ResourceType resourceType = getResourceType(endpoint);
       final FilterNode filterNode = getFilterNode(resourceType, filter);
       final boolean autoFiltering = resourceType.getFeatures().isAutoFiltering();
+      final boolean filterPushdown = autoFiltering && resourceType.getFeatures().isFilterPushdown();
       final SchemaAttribute sortByAttribute = getSortByAttribute(resourceType, sortBy);
       final SortOrder sortOrdering = getSortOrdering(sortOrder, sortByAttribute);
       final boolean autoSorting = resourceType.getFeatures().isAutoSorting();
@@ -674,6 +828,7 @@ class ResourceEndpointHandler
 
       ResourceHandler<T> resourceHandler = resourceType.getResourceHandlerImpl();
       Interceptor interceptor = resourceHandler.getInterceptor(EndpointType.LIST);
+      final long handlerStart = System.nanoTime();
       PartialListResponse<T> resources = interceptor.doAround(() -> {
         if (isCursorRequest)
         {
@@ -692,7 +847,8 @@ class ResourceEndpointHandler
         }
         PartialListResponse<T> partialListResponse = resourceHandler.listResources(effectiveIndexRange.getStartIndex(),
                                                                                    effectiveIndexRange.getCount(),
-                                                                                   autoFiltering ? null : filterNode,
+                                                                                   autoFiltering && !filterPushdown
+                                                                                     ? null : filterNode,
                                                                                    autoSorting ? null : sortByAttribute,
                                                                                    autoSorting ? null : sortOrdering,
                                                                                    attributesList,
@@ -700,6 +856,11 @@ class ResourceEndpointHandler
                                                                                    context);
         return partialListResponse;
       }, context);
+      final long handlerNanos = System.nanoTime() - handlerStart;
+      recordMetrics(metrics -> metrics.recordPhase(resourceType.getName(),
+                                                   EndpointType.LIST,
+                                                   ScimPhase.HANDLER,
+                                                   handlerNanos));
       if (resources == null)
       {
         throw new NotImplementedException("listResources was not implemented for resourceType '"
@@ -707,8 +868,28 @@ class ResourceEndpointHandler
       }
 
       List<T> resourceList = resources.getResources();
-      List<T> filteredResources = filterResources(filterNode, resourceList, resourceType);
+      FilterNode residualFilter = filterPushdown && !isCursorRequest ? getResidualFilter(filterNode, resources)
+        : filterNode;
+      final long filterStart = System.nanoTime();
+      List<T> filteredResources = filterResources(residualFilter, resourceList, resourceType);
+      final long sortStart = System.nanoTime();
+      final int matchedResources = filteredResources.size();
       filteredResources = sortResources(filteredResources, sortByAttribute, sortOrdering, resourceType);
+      final long sortEnd = System.nanoTime();
+      if (autoFiltering && residualFilter != null)
+      {
+        recordMetrics(metrics -> metrics.recordPhase(resourceType.getName(),
+                                                     EndpointType.LIST,
+                                                     ScimPhase.AUTO_FILTER,
+                                                     sortStart - filterStart));
+      }
+      if (autoSorting && sortByAttribute != null)
+      {
+        recordMetrics(metrics -> metrics.recordPhase(resourceType.getName(),
+                                                     EndpointType.LIST,
+                                                     ScimPhase.AUTO_SORT,
+                                                     sortEnd - sortStart));
+      }
 
       long totalResults = resourceList.size() != filteredResources.size() ? filteredResources.size()
         : (resources.getTotalResults() == 0 ? filteredResources.size() : resources.getTotalResults());
@@ -743,6 +924,10 @@ class ResourceEndpointHandler
         filteredResources = filteredResources.subList(0, effectiveIndexRange.getCount());
       }
 
+      final long validationStart = System.nanoTime();
+      // the phases are summed up over all resources and recorded once for the whole request
+      LongSummaryStatistics etagDurations = new LongSummaryStatistics();
+      LongSummaryStatistics validationDurations = new LongSummaryStatistics();
       List<JsonNode> validatedResourceList = new ArrayList<>();
       for ( ResourceNode resourceNode : filteredResources )
       {
@@ -758,7 +943,7 @@ class ResourceEndpointHandler
             meta.setLocation(location);
           }
           meta.setResourceType(resourceType.getName());
-          ETagHandler.getResourceVersion(serviceProvider, resourceType, resourceNode).ifPresent(meta::setVersion);
+          getResourceVersion(resourceType, resourceNode, etagDurations).ifPresent(meta::setVersion);
         });
 
         Optional<AbstractResourceValidator> responseValidator = //
@@ -767,14 +952,30 @@ class ResourceEndpointHandler
                                                excludedAttributesList,
                                                null,
                                                getReferenceUrlSupplier(baseUrlSupplier));
-        JsonNode responseResource = resourceNode;
-        if (responseValidator.isPresent())
-        {
-          responseResource = responseValidator.get().validateDocument(resourceNode);
-        }
+        JsonNode responseResource = validateResponse(responseValidator, resourceNode, validationDurations);
 
         validatedResourceList.add(responseResource);
       }
+      recordPhase(resourceType, EndpointType.LIST, ScimPhase.ETAG_GENERATION, etagDurations);
+      recordPhase(resourceType, EndpointType.LIST, ScimPhase.RESPONSE_VALIDATION, validationDurations);
+
+      ListQueryStatistics listQueryStatistics = resourceType.getFeatures().getListQueryStatistics();
+      if (listQueryStatistics != null)
+      {
+        String queryShape = ListQueryStatistics.getQueryShape(filterNode, sortByAttribute, sortOrdering);
+        listQueryStatistics.record(ListQueryStatistics.ListQueryRecord.builder()
+                                                                      .resourceTypeName(resourceType.getName())
+                                                                      .queryShape(queryShape)
+                                                                      .handlerNanos(handlerNanos)
+                                                                      .returnedResources(resourceList.size())
+                                                                      .filterNanos(sortStart - filterStart)
+                                                                      .matchedResources(matchedResources)
+                                                                      .sortNanos(sortEnd - sortStart)
+                                                                      .validationNanos(System.nanoTime()
+                                                                                       - validationStart)
+                                                                      .responseSize(validatedResourceList.size())
+                                                                      .build());
+      }
 
       return new ListResponse<T>(validatedResourceList, totalResults, validatedResourceList.size(),
                                  isCursorRequest && cursorEnabled ? null : effectiveIndexRange.getStartIndex(),
@@ -868,6 +1069,22 @@ class ResourceEndpointHandler
                                                       resourceHandler.getResourceType().getName()));
     }
 
+    if (resourceType.getFeatures().getCursorSnapshotCache() != null)
+    {
+      partialListResponse = getListedResourcesBySnapshot(resourceType,
+                                                         indexRange,
+                                                         filterNode,
+                                                         sortByAttribute,
+                                                         sortOrdering,
+                                                         attributesList,
+                                                         excludedAttributesList,
+                                                         context);
+      if (partialListResponse != null)
+      {
+        return partialListResponse;
+      }
+    }
+
     // fallback to index based pagination by using the cursor as encoded startIndex
     if (!indexRange.isInternalCursor())
     {
@@ -898,6 +1115,122 @@ class ResourceEndpointHandler
     return partialListResponse;
   }
 
+  /**
+   * serves a cursor request that is bridged to index based pagination from the
+   * {@link ResourceTypeFeatures#getCursorSnapshotCache()}. The first page request fetches, filters and sorts
+   * the complete result set once and stores it as a snapshot. The returned cursors reference the snapshot so
+   * that the following pages are sliced from the snapshot without calling the resource handler again. The
+   * returned page starts at the first returned resource so that the SDK does not skip any resources while
+   * post-processing the page
+   *
+   * @return the requested page or null if the cursor is a plain startIndex cursor that must be handled by the
+   *         regular bridge
+   * @throws BadRequestException with scimType {@link ScimType.RFC9865#EXPIRED_CURSOR} if the referenced
+   *           snapshot has expired, was evicted or belongs to another query or client
+   */
+  private <T extends ResourceNode> PartialListResponse<T> getListedResourcesBySnapshot(ResourceType resourceType,
+                                                                                       IndexRange indexRange,
+                                                                                       FilterNode filterNode,
+                                                                                       SchemaAttribute sortByAttribute,
+                                                                                       SortOrder sortOrdering,
+                                                                                       List<SchemaAttribute> attributesList,
+                                                                                       List<SchemaAttribute> excludedAttributesList,
+                                                                                       Context context)
+  {
+    final CursorSnapshotCache snapshotCache = resourceType.getFeatures().getCursorSnapshotCache();
+    final String queryKey = CursorSnapshotCache.getQueryKey(resourceType.getName(),
+                                                            filterNode,
+                                                            sortByAttribute,
+                                                            sortOrdering);
+    final String ownerKey = CursorSnapshotCache.getOwnerKey(context == null ? null : context.getAuthorization());
+    final int count = indexRange.getCount();
+    final String snapshotId;
+    final long startIndex;
+    CursorSnapshotCache.SnapshotCursor snapshotCursor = CursorSnapshotCache.decodeCursor(indexRange.getCursor());
+    if (snapshotCursor != null)
+    {
+      snapshotId = snapshotCursor.getSnapshotId();
+      startIndex = snapshotCursor.getStartIndex();
+    }
+    else if (StringUtils.isEmpty(indexRange.getCursor()))
+    {
+      ResourceHandler<T> resourceHandler = resourceType.getResourceHandlerImpl();
+      PartialListResponse<T> partialListResponse = resourceHandler.listResources(1L,
+                                                                                 count,
+                                                                                 filterNode,
+                                                                                 sortByAttribute,
+                                                                                 sortOrdering,
+                                                                                 attributesList,
+                                                                                 excludedAttributesList,
+                                                                                 context);
+      if (partialListResponse == null)
+      {
+        throw new NotImplementedException(String.format("List resources is not implemented for resource type '%s'",
+                                                        resourceType.getName()));
+      }
+      List<T> filteredResources = filterResources(filterNode, partialListResponse.getResources(), resourceType);
+      filteredResources = sortResources(filteredResources, sortByAttribute, sortOrdering, resourceType);
+      snapshotId = snapshotCache.createSnapshot(queryKey, ownerKey, filteredResources);
+      startIndex = 1;
+      if (snapshotId == null)
+      {
+        partialListResponse.setResources(filteredResources.subList(0, Math.min(count, filteredResources.size())));
+        partialListResponse.setTotalResults(filteredResources.size());
+        partialListResponse.setNextCursor(count < filteredResources.size()
+          ? RequestUtils.encodeStartIndexCursor(1L + count) : null);
+        partialListResponse.setPreviousCursor(null);
+        return partialListResponse;
+      }
+    }
+    else
+    {
+      return null;
+    }
+
+    CursorSnapshotCache.SnapshotPage<T> snapshotPage = snapshotCache.getPage(snapshotId,
+                                                                             queryKey,
+                                                                             ownerKey,
+                                                                             startIndex,
+                                                                             count);
+    if (snapshotPage == null)
+    {
+      throw new BadRequestException("Cursor has expired. Request the first page again with an empty cursor",
+                                    ScimType.RFC9865.EXPIRED_CURSOR);
+    }
+    final long totalResults = snapshotPage.getTotalResults();
+    return PartialListResponse.<T> builder()
+                              .resources(snapshotPage.getResources())
+                              .totalResults(totalResults)
+                              .nextCursor(startIndex + count <= totalResults
+                                ? CursorSnapshotCache.encodeCursor(snapshotId, startIndex + count) : null)
+                              .previousCursor(startIndex > 1
+                                ? CursorSnapshotCache.encodeCursor(snapshotId, startIndex - count) : null)
+                              .build();
+  }
+
+  /**
+   * determines the parts of the filter that were not applied by the resource handler if filter pushdown is
+   * enabled
+   *
+   * @param filterNode the filter expression from the client
+   * @param partialListResponse the response of the resource handler that declares the applied sub-expressions
+   * @return the filter that must still be evaluated on the returned resources or null if the handler applied
+   *         the complete filter
+   */
+  private FilterNode getResidualFilter(FilterNode filterNode, PartialListResponse<?> partialListResponse)
+  {
+    List<FilterNode> appliedFilters = partialListResponse.getAppliedFilters();
+    if (filterNode == null || appliedFilters == null || appliedFilters.isEmpty())
+    {
+      return filterNode;
+    }
+    FilterNode residualFilter = FilterPushdown.split(filterNode, appliedFilters::contains).getResidualFilter();
+    log.trace("Filter '{}' was partially applied by the resource handler. Evaluating residual filter '{}'",
+              filterNode,
+              residualFilter);
+    return residualFilter;
+  }
+
   /**
    * this method will sort the resources based on the given attribute and the ordering
    *
@@ -920,19 +1253,10 @@ class ResourceEndpointHandler
     log.trace("Starting auto sorting resources by attribute '{}' in order '{}'",
               sortByAttribute.getFullResourceName(),
               sortOrdering);
-    try
-    {
-      return serviceProvider.getThreadPool()
-                            .submit(() -> filteredResources.parallelStream()
-                                                           .sorted(new ResourceNodeComparator(sortByAttribute,
-                                                                                              sortOrdering))
-                                                           .collect(Collectors.toList()))
-                            .get();
-    }
-    catch (InterruptedException | ExecutionException e)
-    {
-      throw new InternalServerException(e);
-    }
+    return AdaptiveParallelExecutor.sort(serviceProvider,
+                                         scimMetrics,
+                                         filteredResources,
+                                         new ResourceNodeComparator(sortByAttribute, sortOrdering));
   }
 
   /**
@@ -953,7 +1277,10 @@ class ResourceEndpointHandler
     if (isApplicationFilteringEnabled && filterNode != null)
     {
       log.trace("Starting with auto filtering resources");
-      filteredResourceType = FilterResourceResolver.filterResources(serviceProvider, resourceList, filterNode);
+      filteredResourceType = FilterResourceResolver.filterResources(serviceProvider,
+                                                                    scimMetrics,
+                                                                    resourceList,
+                                                                    filterNode);
     }
     else
     {
@@ -1075,6 +1402,7 @@ class ResourceEndpointHandler
       }
       ResourceType resourceType = getResourceType(endpoint);
       resourceHandler = resourceType.getResourceHandlerImpl();
+      long phaseStart = System.nanoTime();
       JsonNode resource;
       try
       {
@@ -1084,9 +1412,11 @@ class ResourceEndpointHandler
       {
         throw new BadRequestException(ex.getMessage(), ex, ScimType.Custom.UNPARSEABLE_REQUEST);
       }
+      phaseStart = recordPhase(resourceType, EndpointType.UPDATE, ScimPhase.BODY_PARSING, phaseStart);
       RequestResourceValidator requestResourceValidator = new RequestResourceValidator(context, resourceType,
                                                                                        HttpMethod.PUT);
       ResourceNode resourceNodeForUpdate = (ResourceNode)requestResourceValidator.validateDocument(resource);
+      phaseStart = recordPhase(resourceType, EndpointType.UPDATE, ScimPhase.REQUEST_VALIDATION, phaseStart);
 
       if (resource == null)
       {
@@ -1108,6 +1438,11 @@ class ResourceEndpointHandler
 
       AtomicReference<ResourceNode> oldResourceNode = new AtomicReference<>();
       Supplier<ResourceNode> oldResourceSupplier = () -> {
+        // the old resource is needed by the version check, the validation and the change detection
+        if (oldResourceNode.get() != null)
+        {
+          return oldResourceNode.get();
+        }
         ResourceNode oldResource = resourceType.getResourceHandlerImpl()
                                                .getResourceForUpdate(id, null, null, context, EndpointType.UPDATE);
         oldResourceNode.compareAndSet(null, oldResource);
@@ -1119,8 +1454,22 @@ class ResourceEndpointHandler
         ResourceHandler rh = resourceType.getResourceHandlerImpl();
         new RequestValidatorHandler(rh, requestResourceValidator, context).validateUpdate(oldResourceSupplier,
                                                                                           resourceNodeForUpdate);
-        return rh.updateResource(resourceNodeForUpdate, context);
+        if (resourceType.getFeatures().isSkipUnchangedUpdates())
+        {
+          ResourceNode oldResource = oldResourceSupplier.get();
+          if (oldResource != null && isResourceUnchanged(resourceType, oldResource, resourceNodeForUpdate))
+          {
+            log.debug("Skipping update of resource '{}' with id '{}' because it was not changed",
+                      resourceType.getName(),
+                      id);
+            return oldResource;
+          }
+        }
+        return executeWithUniquenessIndex(resourceType, id, resourceNodeForUpdate, () -> {
+          return rh.updateResource(resourceNodeForUpdate, context);
+        });
       }, context);
+      recordPhase(resourceType, EndpointType.UPDATE, ScimPhase.HANDLER, phaseStart);
       if (resourceNode == null)
       {
         throw new ResourceNotFoundException("the '" + resourceType.getName() + "' resource with id '" + id + "' does "
@@ -1139,7 +1488,7 @@ class ResourceEndpointHandler
         createdMeta.setLocation(location);
       }
       createdMeta.setResourceType(resourceType.getName());
-      ETagHandler.getResourceVersion(serviceProvider, resourceType, resourceNode).ifPresent(createdMeta::setVersion);
+      getResourceVersion(resourceType, EndpointType.UPDATE, resourceNode).ifPresent(createdMeta::setVersion);
       Supplier<String> errorMessage = () -> "ID attribute not set on updated resource";
       String resourceId = resourceNode.getId()
                                       .orElseThrow(() -> new InternalServerException(errorMessage.get(), null, null));
@@ -1155,11 +1504,7 @@ class ResourceEndpointHandler
                                              null,
                                              resourceNode,
                                              getReferenceUrlSupplier(baseUrlSupplier));
-      JsonNode responseResource = resourceNode;
-      if (responseValidator.isPresent())
-      {
-        responseResource = responseValidator.get().validateDocument(resourceNode);
-      }
+      JsonNode responseResource = validateResponse(resourceType, EndpointType.UPDATE, responseValidator, resourceNode);
 
       return new UpdateResponse(responseResource, location, meta);
     }
@@ -1209,14 +1554,18 @@ class ResourceEndpointHandler
       ResourceType resourceType = getResourceType(endpoint);
       ResourceHandler resourceHandler = resourceType.getResourceHandlerImpl();
       Interceptor interceptor = resourceHandler.getInterceptor(EndpointType.DELETE);
-      return interceptor.doAround(() -> {
+      long phaseStart = System.nanoTime();
+      ScimResponse deleteResponse = interceptor.doAround(() -> {
         Supplier<ResourceNode> oldResourceSupplier = () -> {
           return resourceHandler.getResourceForUpdate(id, null, null, context, EndpointType.DELETE);
         };
         validateResourceVersion(id, resourceType, oldResourceSupplier, httpHeaders);
         resourceHandler.deleteResource(id, context);
+        Optional.ofNullable(resourceType.getFeatures().getUniquenessIndex()).ifPresent(index -> index.release(id));
         return new DeleteResponse();
       }, context);
+      recordPhase(resourceType, EndpointType.DELETE, ScimPhase.HANDLER, phaseStart);
+      return deleteResponse;
     }
     catch (ScimException ex)
     {
@@ -1275,15 +1624,18 @@ class ResourceEndpointHandler
         throw new NotImplementedException("patch is not supported by this service provider");
       }
       Schema patchSchema = resourceTypeFactory.getSchemaFactory().getMetaSchema(SchemaUris.PATCH_OP);
+      long phaseStart = System.nanoTime();
       JsonNode patchDocument = JsonHelper.readJsonDocument(requestBody);
       if (patchDocument == null)
       {
         throw new BadRequestException("Missing patch request body");
       }
+      phaseStart = recordPhase(resourceType, EndpointType.PATCH, ScimPhase.BODY_PARSING, phaseStart);
       patchDocument = new RequestSchemaValidator(context, ScimObjectNode.class,
                                                  HttpMethod.PATCH).validateDocument(patchSchema, patchDocument);
 
       PatchOpRequest patchOpRequest = JsonHelper.copyResourceToObject(patchDocument, PatchOpRequest.class);
+      phaseStart = recordPhase(resourceType, EndpointType.PATCH, ScimPhase.REQUEST_VALIDATION, phaseStart);
 
       PatchRequestHandler patchRequestHandler = new PatchRequestHandler(id, resourceHandler, getPatchWorkarounds(),
                                                                         context);
@@ -1294,6 +1646,7 @@ class ResourceEndpointHandler
                                                                                               attributesList,
                                                                                               excludedAttributesList);
 
+      LongSummaryStatistics etagDurations = new LongSummaryStatistics();
       Interceptor patchInterceptor = resourceHandler.getInterceptor(EndpointType.PATCH);
       updatedResource = patchInterceptor.doAround(() -> {
         ResourceNode resourceNode = null;
@@ -1311,7 +1664,7 @@ class ResourceEndpointHandler
           meta.setLocation(location);
           meta.setResourceType(resourceType.getName());
           resourceNode.setMeta(meta);
-          ETagHandler.getResourceVersion(serviceProvider, resourceType, resourceNode).ifPresent(meta::setVersion);
+          getResourceVersion(resourceType, resourceNode, etagDurations).ifPresent(meta::setVersion);
         }
 
         ResourceNode patchedResourceNode = patchRequestHandler.handlePatchRequest(patchOpRequest);
@@ -1322,8 +1675,13 @@ class ResourceEndpointHandler
           meta.setLocation(previousMeta.getLocation().orElse(getLocation(resourceType, id, baseUrlSupplier)));
           meta.setVersion(previousMeta.getVersion().orElse(null));
         });
-        return patchRequestHandler.getUpdatedResource(patchedResourceNode, attributesList, excludedAttributesList);
+        return executeWithUniquenessIndex(resourceType, id, patchedResourceNode, () -> {
+          return patchRequestHandler.getUpdatedResource(patchedResourceNode, attributesList, excludedAttributesList);
+        });
       }, context);
+      // the etag is generated within the handler so its duration is excluded from the handler phase
+      recordPhase(resourceType, EndpointType.PATCH, ScimPhase.HANDLER, phaseStart + etagDurations.getSum());
+      recordPhase(resourceType, EndpointType.PATCH, ScimPhase.ETAG_GENERATION, etagDurations);
 
       if (updatedResource == null)
       // can only happen with custom implementations
@@ -1337,11 +1695,10 @@ class ResourceEndpointHandler
                                              excludedAttributesList,
                                              patchRequestHandler.getRequestedAttributes(),
                                              getReferenceUrlSupplier(baseUrlSupplier));
-      JsonNode responseResource = updatedResource;
-      if (responseValidator.isPresent())
-      {
-        responseResource = responseValidator.get().validateDocument(responseResource);
-      }
+      JsonNode responseResource = validateResponse(resourceType,
+                                                   EndpointType.PATCH,
+                                                   responseValidator,
+                                                   updatedResource);
 
       return new UpdateResponse(responseResource, getLocation(resourceType, id, baseUrlSupplier),
                                 updatedResource.getMeta().orElseThrow(() -> {
@@ -1376,6 +1733,174 @@ class ResourceEndpointHandler
     }
   }
 
+  /**
+   * passes the resource to the resource handler after its unique values were reserved in the
+   * {@link ResourceTypeFeatures#getUniquenessIndex()} of the resource type. The reservation is committed with
+   * the resource returned by the handler or rolled back if the handler failed
+   *
+   * @param resourceType the resource type of the resource
+   * @param id the id of the resource or null if the resource is about to be created
+   * @param resource the resource that will be passed to the resource handler
+   * @param handlerCall calls the resource handler
+   * @return the resource returned by the resource handler
+   */
+  private <T extends ResourceNode> T executeWithUniquenessIndex(ResourceType resourceType,
+                                                                String id,
+                                                                ResourceNode resource,
+                                                                Supplier<T> handlerCall)
+  {
+    UniquenessIndex uniquenessIndex = resourceType.getFeatures().getUniquenessIndex();
+    if (uniquenessIndex == null)
+    {
+      return handlerCall.get();
+    }
+    UniquenessIndex.Reservation reservation = id == null ? uniquenessIndex.reserveForCreate(resource)
+      : uniquenessIndex.reserveForUpdate(id, resource);
+    T storedResource;
+    try
+    {
+      storedResource = handlerCall.get();
+    }
+    catch (RuntimeException ex)
+    {
+      reservation.rollback();
+      throw ex;
+    }
+    if (storedResource == null)
+    {
+      reservation.rollback();
+    }
+    else
+    {
+      reservation.commit(storedResource);
+    }
+    return storedResource;
+  }
+
+  /**
+   * passes the time since the given start as duration of the given phase to the {@link #scimMetrics}
+   *
+   * @param resourceType the resource type of the request or null if the request has no resource type
+   * @param endpointType the endpoint type of the request or null if the request has no endpoint type
+   * @param phase the measured phase
+   * @param phaseStart the start of the phase retrieved with {@link System#nanoTime()}
+   * @return the current {@link System#nanoTime()} to be used as start of the next phase
+   */
+  protected long recordPhase(ResourceType resourceType, EndpointType endpointType, ScimPhase phase, long phaseStart)
+  {
+    long phaseEnd = System.nanoTime();
+    recordMetrics(metrics -> metrics.recordPhase(resourceType == null ? null : resourceType.getName(),
+                                                 endpointType,
+                                                 phase,
+                                                 phaseEnd - phaseStart));
+    return phaseEnd;
+  }
+
+  /**
+   * passes the summed up durations as a single duration of the given phase to the {@link #scimMetrics}. Nothing
+   * is recorded if no duration was measured
+   *
+   * @param resourceType the resource type of the request
+   * @param endpointType the endpoint type of the request
+   * @param phase the measured phase
+   * @param durations the durations in nanoseconds that were measured for the phase within the current request
+   */
+  protected void recordPhase(ResourceType resourceType,
+                             EndpointType endpointType,
+                             ScimPhase phase,
+                             LongSummaryStatistics durations)
+  {
+    if (durations.getCount() == 0)
+    {
+      return;
+    }
+    recordMetrics(metrics -> metrics.recordPhase(resourceType == null ? null : resourceType.getName(),
+                                                 endpointType,
+                                                 phase,
+                                                 durations.getSum()));
+  }
+
+  /**
+   * passes a measurement to the {@link #scimMetrics}. Errors of the metrics implementation are logged and never
+   * change the response of a request
+   *
+   * @param measurement the call of the metrics implementation
+   */
+  protected void recordMetrics(Consumer<ScimMetrics> measurement)
+  {
+    try
+    {
+      measurement.accept(scimMetrics);
+    }
+    catch (Exception ex)
+    {
+      log.warn("Failed to record a measurement with '{}'", scimMetrics.getClass().getName(), ex);
+    }
+  }
+
+  /**
+   * generates the version of the given resource and records the duration as {@link ScimPhase#ETAG_GENERATION}
+   */
+  private Optional<ETag> getResourceVersion(ResourceType resourceType,
+                                            EndpointType endpointType,
+                                            ResourceNode resourceNode)
+  {
+    LongSummaryStatistics etagDurations = new LongSummaryStatistics();
+    Optional<ETag> version = getResourceVersion(resourceType, resourceNode, etagDurations);
+    recordPhase(resourceType, endpointType, ScimPhase.ETAG_GENERATION, etagDurations);
+    return version;
+  }
+
+  /**
+   * generates the version of the given resource and adds the duration to the given durations
+   */
+  private Optional<ETag> getResourceVersion(ResourceType resourceType,
+                                            ResourceNode resourceNode,
+                                            LongSummaryStatistics etagDurations)
+  {
+    long phaseStart = System.nanoTime();
+    Optional<ETag> version = ETagHandler.getResourceVersion(serviceProvider, resourceType, resourceNode);
+    etagDurations.accept(System.nanoTime() - phaseStart);
+    return version;
+  }
+
+  /**
+   * validates the given resource with the response validator if present and records the duration as
+   * {@link ScimPhase#RESPONSE_VALIDATION}
+   *
+   * @return the validated resource or the given resource if no response validator is present
+   */
+  private JsonNode validateResponse(ResourceType resourceType,
+                                    EndpointType endpointType,
+                                    Optional<AbstractResourceValidator> responseValidator,
+                                    ResourceNode resourceNode)
+  {
+    LongSummaryStatistics validationDurations = new LongSummaryStatistics();
+    JsonNode responseResource = validateResponse(responseValidator, resourceNode, validationDurations);
+    recordPhase(resourceType, endpointType, ScimPhase.RESPONSE_VALIDATION, validationDurations);
+    return responseResource;
+  }
+
+  /**
+   * validates the given resource with the response validator if present and adds the duration to the given
+   * durations
+   *
+   * @return the validated resource or the given resource if no response validator is present
+   */
+  private JsonNode validateResponse(Optional<AbstractResourceValidator> responseValidator,
+                                    ResourceNode resourceNode,
+                                    LongSummaryStatistics validationDurations)
+  {
+    if (!responseValidator.isPresent())
+    {
+      return resourceNode;
+    }
+    long phaseStart = System.nanoTime();
+    JsonNode responseResource = responseValidator.get().validateDocument(resourceNode);
+    validationDurations.accept(System.nanoTime() - phaseStart);
+    return responseResource;
+  }
+
   /**
    * tries to extract the resource type by its endpoint path suffix e.g. "/Users" or "/Groups"
    *
@@ -1455,6 +1980,42 @@ class ResourceEndpointHandler
     }
   }
 
+  /**
+   * checks if the given update request would change the existing resource. Read-only attributes are ignored
+   * because they cannot be set by the client anyway
+   *
+   * @param resourceType the resource type of the resource
+   * @param oldResource the current state of the resource
+   * @param newResource the validated resource of the update request
+   * @return true if the update request does not change any writable attribute of the resource
+   */
+  private boolean isResourceUnchanged(ResourceType resourceType, ResourceNode oldResource, ResourceNode newResource)
+  {
+    List<Schema> extensions = resourceType.getAllSchemaExtensions();
+    List<SchemaAttribute> readOnlyAttributes = new ArrayList<>();
+    addReadOnlyAttributes(resourceType.getMainSchema().getAttributes(), readOnlyAttributes);
+    extensions.forEach(extension -> addReadOnlyAttributes(extension.getAttributes(), readOnlyAttributes));
+    ResourceComparator resourceComparator = new ResourceComparator(resourceType.getMainSchema(), extensions,
+                                                                   readOnlyAttributes,
+                                                                   ResourceComparator.AttributeHandlingType.EXCLUDE);
+    return resourceComparator.equals(oldResource, newResource);
+  }
+
+  /**
+   * adds all read-only attributes and sub-attributes of the given attributes to the given list
+   */
+  private void addReadOnlyAttributes(List<SchemaAttribute> schemaAttributes, List<SchemaAttribute> readOnlyAttributes)
+  {
+    for ( SchemaAttribute schemaAttribute : schemaAttributes )
+    {
+      if (schemaAttribute.isReadOnly() || AttributeNames.RFC7643.META.equals(schemaAttribute.getName()))
+      {
+        readOnlyAttributes.add(schemaAttribute);
+      }
+      addReadOnlyAttributes(schemaAttribute.getSubAttributes(), readOnlyAttributes);
+    }
+  }
+
   /**
    * @return true if cursor based pagination is activated on the service provider, false else
    */
@@ -2,6 +2,7 @@ package de.captaingoldfish.scim.sdk.server.endpoints;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.BiFunction;
@@ -125,6 +126,16 @@ public abstract class ResourceHandler<T extends ResourceNode>
     }
   }
 
+  /**
+   * constructor for generic implementations whose type cannot be resolved from the class hierarchy
+   *
+   * @param type the type of the resources that are handled by this implementation
+   */
+  protected ResourceHandler(Class<T> type)
+  {
+    this.type = type;
+  }
+
   /**
    * permanently create a resource
    *
@@ -154,6 +165,37 @@ public abstract class ResourceHandler<T extends ResourceNode>
                                 List<SchemaAttribute> excludedAttributes,
                                 Context context);
 
+  /**
+   * extracts several resources by their ids at once. This method is OPTIONAL and is used by the SDK whenever
+   * several resources of the same type must be retrieved within a single operation. This is the case for the
+   * bulk-get feature that resolves the transitive resources (e.g. the members of a group) level by level. If
+   * implemented the SDK will call this method once per resource type and tree level instead of calling
+   * {@link #getResource(String, List, List, Context)} for each single id which allows implementations to avoid
+   * N+1 queries against the database.
+   * <p>
+   * The default implementation returns {@code null} which tells the SDK that this method is not supported. The
+   * SDK will then fall back to single {@link #getResource(String, List, List, Context)} calls for each id.
+   *
+   * @param ids the ids of the resources to return. The collection does not contain duplicates
+   * @param attributes the attributes that should be returned to the client. If the client sends this parameter
+   *          the evaluation of these parameters might help to improve database performance by omitting
+   *          unnecessary table joins
+   * @param excludedAttributes the attributes that should NOT be returned to the client. If the client send this
+   *          parameter the evaluation of these parameters might help to improve database performance by
+   *          omitting unnecessary table joins
+   * @param context the current request context that holds additional useful information. This object is never
+   *          null
+   * @return the found resources in arbitrary order. Ids that were not found are simply omitted from the result.
+   *         Return {@code null} if this method is not supported
+   */
+  public List<T> getResources(Collection<String> ids,
+                              List<SchemaAttribute> attributes,
+                              List<SchemaAttribute> excludedAttributes,
+                              Context context)
+  {
+    return null;
+  }
+
   /**
    * extracts a resource by its id for further update or delete operation. This method may be used to apply a
    * row lock to control concurrent access to data
@@ -1,8 +1,11 @@
 package de.captaingoldfish.scim.sdk.server.endpoints.bulkget;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -11,6 +14,8 @@ import de.captaingoldfish.scim.sdk.common.response.ScimResponse;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
 
 
 /**
@@ -45,87 +50,157 @@ public class BulkGetResolver
    */
   private final ResourceTypeFactory resourceTypeFactory;
 
+  /**
+   * retrieves a single resource by its id
+   */
   private final BiFunction<String, ResourceType, ScimResponse> callResourceEndpoint;
 
+  /**
+   * retrieves several resources of the same resource type at once. If not present the resources are retrieved
+   * one by one with {@link #callResourceEndpoint}
+   */
+  private final BiFunction<List<String>, ResourceType, Map<String, ScimResponse>> callResourceEndpointBatch;
+
   @Builder
   public BulkGetResolver(int maxResourceLevel,
                          ScimResponse parentResourceResponse,
                          ResourceType resourceType,
                          ResourceTypeFactory resourceTypeFactory,
-                         BiFunction<String, ResourceType, ScimResponse> callResourceEndpoint)
+                         BiFunction<String, ResourceType, ScimResponse> callResourceEndpoint,
+                         BiFunction<List<String>, ResourceType, Map<String, ScimResponse>> callResourceEndpointBatch)
   {
     this.maxResourceLevel = Math.max(1, maxResourceLevel);
     this.parentResourceResponse = parentResourceResponse;
     this.resourceType = resourceType;
     this.resourceTypeFactory = resourceTypeFactory;
     this.callResourceEndpoint = callResourceEndpoint;
+    this.callResourceEndpointBatch = callResourceEndpointBatch;
   }
 
   /**
    * retrieves the referenced resources of the given {@link #parentResourceResponse} e.g. a manager of the
-   * enterprise user or the members of a group
+   * enterprise user or the members of a group. The resources are resolved level by level so that all references
+   * of the same resource type on the same tree level can be retrieved with a single call
    *
    * @return all transitive resources until the given {@link #maxResourceLevel} is reached
    */
   public List<BulkResponseGetOperation> getTransitiveResources()
   {
-    return getChildrenOfResource(parentResourceResponse, resourceType, 0);
+    List<TransitiveResource> rootResources = getChildrenOfResource(parentResourceResponse, resourceType);
+    List<TransitiveResource> currentLevel = rootResources;
+    for ( int currentDepth = 0 ; currentDepth < maxResourceLevel && !currentLevel.isEmpty() ; currentDepth++ )
+    {
+      retrieveResources(currentLevel);
+      List<TransitiveResource> nextLevel = new ArrayList<>();
+      if (currentDepth + 1 < maxResourceLevel)
+      {
+        for ( TransitiveResource transitiveResource : currentLevel )
+        {
+          ResourceType childResourceType = transitiveResource.getResourceReference().getResourceType();
+          transitiveResource.getChildren()
+                            .addAll(getChildrenOfResource(transitiveResource.getScimResponse(), childResourceType));
+          nextLevel.addAll(transitiveResource.getChildren());
+        }
+      }
+      currentLevel = nextLevel;
+    }
+    return rootResources.stream().map(TransitiveResource::toBulkResponseGetOperation).collect(Collectors.toList());
   }
 
   /**
-   * retrieves the children of the given resource
+   * extracts the references of the children of the given resource
    *
    * @param scimResponse the resource from which the children should be retrieved
    * @param resourceType the resource type definition of the given resource (scimResponse)
-   * @param currentDepth the current depth level to prevent the resources from being retrieved from a level that
-   *          is too deep (e.g. infinite loop with resources that reference each other)
-   * @return the children of the given resource if any
+   * @return the not yet retrieved children of the given resource if any
    */
-  private List<BulkResponseGetOperation> getChildrenOfResource(ScimResponse scimResponse,
-                                                               ResourceType resourceType,
-                                                               int currentDepth)
+  private List<TransitiveResource> getChildrenOfResource(ScimResponse scimResponse, ResourceType resourceType)
   {
-    if (currentDepth == maxResourceLevel)
-    {
-      return Collections.emptyList();
-    }
     ResourceReferenceExtractor resourceReferenceExtractor = new ResourceReferenceExtractor(scimResponse, resourceType,
                                                                                            resourceTypeFactory);
     List<ResourceReference> resourceReferences = resourceReferenceExtractor.getResourceReferences();
-    return resourceReferences.stream().map((ResourceReference resourceReference) -> {
-      return getChildResource(resourceReference, currentDepth);
-    }).collect(Collectors.toList());
+    return resourceReferences.stream().map(TransitiveResource::new).collect(Collectors.toList());
   }
 
   /**
-   * retrieves a single child resource
+   * retrieves the resources of a single tree level. All references are grouped by their resource type so that
+   * each resource type is called only once for all its ids
    *
-   * @param resourceReference the reference to a child resource
-   * @param currentDepth the current depth level to prevent the resources from being retrieved from a level that
-   *          is too deep (e.g. infinite loop with resources that reference each other)
-   * @return the retrieved child resource
+   * @param transitiveResources the references of a single tree level
    */
-  private BulkResponseGetOperation getChildResource(ResourceReference resourceReference, int currentDepth)
+  private void retrieveResources(List<TransitiveResource> transitiveResources)
   {
-    final String resourceId = resourceReference.getResourceId();
-    final ResourceType childResourceType = resourceReference.getResourceType();
-    final String nodePath = resourceReference.getNodePath();
+    Map<ResourceType, List<TransitiveResource>> resourcesByType = new LinkedHashMap<>();
+    for ( TransitiveResource transitiveResource : transitiveResources )
+    {
+      ResourceType childResourceType = transitiveResource.getResourceReference().getResourceType();
+      resourcesByType.computeIfAbsent(childResourceType, k -> new ArrayList<>()).add(transitiveResource);
+    }
 
-    ScimResponse scimResponse = callResourceEndpoint.apply(resourceId, childResourceType);
+    resourcesByType.forEach((childResourceType, resourcesOfType) -> {
+      List<String> resourceIds = resourcesOfType.stream()
+                                                .map(resource -> resource.getResourceReference().getResourceId())
+                                                .distinct()
+                                                .collect(Collectors.toList());
+      Map<String, ScimResponse> responses = new HashMap<>();
+      Optional.ofNullable(callResourceEndpointBatch)
+              .map(batchCall -> batchCall.apply(resourceIds, childResourceType))
+              .ifPresent(responses::putAll);
+      for ( TransitiveResource transitiveResource : resourcesOfType )
+      {
+        String resourceId = transitiveResource.getResourceReference().getResourceId();
+        ScimResponse scimResponse = responses.computeIfAbsent(resourceId, id -> {
+          return callResourceEndpoint.apply(id, childResourceType);
+        });
+        transitiveResource.setScimResponse(scimResponse);
+      }
+    });
+  }
+
+  /**
+   * a reference to a child resource together with its retrieved representation and its own children
+   */
+  @Getter
+  private static class TransitiveResource
+  {
 
-    List<BulkResponseGetOperation> children = new ArrayList<>();
-    if (currentDepth < maxResourceLevel)
+    /**
+     * the reference that points to this resource
+     */
+    private final ResourceReference resourceReference;
+
+    /**
+     * the children of this resource
+     */
+    private final List<TransitiveResource> children = new ArrayList<>();
+
+    /**
+     * the retrieved resource
+     */
+    @Setter
+    private ScimResponse scimResponse;
+
+    public TransitiveResource(ResourceReference resourceReference)
     {
-      children = getChildrenOfResource(scimResponse, childResourceType, currentDepth + 1);
+      this.resourceReference = resourceReference;
     }
 
-    return BulkResponseGetOperation.builder()
-                                   .resource(scimResponse)
-                                   .resourceId(resourceId)
-                                   .status(scimResponse.getHttpStatus())
-                                   .resourceType(childResourceType.getName())
-                                   .nodePath(nodePath)
-                                   .children(children)
-                                   .build();
+    /**
+     * @return the bulk-get representation of this resource and its children
+     */
+    public BulkResponseGetOperation toBulkResponseGetOperation()
+    {
+      List<BulkResponseGetOperation> childOperations = children.stream()
+                                                               .map(TransitiveResource::toBulkResponseGetOperation)
+                                                               .collect(Collectors.toList());
+      return BulkResponseGetOperation.builder()
+                                     .resource(scimResponse)
+                                     .resourceId(resourceReference.getResourceId())
+                                     .status(scimResponse.getHttpStatus())
+                                     .resourceType(resourceReference.getResourceType().getName())
+                                     .nodePath(resourceReference.getNodePath())
+                                     .children(childOperations)
+                                     .build();
+    }
   }
 }
@@ -7,8 +7,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.lang3.Strings;
-
 import com.fasterxml.jackson.databind.JsonNode;
 
 import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
@@ -83,8 +81,7 @@ public abstract class BulkIdResolverAbstract<T extends JsonNode>
    */
   protected void findAllBulkIdReferences()
   {
-    boolean containsBulkIdReference = containsBulkIdReference(resource);
-    if (!containsBulkIdReference)
+    if (!mayContainBulkIdReferences())
     {
       return;
     }
@@ -191,11 +188,24 @@ public abstract class BulkIdResolverAbstract<T extends JsonNode>
   }
 
   /**
-   * verifies if the given node does even contain a bulkId
+   * a quick check that tells if it is worth to search the {@link #resource} for bulkId references. Only the
+   * attributes registered within the bulkId registers of the resource-type are able to hold bulkId references
+   * so a resource-type without such attributes does not need to be searched at all
+   *
+   * @return false if the resource can definitely not contain any bulkId references
+   */
+  protected boolean mayContainBulkIdReferences()
+  {
+    return uriInfos.getResourceType().hasBulkIdCandidates();
+  }
+
+  /**
+   * verifies if the given node is a bulkId reference
    */
-  protected final boolean containsBulkIdReference(JsonNode jsonNode)
+  protected final boolean isBulkIdReference(JsonNode jsonNode)
   {
-    return Strings.CS.contains(jsonNode.toString(), String.format("\"%s:", AttributeNames.RFC7643.BULK_ID));
+    return jsonNode != null && jsonNode.isTextual()
+           && jsonNode.textValue().startsWith(String.format("%s:", AttributeNames.RFC7643.BULK_ID));
   }
 
   protected void checkForBulkIdReferenceValidity(String bulkIdReferenceValue)
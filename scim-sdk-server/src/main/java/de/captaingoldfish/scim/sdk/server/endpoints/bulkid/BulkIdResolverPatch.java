@@ -38,6 +38,58 @@ class BulkIdResolverPatch extends BulkIdResolverAbstract<PatchOpRequest>
     super(operationBulkId, uriInfos, resource);
   }
 
+  /**
+   * additionally to the check of the resource-type this method verifies that at least one add or replace
+   * operation carries a value that looks like a bulkId reference. This prevents parsing the patch paths of
+   * operations that cannot contain bulkId references at all
+   */
+  @Override
+  protected boolean mayContainBulkIdReferences()
+  {
+    if (!super.mayContainBulkIdReferences())
+    {
+      return false;
+    }
+    for ( PatchRequestOperation operation : resource.getOperations() )
+    {
+      boolean isAddOrReplaceOperation = PatchOp.ADD.equals(operation.getOp())
+                                        || PatchOp.REPLACE.equals(operation.getOp());
+      if (isAddOrReplaceOperation && containsBulkIdValue(operation.get(AttributeNames.RFC7643.VALUE)))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * walks through the given value node of a patch operation and checks if any textual node contains a bulkId
+   * reference. Textual nodes are checked with a contains-check because complex values might be given as
+   * json-strings
+   *
+   * @param valueNode the value node of a patch operation
+   * @return true if a bulkId reference was found
+   */
+  private boolean containsBulkIdValue(JsonNode valueNode)
+  {
+    if (valueNode == null)
+    {
+      return false;
+    }
+    if (valueNode.isTextual())
+    {
+      return Strings.CS.contains(valueNode.textValue(), String.format("%s:", AttributeNames.RFC7643.BULK_ID));
+    }
+    for ( JsonNode childNode : valueNode )
+    {
+      if (containsBulkIdValue(childNode))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   protected List<BulkIdReferenceWrapper> getComplexBulkIdNodes()
   {
@@ -382,10 +434,6 @@ class BulkIdResolverPatch extends BulkIdResolverAbstract<PatchOpRequest>
 
     for ( JsonNode complexNode : valueNodeArray )
     {
-      if (!containsBulkIdReference(complexNode))
-      {
-        continue;
-      }
       for ( SchemaAttribute subAttribute : bulkIdAttributes )
       {
         JsonNode node = complexNode.get(subAttribute.getName());
@@ -398,7 +446,7 @@ class BulkIdResolverPatch extends BulkIdResolverAbstract<PatchOpRequest>
           for ( int i = 0 ; i < node.size() ; i++ )
           {
             JsonNode arrayIndexNode = node.get(i);
-            if (containsBulkIdReference(arrayIndexNode))
+            if (isBulkIdReference(arrayIndexNode))
             {
               bulkIdReferenceWrappers.add(new BulkIdReferenceArrayWrapper((ArrayNode)node, i));
             }
@@ -406,7 +454,7 @@ class BulkIdResolverPatch extends BulkIdResolverAbstract<PatchOpRequest>
         }
         else
         {
-          if (containsBulkIdReference(node))
+          if (isBulkIdReference(node))
           {
             bulkIdReferenceWrappers.add(new BulkIdReferenceResourceWrapper(complexNode, node, subAttribute));
           }
@@ -433,7 +481,7 @@ class BulkIdResolverPatch extends BulkIdResolverAbstract<PatchOpRequest>
     for ( int i = 0 ; i < valueNodeArray.size() ; i++ )
     {
       JsonNode valueNode = valueNodeArray.get(i);
-      if (valueNode.isTextual() && containsBulkIdReference(valueNode))
+      if (isBulkIdReference(valueNode))
       {
         String bulkIdReference = valueNode.textValue();
         checkForBulkIdReferenceValidity(bulkIdReference);
@@ -3,16 +3,13 @@ package de.captaingoldfish.scim.sdk.server.endpoints.bulkid;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
-import de.captaingoldfish.scim.sdk.common.schemas.Schema;
 import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
 import de.captaingoldfish.scim.sdk.server.utils.UriInfos;
 
 
@@ -88,38 +85,12 @@ class BulkIdResolverResource extends BulkIdResolverAbstract<ObjectNode>
   @Override
   protected List<BulkIdReferenceWrapper> getComplexBulkIdNodes()
   {
-    Schema mainSchema = uriInfos.getResourceType().getMainSchema();
-    List<Schema> schemaExtensions = uriInfos.getResourceType().getAllSchemaExtensions();
-
-    Function<SchemaAttribute, SchemaAttribute> toValueAttribute = schemaAttribute -> {
-      return schemaAttribute.getSubAttributes()
-                            .stream()
-                            .filter(a -> a.getName().equals(AttributeNames.RFC7643.VALUE))
-                            .findAny()
-                            .get(); // the value-attribute is sure to be present within these nodes
-    };
-    List<SchemaAttribute> mainSchemaBulkIdNodes = mainSchema.getComplexBulkIdCandidates()
-                                                            .stream()
-                                                            .map(toValueAttribute)
-                                                            .collect(Collectors.toList());
-    List<SchemaAttribute> extensionBulkIdNodes = schemaExtensions.stream().flatMap((Schema jsonNodes) -> {
-      return jsonNodes.getComplexBulkIdCandidates().stream().map(toValueAttribute);
-    }).collect(Collectors.toList());
-
-    if (mainSchemaBulkIdNodes.isEmpty() && extensionBulkIdNodes.isEmpty())
-    {
-      return Collections.emptyList();
-    }
-
+    ResourceType resourceType = uriInfos.getResourceType();
     List<BulkIdReferenceWrapper> bulkIdNodes = new ArrayList<>();
-    for ( SchemaAttribute bulkIdCandidate : mainSchemaBulkIdNodes )
+    for ( SchemaAttribute bulkIdCandidate : resourceType.getComplexBulkIdValueRegister() )
     {
-      List<BulkIdReferenceWrapper> valueNodes = getComplexBulkIdNodes(bulkIdCandidate, false);
-      bulkIdNodes.addAll(valueNodes);
-    }
-    for ( SchemaAttribute bulkIdCandidate : extensionBulkIdNodes )
-    {
-      List<BulkIdReferenceWrapper> valueNodes = getComplexBulkIdNodes(bulkIdCandidate, true);
+      boolean fromExtension = isExtensionAttribute(bulkIdCandidate);
+      List<BulkIdReferenceWrapper> valueNodes = getComplexBulkIdNodes(bulkIdCandidate, fromExtension);
       bulkIdNodes.addAll(valueNodes);
     }
     return bulkIdNodes;
@@ -226,27 +197,15 @@ class BulkIdResolverResource extends BulkIdResolverAbstract<ObjectNode>
   @Override
   protected List<BulkIdReferenceWrapper> getDirectBulkIdNodes()
   {
-    Schema mainSchema = uriInfos.getResourceType().getMainSchema();
-    List<Schema> schemaExtensions = uriInfos.getResourceType().getAllSchemaExtensions();
-
-    List<SchemaAttribute> mainSchemaBulkIdNodes = mainSchema.getSimpleBulkIdCandidates();
-    List<SchemaAttribute> extensionBulkIdNodes = schemaExtensions.stream().flatMap((Schema jsonNodes) -> {
-      return jsonNodes.getSimpleBulkIdCandidates().stream();
-    }).collect(Collectors.toList());
-
+    ResourceType resourceType = uriInfos.getResourceType();
     List<BulkIdReferenceWrapper> bulkIdNodes = new ArrayList<>();
-    for ( SchemaAttribute schemaAttribute : mainSchemaBulkIdNodes )
+    for ( SchemaAttribute schemaAttribute : resourceType.getSimpleBulkIdRegister() )
     {
-      List<BulkIdReferenceWrapper> bulkIdWrapper = getSimpleBulkIdWrapperNodes(resource, schemaAttribute);
-      bulkIdNodes.addAll(bulkIdWrapper);
-    }
-
-    for ( SchemaAttribute schemaAttribute : extensionBulkIdNodes )
-    {
-      JsonNode extension = resource.get(schemaAttribute.getSchema().getNonNullId());
-      if (extension != null)
+      JsonNode parentNode = isExtensionAttribute(schemaAttribute)
+        ? resource.get(schemaAttribute.getSchema().getNonNullId()) : resource;
+      if (parentNode != null)
       {
-        List<BulkIdReferenceWrapper> bulkIdWrapper = getSimpleBulkIdWrapperNodes(extension, schemaAttribute);
+        List<BulkIdReferenceWrapper> bulkIdWrapper = getSimpleBulkIdWrapperNodes(parentNode, schemaAttribute);
         bulkIdNodes.addAll(bulkIdWrapper);
       }
     }
@@ -345,9 +304,7 @@ class BulkIdResolverResource extends BulkIdResolverAbstract<ObjectNode>
    */
   private boolean isBulkIdReferenceAfterRfc7644(JsonNode jsonNode)
   {
-    boolean isBulkIdReference = jsonNode != null && jsonNode.isTextual()
-                                && jsonNode.textValue()
-                                           .startsWith(String.format("%s:", AttributeNames.RFC7643.BULK_ID));
+    boolean isBulkIdReference = isBulkIdReference(jsonNode);
     if (isBulkIdReference)
     {
       checkForBulkIdReferenceValidity(jsonNode.textValue());
@@ -360,14 +317,21 @@ class BulkIdResolverResource extends BulkIdResolverAbstract<ObjectNode>
    */
   private boolean isBulkIdReferenceAfterCustomFeature(JsonNode jsonNode)
   {
-    boolean isBulkIdReference = jsonNode != null && jsonNode.isTextual()
-                                && jsonNode.textValue()
-                                           .startsWith(String.format("%s:", AttributeNames.RFC7643.BULK_ID));
+    boolean isBulkIdReference = isBulkIdReference(jsonNode);
     if (isBulkIdReference)
     {
       checkForBulkIdReferenceValidity(jsonNode.textValue());
     }
-    return jsonNode.textValue().startsWith(String.format("%s:", AttributeNames.RFC7643.BULK_ID));
+    return isBulkIdReference;
+  }
+
+  /**
+   * checks if the given attribute is defined within an extension of the current resource-type
+   */
+  private boolean isExtensionAttribute(SchemaAttribute schemaAttribute)
+  {
+    String mainSchemaId = uriInfos.getResourceType().getMainSchema().getNonNullId();
+    return !mainSchemaId.equals(schemaAttribute.getSchema().getNonNullId());
   }
 
 }
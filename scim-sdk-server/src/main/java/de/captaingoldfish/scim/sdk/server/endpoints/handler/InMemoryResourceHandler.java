@@ -0,0 +1,613 @@
+package de.captaingoldfish.scim.sdk.server.endpoints.handler;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
+import de.captaingoldfish.scim.sdk.common.constants.enums.SortOrder;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Type;
+import de.captaingoldfish.scim.sdk.common.etag.ETag;
+import de.captaingoldfish.scim.sdk.common.exceptions.InvalidConfigException;
+import de.captaingoldfish.scim.sdk.common.exceptions.PreconditionFailedException;
+import de.captaingoldfish.scim.sdk.common.exceptions.ResourceNotFoundException;
+import de.captaingoldfish.scim.sdk.common.resources.ResourceNode;
+import de.captaingoldfish.scim.sdk.common.resources.complex.Meta;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.common.utils.TimeUtils;
+import de.captaingoldfish.scim.sdk.server.endpoints.Context;
+import de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler;
+import de.captaingoldfish.scim.sdk.server.etag.ETagHandler;
+import de.captaingoldfish.scim.sdk.server.filter.AndExpressionNode;
+import de.captaingoldfish.scim.sdk.server.filter.AttributeExpressionLeaf;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import de.captaingoldfish.scim.sdk.server.filter.OrExpressionNode;
+import de.captaingoldfish.scim.sdk.server.filter.resources.FilterResourceResolver;
+import de.captaingoldfish.scim.sdk.server.response.PartialListResponse;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.sort.ResourceNodeComparator;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * a thread-safe resource handler that keeps its resources in memory. It can be used for caches, tests and
+ * small deployments. The resources are copied on each read and write so that callers can never modify the
+ * stored state. Each resource gets a version number that is incremented on each update and that is used as
+ * entity tag so that concurrent updates with an outdated "If-Match" header are rejected.<br>
+ * <br>
+ * Simple attributes can be indexed by passing their names to the constructor. Filter expressions with the
+ * comparators "eq", "sw", "gt", "ge", "lt" and "le" on indexed attributes and the sorting by indexed
+ * attributes are then resolved with the indexes instead of scanning all resources. The resource type should
+ * either have auto-filtering disabled or filter pushdown enabled to benefit from the indexes
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Slf4j
+public class InMemoryResourceHandler<T extends ResourceNode> extends ResourceHandler<T>
+{
+
+  /**
+   * the names of the attributes that should be indexed
+   */
+  private final List<String> indexedAttributeNames;
+
+  /**
+   * the stored resources by their ids
+   */
+  private final Map<String, StoredResource<T>> resources = new ConcurrentHashMap<>();
+
+  /**
+   * the indexes by the full resource names of their attributes
+   */
+  private final Map<String, AttributeIndex> indexes = new HashMap<>();
+
+  /**
+   * @param type the type of the resources
+   * @param indexedAttributes the names of the simple attributes that should be indexed e.g. "userName" or
+   *          "name.familyName"
+   */
+  public InMemoryResourceHandler(Class<T> type, String... indexedAttributes)
+  {
+    super(type);
+    this.indexedAttributeNames = Arrays.asList(indexedAttributes);
+  }
+
+  /**
+   * resolves the indexed attributes
+   */
+  @Override
+  protected void postConstruct(ResourceType resourceType)
+  {
+    for ( String attributeName : indexedAttributeNames )
+    {
+      SchemaAttribute schemaAttribute = resourceType.getSchemaAttribute(attributeName).orElseThrow(() -> {
+        return new InvalidConfigException(String.format("Cannot index unknown attribute '%s' of resource type '%s'",
+                                                        attributeName,
+                                                        resourceType.getName()));
+      });
+      boolean isIndexable = !Type.COMPLEX.equals(schemaAttribute.getType()) && !schemaAttribute.isMultiValued()
+                            && (schemaAttribute.getParent() == null || !schemaAttribute.getParent().isMultiValued());
+      if (!isIndexable)
+      {
+        throw new InvalidConfigException(String.format("Only simple attributes that are not multivalued can be "
+                                                       + "indexed but got '%s'",
+                                                       schemaAttribute.getFullResourceName()));
+      }
+      indexes.put(schemaAttribute.getFullResourceName(), new AttributeIndex(resourceType.getSchema(), schemaAttribute));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T createResource(T resource, Context context)
+  {
+    String id = UUID.randomUUID().toString();
+    T storedResource = copy(resource);
+    storedResource.setId(id);
+    Instant now = Instant.now();
+    Meta meta = storedResource.getMeta().orElseGet(Meta::new);
+    meta.setCreated(now);
+    meta.setLastModified(now);
+    storedResource.remove(AttributeNames.RFC7643.META);
+    storedResource.setMeta(meta);
+    resources.compute(id, (key, oldValue) -> {
+      StoredResource<T> newValue = new StoredResource<>(storedResource, 1);
+      updateIndexes(id, null, newValue.getResource());
+      return newValue;
+    });
+    return copy(storedResource);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T getResource(String id,
+                       List<SchemaAttribute> attributes,
+                       List<SchemaAttribute> excludedAttributes,
+                       Context context)
+  {
+    return Optional.ofNullable(resources.get(id)).map(stored -> copy(stored.getResource())).orElse(null);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<T> getResources(Collection<String> ids,
+                              List<SchemaAttribute> attributes,
+                              List<SchemaAttribute> excludedAttributes,
+                              Context context)
+  {
+    return getCopies(new LinkedHashSet<>(ids));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PartialListResponse<T> listResources(long startIndex,
+                                              int count,
+                                              FilterNode filter,
+                                              SchemaAttribute sortBy,
+                                              SortOrder sortOrder,
+                                              List<SchemaAttribute> attributes,
+                                              List<SchemaAttribute> excludedAttributes,
+                                              Context context)
+  {
+    Set<String> candidateIds = filter == null ? null : getCandidateIds(filter);
+    List<T> matchingResources = candidateIds == null ? getCopies(resources.keySet()) : getCopies(candidateIds);
+    if (filter != null)
+    {
+      matchingResources = FilterResourceResolver.filterResources(getServiceProvider(), matchingResources, filter);
+    }
+    if (sortBy != null)
+    {
+      matchingResources = sort(matchingResources, sortBy, sortOrder);
+    }
+    long totalResults = matchingResources.size();
+    if (!getResourceType().getFeatures().isAutoFiltering())
+    {
+      // the SDK does only apply the paging itself if auto-filtering is enabled
+      int fromIndex = (int)Math.min(Math.max(startIndex, 1) - 1, matchingResources.size());
+      int toIndex = (int)Math.min((long)fromIndex + count, matchingResources.size());
+      matchingResources = matchingResources.subList(fromIndex, toIndex);
+    }
+    return PartialListResponse.<T> builder()
+                              .resources(matchingResources)
+                              .totalResults(totalResults)
+                              .appliedFilters(filter == null ? null : Collections.singletonList(filter))
+                              .build();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T updateResource(T resourceToUpdate, Context context)
+  {
+    String id = resourceToUpdate.getId().get();
+    T storedResource = copy(resourceToUpdate);
+    AtomicReference<T> updatedResource = new AtomicReference<>();
+    resources.compute(id, (key, oldValue) -> {
+      if (oldValue == null)
+      {
+        throw new ResourceNotFoundException(String.format("Resource with id '%s' does not exist", id));
+      }
+      validateVersion(oldValue, context);
+      Meta oldMeta = oldValue.getResource().getMeta().get();
+      Meta meta = storedResource.getMeta().orElseGet(Meta::new);
+      meta.setCreated(oldMeta.getCreated().orElse(null));
+      meta.setLastModified(Instant.now());
+      storedResource.remove(AttributeNames.RFC7643.META);
+      storedResource.setMeta(meta);
+      StoredResource<T> newValue = new StoredResource<>(storedResource, oldValue.getVersion() + 1);
+      updateIndexes(id, oldValue.getResource(), newValue.getResource());
+      updatedResource.set(newValue.getResource());
+      return newValue;
+    });
+    return copy(updatedResource.get());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void deleteResource(String id, Context context)
+  {
+    resources.compute(id, (key, oldValue) -> {
+      if (oldValue == null)
+      {
+        throw new ResourceNotFoundException(String.format("Resource with id '%s' does not exist", id));
+      }
+      validateVersion(oldValue, context);
+      updateIndexes(id, oldValue.getResource(), null);
+      return null;
+    });
+  }
+
+  /**
+   * @return the number of stored resources
+   */
+  public int size()
+  {
+    return resources.size();
+  }
+
+  /**
+   * the SDK validates the "If-Match" header before the handler is called. It is validated again while the
+   * resource is locked so that an update that was executed in between is detected
+   */
+  private void validateVersion(StoredResource<T> storedResource, Context context)
+  {
+    boolean isETagSupported = getServiceProvider().getETagConfig().isSupported()
+                              && getResourceType().getFeatures().getETagFeature().isEnabled();
+    if (!isETagSupported || context == null || context.getUriInfos() == null)
+    {
+      return;
+    }
+    Optional<ETag> ifMatch = ETagHandler.getETagFromHeader(context.getUriInfos().getHttpHeaders(), false);
+    ETag currentVersion = storedResource.getResource().getMeta().flatMap(Meta::getVersion).orElse(null);
+    if (ifMatch.isPresent() && !ifMatch.get().equals(currentVersion))
+    {
+      throw new PreconditionFailedException("eTag status of resource has changed. Current value is: "
+                                            + Optional.ofNullable(currentVersion).map(ETag::getEntityTag).orElse(null));
+    }
+  }
+
+  /**
+   * determines the ids of the resources that might match the given filter by using the indexes
+   *
+   * @return the ids of the candidates or null if the filter cannot be resolved with the indexes
+   */
+  private Set<String> getCandidateIds(FilterNode filterNode)
+  {
+    if (filterNode instanceof AndExpressionNode)
+    {
+      AndExpressionNode andExpressionNode = (AndExpressionNode)filterNode;
+      Set<String> leftIds = getCandidateIds(andExpressionNode.getLeftNode());
+      Set<String> rightIds = getCandidateIds(andExpressionNode.getRightNode());
+      if (leftIds == null || rightIds == null)
+      {
+        return leftIds == null ? rightIds : leftIds;
+      }
+      Set<String> smallerIds = leftIds.size() <= rightIds.size() ? leftIds : rightIds;
+      Set<String> largerIds = smallerIds == leftIds ? rightIds : leftIds;
+      return smallerIds.stream().filter(largerIds::contains).collect(Collectors.toSet());
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      Set<String> leftIds = getCandidateIds(orExpressionNode.getLeftNode());
+      Set<String> rightIds = leftIds == null ? null : getCandidateIds(orExpressionNode.getRightNode());
+      if (rightIds == null)
+      {
+        return null;
+      }
+      Set<String> ids = new HashSet<>(leftIds);
+      ids.addAll(rightIds);
+      return ids;
+    }
+    else if (filterNode instanceof AttributeExpressionLeaf)
+    {
+      AttributeExpressionLeaf leaf = (AttributeExpressionLeaf)filterNode;
+      AttributeIndex attributeIndex = indexes.get(leaf.getSchemaAttribute().getFullResourceName());
+      return attributeIndex == null ? null : attributeIndex.getIds(leaf);
+    }
+    return null;
+  }
+
+  /**
+   * sorts the given resources by using the index of the sort attribute if present
+   */
+  private List<T> sort(List<T> matchingResources, SchemaAttribute sortBy, SortOrder sortOrder)
+  {
+    AttributeIndex attributeIndex = indexes.get(sortBy.getFullResourceName());
+    if (attributeIndex == null)
+    {
+      List<T> sortedResources = new ArrayList<>(matchingResources);
+      sortedResources.sort(new ResourceNodeComparator(sortBy, sortOrder));
+      return sortedResources;
+    }
+    Map<String, T> resourcesById = new HashMap<>();
+    matchingResources.forEach(resource -> resourcesById.put(resource.getId().get(), resource));
+    List<T> sortedResources = new ArrayList<>(matchingResources.size());
+    NavigableMap<Comparable, Set<String>> sortedIndex = SortOrder.DESCENDING.equals(sortOrder)
+      ? attributeIndex.getSortedIndex().descendingMap() : attributeIndex.getSortedIndex();
+    for ( Set<String> ids : sortedIndex.values() )
+    {
+      for ( String id : ids )
+      {
+        Optional.ofNullable(resourcesById.remove(id)).ifPresent(sortedResources::add);
+      }
+    }
+    // resources without a value are always placed at the end just like the ResourceNodeComparator does
+    matchingResources.stream()
+                     .filter(resource -> resourcesById.containsKey(resource.getId().get()))
+                     .forEach(sortedResources::add);
+    return sortedResources;
+  }
+
+  /**
+   * moves the ids of the given resource within the indexes from the old values to the new values
+   */
+  private void updateIndexes(String id, T oldResource, T newResource)
+  {
+    for ( AttributeIndex attributeIndex : indexes.values() )
+    {
+      Comparable oldKey = oldResource == null ? null : attributeIndex.getKey(oldResource);
+      Comparable newKey = newResource == null ? null : attributeIndex.getKey(newResource);
+      if (oldKey != null && !oldKey.equals(newKey))
+      {
+        attributeIndex.remove(oldKey, id);
+      }
+      if (newKey != null)
+      {
+        attributeIndex.add(newKey, id);
+      }
+    }
+  }
+
+  /**
+   * @return copies of the resources with the given ids. Ids of resources that do not exist are ignored
+   */
+  private List<T> getCopies(Collection<String> ids)
+  {
+    List<T> copies = new ArrayList<>(ids.size());
+    for ( String id : ids )
+    {
+      StoredResource<T> storedResource = resources.get(id);
+      if (storedResource != null)
+      {
+        copies.add(copy(storedResource.getResource()));
+      }
+    }
+    return copies;
+  }
+
+  /**
+   * creates a deep copy of the given resource so that the stored state cannot be modified from outside
+   */
+  private T copy(T resource)
+  {
+    return JsonHelper.copyResourceToObject(resource.deepCopy(), getType());
+  }
+
+  /**
+   * a stored resource together with its current version
+   */
+  private static class StoredResource<T extends ResourceNode>
+  {
+
+    /**
+     * the stored resource that is never passed to the outside
+     */
+    private final T resource;
+
+    /**
+     * the version that is incremented on each update
+     */
+    private final long version;
+
+    public StoredResource(T resource, long version)
+    {
+      this.resource = resource;
+      this.version = version;
+      Meta meta = resource.getMeta().orElseGet(Meta::new);
+      meta.setVersion(ETag.builder().weak(true).tag(String.valueOf(version)).build());
+      resource.remove(AttributeNames.RFC7643.META);
+      resource.setMeta(meta);
+    }
+
+    public T getResource()
+    {
+      return resource;
+    }
+
+    public long getVersion()
+    {
+      return version;
+    }
+  }
+
+  /**
+   * the index of a single attribute. The hash index resolves equality expressions and the sorted index resolves
+   * prefix and range expressions and the sorting by the attribute
+   */
+  private static class AttributeIndex
+  {
+
+    /**
+     * the uri of the main schema of the resource type. Attributes of extensions are located under the uri of
+     * their extension
+     */
+    private final String mainSchemaUri;
+
+    /**
+     * the indexed attribute
+     */
+    private final SchemaAttribute schemaAttribute;
+
+    /**
+     * the ids of the resources by the value of the attribute
+     */
+    private final Map<Comparable, Set<String>> hashIndex = new ConcurrentHashMap<>();
+
+    /**
+     * the ids of the resources ordered by the value of the attribute
+     */
+    private final ConcurrentSkipListMap<Comparable, Set<String>> sortedIndex = new ConcurrentSkipListMap<>();
+
+    public AttributeIndex(String mainSchemaUri, SchemaAttribute schemaAttribute)
+    {
+      this.mainSchemaUri = mainSchemaUri;
+      this.schemaAttribute = schemaAttribute;
+    }
+
+    public ConcurrentSkipListMap<Comparable, Set<String>> getSortedIndex()
+    {
+      return sortedIndex;
+    }
+
+    /**
+     * adds the id of a resource to the given value
+     */
+    public void add(Comparable key, String id)
+    {
+      hashIndex.compute(key, (k, ids) -> {
+        Set<String> keyIds = ids;
+        if (keyIds == null)
+        {
+          keyIds = ConcurrentHashMap.newKeySet();
+          sortedIndex.put(k, keyIds);
+        }
+        keyIds.add(id);
+        return keyIds;
+      });
+    }
+
+    /**
+     * removes the id of a resource from the given value
+     */
+    public void remove(Comparable key, String id)
+    {
+      hashIndex.computeIfPresent(key, (k, ids) -> {
+        ids.remove(id);
+        if (ids.isEmpty())
+        {
+          sortedIndex.remove(k, ids);
+          return null;
+        }
+        return ids;
+      });
+    }
+
+    /**
+     * resolves the given expression with this index
+     *
+     * @return the ids of the matching resources or null if the expression cannot be resolved with this index
+     */
+    public Set<String> getIds(AttributeExpressionLeaf leaf)
+    {
+      Comparable key = getKey(leaf);
+      if (key == null)
+      {
+        return null;
+      }
+      switch (leaf.getComparator())
+      {
+        case EQ:
+          return new HashSet<>(hashIndex.getOrDefault(key, Collections.emptySet()));
+        case SW:
+          if (!(key instanceof String))
+          {
+            return null;
+          }
+          return collectIds(sortedIndex.subMap(key, true, key + Character.toString(Character.MAX_VALUE), true));
+        case GT:
+          return collectIds(sortedIndex.tailMap(key, false));
+        case GE:
+          return collectIds(sortedIndex.tailMap(key, true));
+        case LT:
+          return collectIds(sortedIndex.headMap(key, false));
+        case LE:
+          return collectIds(sortedIndex.headMap(key, true));
+        default:
+          return null;
+      }
+    }
+
+    /**
+     * @return all ids within the given part of the sorted index
+     */
+    private Set<String> collectIds(Map<Comparable, Set<String>> subIndex)
+    {
+      Set<String> ids = new HashSet<>();
+      subIndex.values().forEach(ids::addAll);
+      return ids;
+    }
+
+    /**
+     * @return the normalized value of the indexed attribute within the given resource or null if not present
+     */
+    public Comparable getKey(ResourceNode resource)
+    {
+      JsonNode parentNode = resource;
+      if (!mainSchemaUri.equals(schemaAttribute.getResourceUri()))
+      {
+        parentNode = parentNode.get(schemaAttribute.getResourceUri());
+      }
+      if (parentNode != null && schemaAttribute.getParent() != null)
+      {
+        parentNode = parentNode.get(schemaAttribute.getParent().getName());
+      }
+      JsonNode valueNode = parentNode == null ? null : parentNode.get(schemaAttribute.getName());
+      if (valueNode == null || valueNode.isNull() || valueNode.isContainerNode())
+      {
+        return null;
+      }
+      switch (schemaAttribute.getType())
+      {
+        case INTEGER:
+        case DECIMAL:
+          return valueNode.decimalValue().stripTrailingZeros();
+        case BOOLEAN:
+          return valueNode.booleanValue();
+        case DATE_TIME:
+          return TimeUtils.parseDateTime(valueNode.textValue());
+        default:
+          return normalize(valueNode.asText());
+      }
+    }
+
+    /**
+     * @return the normalized comparison value of the given expression or null if it has no value
+     */
+    private Comparable getKey(AttributeExpressionLeaf leaf)
+    {
+      switch (schemaAttribute.getType())
+      {
+        case INTEGER:
+        case DECIMAL:
+          return leaf.getNumberValue().map(BigDecimal::stripTrailingZeros).orElse(null);
+        case BOOLEAN:
+          return leaf.getBooleanValue().orElse(null);
+        case DATE_TIME:
+          return leaf.getDateTime().orElse(null);
+        default:
+          return leaf.getStringValue().map(this::normalize).orElse(null);
+      }
+    }
+
+    /**
+     * string values of attributes that are not case-exact are indexed in lower-case
+     */
+    private String normalize(String value)
+    {
+      return schemaAttribute.isCaseExact() ? value : value.toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -170,7 +170,7 @@ public class ETagHandler
    * @param ifNot if set to true the If-None-Match header is extracted, the If-Match header if set to false
    * @return an empty of the specified entity tag
    */
-  protected static Optional<ETag> getETagFromHeader(Map<String, String> httpHeaders, boolean ifNot)
+  public static Optional<ETag> getETagFromHeader(Map<String, String> httpHeaders, boolean ifNot)
   {
     String ifMatchValue = httpHeaders.keySet()
                                      .stream()
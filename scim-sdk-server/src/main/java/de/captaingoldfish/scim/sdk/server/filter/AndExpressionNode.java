@@ -23,13 +23,35 @@ public final class AndExpressionNode extends FilterNode
 
   public AndExpressionNode(FilterNode leftNode, FilterNode rightNode)
   {
-    leftNode.setParent(this);
+    this(leftNode, rightNode, true);
+  }
+
+  /**
+   * @param adoptChildren if the given nodes should get this node as their parent. Rewritten filters must not
+   *          adopt the nodes of the original filter because these might be shared by concurrent requests
+   *          through the filter cache of the resource type
+   */
+  AndExpressionNode(FilterNode leftNode, FilterNode rightNode, boolean adoptChildren)
+  {
+    if (adoptChildren)
+    {
+      leftNode.setParent(this);
+      rightNode.setParent(this);
+    }
     this.leftNode = leftNode;
-    rightNode.setParent(this);
     this.rightNode = rightNode;
     setSubAttributeName(leftNode.getSubAttributeName());
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <R> R accept(FilterNodeVisitor<R> visitor)
+  {
+    return visitor.visitAndExpression(this);
+  }
+
   @Override
   public String toString()
   {
@@ -7,6 +7,7 @@ import java.util.Optional;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
 import org.apache.commons.lang3.StringUtils;
 
 import de.captaingoldfish.scim.sdk.common.constants.SchemaUris;
@@ -69,53 +70,59 @@ public final class AttributeExpressionLeaf extends FilterNode
 
   public AttributeExpressionLeaf(ScimFilterParser.AttributeExpressionContext context, ResourceType resourceType)
   {
-    ScimFilterParser.ValuePathContext attributeValuePath = getParentValuePath(context);
-    this.comparator = Comparator.valueOf(getCompareOperatorValue(context));
-    this.attributeName = new FilterAttributeName(attributeValuePath, context.attributePath());
-    String parentName = attributeName.getParentAttributeName();
-
-    if (attributeValuePath != null)
-    {
-      String subName = attributeValuePath.subattribute == null ? null : attributeValuePath.subattribute.getText();
-      if (subName != null)
-      {
-        String fullSubname = Optional.ofNullable(attributeName.getResourceUri()).map(s -> s + ":").orElse("")
-                             + StringUtils.stripToEmpty(parentName) + subName;
-        SchemaAttribute subAttributeSchema = RequestUtils.getSchemaAttributeByAttributeName(resourceType, fullSubname);
-        super.setSubAttributeName(subAttributeSchema == null ? null : subAttributeSchema.getName());
-      }
-    }
-
-    this.schemaAttribute = RequestUtils.getSchemaAttributeForFilter(resourceType, attributeName);
-    if (schemaAttribute.getType().equals(Type.BINARY))
-    {
-      throw new InvalidFilterException(String.format("binary types like '%s' are not suitable for filter expressions",
-                                                     schemaAttribute.getFullResourceName()));
-    }
-    this.compareValue = context.compareValue() == null ? null
-      : new CompareValue(context.compareValue(), schemaAttribute);
-    validateFilterComparator();
-    final Optional<String> attrSchemaId = schemaAttribute.getSchema().getId();
-    // meta attribute has no schema ID per RFC 7643 (3.1 Common Attributes)
-    this.mainSchemaNode = resourceType.getMainSchema().getId().equals(attrSchemaId)
-                          || SchemaUris.META.equals(attrSchemaId.orElse(null));
+    this(resourceType, Comparator.valueOf(getCompareOperatorValue(context)),
+         new FilterAttributeName(getParentValuePath(context), context.attributePath()),
+         Optional.ofNullable(getParentValuePath(context))
+                 .map(valuePath -> valuePath.subattribute)
+                 .map(Token::getText)
+                 .orElse(null),
+         Optional.ofNullable(context.compareValue()).map(CompareValue::getValueType).orElse(null),
+         Optional.ofNullable(context.compareValue()).map(ParseTree::getText).orElse(null));
   }
 
   public AttributeExpressionLeaf(ScimFilterParser.ValuePathContext context, ResourceType resourceType)
   {
-    this.comparator = Comparator.valueOf(getCompareOperatorValue(context));
+    this(resourceType, Comparator.valueOf(getCompareOperatorValue(context)),
+         context.compareOperator() != null && context.compareValue() != null
+           ? new FilterAttributeName(Optional.ofNullable(context.attributePath().resourceUri)
+                                             .map(Token::getText)
+                                             .orElse(null),
+                                     context.attributePath().attribute.getText(), context.subattribute.getText())
+           : new FilterAttributeName(context, context.attributePath()),
+         null, Optional.ofNullable(context.compareValue()).map(CompareValue::getValueType).orElse(null),
+         Optional.ofNullable(context.compareValue()).map(ParseTree::getText).orElse(null));
+  }
 
-    if (context.compareOperator() != null && context.compareValue() != null)
-    {
-      this.attributeName = new FilterAttributeName(Optional.ofNullable(context.attributePath().resourceUri)
-                                                           .map(Token::getText)
-                                                           .orElse(null),
-                                                   context.attributePath().attribute.getText(),
-                                                   context.subattribute.getText());
-    }
-    else
+  /**
+   * creates a leaf from the already tokenized parts of the expression
+   *
+   * @param resourceType the resource type that must define the referenced attribute
+   * @param comparator the comparator of the expression
+   * @param attributeName the name of the referenced attribute
+   * @param valuePathSubAttributeName if the expression is used within the brackets of a value path that
+   *          references a sub attribute after the brackets, the name of this sub attribute e.g. "value" for
+   *          "emails[type eq "work"].value"
+   * @param valueType the type of the compared value or null for the {@link Comparator#PR} comparator
+   * @param value the compared value as written in the expression or null for the {@link Comparator#PR}
+   *          comparator
+   */
+  public AttributeExpressionLeaf(ResourceType resourceType,
+                                 Comparator comparator,
+                                 FilterAttributeName attributeName,
+                                 String valuePathSubAttributeName,
+                                 CompareValue.ValueType valueType,
+                                 String value)
+  {
+    this.comparator = comparator;
+    this.attributeName = attributeName;
+    String parentName = attributeName.getParentAttributeName();
+
+    if (valuePathSubAttributeName != null)
     {
-      this.attributeName = new FilterAttributeName(context, context.attributePath());
+      String fullSubname = Optional.ofNullable(attributeName.getResourceUri()).map(s -> s + ":").orElse("")
+                           + StringUtils.stripToEmpty(parentName) + valuePathSubAttributeName;
+      SchemaAttribute subAttributeSchema = RequestUtils.getSchemaAttributeByAttributeName(resourceType, fullSubname);
+      super.setSubAttributeName(subAttributeSchema == null ? null : subAttributeSchema.getName());
     }
 
     this.schemaAttribute = RequestUtils.getSchemaAttributeForFilter(resourceType, attributeName);
@@ -124,8 +131,7 @@ public final class AttributeExpressionLeaf extends FilterNode
       throw new InvalidFilterException(String.format("binary types like '%s' are not suitable for filter expressions",
                                                      schemaAttribute.getFullResourceName()));
     }
-    this.compareValue = context.compareValue() == null ? null
-      : new CompareValue(context.compareValue(), schemaAttribute);
+    this.compareValue = valueType == null ? null : new CompareValue(valueType, value, schemaAttribute);
     validateFilterComparator();
     final Optional<String> attrSchemaId = schemaAttribute.getSchema().getId();
     // meta attribute has no schema ID per RFC 7643 (3.1 Common Attributes)
@@ -142,7 +148,7 @@ public final class AttributeExpressionLeaf extends FilterNode
    * checks if this expression was initiated from a {@link ScimFilterParser.ValuePathContext} and returns the
    * parent attribute path context if present
    */
-  private ScimFilterParser.ValuePathContext getParentValuePath(ParserRuleContext context)
+  private static ScimFilterParser.ValuePathContext getParentValuePath(ParserRuleContext context)
   {
     if (ScimFilterParser.ValuePathContext.class.isAssignableFrom(context.getClass()))
     {
@@ -218,7 +224,7 @@ public final class AttributeExpressionLeaf extends FilterNode
    * @param context the antlr context to extract the {@link Comparator} value
    * @return the {@link Comparator} value as string in upper case
    */
-  private String getCompareOperatorValue(ScimFilterParser.AttributeExpressionContext context)
+  private static String getCompareOperatorValue(ScimFilterParser.AttributeExpressionContext context)
   {
     if (context.compareOperator() == null)
     {
@@ -236,7 +242,7 @@ public final class AttributeExpressionLeaf extends FilterNode
    * @param context the antlr context to extract the {@link Comparator} value
    * @return the {@link Comparator} value as string in upper case
    */
-  private String getCompareOperatorValue(ScimFilterParser.ValuePathContext context)
+  private static String getCompareOperatorValue(ScimFilterParser.ValuePathContext context)
   {
     if (context.compareOperator() == null)
     {
@@ -340,6 +346,15 @@ public final class AttributeExpressionLeaf extends FilterNode
     return compareValue == null || compareValue.isNull();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <R> R accept(FilterNodeVisitor<R> visitor)
+  {
+    return visitor.visitAttributeExpression(this);
+  }
+
   @Override
   public String toString()
   {
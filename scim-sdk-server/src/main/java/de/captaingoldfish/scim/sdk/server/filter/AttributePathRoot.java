@@ -60,11 +60,28 @@ public class AttributePathRoot extends FilterNode
   }
 
   public AttributePathRoot(FilterNode child, ResourceType resourceType, ScimFilterParser.ValuePathContext ctx)
+  {
+    this(child, resourceType, new FilterAttributeName((ScimFilterParser.ValuePathContext)null, ctx.attributePath()),
+         ctx.subattribute == null ? null : ctx.subattribute.getText());
+  }
+
+  /**
+   * creates a value path from the already tokenized parts of the expression
+   *
+   * @param child the filter within the brackets of the value path or null
+   * @param resourceType the resource type that must define the referenced attribute
+   * @param filterAttributeName the name of the attribute in front of the brackets
+   * @param subAttributeName the name of the sub attribute behind the brackets or null
+   */
+  public AttributePathRoot(FilterNode child,
+                           ResourceType resourceType,
+                           FilterAttributeName filterAttributeName,
+                           String subAttributeName)
   {
     this.child = child;
-    this.filterAttributeName = new FilterAttributeName((ScimFilterParser.ValuePathContext)null, ctx.attributePath());
+    this.filterAttributeName = filterAttributeName;
     this.schemaAttribute = RequestUtils.getSchemaAttributeForFilter(resourceType, filterAttributeName);
-    setSubAttributeName(ctx.subattribute == null ? null : ctx.subattribute.getText());
+    setSubAttributeName(subAttributeName);
     if (getSubAttributeName() == null)
     {
       this.subAttribute = null;
@@ -145,6 +162,15 @@ public class AttributePathRoot extends FilterNode
     return filterAttributeName.getAttributeName();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <R> R accept(FilterNodeVisitor<R> visitor)
+  {
+    return visitor.visitAttributePath(this);
+  }
+
   @Override
   public String toString()
   {
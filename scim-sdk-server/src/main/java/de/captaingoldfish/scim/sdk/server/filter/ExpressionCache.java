@@ -0,0 +1,136 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+
+/**
+ * a bounded and thread-safe cache for parsed filter and patch path expressions. Parsing an expression with
+ * the ANTLR parser is expensive compared to the evaluation of the parsed tree and clients tend to send the
+ * same expressions again and again, e.g. the patch paths "members" or "emails[type eq "work"].value". <br>
+ * <br>
+ * the cached {@link FilterNode}s are shared between concurrent requests and must therefore not be modified
+ * after they were parsed. If the cache reaches its maximum size the least recently used expression is
+ * evicted.
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class ExpressionCache<T extends FilterNode>
+{
+
+  /**
+   * the maximum number of expressions that are kept in this cache
+   */
+  @Getter
+  private final int maxSize;
+
+  /**
+   * the parsed expressions mapped by their string representation in access order
+   */
+  private final Map<String, T> parsedExpressions;
+
+  /**
+   * the number of lookups that were answered from the cache
+   */
+  private final AtomicLong hitCount = new AtomicLong();
+
+  /**
+   * the number of lookups that had to parse the expression
+   */
+  private final AtomicLong missCount = new AtomicLong();
+
+  public ExpressionCache(int maxSize)
+  {
+    this.maxSize = maxSize;
+    this.parsedExpressions = new LinkedHashMap<String, T>(16, 0.75f, true)
+    {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, T> eldest)
+      {
+        return size() > ExpressionCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * gets the parsed expression from the cache or parses the expression with the given parser and adds the
+   * result to the cache. The parser is called outside the lock of this cache so that a slow parse does not
+   * block other threads. If the parser throws an exception nothing is cached
+   *
+   * @param expression the expression to resolve
+   * @param parser parses the expression if it is not yet cached
+   * @return the parsed expression
+   */
+  public T get(String expression, Function<String, T> parser)
+  {
+    if (maxSize <= 0)
+    {
+      missCount.incrementAndGet();
+      return parser.apply(expression);
+    }
+    T parsedExpression;
+    synchronized (parsedExpressions)
+    {
+      parsedExpression = parsedExpressions.get(expression);
+    }
+    if (parsedExpression != null)
+    {
+      hitCount.incrementAndGet();
+      return parsedExpression;
+    }
+    missCount.incrementAndGet();
+    parsedExpression = parser.apply(expression);
+    if (parsedExpression != null)
+    {
+      synchronized (parsedExpressions)
+      {
+        parsedExpressions.put(expression, parsedExpression);
+      }
+    }
+    return parsedExpression;
+  }
+
+  /**
+   * @return the number of lookups that were answered from the cache
+   */
+  public long getHitCount()
+  {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of lookups that had to parse the expression
+   */
+  public long getMissCount()
+  {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of expressions that are currently cached
+   */
+  public int size()
+  {
+    synchronized (parsedExpressions)
+    {
+      return parsedExpressions.size();
+    }
+  }
+
+  /**
+   * removes all cached expressions. This must be called if the schemas of the resource type were changed
+   */
+  public void clear()
+  {
+    synchronized (parsedExpressions)
+    {
+      parsedExpressions.clear();
+    }
+  }
+}
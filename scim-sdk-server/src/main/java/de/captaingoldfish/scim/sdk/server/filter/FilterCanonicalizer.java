@@ -0,0 +1,260 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.Comparator;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+
+
+/**
+ * converts a parsed filter into a normalized canonical string and a stable 64-bit fingerprint. Filters that
+ * only differ in their spelling have the same canonical form so that caches, metrics and logs can use it as
+ * key:
+ * <ul>
+ * <li>whitespaces, the letter case of the operators and redundant parentheses are ignored</li>
+ * <li>attribute names are always qualified with the uri of their schema e.g. "userName" becomes
+ * "urn:ietf:params:scim:schemas:core:2.0:User:userName"</li>
+ * <li>nested "and" and "or" expressions are flattened and their operands are sorted and deduplicated</li>
+ * <li>numbers are written without trailing zeros and strings are written with JSON escaping</li>
+ * </ul>
+ * The canonical form is meant as key and not to be parsed again. The fingerprint is the 64-bit FNV-1a hash of
+ * the UTF-8 encoded canonical form and is therefore stable between different JVMs and application restarts
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public final class FilterCanonicalizer
+{
+
+  /**
+   * the offset basis of the 64-bit FNV-1a hash
+   */
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  /**
+   * the prime of the 64-bit FNV-1a hash
+   */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private FilterCanonicalizer()
+  {}
+
+  /**
+   * creates the canonical form of the given filter
+   *
+   * @param filterNode the filter to normalize
+   * @return the canonical form of the filter or null if the filter is null
+   */
+  public static String toCanonicalString(FilterNode filterNode)
+  {
+    if (filterNode == null)
+    {
+      return null;
+    }
+    return canonicalize(filterNode, null, true);
+  }
+
+  /**
+   * creates the canonical shape of the given filter. The shape is the canonical form with all compared values
+   * replaced by "?" so that e.g. "id eq \"1\"" and "id eq \"2\"" have the same shape. The operands of the shape
+   * are not deduplicated so that e.g. "id eq \"1\" or id eq \"2\"" keeps both operands and does not get the
+   * same shape as "id eq \"1\"". The shape is meant to aggregate statistics of filters that are resolved in the
+   * same way by a resource handler
+   *
+   * @param filterNode the filter to normalize
+   * @return the canonical shape of the filter or null if the filter is null
+   */
+  public static String toCanonicalShape(FilterNode filterNode)
+  {
+    if (filterNode == null)
+    {
+      return null;
+    }
+    return canonicalize(filterNode, null, false);
+  }
+
+  /**
+   * creates the fingerprint of the given filter
+   *
+   * @param filterNode the filter to fingerprint
+   * @return the 64-bit FNV-1a hash of the canonical form of the filter or 0 if the filter is null
+   */
+  public static long getFingerprint(FilterNode filterNode)
+  {
+    if (filterNode == null)
+    {
+      return 0;
+    }
+    return getFingerprint(filterNode.getCanonicalForm());
+  }
+
+  /**
+   * creates the fingerprint of the given canonical form
+   *
+   * @param canonicalForm a canonical form that was created by {@link #toCanonicalString(FilterNode)}
+   * @return the 64-bit FNV-1a hash of the given string
+   */
+  public static long getFingerprint(String canonicalForm)
+  {
+    long hash = FNV_OFFSET_BASIS;
+    for ( byte b : canonicalForm.getBytes(StandardCharsets.UTF_8) )
+    {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * creates the canonical form of the given node
+   *
+   * @param filterNode the node to normalize
+   * @param valuePathAttribute the attribute of the nearest enclosing value path or null
+   * @param withValues false if the compared values should be replaced by "?"
+   */
+  private static String canonicalize(FilterNode filterNode, SchemaAttribute valuePathAttribute, boolean withValues)
+  {
+    if (filterNode instanceof AndExpressionNode)
+    {
+      return canonicalizeOperands(filterNode, true, valuePathAttribute, withValues, false);
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      return canonicalizeOperands(filterNode, false, valuePathAttribute, withValues, false);
+    }
+    else if (filterNode instanceof NotExpressionNode)
+    {
+      return "NOT (" + canonicalize(((NotExpressionNode)filterNode).getRightNode(), valuePathAttribute, withValues)
+             + ")";
+    }
+    else if (filterNode instanceof AttributeExpressionLeaf)
+    {
+      AttributeExpressionLeaf leaf = (AttributeExpressionLeaf)filterNode;
+      String canonicalForm = getAttributeName(leaf.getSchemaAttribute(), valuePathAttribute) + " "
+                             + leaf.getComparator().name();
+      return getValue(leaf).map(value -> canonicalForm + " " + (withValues ? value : "?")).orElse(canonicalForm);
+    }
+    AttributePathRoot attributePathRoot = (AttributePathRoot)filterNode;
+    StringBuilder canonicalForm = new StringBuilder(getAttributeName(attributePathRoot.getSchemaAttribute(),
+                                                                     valuePathAttribute));
+    if (attributePathRoot.getChild() != null)
+    {
+      canonicalForm.append('[')
+                   .append(canonicalize(attributePathRoot.getChild(),
+                                        attributePathRoot.getSchemaAttribute(),
+                                        withValues))
+                   .append(']');
+    }
+    if (attributePathRoot.getSubAttribute() != null)
+    {
+      canonicalForm.append('.').append(attributePathRoot.getSubAttribute().getName());
+    }
+    return canonicalForm.toString();
+  }
+
+  /**
+   * flattens the operands of the given "and" or "or" expression and joins their sorted canonical forms. The
+   * operands are only deduplicated if the values are kept because the masked operands of a shape would
+   * otherwise collapse into a single operand. The operands are collected iteratively so that long chains of
+   * expressions do not exhaust the stack
+   *
+   * @param isAnd true for an "and" expression, false for an "or" expression
+   * @param withValues false if the compared values should be replaced by "?"
+   * @param nested if the expression is an operand of another expression and must be put into parentheses
+   */
+  private static String canonicalizeOperands(FilterNode filterNode,
+                                             boolean isAnd,
+                                             SchemaAttribute valuePathAttribute,
+                                             boolean withValues,
+                                             boolean nested)
+  {
+    List<String> operands = new ArrayList<>();
+    Deque<FilterNode> nodes = new ArrayDeque<>();
+    nodes.push(filterNode);
+    while (!nodes.isEmpty())
+    {
+      FilterNode node = nodes.pop();
+      if (isAnd && node instanceof AndExpressionNode)
+      {
+        nodes.push(((AndExpressionNode)node).getRightNode());
+        nodes.push(((AndExpressionNode)node).getLeftNode());
+      }
+      else if (!isAnd && node instanceof OrExpressionNode)
+      {
+        nodes.push(((OrExpressionNode)node).getRightNode());
+        nodes.push(((OrExpressionNode)node).getLeftNode());
+      }
+      else if (node instanceof AndExpressionNode || node instanceof OrExpressionNode)
+      {
+        operands.add(canonicalizeOperands(node,
+                                          node instanceof AndExpressionNode,
+                                          valuePathAttribute,
+                                          withValues,
+                                          true));
+      }
+      else
+      {
+        operands.add(canonicalize(node, valuePathAttribute, withValues));
+      }
+    }
+    Collections.sort(operands);
+    if (withValues)
+    {
+      operands = operands.stream().distinct().collect(Collectors.toList());
+    }
+    if (operands.size() == 1)
+    {
+      return operands.get(0);
+    }
+    String canonicalForm = String.join(isAnd ? " AND " : " OR ", operands);
+    return nested ? "(" + canonicalForm + ")" : canonicalForm;
+  }
+
+  /**
+   * @return the name of the given attribute qualified with its schema uri or only the name of the attribute if
+   *         it is a sub attribute of the enclosing value path
+   */
+  private static String getAttributeName(SchemaAttribute schemaAttribute, SchemaAttribute valuePathAttribute)
+  {
+    if (valuePathAttribute != null && schemaAttribute.getParent() == valuePathAttribute)
+    {
+      return schemaAttribute.getName();
+    }
+    return schemaAttribute.getFullResourceName();
+  }
+
+  /**
+   * @return the normalized value of the given comparison or an empty for "pr" comparisons
+   */
+  private static Optional<String> getValue(AttributeExpressionLeaf leaf)
+  {
+    if (Comparator.PR.equals(leaf.getComparator()))
+    {
+      return Optional.empty();
+    }
+    if (leaf.isNull())
+    {
+      return Optional.of("null");
+    }
+    Optional<Boolean> booleanValue = leaf.getBooleanValue();
+    if (booleanValue.isPresent())
+    {
+      return booleanValue.map(String::valueOf);
+    }
+    Optional<String> numberValue = leaf.getNumberValue().map(number -> number.stripTrailingZeros().toPlainString());
+    if (numberValue.isPresent())
+    {
+      return numberValue;
+    }
+    return Optional.of(new TextNode(leaf.getValue()).toString());
+  }
+}
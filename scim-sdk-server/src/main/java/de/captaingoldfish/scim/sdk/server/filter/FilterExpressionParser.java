@@ -0,0 +1,808 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.Comparator;
+import de.captaingoldfish.scim.sdk.common.exceptions.BadRequestException;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.complex.FilterConfig;
+import de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler;
+import de.captaingoldfish.scim.sdk.server.filter.antlr.CompareValue;
+import de.captaingoldfish.scim.sdk.server.filter.antlr.FilterAttributeName;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+
+
+/**
+ * a hand-written recursive descent parser for the SCIM filter grammar "ScimFilter.g4". It builds exactly the
+ * same {@link FilterNode} trees as the ANTLR parser together with the
+ * {@link de.captaingoldfish.scim.sdk.server.filter.antlr.FilterVisitor} but avoids the adaptive prediction of
+ * the ANTLR parser. Chains of "and" and "or" expressions are parsed iteratively so that filters with
+ * thousands of operands like "id eq "1" or id eq "2" or ..." are parsed in linear time without exhausting the
+ * stack.<br>
+ * <br>
+ * the parser works in two phases. The first phase checks the syntax of the expression and builds a
+ * lightweight syntax tree. The second phase builds the {@link FilterNode}s from the syntax tree in the same
+ * order as the {@link de.captaingoldfish.scim.sdk.server.filter.antlr.FilterVisitor} so that semantic errors
+ * like unknown attributes are reported identically. If the first phase does not accept the expression, an
+ * empty result is returned and the expression must be parsed with the ANTLR parser instead. This keeps the
+ * error messages of invalid expressions identical to the ANTLR parser
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public final class FilterExpressionParser
+{
+
+  /**
+   * the resource type that must define the attributes of the expression
+   */
+  private final ResourceType resourceType;
+
+  /**
+   * the maximum filter depth that must not be exceeded
+   */
+  private final int maxFilterDepth;
+
+  /**
+   * the tokens of the expression
+   */
+  private final List<Token> tokens;
+
+  /**
+   * the index of the next token to read
+   */
+  private int position;
+
+  /**
+   * counts the filter-depth of the current filter expression in the same way as the
+   * {@link de.captaingoldfish.scim.sdk.server.filter.antlr.FilterVisitor}
+   */
+  private int filterDepth = 1;
+
+  private FilterExpressionParser(ResourceType resourceType, List<Token> tokens)
+  {
+    this.resourceType = Objects.requireNonNull(resourceType);
+    this.maxFilterDepth = Optional.ofNullable(resourceType.getResourceHandlerImpl())
+                                  .map(ResourceHandler::getServiceProvider)
+                                  .map(ServiceProvider::getFilterConfig)
+                                  .map(FilterConfig::getMaxFilterDepth)
+                                  .orElse(FilterConfig.DEFAULT_MAX_FILTER_DEPTH);
+    this.tokens = tokens;
+  }
+
+  /**
+   * parses the filter of a list request
+   *
+   * @param resourceType the resource type that must define the attributes of the filter
+   * @param filter the filter expression
+   * @return the parsed filter or an empty if the expression is not accepted by this parser and must be parsed
+   *         with the ANTLR parser
+   */
+  public static Optional<FilterNode> parseFilter(ResourceType resourceType, String filter)
+  {
+    List<Token> tokens = tokenize(filter);
+    if (tokens == null || tokens.isEmpty())
+    {
+      return Optional.empty();
+    }
+    FilterExpressionParser parser = new FilterExpressionParser(resourceType, tokens);
+    Expression expression;
+    try
+    {
+      expression = parser.parseOrExpression();
+      parser.expectEnd();
+    }
+    catch (UnsupportedExpressionException ex)
+    {
+      return Optional.empty();
+    }
+    return Optional.of(parser.build(expression, null));
+  }
+
+  /**
+   * parses the path of a patch operation e.g. "emails[type eq "work"].value"
+   *
+   * @param resourceType the resource type that must define the attributes of the path
+   * @param path the path expression
+   * @return the parsed path or an empty if the expression is not accepted by this parser and must be parsed
+   *         with the ANTLR parser
+   */
+  public static Optional<FilterNode> parseValuePath(ResourceType resourceType, String path)
+  {
+    List<Token> tokens = tokenize(path);
+    if (tokens == null || tokens.isEmpty())
+    {
+      return Optional.empty();
+    }
+    FilterExpressionParser parser = new FilterExpressionParser(resourceType, tokens);
+    Expression expression;
+    try
+    {
+      expression = parser.parseValuePath(parser.parseAttributePath(), true);
+      parser.expectEnd();
+    }
+    catch (UnsupportedExpressionException ex)
+    {
+      return Optional.empty();
+    }
+    return Optional.of(parser.build(expression, null));
+  }
+
+  /**
+   * filter: filter OR filter | andExpression
+   */
+  private Expression parseOrExpression()
+  {
+    Expression firstOperand = parseAndExpression();
+    if (!isNext(TokenType.OR))
+    {
+      return firstOperand;
+    }
+    List<Expression> operands = new ArrayList<>();
+    operands.add(firstOperand);
+    while (isNext(TokenType.OR))
+    {
+      position++;
+      operands.add(parseAndExpression());
+    }
+    return new ChainExpression(false, operands);
+  }
+
+  /**
+   * filter: filter AND filter | primaryExpression
+   */
+  private Expression parseAndExpression()
+  {
+    Expression firstOperand = parsePrimaryExpression();
+    if (!isNext(TokenType.AND))
+    {
+      return firstOperand;
+    }
+    List<Expression> operands = new ArrayList<>();
+    operands.add(firstOperand);
+    while (isNext(TokenType.AND))
+    {
+      position++;
+      operands.add(parsePrimaryExpression());
+    }
+    return new ChainExpression(true, operands);
+  }
+
+  /**
+   * filter: NOT '(' filter ')' | '(' filter ')' | valuePath | attributeExpression
+   */
+  private Expression parsePrimaryExpression()
+  {
+    if (isNext(TokenType.NOT))
+    {
+      position++;
+      expect(TokenType.LEFT_PARENTHESIS);
+      Expression operand = parseOrExpression();
+      expect(TokenType.RIGHT_PARENTHESIS);
+      return new NotExpression(operand);
+    }
+    if (isNext(TokenType.LEFT_PARENTHESIS))
+    {
+      position++;
+      Expression expression = parseOrExpression();
+      expect(TokenType.RIGHT_PARENTHESIS);
+      return expression;
+    }
+    AttributePath attributePath = parseAttributePath();
+    if (isNext(TokenType.COMPARATOR))
+    {
+      String comparator = tokens.get(position++).getText();
+      if (Comparator.PR.name().equalsIgnoreCase(comparator))
+      {
+        return new ComparisonExpression(attributePath, comparator, null, null);
+      }
+      Token value = parseCompareValue();
+      return new ComparisonExpression(attributePath, comparator, value.getValueType(), value.getText());
+    }
+    return parseValuePath(attributePath, false);
+  }
+
+  /**
+   * valuePath: attributePath ('[' filter ']' ('.' ATTRIBUTE_NAME (compareOperator compareValue)?)?)?
+   *
+   * @param attributePath the already parsed attribute path
+   * @param patchPath if a value path without brackets is allowed
+   */
+  private Expression parseValuePath(AttributePath attributePath, boolean patchPath)
+  {
+    if (!isNext(TokenType.LEFT_BRACKET))
+    {
+      if (!patchPath)
+      {
+        throw new UnsupportedExpressionException();
+      }
+      return new ValuePathExpression(attributePath, null, null, null, null, null);
+    }
+    position++;
+    Expression filter = parseOrExpression();
+    expect(TokenType.RIGHT_BRACKET);
+    if (!isNext(TokenType.DOT))
+    {
+      return new ValuePathExpression(attributePath, filter, null, null, null, null);
+    }
+    position++;
+    String subAttribute = expect(TokenType.ATTRIBUTE_NAME).getText();
+    if (!isNext(TokenType.COMPARATOR) || Comparator.PR.name().equalsIgnoreCase(tokens.get(position).getText()))
+    {
+      return new ValuePathExpression(attributePath, filter, subAttribute, null, null, null);
+    }
+    String comparator = tokens.get(position++).getText();
+    Token value = parseCompareValue();
+    return new ValuePathExpression(attributePath, filter, subAttribute, comparator, value.getValueType(),
+                                   value.getText());
+  }
+
+  /**
+   * attributePath: NAME_URI? ATTRIBUTE_NAME ('.' ATTRIBUTE_NAME)?
+   */
+  private AttributePath parseAttributePath()
+  {
+    String resourceUri = null;
+    if (isNext(TokenType.NAME_URI))
+    {
+      resourceUri = tokens.get(position++).getText();
+    }
+    String attributeName = expect(TokenType.ATTRIBUTE_NAME).getText();
+    String subAttributeName = null;
+    if (isNext(TokenType.DOT) && position + 1 < tokens.size()
+        && tokens.get(position + 1).getType() == TokenType.ATTRIBUTE_NAME)
+    {
+      subAttributeName = tokens.get(position + 1).getText();
+      position += 2;
+    }
+    return new AttributePath(resourceUri, attributeName, subAttributeName);
+  }
+
+  /**
+   * compareValue: 'false' | 'null' | 'true' | DECIMAL | TEXT
+   */
+  private Token parseCompareValue()
+  {
+    if (!isNext(TokenType.VALUE))
+    {
+      throw new UnsupportedExpressionException();
+    }
+    return tokens.get(position++);
+  }
+
+  /**
+   * @return true if the next token is of the given type
+   */
+  private boolean isNext(TokenType tokenType)
+  {
+    return position < tokens.size() && tokens.get(position).getType() == tokenType;
+  }
+
+  /**
+   * reads the next token that must be of the given type
+   */
+  private Token expect(TokenType tokenType)
+  {
+    if (!isNext(tokenType))
+    {
+      throw new UnsupportedExpressionException();
+    }
+    return tokens.get(position++);
+  }
+
+  /**
+   * makes sure that all tokens were read
+   */
+  private void expectEnd()
+  {
+    if (position != tokens.size())
+    {
+      throw new UnsupportedExpressionException();
+    }
+  }
+
+  /**
+   * builds the {@link FilterNode}s from the given syntax tree
+   *
+   * @param expression the expression to build
+   * @param valuePath the nearest value path that encloses the expression or null
+   */
+  private FilterNode build(Expression expression, ValuePathExpression valuePath)
+  {
+    if (expression instanceof ChainExpression)
+    {
+      return buildChain((ChainExpression)expression, valuePath);
+    }
+    else if (expression instanceof NotExpression)
+    {
+      return new NotExpressionNode(build(((NotExpression)expression).getOperand(), valuePath));
+    }
+    else if (expression instanceof ComparisonExpression)
+    {
+      ComparisonExpression comparison = (ComparisonExpression)expression;
+      AttributePath attributePath = comparison.getAttributePath();
+      FilterAttributeName attributeName = new FilterAttributeName(valuePath == null ? null
+        : valuePath.getAttributePath().getResourceUri(),
+                                                                  valuePath == null ? null
+                                                                    : valuePath.getAttributePath().getAttributeName(),
+                                                                  attributePath.getResourceUri(),
+                                                                  attributePath.getAttributeName(),
+                                                                  attributePath.getSubAttributeName());
+      return new AttributeExpressionLeaf(resourceType, Comparator.valueOf(comparison.getComparator().toUpperCase()),
+                                         attributeName, valuePath == null ? null : valuePath.getSubAttributeName(),
+                                         comparison.getValueType(), comparison.getValue());
+    }
+    return buildValuePath((ValuePathExpression)expression);
+  }
+
+  /**
+   * builds a chain of "and" or "or" expressions as left-deep tree like the ANTLR parser. The filter depth is
+   * counted for all nodes of the chain before the operands are built just like the
+   * {@link de.captaingoldfish.scim.sdk.server.filter.antlr.FilterVisitor} does
+   */
+  private FilterNode buildChain(ChainExpression chain, ValuePathExpression valuePath)
+  {
+    List<Expression> operands = chain.getOperands();
+    for ( int i = 1 ; i < operands.size() ; i++ )
+    {
+      if (maxFilterDepth < ++filterDepth)
+      {
+        throw new BadRequestException(String.format("Filter depth exceeded maximum allowed depth is '%s'",
+                                                    maxFilterDepth));
+      }
+    }
+    FilterNode filterNode = build(operands.get(0), valuePath);
+    for ( int i = 1 ; i < operands.size() ; i++ )
+    {
+      FilterNode rightNode = build(operands.get(i), valuePath);
+      filterNode = chain.isAnd() ? new AndExpressionNode(filterNode, rightNode)
+        : new OrExpressionNode(filterNode, rightNode);
+    }
+    return filterNode;
+  }
+
+  /**
+   * builds a value path with a bracket filter
+   */
+  private FilterNode buildValuePath(ValuePathExpression valuePath)
+  {
+    AttributePath attributePath = valuePath.getAttributePath();
+    FilterNode childNode = valuePath.getFilter() == null ? null : build(valuePath.getFilter(), valuePath);
+    // this if-case represents an illegal MsAzure filter-expression like:
+    // "emails[type eq \"work\"].value sw \"%s\""
+    // we are trying to fix it here by wrapping it into an AndExpressionNode
+    if (valuePath.getComparator() != null)
+    {
+      FilterAttributeName attributeName = new FilterAttributeName(attributePath.getResourceUri(),
+                                                                  attributePath.getAttributeName(),
+                                                                  valuePath.getSubAttributeName());
+      FilterNode outerExpression = new AttributeExpressionLeaf(resourceType,
+                                                               Comparator.valueOf(valuePath.getComparator()
+                                                                                           .toUpperCase()),
+                                                               attributeName, null, valuePath.getValueType(),
+                                                               valuePath.getValue());
+      return new AndExpressionNode(childNode, outerExpression);
+    }
+    FilterAttributeName attributeName = new FilterAttributeName(null, null, attributePath.getResourceUri(),
+                                                                attributePath.getAttributeName(),
+                                                                attributePath.getSubAttributeName());
+    return new AttributePathRoot(childNode, resourceType, attributeName, valuePath.getSubAttributeName());
+  }
+
+  /**
+   * splits the given expression into the tokens of the "ScimFilter.g4" grammar. Like the ANTLR lexer the
+   * longest matching token is chosen and on equal lengths the token that is defined first within the grammar
+   *
+   * @return the tokens or null if the expression contains characters that do not form a valid token
+   */
+  private static List<Token> tokenize(String expression)
+  {
+    List<Token> tokens = new ArrayList<>();
+    int index = 0;
+    while (index < expression.length())
+    {
+      char character = expression.charAt(index);
+      if (character == ' ' || character == '\b' || character == '\t' || character == '\n')
+      {
+        index++;
+        continue;
+      }
+      Token token = readToken(expression, index);
+      if (token == null)
+      {
+        return null;
+      }
+      tokens.add(token);
+      index += token.getText().length();
+    }
+    return tokens;
+  }
+
+  /**
+   * reads the token that starts at the given index
+   */
+  private static Token readToken(String expression, int start)
+  {
+    char character = expression.charAt(start);
+    switch (character)
+    {
+      case '(':
+        return new Token(TokenType.LEFT_PARENTHESIS, "(", null);
+      case ')':
+        return new Token(TokenType.RIGHT_PARENTHESIS, ")", null);
+      case '[':
+        return new Token(TokenType.LEFT_BRACKET, "[", null);
+      case ']':
+        return new Token(TokenType.RIGHT_BRACKET, "]", null);
+      case '.':
+        return new Token(TokenType.DOT, ".", null);
+      case '"':
+        return readText(expression, start);
+      default:
+        // continue below
+    }
+    if (character == '-' || isDigit(character))
+    {
+      return readDecimal(expression, start);
+    }
+    if (!isAlpha(character))
+    {
+      return null;
+    }
+    int end = start + 1;
+    while (end < expression.length() && isNameChar(expression.charAt(end)))
+    {
+      end++;
+    }
+    int nameUriEnd = getNameUriEnd(expression, start);
+    if (nameUriEnd > end)
+    {
+      return new Token(TokenType.NAME_URI, expression.substring(start, nameUriEnd), null);
+    }
+    String word = expression.substring(start, end);
+    switch (word)
+    {
+      case "false":
+        return new Token(TokenType.VALUE, word, CompareValue.ValueType.FALSE);
+      case "null":
+        return new Token(TokenType.VALUE, word, CompareValue.ValueType.NULL);
+      case "true":
+        return new Token(TokenType.VALUE, word, CompareValue.ValueType.TRUE);
+      default:
+        // continue below
+    }
+    switch (word.toUpperCase())
+    {
+      case "PR":
+      case "EQ":
+      case "NE":
+      case "CO":
+      case "SW":
+      case "EW":
+      case "GT":
+      case "GE":
+      case "LT":
+      case "LE":
+        return new Token(TokenType.COMPARATOR, word, null);
+      case "OR":
+        return new Token(TokenType.OR, word, null);
+      case "AND":
+        return new Token(TokenType.AND, word, null);
+      case "NOT":
+        return new Token(TokenType.NOT, word, null);
+      default:
+        return new Token(TokenType.ATTRIBUTE_NAME, word, null);
+    }
+  }
+
+  /**
+   * NAME_URI: ALPHA (NAMECHAR | ':' | '.')* NAMECHAR+ ':'
+   *
+   * @return the exclusive end index of the longest resource uri that starts at the given index or -1
+   */
+  private static int getNameUriEnd(String expression, int start)
+  {
+    int nameUriEnd = -1;
+    int index = start + 1;
+    while (index < expression.length())
+    {
+      char character = expression.charAt(index);
+      if (character == ':')
+      {
+        if (index - 1 > start && isNameChar(expression.charAt(index - 1)))
+        {
+          nameUriEnd = index + 1;
+        }
+      }
+      else if (character != '.' && !isNameChar(character))
+      {
+        break;
+      }
+      index++;
+    }
+    return nameUriEnd;
+  }
+
+  /**
+   * TEXT: '"' (ESC | SAFE_CODE_POINT)* '"'
+   */
+  private static Token readText(String expression, int start)
+  {
+    int index = start + 1;
+    while (index < expression.length())
+    {
+      char character = expression.charAt(index);
+      if (character == '"')
+      {
+        return new Token(TokenType.VALUE, expression.substring(start, index + 1), CompareValue.ValueType.STRING);
+      }
+      else if (character == '\\')
+      {
+        if (index + 1 >= expression.length())
+        {
+          return null;
+        }
+        char escapedCharacter = expression.charAt(index + 1);
+        if ("\"\\/bfnrt".indexOf(escapedCharacter) >= 0)
+        {
+          index += 2;
+        }
+        else if (escapedCharacter == 'u' && index + 5 < expression.length() && isHex(expression.charAt(index + 2))
+                 && isHex(expression.charAt(index + 3)) && isHex(expression.charAt(index + 4))
+                 && isHex(expression.charAt(index + 5)))
+        {
+          index += 6;
+        }
+        else
+        {
+          return null;
+        }
+      }
+      else if (character < 0x20)
+      {
+        return null;
+      }
+      else
+      {
+        index++;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * DECIMAL: '-'? INTEGER '.' DIGIT+ | '-'? INTEGER
+   */
+  private static Token readDecimal(String expression, int start)
+  {
+    int index = start;
+    if (expression.charAt(index) == '-')
+    {
+      index++;
+    }
+    if (index >= expression.length() || !isDigit(expression.charAt(index)))
+    {
+      return null;
+    }
+    if (expression.charAt(index++) != '0')
+    {
+      while (index < expression.length() && isDigit(expression.charAt(index)))
+      {
+        index++;
+      }
+    }
+    if (index + 1 < expression.length() && expression.charAt(index) == '.' && isDigit(expression.charAt(index + 1)))
+    {
+      index += 2;
+      while (index < expression.length() && isDigit(expression.charAt(index)))
+      {
+        index++;
+      }
+    }
+    return new Token(TokenType.VALUE, expression.substring(start, index), CompareValue.ValueType.NUMBER);
+  }
+
+  private static boolean isDigit(char character)
+  {
+    return character >= '0' && character <= '9';
+  }
+
+  private static boolean isAlpha(char character)
+  {
+    return character >= 'a' && character <= 'z' || character >= 'A' && character <= 'Z' || character == '_';
+  }
+
+  private static boolean isNameChar(char character)
+  {
+    return isAlpha(character) || isDigit(character);
+  }
+
+  private static boolean isHex(char character)
+  {
+    return isDigit(character) || character >= 'a' && character <= 'f' || character >= 'A' && character <= 'F';
+  }
+
+  /**
+   * the token types of the grammar. The literal values 'false', 'null', 'true', DECIMAL and TEXT are combined
+   * into a single type just like the comparison operators
+   */
+  private enum TokenType
+  {
+    LEFT_PARENTHESIS,
+    RIGHT_PARENTHESIS,
+    LEFT_BRACKET,
+    RIGHT_BRACKET,
+    DOT,
+    COMPARATOR,
+    OR,
+    AND,
+    NOT,
+    VALUE,
+    ATTRIBUTE_NAME,
+    NAME_URI
+  }
+
+  /**
+   * a single token of the expression
+   */
+  @lombok.Value
+  private static class Token
+  {
+
+    /**
+     * the type of the token
+     */
+    private final TokenType type;
+
+    /**
+     * the text of the token as written in the expression
+     */
+    private final String text;
+
+    /**
+     * the type of the value if this token is a compare value
+     */
+    private final CompareValue.ValueType valueType;
+  }
+
+  /**
+   * signals that the expression is not accepted by this parser
+   */
+  private static class UnsupportedExpressionException extends RuntimeException
+  {
+
+    public UnsupportedExpressionException()
+    {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * a node of the syntax tree
+   */
+  private interface Expression
+  {}
+
+  /**
+   * a chain of "and" or "or" expressions that is evaluated from left to right
+   */
+  @lombok.Value
+  private static class ChainExpression implements Expression
+  {
+
+    /**
+     * true for an "and" chain, false for an "or" chain
+     */
+    private final boolean and;
+
+    /**
+     * the operands of the chain
+     */
+    private final List<Expression> operands;
+  }
+
+  /**
+   * a negated expression
+   */
+  @lombok.Value
+  private static class NotExpression implements Expression
+  {
+
+    /**
+     * the negated expression
+     */
+    private final Expression operand;
+  }
+
+  /**
+   * attributeExpression: attributePath compareOperator compareValue | attributePath PR
+   */
+  @lombok.Value
+  private static class ComparisonExpression implements Expression
+  {
+
+    /**
+     * the compared attribute
+     */
+    private final AttributePath attributePath;
+
+    /**
+     * the comparator as written in the expression
+     */
+    private final String comparator;
+
+    /**
+     * the type of the compared value or null for "pr"
+     */
+    private final CompareValue.ValueType valueType;
+
+    /**
+     * the compared value as written in the expression or null for "pr"
+     */
+    private final String value;
+  }
+
+  /**
+   * valuePath: attributePath ('[' filter ']' ('.' ATTRIBUTE_NAME (compareOperator compareValue)?)?)?
+   */
+  @lombok.Value
+  private static class ValuePathExpression implements Expression
+  {
+
+    /**
+     * the attribute in front of the brackets
+     */
+    private final AttributePath attributePath;
+
+    /**
+     * the filter within the brackets or null
+     */
+    private final Expression filter;
+
+    /**
+     * the sub attribute behind the brackets or null
+     */
+    private final String subAttributeName;
+
+    /**
+     * the comparator behind the sub attribute or null
+     */
+    private final String comparator;
+
+    /**
+     * the type of the value behind the comparator or null
+     */
+    private final CompareValue.ValueType valueType;
+
+    /**
+     * the value behind the comparator or null
+     */
+    private final String value;
+  }
+
+  /**
+   * attributePath: NAME_URI? ATTRIBUTE_NAME ('.' ATTRIBUTE_NAME)?
+   */
+  @lombok.Value
+  private static class AttributePath
+  {
+
+    /**
+     * the resource uri token including its trailing colon or null
+     */
+    private final String resourceUri;
+
+    /**
+     * the name of the attribute
+     */
+    private final String attributeName;
+
+    /**
+     * the name of the sub attribute or null
+     */
+    private final String subAttributeName;
+  }
+}
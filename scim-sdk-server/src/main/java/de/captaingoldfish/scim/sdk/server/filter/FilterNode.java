@@ -34,4 +34,34 @@ public abstract class FilterNode
   {
     this.subAttributeName = subAttributeName;
   }
+
+  /**
+   * @return the normalized canonical form of this filter that is equal for all spellings of the same filter
+   * @see FilterCanonicalizer#toCanonicalString(FilterNode)
+   */
+  public String getCanonicalForm()
+  {
+    return FilterCanonicalizer.toCanonicalString(this);
+  }
+
+  /**
+   * @return the stable 64-bit fingerprint of the canonical form of this filter
+   * @see FilterCanonicalizer#getFingerprint(FilterNode)
+   */
+  public long getFingerprint()
+  {
+    return FilterCanonicalizer.getFingerprint(getCanonicalForm());
+  }
+
+  /**
+   * passes this node to the matching method of the given visitor. The nodes of the SDK override this method.
+   * Custom nodes that do not override it are passed to {@link FilterNodeVisitor#visitNode(FilterNode)}
+   *
+   * @param visitor the visitor that processes this node
+   * @return the result of the visitor
+   */
+  public <R> R accept(FilterNodeVisitor<R> visitor)
+  {
+    return visitor.visitNode(this);
+  }
 }
@@ -0,0 +1,56 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import de.captaingoldfish.scim.sdk.common.exceptions.NotImplementedException;
+
+
+/**
+ * a visitor for the tree of a parsed filter expression. Implementations can translate a filter into the query
+ * language of their data store without checking the concrete types of the nodes. The visitor is passed to
+ * {@link FilterNode#accept(FilterNodeVisitor)} of the root node and must descend into the children of a node
+ * by itself
+ *
+ * @param <R> the result type of the visitor e.g. a query expression
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public interface FilterNodeVisitor<R>
+{
+
+  /**
+   * visits an expression like "userName eq \"chuck\" and nickName pr"
+   */
+  R visitAndExpression(AndExpressionNode andExpressionNode);
+
+  /**
+   * visits an expression like "userName eq \"chuck\" or nickName pr"
+   */
+  R visitOrExpression(OrExpressionNode orExpressionNode);
+
+  /**
+   * visits an expression like "not (userName eq \"chuck\")"
+   */
+  R visitNotExpression(NotExpressionNode notExpressionNode);
+
+  /**
+   * visits a comparison like "userName eq \"chuck\""
+   */
+  R visitAttributeExpression(AttributeExpressionLeaf attributeExpressionLeaf);
+
+  /**
+   * visits a value path like "emails[type eq \"work\" and value co \"@\"]"
+   */
+  R visitAttributePath(AttributePathRoot attributePathRoot);
+
+  /**
+   * visits a custom node that is not part of the SDK and does not override
+   * {@link FilterNode#accept(FilterNodeVisitor)}. Visitors that can handle such nodes must override this method
+   *
+   * @throws NotImplementedException if the visitor does not support custom nodes
+   */
+  default R visitNode(FilterNode filterNode)
+  {
+    throw new NotImplementedException(String.format("Filter node of type '%s' is not supported by '%s'",
+                                                    filterNode.getClass().getName(),
+                                                    getClass().getName()));
+  }
+}
@@ -0,0 +1,280 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * rewrites a filter expression before it is evaluated in memory so that cheap and selective expressions are
+ * evaluated first and evaluations can be skipped early. The rewritten filter matches exactly the same
+ * resources as the original filter:
+ * <ul>
+ * <li>nested "and" and "or" expressions are flattened and their operands are reordered by their estimated
+ * costs</li>
+ * <li>duplicate operands are removed</li>
+ * <li>double negations are removed</li>
+ * <li>operands like "x and not x" or "x or not x" are folded into constants</li>
+ * </ul>
+ * The costs are estimated by the comparator of an expression. Equality checks are cheapest followed by "pr",
+ * range checks and the string matching comparators. Expressions on multivalued attributes and value paths are
+ * evaluated last because they must iterate over all values of an attribute. The nodes of the original filter
+ * are reused within the rewritten filter but keep their original parents because the original filter might be
+ * shared with other requests by the filter cache of the resource type
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public final class FilterOptimizer
+{
+
+  /**
+   * the cost factor for expressions that must iterate over the values of a multivalued attribute
+   */
+  private static final int MULTIVALUED_COST_FACTOR = 10;
+
+  /**
+   * the additional costs of a value path expression
+   */
+  private static final int ATTRIBUTE_PATH_COSTS = 100;
+
+  private FilterOptimizer()
+  {}
+
+  /**
+   * rewrites the given filter
+   *
+   * @param filterNode the filter to rewrite
+   * @return the rewritten filter
+   */
+  public static OptimizedFilter optimize(FilterNode filterNode)
+  {
+    if (filterNode == null)
+    {
+      return new OptimizedFilter(null, true);
+    }
+    return simplify(filterNode);
+  }
+
+  /**
+   * simplifies the given node recursively
+   */
+  private static OptimizedFilter simplify(FilterNode filterNode)
+  {
+    if (filterNode instanceof NotExpressionNode)
+    {
+      NotExpressionNode notExpressionNode = (NotExpressionNode)filterNode;
+      OptimizedFilter child = simplify(notExpressionNode.getRightNode());
+      if (child.isConstant())
+      {
+        return new OptimizedFilter(null, !child.isMatchingAll());
+      }
+      if (child.getFilterNode() instanceof NotExpressionNode)
+      {
+        return new OptimizedFilter(((NotExpressionNode)child.getFilterNode()).getRightNode(), false);
+      }
+      if (child.getFilterNode() == notExpressionNode.getRightNode())
+      {
+        return new OptimizedFilter(notExpressionNode, false);
+      }
+      return new OptimizedFilter(new NotExpressionNode(child.getFilterNode(), false), false);
+    }
+    else if (filterNode instanceof AndExpressionNode)
+    {
+      AndExpressionNode andExpressionNode = (AndExpressionNode)filterNode;
+      return simplifyOperands(andExpressionNode.getLeftNode(), andExpressionNode.getRightNode(), true);
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      return simplifyOperands(orExpressionNode.getLeftNode(), orExpressionNode.getRightNode(), false);
+    }
+    return new OptimizedFilter(filterNode, false);
+  }
+
+  /**
+   * simplifies the operands of an "and" or an "or" expression and rebuilds the expression with the operands
+   * ordered by their costs
+   *
+   * @param isAnd true for an "and" expression, false for an "or" expression
+   */
+  private static OptimizedFilter simplifyOperands(FilterNode leftNode, FilterNode rightNode, boolean isAnd)
+  {
+    // the value that decides the result of the whole expression: false for "and", true for "or"
+    final boolean dominatingValue = !isAnd;
+    List<FilterNode> operands = new ArrayList<>();
+    for ( FilterNode node : new FilterNode[]{leftNode, rightNode} )
+    {
+      OptimizedFilter operand = simplify(node);
+      if (operand.isConstant())
+      {
+        if (operand.isMatchingAll() == dominatingValue)
+        {
+          return new OptimizedFilter(null, dominatingValue);
+        }
+        continue;
+      }
+      for ( FilterNode flattenedOperand : flatten(operand.getFilterNode(), isAnd) )
+      {
+        if (operands.contains(flattenedOperand))
+        {
+          continue;
+        }
+        if (operands.stream().anyMatch(existingOperand -> isComplement(existingOperand, flattenedOperand)))
+        {
+          return new OptimizedFilter(null, dominatingValue);
+        }
+        operands.add(flattenedOperand);
+      }
+    }
+    if (operands.isEmpty())
+    {
+      return new OptimizedFilter(null, !dominatingValue);
+    }
+    operands.sort(Comparator.comparingInt(FilterOptimizer::getCosts));
+    FilterNode result = operands.get(0);
+    for ( int i = 1 ; i < operands.size() ; i++ )
+    {
+      result = isAnd ? new AndExpressionNode(result, operands.get(i), false)
+        : new OrExpressionNode(result, operands.get(i), false);
+    }
+    return new OptimizedFilter(result, false);
+  }
+
+  /**
+   * @return the operands of the given node if it is an expression of the same type or the node itself
+   */
+  private static List<FilterNode> flatten(FilterNode filterNode, boolean isAnd)
+  {
+    List<FilterNode> operands = new ArrayList<>();
+    if (isAnd && filterNode instanceof AndExpressionNode)
+    {
+      AndExpressionNode andExpressionNode = (AndExpressionNode)filterNode;
+      operands.addAll(flatten(andExpressionNode.getLeftNode(), true));
+      operands.addAll(flatten(andExpressionNode.getRightNode(), true));
+    }
+    else if (!isAnd && filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      operands.addAll(flatten(orExpressionNode.getLeftNode(), false));
+      operands.addAll(flatten(orExpressionNode.getRightNode(), false));
+    }
+    else
+    {
+      operands.add(filterNode);
+    }
+    return operands;
+  }
+
+  /**
+   * @return true if one of the nodes is the negation of the other node
+   */
+  private static boolean isComplement(FilterNode firstNode, FilterNode secondNode)
+  {
+    return firstNode instanceof NotExpressionNode && ((NotExpressionNode)firstNode).getRightNode().equals(secondNode)
+           || secondNode instanceof NotExpressionNode
+              && ((NotExpressionNode)secondNode).getRightNode().equals(firstNode);
+  }
+
+  /**
+   * estimates the costs of evaluating the given node on a single resource
+   */
+  private static int getCosts(FilterNode filterNode)
+  {
+    if (filterNode instanceof AndExpressionNode)
+    {
+      AndExpressionNode andExpressionNode = (AndExpressionNode)filterNode;
+      return getCosts(andExpressionNode.getLeftNode()) + getCosts(andExpressionNode.getRightNode());
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      return getCosts(orExpressionNode.getLeftNode()) + getCosts(orExpressionNode.getRightNode());
+    }
+    else if (filterNode instanceof NotExpressionNode)
+    {
+      return getCosts(((NotExpressionNode)filterNode).getRightNode());
+    }
+    else if (filterNode instanceof AttributeExpressionLeaf)
+    {
+      AttributeExpressionLeaf leaf = (AttributeExpressionLeaf)filterNode;
+      SchemaAttribute schemaAttribute = leaf.getSchemaAttribute();
+      boolean isMultivalued = schemaAttribute.isMultiValued()
+                              || schemaAttribute.getParent() != null && schemaAttribute.getParent().isMultiValued();
+      return getComparatorCosts(leaf) * (isMultivalued ? MULTIVALUED_COST_FACTOR : 1);
+    }
+    else if (filterNode instanceof AttributePathRoot && ((AttributePathRoot)filterNode).getChild() != null)
+    {
+      return ATTRIBUTE_PATH_COSTS + getCosts(((AttributePathRoot)filterNode).getChild()) * MULTIVALUED_COST_FACTOR;
+    }
+    return ATTRIBUTE_PATH_COSTS;
+  }
+
+  /**
+   * estimates the costs of the comparator of the given leaf. Equality checks are cheap and usually very
+   * selective. "pr" and "ne" are cheap but not selective. Range checks might need to parse dates and the string
+   * matching comparators must scan the values
+   */
+  private static int getComparatorCosts(AttributeExpressionLeaf leaf)
+  {
+    switch (leaf.getComparator())
+    {
+      case EQ:
+        return 1;
+      case PR:
+        return 2;
+      case NE:
+        return 3;
+      case GT:
+      case GE:
+      case LT:
+      case LE:
+        return 4;
+      case SW:
+      case EW:
+        return 5;
+      default:
+        return 6;
+    }
+  }
+
+  /**
+   * the result of the optimization
+   */
+  @Getter
+  @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+  public static class OptimizedFilter
+  {
+
+    /**
+     * the rewritten filter or null if the filter was folded into a constant
+     */
+    private final FilterNode filterNode;
+
+    /**
+     * only relevant if {@link #filterNode} is null. Tells if the filter matches all resources or no resource
+     */
+    private final boolean matchingAll;
+
+    /**
+     * @return true if the filter does not depend on the evaluated resource
+     */
+    public boolean isConstant()
+    {
+      return filterNode == null;
+    }
+
+    /**
+     * @return true if the filter does not match any resource
+     */
+    public boolean isMatchingNone()
+    {
+      return filterNode == null && !matchingAll;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.util.function.Predicate;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * splits a filter expression into a part that can be pushed down into the data store of a resource handler
+ * and a residual part that must be evaluated in memory on the candidates that are returned by the data store.
+ * A resource matches the original filter if it matches the pushdown filter and the residual filter. The split
+ * follows these rules:
+ * <ul>
+ * <li>a node that can be pushed down as a whole is pushed down completely</li>
+ * <li>the operands of an "and" expression are split independently</li>
+ * <li>an "or" expression whose operands can at least partially be pushed down is pushed down as the "or" of
+ * the pushed down parts. This selects a superset of the matching resources so the complete "or" expression
+ * stays in the residual filter</li>
+ * <li>all other nodes stay completely in the residual filter</li>
+ * </ul>
+ * The nodes of the original filter are reused within the split filters. The reused nodes keep their original
+ * parents because the original filter might be shared with other requests by the filter cache of the resource
+ * type
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class FilterPushdown
+{
+
+  /**
+   * the part of the filter that can be evaluated by the data store or null if nothing can be pushed down
+   */
+  private final FilterNode pushdownFilter;
+
+  /**
+   * the part of the filter that must be evaluated in memory or null if the pushdown filter is exact
+   */
+  private final FilterNode residualFilter;
+
+  /**
+   * splits the given filter
+   *
+   * @param filterNode the filter to split
+   * @param isPushdownable tells if a node of the filter can be evaluated by the data store as a whole
+   * @return the split filter
+   */
+  public static FilterPushdown split(FilterNode filterNode, Predicate<FilterNode> isPushdownable)
+  {
+    if (filterNode == null)
+    {
+      return new FilterPushdown(null, null);
+    }
+    return filterNode.accept(new PushdownSplitter(isPushdownable));
+  }
+
+  /**
+   * @return true if the complete filter can be evaluated by the data store
+   */
+  public boolean isComplete()
+  {
+    return residualFilter == null;
+  }
+
+  /**
+   * splits the visited nodes
+   */
+  @RequiredArgsConstructor
+  private static class PushdownSplitter implements FilterNodeVisitor<FilterPushdown>
+  {
+
+    /**
+     * tells if a node can be evaluated by the data store as a whole
+     */
+    private final Predicate<FilterNode> isPushdownable;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FilterPushdown visitAndExpression(AndExpressionNode andExpressionNode)
+    {
+      if (isPushdownable.test(andExpressionNode))
+      {
+        return new FilterPushdown(andExpressionNode, null);
+      }
+      FilterPushdown left = andExpressionNode.getLeftNode().accept(this);
+      FilterPushdown right = andExpressionNode.getRightNode().accept(this);
+      return new FilterPushdown(and(left.getPushdownFilter(), right.getPushdownFilter()),
+                                and(left.getResidualFilter(), right.getResidualFilter()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FilterPushdown visitOrExpression(OrExpressionNode orExpressionNode)
+    {
+      if (isPushdownable.test(orExpressionNode))
+      {
+        return new FilterPushdown(orExpressionNode, null);
+      }
+      FilterPushdown left = orExpressionNode.getLeftNode().accept(this);
+      FilterPushdown right = orExpressionNode.getRightNode().accept(this);
+      if (left.getPushdownFilter() == null || right.getPushdownFilter() == null)
+      {
+        return new FilterPushdown(null, orExpressionNode);
+      }
+      return new FilterPushdown(new OrExpressionNode(left.getPushdownFilter(), right.getPushdownFilter(), false),
+                                orExpressionNode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FilterPushdown visitNotExpression(NotExpressionNode notExpressionNode)
+    {
+      return visitNode(notExpressionNode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FilterPushdown visitAttributeExpression(AttributeExpressionLeaf attributeExpressionLeaf)
+    {
+      return visitNode(attributeExpressionLeaf);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FilterPushdown visitAttributePath(AttributePathRoot attributePathRoot)
+    {
+      return visitNode(attributePathRoot);
+    }
+
+    /**
+     * pushes the node down as a whole or keeps it in the residual filter. Custom nodes are handled the same way
+     */
+    @Override
+    public FilterPushdown visitNode(FilterNode filterNode)
+    {
+      if (isPushdownable.test(filterNode))
+      {
+        return new FilterPushdown(filterNode, null);
+      }
+      return new FilterPushdown(null, filterNode);
+    }
+
+    /**
+     * combines the given nodes with an "and" expression if both are present
+     */
+    private FilterNode and(FilterNode leftNode, FilterNode rightNode)
+    {
+      if (leftNode == null)
+      {
+        return rightNode;
+      }
+      if (rightNode == null)
+      {
+        return leftNode;
+      }
+      return new AndExpressionNode(leftNode, rightNode, false);
+    }
+  }
+}
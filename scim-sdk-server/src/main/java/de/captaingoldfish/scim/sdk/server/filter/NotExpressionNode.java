@@ -23,11 +23,33 @@ public final class NotExpressionNode extends FilterNode
 
   public NotExpressionNode(FilterNode rightNode)
   {
-    rightNode.setParent(this);
+    this(rightNode, true);
+  }
+
+  /**
+   * @param adoptChild if the given node should get this node as its parent. Rewritten filters must not adopt
+   *          the nodes of the original filter because these might be shared by concurrent requests through the
+   *          filter cache of the resource type
+   */
+  NotExpressionNode(FilterNode rightNode, boolean adoptChild)
+  {
+    if (adoptChild)
+    {
+      rightNode.setParent(this);
+    }
     this.rightNode = rightNode;
     setSubAttributeName(rightNode.getSubAttributeName());
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <R> R accept(FilterNodeVisitor<R> visitor)
+  {
+    return visitor.visitNotExpression(this);
+  }
+
   @Override
   public String toString()
   {
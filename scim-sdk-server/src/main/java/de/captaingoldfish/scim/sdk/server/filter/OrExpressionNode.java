@@ -23,13 +23,35 @@ public final class OrExpressionNode extends FilterNode
 
   public OrExpressionNode(FilterNode leftNode, FilterNode rightNode)
   {
-    leftNode.setParent(this);
+    this(leftNode, rightNode, true);
+  }
+
+  /**
+   * @param adoptChildren if the given nodes should get this node as their parent. Rewritten filters must not
+   *          adopt the nodes of the original filter because these might be shared by concurrent requests
+   *          through the filter cache of the resource type
+   */
+  OrExpressionNode(FilterNode leftNode, FilterNode rightNode, boolean adoptChildren)
+  {
+    if (adoptChildren)
+    {
+      leftNode.setParent(this);
+      rightNode.setParent(this);
+    }
     this.leftNode = leftNode;
-    rightNode.setParent(this);
     this.rightNode = rightNode;
     setSubAttributeName(leftNode.getSubAttributeName());
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <R> R accept(FilterNodeVisitor<R> visitor)
+  {
+    return visitor.visitOrExpression(this);
+  }
+
   @Override
   public String toString()
   {
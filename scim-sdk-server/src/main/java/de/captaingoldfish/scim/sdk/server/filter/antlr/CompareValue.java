@@ -24,17 +24,17 @@ import lombok.extern.slf4j.Slf4j;
  * was parsed and to get the value in the desired type
  */
 @Slf4j
-@EqualsAndHashCode(exclude = "context")
+@EqualsAndHashCode(exclude = "valueType")
 public class CompareValue
 {
 
   /**
-   * the antlr context node that is used to get the value-data of the expression
+   * the type of the value as it was written in the filter expression
    */
-  private ScimFilterParser.CompareValueContext context;
+  private final ValueType valueType;
 
   /**
-   * this is used as display variable for the {@link #toString()} method. It holds the value of the context
+   * this is used as display variable for the {@link #toString()} method. It holds the value of the expression
    */
   @Getter
   private String value;
@@ -45,20 +45,55 @@ public class CompareValue
    */
   public CompareValue(ScimFilterParser.CompareValueContext compareValueContext, SchemaAttribute schemaAttribute)
   {
-    this.context = compareValueContext;
-    if (compareValueContext.isNull != null)
+    this(getValueType(compareValueContext), compareValueContext.getText(), schemaAttribute);
+  }
+
+  /**
+   * @param valueType the type of the value as it was written in the filter expression
+   * @param text the value as it was written in the filter expression e.g. a string value with its quotes
+   * @param schemaAttribute the attributes meta information
+   */
+  public CompareValue(ValueType valueType, String text, SchemaAttribute schemaAttribute)
+  {
+    this.valueType = valueType;
+    if (valueType == ValueType.NULL)
     {
       this.value = null;
     }
     else
     {
-      this.value = JavaStringUnescaper.unescapeJava(compareValueContext.getText())
-                                      .replaceFirst("^\"", "")
-                                      .replaceFirst("\"$", "");
+      this.value = JavaStringUnescaper.unescapeJava(text).replaceFirst("^\"", "").replaceFirst("\"$", "");
     }
     validateCompareValue(schemaAttribute);
   }
 
+  /**
+   * determines the type of the value from the given antlr context
+   *
+   * @param compareValueContext the antlr context of the value
+   * @return the type of the value
+   */
+  public static ValueType getValueType(ScimFilterParser.CompareValueContext compareValueContext)
+  {
+    if (compareValueContext.isFalse != null)
+    {
+      return ValueType.FALSE;
+    }
+    else if (compareValueContext.isNull != null)
+    {
+      return ValueType.NULL;
+    }
+    else if (compareValueContext.isTrue != null)
+    {
+      return ValueType.TRUE;
+    }
+    else if (compareValueContext.number != null)
+    {
+      return ValueType.NUMBER;
+    }
+    return ValueType.STRING;
+  }
+
   /**
    * this method will verify that the given comparison value does apply to the attributes data type
    *
@@ -108,7 +143,7 @@ public class CompareValue
    */
   private boolean isTrue()
   {
-    return context.isTrue != null;
+    return valueType == ValueType.TRUE;
   }
 
   /**
@@ -116,7 +151,7 @@ public class CompareValue
    */
   private boolean isFalse()
   {
-    return context.isFalse != null;
+    return valueType == ValueType.FALSE;
   }
 
   /**
@@ -124,7 +159,7 @@ public class CompareValue
    */
   public boolean isNull()
   {
-    return context.isNull != null;
+    return valueType == ValueType.NULL;
   }
 
   /**
@@ -132,7 +167,7 @@ public class CompareValue
    */
   public boolean isNumber()
   {
-    return context.number != null;
+    return valueType == ValueType.NUMBER;
   }
 
   /**
@@ -141,7 +176,7 @@ public class CompareValue
    */
   public boolean isString()
   {
-    return context.string != null;
+    return valueType == ValueType.STRING;
   }
 
   /**
@@ -182,7 +217,7 @@ public class CompareValue
     {
       try
       {
-        return Optional.of(new BigDecimal(context.number.getText()));
+        return Optional.of(new BigDecimal(value));
       }
       catch (NumberFormatException ex)
       {
@@ -233,4 +268,12 @@ public class CompareValue
     }
     return value;
   }
+
+  /**
+   * the types of values that can be used within a filter expression
+   */
+  public enum ValueType
+  {
+    FALSE, NULL, TRUE, NUMBER, STRING
+  }
 }
@@ -4,6 +4,7 @@ import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.apache.commons.lang3.StringUtils;
 
@@ -49,31 +50,54 @@ public class FilterAttributeName
 
   public FilterAttributeName(ValuePathContext valuePathContext, AttributePathContext attributePathContext)
   {
-    this(valuePathContext == null ? null : valuePathContext.attributePath().attribute.getText(), attributePathContext);
-    this.resourceUri = Optional.ofNullable(this.resourceUri).orElseGet(() -> {
-      return Optional.ofNullable(valuePathContext)
-                     .map(ValuePathContext::attributePath)
-                     .map(AttributePathContext::NAME_URI)
-                     .map(ParseTree::getText)
-                     .map(uri -> {
-                       if (uri.endsWith(":"))
-                       {
-                         return uri.substring(0, uri.length() - 1);
-                       }
-                       return uri;
-                     })
-                     .orElse(null);
-    });
+    this(Optional.ofNullable(valuePathContext)
+                 .map(ValuePathContext::attributePath)
+                 .map(AttributePathContext::NAME_URI)
+                 .map(ParseTree::getText)
+                 .orElse(null),
+         valuePathContext == null ? null : valuePathContext.attributePath().attribute.getText(),
+         getText(attributePathContext.resourceUri), attributePathContext.attribute.getText(),
+         getText(attributePathContext.subattribute));
   }
 
   public FilterAttributeName(String parentName, AttributePathContext attributePathContext)
+  {
+    this(null, parentName, getText(attributePathContext.resourceUri), attributePathContext.attribute.getText(),
+         getText(attributePathContext.subattribute));
+  }
+
+  /**
+   * creates the attribute name from the tokens of an attribute path
+   *
+   * @param parentResourceUri the resource uri token of the enclosing value path if the attribute is used within
+   *          a bracket filter. Used only if the attribute path has no resource uri itself
+   * @param parentName the attribute name of the enclosing value path if the attribute is used within a bracket
+   *          filter
+   * @param resourceUri the resource uri token of the attribute path e.g.
+   *          "urn:ietf:params:scim:schemas:core:2.0:User:"
+   * @param attributeName the name of the attribute
+   * @param subAttributeName the name of the sub attribute if the attribute path references a sub attribute
+   */
+  public FilterAttributeName(String parentResourceUri,
+                             String parentName,
+                             String resourceUri,
+                             String attributeName,
+                             String subAttributeName)
   {
     this.parentAttributeName = parentName == null ? null : (parentName + ".");
-    this.attributeName = attributePathContext.attribute.getText();
-    this.complexSubAttributeName = attributePathContext.subattribute == null ? null
-      : attributePathContext.subattribute.getText();
-    this.resourceUri = resolveResourceUri(attributePathContext).orElse(null);
-    this.fullName = (resourceUri == null ? "" : StringUtils.stripToEmpty(resourceUri) + ":") + getShortName();
+    this.attributeName = attributeName;
+    this.complexSubAttributeName = subAttributeName;
+    this.resourceUri = resolveResourceUri(resourceUri).orElse(null);
+    this.fullName = (this.resourceUri == null ? "" : StringUtils.stripToEmpty(this.resourceUri) + ":") + getShortName();
+    this.resourceUri = Optional.ofNullable(this.resourceUri).orElseGet(() -> {
+      return Optional.ofNullable(parentResourceUri).map(uri -> {
+        if (uri.endsWith(":"))
+        {
+          return uri.substring(0, uri.length() - 1);
+        }
+        return uri;
+      }).orElse(null);
+    });
   }
 
   public FilterAttributeName(String resourceUri, String parentName, String childName)
@@ -107,17 +131,24 @@ public class FilterAttributeName
   /**
    * tries to resolve the resourceUri value
    *
-   * @param attributePathContext the antlr attribute path context
+   * @param resourceUri the resource uri token of the attribute path
    * @return the resourceUri
    */
-  private Optional<String> resolveResourceUri(AttributePathContext attributePathContext)
+  private static Optional<String> resolveResourceUri(String resourceUri)
   {
-    if (attributePathContext.resourceUri == null)
+    if (resourceUri == null)
     {
       return Optional.empty();
     }
-    String resourceUri = StringUtils.stripToEmpty(attributePathContext.resourceUri.getText());
-    return Optional.of(StringUtils.stripToNull(resourceUri.replaceFirst(":$", "")));
+    return Optional.ofNullable(StringUtils.stripToNull(StringUtils.stripToEmpty(resourceUri).replaceFirst(":$", "")));
+  }
+
+  /**
+   * @return the text of the given token or null
+   */
+  private static String getText(Token token)
+  {
+    return token == null ? null : token.getText();
   }
 
   /**
@@ -4,11 +4,9 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.Strings;
 
@@ -24,8 +22,12 @@ import de.captaingoldfish.scim.sdk.server.filter.AndExpressionNode;
 import de.captaingoldfish.scim.sdk.server.filter.AttributeExpressionLeaf;
 import de.captaingoldfish.scim.sdk.server.filter.AttributePathRoot;
 import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import de.captaingoldfish.scim.sdk.server.filter.FilterOptimizer;
 import de.captaingoldfish.scim.sdk.server.filter.NotExpressionNode;
 import de.captaingoldfish.scim.sdk.server.filter.OrExpressionNode;
+import de.captaingoldfish.scim.sdk.server.metrics.NoOpScimMetrics;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimMetrics;
+import de.captaingoldfish.scim.sdk.server.utils.AdaptiveParallelExecutor;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -41,29 +43,44 @@ public class FilterResourceResolver
 {
 
   /**
-   * filters the given resources based on the filternode
+   * filters the given resources based on the filternode without recording metrics
    *
+   * @see #filterResources(ServiceProvider, ScimMetrics, List, FilterNode)
+   */
+  public static <T extends ResourceNode> List<T> filterResources(ServiceProvider serviceProvider,
+                                                                 List<T> resources,
+                                                                 FilterNode filterNode)
+  {
+    return filterResources(serviceProvider, NoOpScimMetrics.INSTANCE, resources, filterNode);
+  }
+
+  /**
+   * filters the given resources based on the filternode. The filter is optimized with the
+   * {@link FilterOptimizer} before it is evaluated
+   *
+   * @param scimMetrics receives the decision if the resources are filtered sequentially or in parallel
    * @param resources the resources that must be filtered
    * @param filterNode the filter node that holds the information how the resources should be filtered
    * @param <T> a {@link ResourceNode} type
    * @return the filtered resources
    */
   public static <T extends ResourceNode> List<T> filterResources(ServiceProvider serviceProvider,
+                                                                 ScimMetrics scimMetrics,
                                                                  List<T> resources,
                                                                  FilterNode filterNode)
   {
-    try
-    {
-      return serviceProvider.getThreadPool()
-                            .submit(() -> resources.parallelStream()
-                                                   .filter(getResourcePredicate(filterNode))
-                                                   .collect(Collectors.toList()))
-                            .get();
-    }
-    catch (InterruptedException | ExecutionException e)
-    {
-      throw new InternalServerException(e);
-    }
+    FilterOptimizer.OptimizedFilter optimizedFilter = FilterOptimizer.optimize(filterNode);
+    if (optimizedFilter.isConstant())
+    {
+      log.trace("Filter '{}' was folded into a constant that matches {} resources",
+                filterNode,
+                optimizedFilter.isMatchingAll() ? "all" : "no");
+      return optimizedFilter.isMatchingAll() ? new ArrayList<>(resources) : new ArrayList<>();
+    }
+    return AdaptiveParallelExecutor.filter(serviceProvider,
+                                           scimMetrics,
+                                           resources,
+                                           getResourcePredicate(optimizedFilter.getFilterNode()));
   }
 
   /**
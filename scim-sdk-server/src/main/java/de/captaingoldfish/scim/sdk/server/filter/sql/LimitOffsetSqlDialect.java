@@ -0,0 +1,28 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+import java.util.Arrays;
+
+
+/**
+ * pages with "LIMIT ? OFFSET ?" which is supported e.g. by PostgreSQL, MySQL, MariaDB, SQLite and H2
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class LimitOffsetSqlDialect implements SqlDialect
+{
+
+  /**
+   * the dialect has no state so a single instance can be shared
+   */
+  public static final LimitOffsetSqlDialect INSTANCE = new LimitOffsetSqlDialect();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SqlClause getPagingClause(long offset, int count)
+  {
+    return new SqlClause("LIMIT ? OFFSET ?", Arrays.<Object> asList(count, offset));
+  }
+}
@@ -0,0 +1,51 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+
+/**
+ * pages with the sql standard "OFFSET ? ROWS FETCH NEXT ? ROWS ONLY" which is supported e.g. by SQL Server,
+ * Oracle since 12c, Db2, PostgreSQL and H2
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class OffsetFetchSqlDialect implements SqlDialect
+{
+
+  /**
+   * the expression of the order by clause that is used if no sorting was requested. SQL Server does only accept
+   * the paging clause after an order by clause and can be configured with "(SELECT NULL)" to keep the order of
+   * the database
+   */
+  @Getter
+  private final String defaultOrderBy;
+
+  /**
+   * creates a dialect that does not add an order by clause if no sorting was requested e.g. for Oracle
+   */
+  public OffsetFetchSqlDialect()
+  {
+    this(null);
+  }
+
+  /**
+   * @param defaultOrderBy the expression of the order by clause that is used if no sorting was requested or
+   *          null
+   */
+  public OffsetFetchSqlDialect(String defaultOrderBy)
+  {
+    this.defaultOrderBy = defaultOrderBy;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SqlClause getPagingClause(long offset, int count)
+  {
+    return new SqlClause("OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", Arrays.<Object> asList(offset, count));
+  }
+}
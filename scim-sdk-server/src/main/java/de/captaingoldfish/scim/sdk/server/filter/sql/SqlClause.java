@@ -0,0 +1,37 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.ToString;
+
+
+/**
+ * a part of a sql statement together with the values that must be bound to its placeholders in the given
+ * order
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Getter
+@ToString
+public class SqlClause
+{
+
+  /**
+   * the sql expression with "?" as placeholders for the parameters
+   */
+  private final String sql;
+
+  /**
+   * the values that must be bound to the placeholders of the sql expression
+   */
+  private final List<Object> parameters;
+
+  public SqlClause(String sql, List<Object> parameters)
+  {
+    this.sql = sql;
+    this.parameters = Collections.unmodifiableList(parameters);
+  }
+}
@@ -0,0 +1,60 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+import java.util.Map;
+import java.util.Optional;
+
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+
+/**
+ * maps the attributes of a resource type to the columns of a relational database. The attributes are
+ * referenced by their scim node name e.g. "userName", "name.givenName", "emails.value" or "meta.created".
+ * Attributes of extensions may additionally be referenced by their fully qualified name. The columns must be
+ * given with the alias of their table e.g. "u.user_name" <br>
+ * <br>
+ * multivalued attributes must additionally be mapped to a {@link SqlJoinTable} by the name of the multivalued
+ * attribute e.g. "emails"
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Getter
+@Builder
+public class SqlColumnMapping
+{
+
+  /**
+   * maps the attribute names to the columns that are holding their values
+   */
+  @Singular
+  private final Map<String, String> columns;
+
+  /**
+   * maps the names of multivalued attributes to the tables that are holding their values
+   */
+  @Singular
+  private final Map<String, SqlJoinTable> joinTables;
+
+  /**
+   * @param schemaAttribute the attribute to which the column should be found
+   * @return the column that holds the values of the given attribute
+   */
+  public Optional<String> getColumn(SchemaAttribute schemaAttribute)
+  {
+    return Optional.ofNullable(Optional.ofNullable(columns.get(schemaAttribute.getFullResourceName()))
+                                       .orElseGet(() -> columns.get(schemaAttribute.getScimNodeName())));
+  }
+
+  /**
+   * @param schemaAttribute a multivalued attribute
+   * @return the table that holds the values of the given multivalued attribute
+   */
+  public Optional<SqlJoinTable> getJoinTable(SchemaAttribute schemaAttribute)
+  {
+    return Optional.ofNullable(Optional.ofNullable(joinTables.get(schemaAttribute.getFullResourceName()))
+                                       .orElseGet(() -> joinTables.get(schemaAttribute.getScimNodeName())));
+  }
+}
@@ -0,0 +1,34 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+/**
+ * the parts of a select statement that differ between the sql dialects of the databases. The filter and the
+ * sorting are translated into portable sql so only the paging depends on the dialect
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ * @see LimitOffsetSqlDialect
+ * @see OffsetFetchSqlDialect
+ */
+public interface SqlDialect
+{
+
+  /**
+   * creates the clause that is appended to the end of the select statement to return a single page
+   *
+   * @param offset the 0-based index of the first row to return
+   * @param count the maximum number of rows to return
+   * @return the paging clause with the parameters in the order of their placeholders
+   */
+  SqlClause getPagingClause(long offset, int count);
+
+  /**
+   * some databases do only accept a paging clause after an order by clause
+   *
+   * @return the expression of the order by clause that is used if no sorting was requested or null if the
+   *         dialect accepts a paging clause without an order by clause
+   */
+  default String getDefaultOrderBy()
+  {
+    return null;
+  }
+}
@@ -0,0 +1,524 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.Comparator;
+import de.captaingoldfish.scim.sdk.common.constants.enums.SortOrder;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Type;
+import de.captaingoldfish.scim.sdk.common.exceptions.InvalidConfigException;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.server.filter.AndExpressionNode;
+import de.captaingoldfish.scim.sdk.server.filter.AttributeExpressionLeaf;
+import de.captaingoldfish.scim.sdk.server.filter.AttributePathRoot;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import de.captaingoldfish.scim.sdk.server.filter.NotExpressionNode;
+import de.captaingoldfish.scim.sdk.server.filter.OrExpressionNode;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * translates a parsed filter expression into a parameterized sql where clause so that resource handlers that
+ * are backed by a relational database can let the database evaluate the filter. The values of the filter are
+ * never written into the sql expression itself but are returned as parameters that must be bound to the
+ * prepared statement. The translation follows the evaluation of the
+ * {@link de.captaingoldfish.scim.sdk.server.filter.resources.FilterResourceResolver}:
+ * <ul>
+ * <li>string comparisons are case-insensitive if the attribute is not caseExact</li>
+ * <li>"sw", "ew" and "co" are translated into LIKE expressions with escaped wildcards</li>
+ * <li>"ne" does also match resources that do not have the attribute</li>
+ * <li>"lt" and "le" on string attributes do only match resources that do not have the attribute if
+ * {@link #matchMissingStringsOnLessThan} is enabled</li>
+ * <li>boolean attributes that are not present are treated as false</li>
+ * <li>"not" does also match resources on which the negated expression cannot be evaluated because the
+ * attribute is not present. It is therefore translated into a CASE expression instead of the sql "NOT"</li>
+ * <li>expressions on multivalued attributes are translated into EXISTS subqueries and the expressions of a
+ * value path like emails[type eq "work" and value co "@"] must match on the same value</li>
+ * </ul>
+ * The generated sql is portable except for the paging clause which is created by the configured
+ * {@link SqlDialect}
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class SqlFilterTranslator
+{
+
+  /**
+   * the character that is used to escape wildcards within LIKE expressions. A backslash is not used because
+   * some databases are treating it as escape character within string literals
+   */
+  private static final char LIKE_ESCAPE_CHARACTER = '!';
+
+  /**
+   * maps the attributes to the columns of the database
+   */
+  @Getter
+  private final SqlColumnMapping columnMapping;
+
+  /**
+   * creates the parts of the statement that differ between the databases
+   */
+  @Getter
+  private final SqlDialect dialect;
+
+  /**
+   * if "lt" and "le" on string attributes should also match resources that do not have the attribute. This
+   * mirrors the {@link de.captaingoldfish.scim.sdk.server.filter.resources.FilterResourceResolver} that sorts
+   * missing strings before all other values. RFC7644 does not match resources that do not have the attribute so
+   * this is disabled by default
+   */
+  @Getter
+  @Setter
+  private boolean matchMissingStringsOnLessThan;
+
+  /**
+   * creates a translator that pages with "LIMIT ? OFFSET ?"
+   */
+  public SqlFilterTranslator(SqlColumnMapping columnMapping)
+  {
+    this(columnMapping, LimitOffsetSqlDialect.INSTANCE);
+  }
+
+  public SqlFilterTranslator(SqlColumnMapping columnMapping, SqlDialect dialect)
+  {
+    this.columnMapping = columnMapping;
+    this.dialect = Objects.requireNonNull(dialect);
+  }
+
+  /**
+   * builds a complete select statement
+   *
+   * @param selectClause the beginning of the statement e.g. "SELECT u.* FROM users u"
+   * @param filterNode the filter expression or null
+   * @param sortBy the attribute to sort by or null
+   * @param sortOrder the sort order or null for an ascending order
+   * @param startIndex the 1-based index of the first resource to return
+   * @param count the maximum number of resources to return
+   * @return the select statement with the parameters in the order of their placeholders
+   */
+  public SqlClause translate(String selectClause,
+                             FilterNode filterNode,
+                             SchemaAttribute sortBy,
+                             SortOrder sortOrder,
+                             long startIndex,
+                             int count)
+  {
+    StringBuilder sql = new StringBuilder(selectClause);
+    List<Object> parameters = new ArrayList<>();
+    if (filterNode != null)
+    {
+      SqlClause whereClause = translateFilter(filterNode);
+      sql.append(" WHERE ").append(whereClause.getSql());
+      parameters.addAll(whereClause.getParameters());
+    }
+    if (sortBy != null)
+    {
+      sql.append(" ORDER BY ").append(translateSorting(sortBy, sortOrder).getSql());
+    }
+    else if (dialect.getDefaultOrderBy() != null)
+    {
+      sql.append(" ORDER BY ").append(dialect.getDefaultOrderBy());
+    }
+    SqlClause pagingClause = translatePaging(startIndex, count);
+    sql.append(' ').append(pagingClause.getSql());
+    parameters.addAll(pagingClause.getParameters());
+    return new SqlClause(sql.toString(), parameters);
+  }
+
+  /**
+   * checks if the given filter can be translated with the current column mapping
+   *
+   * @param filterNode the filter expression to check
+   * @return true if {@link #translateFilter(FilterNode)} can be called with the given filter
+   */
+  public boolean isTranslatable(FilterNode filterNode)
+  {
+    return isTranslatable(filterNode, null);
+  }
+
+  /**
+   * translates the given filter into a sql expression that can be used within a where clause
+   *
+   * @param filterNode the filter expression to translate
+   * @return the sql expression with the parameters in the order of their placeholders
+   * @throws InvalidConfigException if an attribute of the filter is not mapped to a column
+   */
+  public SqlClause translateFilter(FilterNode filterNode)
+  {
+    List<Object> parameters = new ArrayList<>();
+    String sql = toSql(filterNode, null, parameters);
+    return new SqlClause(sql, parameters);
+  }
+
+  /**
+   * translates the sorting into the content of an order by clause. Resources that do not have the attribute are
+   * always sorted to the end
+   *
+   * @param sortBy the attribute to sort by
+   * @param sortOrder the sort order or null for an ascending order
+   * @return the order by expression without the "ORDER BY" keyword
+   */
+  public SqlClause translateSorting(SchemaAttribute sortBy, SortOrder sortOrder)
+  {
+    if (getMultivaluedAttribute(sortBy) != null)
+    {
+      throw new InvalidConfigException(String.format("Sorting by the multivalued attribute '%s' is not supported",
+                                                     sortBy.getFullResourceName()));
+    }
+    String column = getColumn(sortBy);
+    String direction = SortOrder.DESCENDING.equals(sortOrder) ? "DESC" : "ASC";
+    String sql = String.format("CASE WHEN %s IS NULL THEN 1 ELSE 0 END, %s %s",
+                               column,
+                               getColumnExpression(sortBy, column),
+                               direction);
+    return new SqlClause(sql, Collections.emptyList());
+  }
+
+  /**
+   * translates the paging parameters of a list request into the paging clause of the {@link #dialect}
+   *
+   * @param startIndex the 1-based index of the first resource to return
+   * @param count the maximum number of resources to return
+   * @return the paging clause
+   */
+  public SqlClause translatePaging(long startIndex, int count)
+  {
+    return dialect.getPagingClause(Math.max(0, startIndex - 1), count);
+  }
+
+  /**
+   * checks recursively if the given filter can be translated
+   *
+   * @param valuePathAttribute the multivalued attribute of the value path in which the filter node is placed or
+   *          null
+   */
+  private boolean isTranslatable(FilterNode filterNode, SchemaAttribute valuePathAttribute)
+  {
+    if (filterNode instanceof AndExpressionNode)
+    {
+      AndExpressionNode andExpressionNode = (AndExpressionNode)filterNode;
+      return isTranslatable(andExpressionNode.getLeftNode(), valuePathAttribute)
+             && isTranslatable(andExpressionNode.getRightNode(), valuePathAttribute);
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      return isTranslatable(orExpressionNode.getLeftNode(), valuePathAttribute)
+             && isTranslatable(orExpressionNode.getRightNode(), valuePathAttribute);
+    }
+    else if (filterNode instanceof NotExpressionNode)
+    {
+      return isTranslatable(((NotExpressionNode)filterNode).getRightNode(), valuePathAttribute);
+    }
+    else if (filterNode instanceof AttributePathRoot)
+    {
+      AttributePathRoot attributePathRoot = (AttributePathRoot)filterNode;
+      if (attributePathRoot.getChild() == null)
+      {
+        return false;
+      }
+      SchemaAttribute schemaAttribute = attributePathRoot.getSchemaAttribute();
+      if (!schemaAttribute.isMultiValued())
+      {
+        return isTranslatable(attributePathRoot.getChild(), valuePathAttribute);
+      }
+      return columnMapping.getJoinTable(schemaAttribute).isPresent()
+             && isTranslatable(attributePathRoot.getChild(), schemaAttribute);
+    }
+    else if (filterNode instanceof AttributeExpressionLeaf)
+    {
+      AttributeExpressionLeaf leaf = (AttributeExpressionLeaf)filterNode;
+      SchemaAttribute schemaAttribute = leaf.getSchemaAttribute();
+      SchemaAttribute multivaluedAttribute = getMultivaluedAttribute(schemaAttribute);
+      if (multivaluedAttribute != null && multivaluedAttribute != valuePathAttribute
+          && !columnMapping.getJoinTable(multivaluedAttribute).isPresent())
+      {
+        return false;
+      }
+      if (isLikeComparator(leaf.getComparator()) && (leaf.isNull() || !isStringType(schemaAttribute)))
+      {
+        return false;
+      }
+      return columnMapping.getColumn(schemaAttribute).isPresent();
+    }
+    return false;
+  }
+
+  /**
+   * translates the given filter node recursively
+   *
+   * @param valuePathAttribute the multivalued attribute of the value path in which the filter node is placed or
+   *          null
+   * @param parameters the list to which the parameters of the expression are added in the order of their
+   *          placeholders
+   */
+  private String toSql(FilterNode filterNode, SchemaAttribute valuePathAttribute, List<Object> parameters)
+  {
+    if (filterNode instanceof AndExpressionNode)
+    {
+      AndExpressionNode andExpressionNode = (AndExpressionNode)filterNode;
+      return "(" + toSql(andExpressionNode.getLeftNode(), valuePathAttribute, parameters) + " AND "
+             + toSql(andExpressionNode.getRightNode(), valuePathAttribute, parameters) + ")";
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      return "(" + toSql(orExpressionNode.getLeftNode(), valuePathAttribute, parameters) + " OR "
+             + toSql(orExpressionNode.getRightNode(), valuePathAttribute, parameters) + ")";
+    }
+    else if (filterNode instanceof NotExpressionNode)
+    {
+      // a plain NOT would evaluate to NULL if a column of the expression is NULL and would therefore drop the
+      // resource while the FilterResourceResolver treats the not evaluable expression as false and negates it
+      return "(CASE WHEN " + toSql(((NotExpressionNode)filterNode).getRightNode(), valuePathAttribute, parameters)
+             + " THEN 1 ELSE 0 END = 0)";
+    }
+    else if (filterNode instanceof AttributePathRoot && ((AttributePathRoot)filterNode).getChild() != null)
+    {
+      AttributePathRoot attributePathRoot = (AttributePathRoot)filterNode;
+      SchemaAttribute schemaAttribute = attributePathRoot.getSchemaAttribute();
+      if (!schemaAttribute.isMultiValued())
+      {
+        return toSql(attributePathRoot.getChild(), valuePathAttribute, parameters);
+      }
+      String condition = toSql(attributePathRoot.getChild(), schemaAttribute, parameters);
+      return getExistsClause(schemaAttribute, condition);
+    }
+    else if (filterNode instanceof AttributeExpressionLeaf)
+    {
+      return toSql((AttributeExpressionLeaf)filterNode, valuePathAttribute, parameters);
+    }
+    throw new InvalidConfigException(String.format("Cannot translate filter expression '%s' into sql", filterNode));
+  }
+
+  /**
+   * translates a single comparison. Comparisons on multivalued attributes that are not placed within a value
+   * path of the same attribute are wrapped into an EXISTS subquery. Negative comparisons like "ne" must not
+   * match any value of the multivalued attribute and are therefore translated into NOT EXISTS subqueries
+   */
+  private String toSql(AttributeExpressionLeaf leaf, SchemaAttribute valuePathAttribute, List<Object> parameters)
+  {
+    SchemaAttribute schemaAttribute = leaf.getSchemaAttribute();
+    SchemaAttribute multivaluedAttribute = getMultivaluedAttribute(schemaAttribute);
+    if (multivaluedAttribute == null || multivaluedAttribute == valuePathAttribute)
+    {
+      return getComparison(leaf, leaf.getComparator(), multivaluedAttribute == null, parameters);
+    }
+
+    boolean isNegated = Comparator.EQ.equals(leaf.getComparator()) && leaf.isNull()
+                        || Comparator.NE.equals(leaf.getComparator()) && !leaf.isNull();
+    Comparator comparator = leaf.getComparator();
+    if (leaf.isNull())
+    {
+      comparator = Comparator.PR;
+    }
+    else if (isNegated)
+    {
+      comparator = Comparator.EQ;
+    }
+    String existsClause = getExistsClause(multivaluedAttribute, getComparison(leaf, comparator, false, parameters));
+    return isNegated ? "NOT " + existsClause : existsClause;
+  }
+
+  /**
+   * creates an EXISTS subquery on the table of the given multivalued attribute
+   */
+  private String getExistsClause(SchemaAttribute multivaluedAttribute, String condition)
+  {
+    SqlJoinTable joinTable = columnMapping.getJoinTable(multivaluedAttribute).orElseThrow(() -> {
+      return new InvalidConfigException(String.format("No join table was mapped for multivalued attribute '%s'",
+                                                      multivaluedAttribute.getFullResourceName()));
+    });
+    return String.format("EXISTS (SELECT 1 FROM %s WHERE %s AND %s)",
+                         joinTable.getTable(),
+                         joinTable.getJoinCondition(),
+                         condition);
+  }
+
+  /**
+   * creates the comparison of a column with the value of the given leaf
+   *
+   * @param comparator the comparator to use which might differ from the comparator of the leaf if the
+   *          expression is negated within an EXISTS subquery
+   * @param isSingleValue if the column holds at most one value for each resource. Only in this case the default
+   *          value of boolean attributes can be applied
+   */
+  private String getComparison(AttributeExpressionLeaf leaf,
+                               Comparator comparator,
+                               boolean isSingleValue,
+                               List<Object> parameters)
+  {
+    SchemaAttribute schemaAttribute = leaf.getSchemaAttribute();
+    String column = getColumn(schemaAttribute);
+    if (Comparator.PR.equals(comparator))
+    {
+      return column + " IS NOT NULL";
+    }
+    if (leaf.isNull())
+    {
+      switch (comparator)
+      {
+        case EQ:
+          return column + " IS NULL";
+        case NE:
+          return column + " IS NOT NULL";
+        default:
+          throw new InvalidConfigException(String.format("Cannot translate comparator '%s' with a null value into sql",
+                                                         comparator));
+      }
+    }
+
+    if (Type.BOOLEAN.equals(schemaAttribute.getType()) && isSingleValue)
+    {
+      parameters.add(false);
+      parameters.add(leaf.getBooleanValue().orElse(false));
+      return String.format("COALESCE(%s, ?) %s ?", column, Comparator.EQ.equals(comparator) ? "=" : "<>");
+    }
+
+    String columnExpression = getColumnExpression(schemaAttribute, column);
+    switch (comparator)
+    {
+      case EQ:
+        parameters.add(getParameter(leaf));
+        return columnExpression + " = ?";
+      case NE:
+        parameters.add(getParameter(leaf));
+        return String.format("(%s IS NULL OR %s <> ?)", column, columnExpression);
+      case GT:
+        parameters.add(getParameter(leaf));
+        return columnExpression + " > ?";
+      case GE:
+        parameters.add(getParameter(leaf));
+        return columnExpression + " >= ?";
+      case LT:
+        parameters.add(getParameter(leaf));
+        return getNullableComparison(schemaAttribute, column, columnExpression + " < ?");
+      case LE:
+        parameters.add(getParameter(leaf));
+        return getNullableComparison(schemaAttribute, column, columnExpression + " <= ?");
+      default:
+        if (!isStringType(schemaAttribute))
+        {
+          throw new InvalidConfigException(String.format("Cannot translate comparator '%s' on attribute '%s' of "
+                                                         + "type '%s' into sql",
+                                                         comparator,
+                                                         schemaAttribute.getFullResourceName(),
+                                                         schemaAttribute.getType()));
+        }
+        String value = escapeLikeValue((String)getParameter(leaf));
+        parameters.add(Comparator.SW.equals(comparator) ? value + "%"
+          : Comparator.EW.equals(comparator) ? "%" + value : "%" + value + "%");
+        return String.format("%s LIKE ? ESCAPE '%s'", columnExpression, LIKE_ESCAPE_CHARACTER);
+    }
+  }
+
+  /**
+   * lets "lt" and "le" also match null values of string attributes if {@link #matchMissingStringsOnLessThan} is
+   * enabled
+   */
+  private String getNullableComparison(SchemaAttribute schemaAttribute, String column, String comparison)
+  {
+    if (matchMissingStringsOnLessThan && isStringType(schemaAttribute))
+    {
+      return String.format("(%s IS NULL OR %s)", column, comparison);
+    }
+    return comparison;
+  }
+
+  /**
+   * @return the value of the leaf in the type that must be bound to the prepared statement
+   */
+  private Object getParameter(AttributeExpressionLeaf leaf)
+  {
+    SchemaAttribute schemaAttribute = leaf.getSchemaAttribute();
+    switch (schemaAttribute.getType())
+    {
+      case BOOLEAN:
+        return leaf.getBooleanValue().orElse(null);
+      case INTEGER:
+      case DECIMAL:
+        return leaf.getNumberValue().orElse(null);
+      case DATE_TIME:
+        return leaf.getDateTime().map(Timestamp::from).orElse(null);
+      default:
+        String value = leaf.getValue();
+        return schemaAttribute.isCaseExact() ? value : value.toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * @return the column wrapped into a LOWER function if the attribute is a string that is not caseExact
+   */
+  private String getColumnExpression(SchemaAttribute schemaAttribute, String column)
+  {
+    if (isStringType(schemaAttribute) && !schemaAttribute.isCaseExact())
+    {
+      return "LOWER(" + column + ")";
+    }
+    return column;
+  }
+
+  /**
+   * @return the column of the given attribute
+   */
+  private String getColumn(SchemaAttribute schemaAttribute)
+  {
+    return columnMapping.getColumn(schemaAttribute).orElseThrow(() -> {
+      return new InvalidConfigException(String.format("No column was mapped for attribute '%s'",
+                                                      schemaAttribute.getFullResourceName()));
+    });
+  }
+
+  /**
+   * @return the multivalued attribute that holds the values of the given attribute or null if the attribute
+   *         holds a single value
+   */
+  private SchemaAttribute getMultivaluedAttribute(SchemaAttribute schemaAttribute)
+  {
+    if (schemaAttribute.isMultiValued())
+    {
+      return schemaAttribute;
+    }
+    SchemaAttribute parent = schemaAttribute.getParent();
+    return parent != null && parent.isMultiValued() ? parent : null;
+  }
+
+  /**
+   * escapes the wildcards of a LIKE expression and the escape character itself
+   */
+  private String escapeLikeValue(String value)
+  {
+    StringBuilder escapedValue = new StringBuilder(value.length());
+    for ( char character : value.toCharArray() )
+    {
+      if (character == '%' || character == '_' || character == LIKE_ESCAPE_CHARACTER)
+      {
+        escapedValue.append(LIKE_ESCAPE_CHARACTER);
+      }
+      escapedValue.append(character);
+    }
+    return escapedValue.toString();
+  }
+
+  /**
+   * @return true if the attribute values are compared as strings
+   */
+  private boolean isStringType(SchemaAttribute schemaAttribute)
+  {
+    return Type.STRING.equals(schemaAttribute.getType()) || Type.REFERENCE.equals(schemaAttribute.getType());
+  }
+
+  /**
+   * @return true if the comparator is translated into a LIKE expression
+   */
+  private boolean isLikeComparator(Comparator comparator)
+  {
+    return Comparator.SW.equals(comparator) || Comparator.EW.equals(comparator) || Comparator.CO.equals(comparator);
+  }
+}
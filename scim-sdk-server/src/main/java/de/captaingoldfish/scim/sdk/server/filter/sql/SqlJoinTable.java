@@ -0,0 +1,31 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+
+/**
+ * describes a table that holds the values of a multivalued attribute. Expressions on such an attribute are
+ * translated into an EXISTS subquery on this table so that a resource is not returned several times if
+ * several values are matching
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class SqlJoinTable
+{
+
+  /**
+   * the name of the table together with its alias e.g. "user_emails e"
+   */
+  private final String table;
+
+  /**
+   * the condition that connects the rows of this table with the row of the resource e.g. "e.user_id = u.id"
+   */
+  private final String joinCondition;
+}
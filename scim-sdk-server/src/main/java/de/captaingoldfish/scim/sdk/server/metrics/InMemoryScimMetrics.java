@@ -0,0 +1,273 @@
+package de.captaingoldfish.scim.sdk.server.metrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
+import de.captaingoldfish.scim.sdk.server.endpoints.features.EndpointType;
+import de.captaingoldfish.scim.sdk.server.utils.AdaptiveParallelExecutor;
+
+
+/**
+ * a simple {@link ScimMetrics} that keeps the values in memory. The durations of the phases are aggregated in
+ * a {@link Histogram} per resource type, endpoint type and phase. The requests and the bulk operations are
+ * counted under keys like "request|User|CREATE|201", "bulk|POST|201" and "bulkFailure|POST|uniqueness". The
+ * decisions of the {@link AdaptiveParallelExecutor} are counted under keys like
+ * "parallelDecision|PARALLEL_SUBMITTED". The number of histograms and counters is bounded by the number of
+ * resource types, endpoint types, phases, http status codes, scimTypes and decisions so no eviction is
+ * necessary
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class InMemoryScimMetrics implements ScimMetrics
+{
+
+  /**
+   * the histograms mapped by their resource type, endpoint type and phase
+   */
+  private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * the counters mapped by their names
+   */
+  private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void recordPhase(String resourceType, EndpointType endpointType, ScimPhase phase, long nanos)
+  {
+    histograms.computeIfAbsent(getKey(resourceType, endpointType, phase), key -> new Histogram()).add(nanos);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void recordRequest(String resourceType, EndpointType endpointType, int httpStatus)
+  {
+    increment(getKey("request", resourceType, endpointType, httpStatus));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void recordBulkOperation(HttpMethod method, int httpStatus, String failureReason)
+  {
+    increment(getKey("bulk", method, httpStatus));
+    if (failureReason != null)
+    {
+      increment(getKey("bulkFailure", method, failureReason));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void recordParallelDecision(AdaptiveParallelExecutor.Decision decision)
+  {
+    increment(getKey("parallelDecision", decision));
+  }
+
+  /**
+   * @return the histogram of the given phase or an empty if the phase was not recorded yet
+   */
+  public Optional<Histogram> getHistogram(String resourceType, EndpointType endpointType, ScimPhase phase)
+  {
+    return Optional.ofNullable(histograms.get(getKey(resourceType, endpointType, phase)));
+  }
+
+  /**
+   * @return all histograms sorted by their keys e.g. "User|CREATE|HANDLER"
+   */
+  public Map<String, Histogram> getHistograms()
+  {
+    return Collections.unmodifiableMap(new TreeMap<>(histograms));
+  }
+
+  /**
+   * @return the number of requests with the given resource type, endpoint type and http status
+   */
+  public long getRequestCount(String resourceType, EndpointType endpointType, int httpStatus)
+  {
+    return getCounter(getKey("request", resourceType, endpointType, httpStatus));
+  }
+
+  /**
+   * @return the number of bulk operations with the given method and http status
+   */
+  public long getBulkOperationCount(HttpMethod method, int httpStatus)
+  {
+    return getCounter(getKey("bulk", method, httpStatus));
+  }
+
+  /**
+   * @return the number of failed bulk operations with the given method and failure reason
+   */
+  public long getBulkFailureCount(HttpMethod method, String failureReason)
+  {
+    return getCounter(getKey("bulkFailure", method, failureReason));
+  }
+
+  /**
+   * @return the number of times the given decision was made by the {@link AdaptiveParallelExecutor}
+   */
+  public long getParallelDecisionCount(AdaptiveParallelExecutor.Decision decision)
+  {
+    return getCounter(getKey("parallelDecision", decision));
+  }
+
+  /**
+   * @return all counters sorted by their names
+   */
+  public Map<String, Long> getCounters()
+  {
+    Map<String, Long> counterValues = new TreeMap<>();
+    counters.forEach((name, counter) -> counterValues.put(name, counter.get()));
+    return Collections.unmodifiableMap(counterValues);
+  }
+
+  /**
+   * removes all histograms and counters
+   */
+  public void clear()
+  {
+    histograms.clear();
+    counters.clear();
+  }
+
+  private long getCounter(String name)
+  {
+    return Optional.ofNullable(counters.get(name)).map(AtomicLong::get).orElse(0L);
+  }
+
+  private void increment(String name)
+  {
+    counters.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+  }
+
+  /**
+   * joins the given parts into a key. Missing parts are represented by an empty string
+   */
+  private static String getKey(Object... parts)
+  {
+    StringBuilder key = new StringBuilder();
+    for ( int i = 0 ; i < parts.length ; i++ )
+    {
+      key.append(i == 0 ? "" : "|").append(parts[i] == null ? "" : parts[i]);
+    }
+    return key.toString();
+  }
+
+  /**
+   * aggregates durations in buckets whose bounds are powers of two. The percentiles are therefore estimated
+   * with a maximum error of factor two which is good enough to find out where the time goes
+   */
+  public static class Histogram
+  {
+
+    /**
+     * the number of durations per bucket. Bucket i holds the durations from 2^i to 2^(i+1) - 1 nanoseconds
+     */
+    private final long[] buckets = new long[Long.SIZE];
+
+    private long count;
+
+    private long totalNanos;
+
+    private long minNanos = Long.MAX_VALUE;
+
+    private long maxNanos;
+
+    private Histogram()
+    {}
+
+    /**
+     * adds the given duration to this histogram
+     */
+    private synchronized void add(long nanos)
+    {
+      long value = Math.max(nanos, 0);
+      buckets[Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(value, 1))]++;
+      count++;
+      totalNanos += value;
+      minNanos = Math.min(minNanos, value);
+      maxNanos = Math.max(maxNanos, value);
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public synchronized long getCount()
+    {
+      return count;
+    }
+
+    /**
+     * @return the sum of all recorded durations
+     */
+    public synchronized Duration getTotal()
+    {
+      return Duration.ofNanos(totalNanos);
+    }
+
+    /**
+     * @return the shortest recorded duration
+     */
+    public synchronized Duration getMin()
+    {
+      return Duration.ofNanos(count == 0 ? 0 : minNanos);
+    }
+
+    /**
+     * @return the longest recorded duration
+     */
+    public synchronized Duration getMax()
+    {
+      return Duration.ofNanos(maxNanos);
+    }
+
+    /**
+     * @return the average of the recorded durations
+     */
+    public synchronized Duration getMean()
+    {
+      return Duration.ofNanos(count == 0 ? 0 : totalNanos / count);
+    }
+
+    /**
+     * estimates a percentile of the recorded durations by the upper bound of the bucket that contains it
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the estimated duration of the given percentile. Never longer than the longest recorded duration
+     */
+    public synchronized Duration getPercentile(double percentile)
+    {
+      if (count == 0)
+      {
+        return Duration.ZERO;
+      }
+      long rank = Math.max(1, (long)Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for ( int i = 0 ; i < buckets.length ; i++ )
+      {
+        seen += buckets[i];
+        if (seen >= rank)
+        {
+          long upperBound = i >= Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+          return Duration.ofNanos(Math.min(upperBound, maxNanos));
+        }
+      }
+      return Duration.ofNanos(maxNanos);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package de.captaingoldfish.scim.sdk.server.metrics;
+
+/**
+ * the default {@link ScimMetrics} that ignores all values
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public final class NoOpScimMetrics implements ScimMetrics
+{
+
+  /**
+   * the single instance of this stateless implementation
+   */
+  public static final NoOpScimMetrics INSTANCE = new NoOpScimMetrics();
+
+  private NoOpScimMetrics()
+  {}
+}
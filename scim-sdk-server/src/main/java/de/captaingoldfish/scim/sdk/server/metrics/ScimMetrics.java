@@ -0,0 +1,65 @@
+package de.captaingoldfish.scim.sdk.server.metrics;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
+import de.captaingoldfish.scim.sdk.server.endpoints.features.EndpointType;
+import de.captaingoldfish.scim.sdk.server.utils.AdaptiveParallelExecutor;
+
+
+/**
+ * receives the timings and counters of the request pipeline of a
+ * {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint}. Implementations may forward the
+ * values to any metrics library. All methods are called synchronously within the request and should therefore
+ * return quickly. The default implementation is {@link NoOpScimMetrics}, a simple implementation that keeps
+ * the values in memory is {@link InMemoryScimMetrics}
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public interface ScimMetrics
+{
+
+  /**
+   * records the duration of a single phase of the request pipeline
+   *
+   * @param resourceType the name of the resource type of the request or null if the request could not be
+   *          assigned to a resource type e.g. bulk requests
+   * @param endpointType the endpoint type of the request or null for bulk requests
+   * @param phase the measured phase
+   * @param nanos the duration of the phase in nanoseconds
+   */
+  default void recordPhase(String resourceType, EndpointType endpointType, ScimPhase phase, long nanos)
+  {}
+
+  /**
+   * counts a request that was handled by the
+   * {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint}
+   *
+   * @param resourceType the name of the resource type of the request or null if the request could not be
+   *          assigned to a resource type e.g. bulk requests or requests on unknown endpoints
+   * @param endpointType the endpoint type of the request or null if the request could not be assigned to an
+   *          endpoint type
+   * @param httpStatus the http status of the response
+   */
+  default void recordRequest(String resourceType, EndpointType endpointType, int httpStatus)
+  {}
+
+  /**
+   * counts a single operation of a bulk request
+   *
+   * @param method the http method of the operation
+   * @param httpStatus the http status of the operation
+   * @param failureReason null if the operation succeeded. Otherwise the scimType of the error or the http
+   *          status if the error has no scimType
+   */
+  default void recordBulkOperation(HttpMethod method, int httpStatus, String failureReason)
+  {}
+
+  /**
+   * counts the decision of the {@link AdaptiveParallelExecutor} of how a list of resources is filtered or
+   * sorted
+   *
+   * @param decision if the list was processed sequentially or in parallel and why
+   */
+  default void recordParallelDecision(AdaptiveParallelExecutor.Decision decision)
+  {}
+}
@@ -0,0 +1,65 @@
+package de.captaingoldfish.scim.sdk.server.metrics;
+
+/**
+ * the phases of the request pipeline whose durations are passed to
+ * {@link ScimMetrics#recordPhase(String, de.captaingoldfish.scim.sdk.server.endpoints.features.EndpointType, ScimPhase, long)}
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public enum ScimPhase
+{
+
+  /**
+   * resolving the resource type, the resource id and the query parameters from the request url
+   */
+  URL_ROUTING,
+
+  /**
+   * parsing the JSON request body
+   */
+  BODY_PARSING,
+
+  /**
+   * validating the request body against the schemas of the resource type
+   */
+  REQUEST_VALIDATION,
+
+  /**
+   * authenticating the client and checking the roles of the endpoint
+   */
+  AUTHORIZATION,
+
+  /**
+   * the call of the resource handler including its interceptor
+   */
+  HANDLER,
+
+  /**
+   * filtering the resources returned by the resource handler
+   */
+  AUTO_FILTER,
+
+  /**
+   * sorting the resources returned by the resource handler
+   */
+  AUTO_SORT,
+
+  /**
+   * validating a resource of the response against the schemas of the resource type
+   */
+  RESPONSE_VALIDATION,
+
+  /**
+   * generating the version of a resource
+   */
+  ETAG_GENERATION,
+
+  /**
+   * writing the response into its JSON string representation. The response is serialized by the application
+   * after {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint} returned it. So this phase is
+   * only recorded if the application serializes the response with
+   * {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint#serializeResponse(de.captaingoldfish.scim.sdk.common.response.ScimResponse, de.captaingoldfish.scim.sdk.server.endpoints.Context)}
+   */
+  SERIALIZATION
+}
@@ -0,0 +1,218 @@
+package de.captaingoldfish.scim.sdk.server.patch;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import de.captaingoldfish.scim.sdk.common.resources.ResourceNode;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.server.endpoints.Context;
+import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedComplexAttributeOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedComplexMultivaluedSubAttributeOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedComplexSimpleSubAttributeOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedSimpleAttributeOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.PatchOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.RemoveComplexAttributeOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.RemoveExtensionRefOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.SimpleAttributeOperation;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * collects the operations of a patch request instead of applying them directly so that they can be passed at
+ * once to a {@link PatchOperationHandler} that returns true on
+ * {@link PatchOperationHandler#isBatchedOperationsSupported()}. All other calls are delegated to the actual
+ * handler.
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Slf4j
+class BatchingPatchOperationHandler<T extends ResourceNode> implements PatchOperationHandler<T>
+{
+
+  /**
+   * the actual handler that will receive the collected operations
+   */
+  private final PatchOperationHandler<T> patchOperationHandler;
+
+  /**
+   * the operations of the current patch request in the order in which they were received
+   */
+  private final List<PatchOperation<?>> patchOperations = new ArrayList<>();
+
+  public BatchingPatchOperationHandler(PatchOperationHandler<T> patchOperationHandler)
+  {
+    this.patchOperationHandler = patchOperationHandler;
+  }
+
+  /**
+   * passes all collected operations to the actual handler
+   *
+   * @param id the id of the resource that is being patched
+   * @return true if the resource was effectively changed, false else
+   */
+  public boolean flush(String id)
+  {
+    if (patchOperations.isEmpty())
+    {
+      return false;
+    }
+    List<PatchOperation<?>> groupedOperations = getGroupedOperations();
+    patchOperations.clear();
+    log.trace("Passing {} patch operations at once to the patch operation handler", groupedOperations.size());
+    return patchOperationHandler.handleOperations(id, groupedOperations);
+  }
+
+  /**
+   * groups the collected operations by the top-level attribute that they are targeting. The groups are ordered
+   * by the first appearance of their attribute and the operations keep their original order within each group.
+   * Operations on different top-level attributes are independent of each other so this does not change the
+   * result of the patch request. An exception is the removal of a whole extension that affects all attributes
+   * of the extension in which case the original order is kept
+   *
+   * @return the grouped operations
+   */
+  private List<PatchOperation<?>> getGroupedOperations()
+  {
+    if (patchOperations.stream().anyMatch(operation -> operation instanceof RemoveExtensionRefOperation))
+    {
+      return new ArrayList<>(patchOperations);
+    }
+    // schema attributes are json nodes with content based equality so we must compare them by identity
+    Map<SchemaAttribute, List<PatchOperation<?>>> operationsByAttribute = new IdentityHashMap<>();
+    List<List<PatchOperation<?>>> groups = new ArrayList<>();
+    for ( PatchOperation<?> patchOperation : patchOperations )
+    {
+      SchemaAttribute topLevelAttribute = patchOperation.getSchemaAttribute();
+      while (topLevelAttribute.getParent() != null)
+      {
+        topLevelAttribute = topLevelAttribute.getParent();
+      }
+      operationsByAttribute.computeIfAbsent(topLevelAttribute, attribute -> {
+        List<PatchOperation<?>> group = new ArrayList<>();
+        groups.add(group);
+        return group;
+      }).add(patchOperation);
+    }
+    List<PatchOperation<?>> groupedOperations = new ArrayList<>(patchOperations.size());
+    groups.forEach(groupedOperations::addAll);
+    return groupedOperations;
+  }
+
+  /**
+   * collects the given operation
+   *
+   * @return always false because the operation is not yet applied
+   */
+  private boolean collect(PatchOperation<?> patchOperation)
+  {
+    patchOperations.add(patchOperation);
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Supplier<T> getOldResourceSupplier(String id,
+                                            List<SchemaAttribute> attributes,
+                                            List<SchemaAttribute> excludedAttributes,
+                                            Context context)
+  {
+    return patchOperationHandler.getOldResourceSupplier(id, attributes, excludedAttributes, context);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T getPatchedResource(String id)
+  {
+    return patchOperationHandler.getPatchedResource(id);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T getUpdatedResource(String id,
+                              T validatedPatchedResource,
+                              boolean wasResourceChanged,
+                              List<SchemaAttribute> attributes,
+                              List<SchemaAttribute> excludedAttributes,
+                              Context context)
+  {
+    return patchOperationHandler.getUpdatedResource(id,
+                                                    validatedPatchedResource,
+                                                    wasResourceChanged,
+                                                    attributes,
+                                                    excludedAttributes,
+                                                    context);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean handleOperation(String id, RemoveExtensionRefOperation patchOperation)
+  {
+    return collect(patchOperation);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean handleOperation(String id, SimpleAttributeOperation patchOperation)
+  {
+    return collect(patchOperation);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean handleOperation(String id, MultivaluedSimpleAttributeOperation patchOperation)
+  {
+    return collect(patchOperation);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean handleOperation(String id, RemoveComplexAttributeOperation patchOperation)
+  {
+    return collect(patchOperation);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean handleOperation(String id, MultivaluedComplexAttributeOperation patchOperation)
+  {
+    return collect(patchOperation);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean handleOperation(String id, MultivaluedComplexSimpleSubAttributeOperation patchOperation)
+  {
+    return collect(patchOperation);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean handleOperation(String id, MultivaluedComplexMultivaluedSubAttributeOperation patchOperation)
+  {
+    return collect(patchOperation);
+  }
+}
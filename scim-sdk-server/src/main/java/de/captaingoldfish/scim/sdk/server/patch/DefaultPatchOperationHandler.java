@@ -2,10 +2,15 @@ package de.captaingoldfish.scim.sdk.server.patch;
 
 import java.time.Instant;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
 import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
 import de.captaingoldfish.scim.sdk.common.exceptions.ResourceNotFoundException;
 import de.captaingoldfish.scim.sdk.common.resources.ResourceNode;
@@ -73,6 +78,25 @@ public class DefaultPatchOperationHandler<T extends ResourceNode> implements Pat
    */
   private T oldResource;
 
+  /**
+   * the indexes of the multivalued complex attributes of the {@link #patchedResource} that are shared between
+   * all operations of the current patch request
+   */
+  private final Map<ArrayNode, MultiValuedComplexIndex> multiValuedIndexes = new IdentityHashMap<>();
+
+  /**
+   * the top-level attributes of the main schema and the extensions that were touched by the patch operations of
+   * the current request. If the partial patch validation is enabled on the resource type only these attributes
+   * are validated again after the patch operations were applied
+   */
+  private final Set<SchemaAttribute> touchedAttributes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * true if an operation was applied whose effect cannot be represented by the {@link #touchedAttributes} e.g.
+   * the removal of a whole extension. In this case the whole patched resource is validated again
+   */
+  private boolean fullValidationRequired;
+
   public DefaultPatchOperationHandler(Class<T> type,
                                       PatchConfig patchConfig,
                                       ResourceType resourceType,
@@ -130,7 +154,9 @@ public class DefaultPatchOperationHandler<T extends ResourceNode> implements Pat
    */
   private boolean handlePatchOperation(String id, PatchOperation patchOperation)
   {
-    PatchTargetHandler patchTargetHandler = new PatchTargetHandler(patchConfig, resourceType, patchOperation);
+    addTouchedAttribute(patchOperation.getSchemaAttribute());
+    PatchTargetHandler patchTargetHandler = new PatchTargetHandler(patchConfig, resourceType, patchOperation,
+                                                                   multiValuedIndexes);
     T patchedResourceNode = getPatchedResource(id);
     List<String> values = (List<String>)patchOperation.getValueStringList()
                                                       .stream()
@@ -146,6 +172,27 @@ public class DefaultPatchOperationHandler<T extends ResourceNode> implements Pat
     return patchTargetHandler.handleOperationValues(patchedResourceNode, values);
   }
 
+  /**
+   * remembers the top-level attribute of the given attribute as touched so that it is validated again after all
+   * patch operations were applied
+   *
+   * @param schemaAttribute the attribute that is being patched or null if an extension is referenced directly
+   */
+  private void addTouchedAttribute(SchemaAttribute schemaAttribute)
+  {
+    if (schemaAttribute == null)
+    {
+      fullValidationRequired = true;
+      return;
+    }
+    SchemaAttribute topLevelAttribute = schemaAttribute;
+    while (topLevelAttribute.getParent() != null)
+    {
+      topLevelAttribute = topLevelAttribute.getParent();
+    }
+    touchedAttributes.add(topLevelAttribute);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -245,8 +292,12 @@ public class DefaultPatchOperationHandler<T extends ResourceNode> implements Pat
     {
       T validatedResource;
       ServiceProvider serviceProvider = resourceType.getResourceHandlerImpl().getServiceProvider();
+      // if enabled only the touched attributes are validated because the other attributes were valid before
+      boolean partialValidation = resourceType.getFeatures().isPartialPatchValidation() && !fullValidationRequired;
+      Set<SchemaAttribute> attributesToValidate = partialValidation ? touchedAttributes : null;
       RequestResourceValidator requestResourceValidator = new RequestResourceValidator(new Context(null), resourceType,
-                                                                                       HttpMethod.PATCH);
+                                                                                       HttpMethod.PATCH,
+                                                                                       attributesToValidate);
       validatedResource = (T)requestResourceValidator.validateDocument(patchedResource);
       validatedResource.setId(resourceId);
       Supplier<T> oldResourceSupplier = getOldResourceSupplier(resourceId,
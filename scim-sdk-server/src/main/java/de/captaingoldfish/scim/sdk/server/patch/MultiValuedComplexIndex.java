@@ -0,0 +1,340 @@
+package de.captaingoldfish.scim.sdk.server.patch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import lombok.Getter;
+
+
+/**
+ * a transient hash index over the complex nodes of a multivalued complex attribute. The index is keyed by the
+ * value of a single simple sub-attribute e.g. "members.value" and allows the {@link PatchTargetHandler} to
+ * resolve filter expressions like {@code members[value eq "123456"]} without evaluating the filter on each
+ * element of the array. <br>
+ * <br>
+ * the index is built once per patch request and must be kept up to date by using the modifying methods of
+ * this class instead of modifying the array directly. The array itself remains the single source of truth for
+ * the order of the elements.
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+class MultiValuedComplexIndex
+{
+
+  /**
+   * the multivalued complex array that is represented by this index
+   */
+  @Getter
+  private final ArrayNode multiValued;
+
+  /**
+   * the sub-attribute whose value is used as key for the elements of the array
+   */
+  @Getter
+  private final SchemaAttribute keyAttribute;
+
+  /**
+   * the elements of the array mapped by the normalized value of their key attribute. Elements that do not have
+   * a textual key are not part of this map
+   */
+  private final Map<String, List<ObjectNode>> nodesByKey = new HashMap<>();
+
+  /**
+   * the index entries of all elements of the array mapped by identity
+   */
+  private final Map<ObjectNode, IndexEntry> entries = new IdentityHashMap<>();
+
+  /**
+   * all elements of the array that contain a primary attribute regardless of its value
+   */
+  private final Set<ObjectNode> nodesWithPrimary = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * the slot that will be given to the next element that is appended to the array. The slots are strictly
+   * ascending in the order of the elements within the array
+   */
+  private int nextSlot;
+
+  /**
+   * the number of elements that were removed from the array since the index was built. An element with the slot
+   * {@code n} is always located within the range of [n - removedNodes, n] of the array
+   */
+  private int removedNodes;
+
+  /**
+   * true if an element was added that cannot be indexed. In this case the modifying methods of this class
+   * operate on the array only and the index must not be used anymore for resolving filter expressions
+   */
+  private boolean invalidated;
+
+  private MultiValuedComplexIndex(ArrayNode multiValued, SchemaAttribute keyAttribute)
+  {
+    this.multiValued = multiValued;
+    this.keyAttribute = keyAttribute;
+  }
+
+  /**
+   * builds a new index over the given array
+   *
+   * @param multiValued the multivalued complex array to index
+   * @param keyAttribute the simple sub-attribute whose value should be used as key
+   * @return the new index or null if the array contains elements that cannot be indexed in which case the
+   *         caller must fall back to evaluate the filter on each element
+   */
+  public static MultiValuedComplexIndex build(ArrayNode multiValued, SchemaAttribute keyAttribute)
+  {
+    MultiValuedComplexIndex index = new MultiValuedComplexIndex(multiValued, keyAttribute);
+    for ( JsonNode jsonNode : multiValued )
+    {
+      if (!jsonNode.isObject() || !index.addEntry((ObjectNode)jsonNode))
+      {
+        return null;
+      }
+    }
+    // the same node instance might be present several times within the array
+    return index.entries.size() == multiValued.size() ? index : null;
+  }
+
+  /**
+   * tells if this index still represents the given array. This is a guard against modifications that did not
+   * pass this index
+   *
+   * @param arrayNode the array that should be handled
+   * @param keyAttribute the key attribute that is needed by the current operation
+   * @return true if this index can be used for the given array and key attribute
+   */
+  public boolean isUsableFor(ArrayNode arrayNode, SchemaAttribute keyAttribute)
+  {
+    return !invalidated && multiValued == arrayNode && entries.size() == arrayNode.size()
+           && this.keyAttribute.getName().equals(keyAttribute.getName())
+           && this.keyAttribute.isCaseExact() == keyAttribute.isCaseExact();
+  }
+
+  /**
+   * retrieves all elements that have one of the given key values
+   *
+   * @param keys the key values to look up
+   * @return the matching elements in the order of the array without duplicates
+   */
+  public List<ObjectNode> getNodes(Collection<String> keys)
+  {
+    Set<ObjectNode> matchingNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<ObjectNode> result = new ArrayList<>();
+    for ( String key : keys )
+    {
+      for ( ObjectNode objectNode : nodesByKey.getOrDefault(normalize(key), Collections.emptyList()) )
+      {
+        if (matchingNodes.add(objectNode))
+        {
+          result.add(objectNode);
+        }
+      }
+    }
+    result.sort((node1, node2) -> Integer.compare(entries.get(node1).getSlot(), entries.get(node2).getSlot()));
+    return result;
+  }
+
+  /**
+   * gets the current position of the given element within the array
+   *
+   * @param objectNode an element of the array
+   * @return the index of the element within the array
+   */
+  public int getIndex(ObjectNode objectNode)
+  {
+    if (invalidated)
+    {
+      for ( int i = 0 ; i < multiValued.size() ; i++ )
+      {
+        if (multiValued.get(i) == objectNode)
+        {
+          return i;
+        }
+      }
+      throw new IllegalStateException("Element is not part of multivalued complex attribute '"
+                                      + keyAttribute.getFullResourceName() + "'");
+    }
+    int slot = entries.get(objectNode).getSlot();
+    int lowerBound = Math.max(0, slot - removedNodes);
+    for ( int i = Math.min(slot, multiValued.size() - 1) ; i >= lowerBound ; i-- )
+    {
+      if (multiValued.get(i) == objectNode)
+      {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Index of multivalued complex attribute '" + keyAttribute.getFullResourceName()
+                                    + "' is out of sync with its array");
+  }
+
+  /**
+   * appends the given element to the end of the array
+   *
+   * @param objectNode the element to add
+   */
+  public void add(ObjectNode objectNode)
+  {
+    multiValued.add(objectNode);
+    if (!invalidated && !addEntry(objectNode))
+    {
+      invalidated = true;
+    }
+  }
+
+  /**
+   * removes the given element from the array
+   *
+   * @param objectNode the element to remove
+   */
+  public void remove(ObjectNode objectNode)
+  {
+    multiValued.remove(getIndex(objectNode));
+    if (!invalidated)
+    {
+      removeEntry(objectNode);
+      removedNodes++;
+    }
+  }
+
+  /**
+   * must be called after the given element was modified in place so that its key and primary attribute are
+   * evaluated again
+   *
+   * @param objectNode the modified element
+   */
+  public void reindex(ObjectNode objectNode)
+  {
+    if (!invalidated && !putEntry(objectNode, removeEntry(objectNode).getSlot()))
+    {
+      invalidated = true;
+    }
+  }
+
+  /**
+   * removes the primary attribute from all elements of the array
+   */
+  public void removePrimaryAttributes()
+  {
+    if (invalidated)
+    {
+      multiValued.forEach(jsonNode -> ((ObjectNode)jsonNode).remove(AttributeNames.RFC7643.PRIMARY));
+      return;
+    }
+    for ( ObjectNode objectNode : nodesWithPrimary )
+    {
+      objectNode.remove(AttributeNames.RFC7643.PRIMARY);
+    }
+    nodesWithPrimary.clear();
+  }
+
+  /**
+   * adds the given element as the last element to the index
+   *
+   * @return false if the element has a key that cannot be indexed
+   */
+  private boolean addEntry(ObjectNode objectNode)
+  {
+    return putEntry(objectNode, nextSlot++);
+  }
+
+  /**
+   * adds the given element with the given slot to the index
+   *
+   * @return false if the element has a key that cannot be indexed
+   */
+  private boolean putEntry(ObjectNode objectNode, int slot)
+  {
+    JsonNode keyNode = objectNode.get(keyAttribute.getName());
+    if (keyNode != null && keyNode.isArray())
+    {
+      return false;
+    }
+    // the filter resolution is using JsonNode#textValue() so non-textual keys can never match an eq-expression
+    String key = keyNode == null ? null : normalize(keyNode.textValue());
+    entries.put(objectNode, new IndexEntry(slot, key));
+    if (key != null)
+    {
+      nodesByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(objectNode);
+    }
+    if (objectNode.has(AttributeNames.RFC7643.PRIMARY))
+    {
+      nodesWithPrimary.add(objectNode);
+    }
+    return true;
+  }
+
+  /**
+   * removes the given element from the index
+   *
+   * @return the index entry of the removed element
+   */
+  private IndexEntry removeEntry(ObjectNode objectNode)
+  {
+    IndexEntry indexEntry = entries.remove(objectNode);
+    if (indexEntry.getKey() != null)
+    {
+      List<ObjectNode> nodes = nodesByKey.get(indexEntry.getKey());
+      nodes.removeIf(node -> node == objectNode);
+      if (nodes.isEmpty())
+      {
+        nodesByKey.remove(indexEntry.getKey());
+      }
+    }
+    nodesWithPrimary.remove(objectNode);
+    return indexEntry;
+  }
+
+  /**
+   * normalizes the given key based on the case-exactness of the key attribute. The normalization is equivalent
+   * to {@link String#equalsIgnoreCase(String)} that is used by the filter resolution
+   */
+  private String normalize(String key)
+  {
+    if (key == null || keyAttribute.isCaseExact())
+    {
+      return key;
+    }
+    StringBuilder normalizedKey = new StringBuilder(key.length());
+    key.codePoints().forEach(codePoint -> {
+      normalizedKey.appendCodePoint(Character.toLowerCase(Character.toUpperCase(codePoint)));
+    });
+    return normalizedKey.toString();
+  }
+
+  /**
+   * the position and key of a single element of the array
+   */
+  @Getter
+  private static class IndexEntry
+  {
+
+    /**
+     * the slot of the element that defines its order within the array
+     */
+    private final int slot;
+
+    /**
+     * the normalized key of the element or null if the element has no textual key
+     */
+    private final String key;
+
+    public IndexEntry(int slot, String key)
+    {
+      this.slot = slot;
+      this.key = key;
+    }
+  }
+}
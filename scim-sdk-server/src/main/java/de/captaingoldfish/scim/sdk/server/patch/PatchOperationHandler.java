@@ -12,6 +12,7 @@ import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedComplexAtt
 import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedComplexMultivaluedSubAttributeOperation;
 import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedComplexSimpleSubAttributeOperation;
 import de.captaingoldfish.scim.sdk.server.patch.operations.MultivaluedSimpleAttributeOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.PatchOperation;
 import de.captaingoldfish.scim.sdk.server.patch.operations.RemoveComplexAttributeOperation;
 import de.captaingoldfish.scim.sdk.server.patch.operations.RemoveExtensionRefOperation;
 import de.captaingoldfish.scim.sdk.server.patch.operations.SimpleAttributeOperation;
@@ -544,4 +545,74 @@ public interface PatchOperationHandler<T extends ResourceNode>
    */
   public boolean handleOperation(String id, MultivaluedComplexMultivaluedSubAttributeOperation patchOperation);
 
+  /**
+   * tells if this handler wants to receive all operations of a patch request at once by
+   * {@link #handleOperations(String, List)} instead of a single call to the appropriate handleOperation-method
+   * for each operation. This is useful for handlers that apply the operations as deltas to a database because
+   * the operations can then be translated into a few set-based statements.
+   *
+   * @return true if {@link #handleOperations(String, List)} should be called, false else
+   */
+  public default boolean isBatchedOperationsSupported()
+  {
+    return false;
+  }
+
+  /**
+   * this method gets all operations of a patch request assigned if {@link #isBatchedOperationsSupported()}
+   * returns true. The operations are grouped by the top-level attribute that they are targeting and keep their
+   * original order within each group. If the patch request contains a {@link RemoveExtensionRefOperation} the
+   * operations are not grouped and will be in the order of the patch request. <br />
+   * <br />
+   * The default implementation delegates each operation to the appropriate handleOperation-method.
+   *
+   * @param id the id of the resource that is being patched
+   * @param patchOperations all validated operations of the patch request
+   * @return true if the resource was effectively changed or false if the values of the patch request did match
+   *         the existing state of the resource
+   */
+  public default boolean handleOperations(String id, List<PatchOperation<?>> patchOperations)
+  {
+    boolean wasChanged = false;
+    for ( PatchOperation<?> patchOperation : patchOperations )
+    {
+      boolean wasOperationApplied;
+      // the sub-attribute operations must be checked before their parent types
+      if (patchOperation instanceof MultivaluedComplexSimpleSubAttributeOperation)
+      {
+        wasOperationApplied = handleOperation(id, (MultivaluedComplexSimpleSubAttributeOperation)patchOperation);
+      }
+      else if (patchOperation instanceof MultivaluedComplexMultivaluedSubAttributeOperation)
+      {
+        wasOperationApplied = handleOperation(id, (MultivaluedComplexMultivaluedSubAttributeOperation)patchOperation);
+      }
+      else if (patchOperation instanceof SimpleAttributeOperation)
+      {
+        wasOperationApplied = handleOperation(id, (SimpleAttributeOperation)patchOperation);
+      }
+      else if (patchOperation instanceof MultivaluedComplexAttributeOperation)
+      {
+        wasOperationApplied = handleOperation(id, (MultivaluedComplexAttributeOperation)patchOperation);
+      }
+      else if (patchOperation instanceof MultivaluedSimpleAttributeOperation)
+      {
+        wasOperationApplied = handleOperation(id, (MultivaluedSimpleAttributeOperation)patchOperation);
+      }
+      else if (patchOperation instanceof RemoveComplexAttributeOperation)
+      {
+        wasOperationApplied = handleOperation(id, (RemoveComplexAttributeOperation)patchOperation);
+      }
+      else if (patchOperation instanceof RemoveExtensionRefOperation)
+      {
+        wasOperationApplied = handleOperation(id, (RemoveExtensionRefOperation)patchOperation);
+      }
+      else
+      {
+        throw new IllegalStateException("Unsupported patch operation type: " + patchOperation.getClass().getName());
+      }
+      wasChanged = wasOperationApplied || wasChanged;
+    }
+    return wasChanged;
+  }
+
 }
@@ -0,0 +1,412 @@
+package de.captaingoldfish.scim.sdk.server.patch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Comparator;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Mutability;
+import de.captaingoldfish.scim.sdk.common.constants.enums.PatchOp;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Type;
+import de.captaingoldfish.scim.sdk.common.request.PatchRequestOperation;
+import de.captaingoldfish.scim.sdk.common.resources.complex.PatchConfig;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.server.filter.AttributeExpressionLeaf;
+import de.captaingoldfish.scim.sdk.server.filter.AttributePathRoot;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * folds the operations of a patch request into an equivalent smaller set of operations before they are
+ * executed. Two operations are only folded if no other operation on the same top-level attribute is placed
+ * between them. Operations without a path, operations on a whole extension and operations with a path that
+ * cannot be resolved act as barriers that are never crossed. The following sequences are folded:
+ * <ul>
+ * <li>a replace operation on a simple attribute that is followed by another replace operation on the same
+ * attribute is removed (last-writer-wins)</li>
+ * <li>consecutive add operations on the same multivalued complex attribute are merged into a single add
+ * operation</li>
+ * <li>values of an add operation on a multivalued complex attribute that are removed by a following remove
+ * operation with a filter like {@code members[value eq "123"]} are removed from the add operation. This is
+ * only done if {@link PatchConfig#isDoNotFailOnNoTarget()} is true because the remove operation might not
+ * find its target anymore</li>
+ * </ul>
+ * If a removed operation would have changed the resource for sure, the normalizer remembers this in
+ * {@link #isChangeGuaranteed()} so that the change detection of the patch request is preserved. Values are
+ * only removed if they pass the same validation that would be executed if they were applied so that an
+ * invalid operation still fails the whole patch request.
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Slf4j
+class PatchOperationNormalizer
+{
+
+  /**
+   * the resource type on which the patch request is executed
+   */
+  private final ResourceType resourceType;
+
+  /**
+   * the current patch configuration
+   */
+  private final PatchConfig patchConfig;
+
+  /**
+   * validates the value of an operation for the given attribute before the value is removed from the patch
+   * request
+   */
+  private final BiPredicate<SchemaAttribute, JsonNode> valueValidator;
+
+  /**
+   * true if an operation was removed that would have changed the resource in any case
+   */
+  @Getter
+  private boolean changeGuaranteed;
+
+  public PatchOperationNormalizer(ResourceType resourceType,
+                                  PatchConfig patchConfig,
+                                  BiPredicate<SchemaAttribute, JsonNode> valueValidator)
+  {
+    this.resourceType = resourceType;
+    this.patchConfig = patchConfig;
+    this.valueValidator = valueValidator;
+  }
+
+  /**
+   * folds the given operations into an equivalent smaller set of operations
+   *
+   * @param operations the operations of the patch request after the workarounds were applied
+   * @return the normalized operations in the order in which they must be executed
+   */
+  public List<PatchRequestOperation> normalize(List<PatchRequestOperation> operations)
+  {
+    List<NormalizedOperation> normalizedOperations = new ArrayList<>(operations.size());
+    for ( PatchRequestOperation operation : operations )
+    {
+      normalizedOperations.add(new NormalizedOperation(operation, resolvePath(operation)));
+    }
+
+    for ( int i = 0 ; i < normalizedOperations.size() ; i++ )
+    {
+      NormalizedOperation operation = normalizedOperations.get(i);
+      if (operation.getPath() == null)
+      {
+        continue;
+      }
+      NormalizedOperation successor = getSuccessor(normalizedOperations, i);
+      if (successor == null)
+      {
+        continue;
+      }
+      if (isReplaceOnSimpleAttribute(operation) && isReplaceOnSimpleAttribute(successor)
+          && isSameAttribute(operation, successor) && isValidValue(operation))
+      {
+        // last-writer-wins
+        changeGuaranteed = changeGuaranteed || !isEqualValue(operation, successor);
+        operation.setRemoved(true);
+      }
+      else if (isAddOnMultivaluedComplexAttribute(operation) && isAddOnMultivaluedComplexAttribute(successor)
+               && isSameAttribute(operation, successor))
+      {
+        successor.mergeValues(operation);
+        operation.setRemoved(true);
+      }
+      else if (isAddOnMultivaluedComplexAttribute(operation) && patchConfig.isDoNotFailOnNoTarget())
+      {
+        cancelRemovedValues(operation, successor);
+      }
+    }
+
+    List<PatchRequestOperation> result = new ArrayList<>(normalizedOperations.size());
+    for ( NormalizedOperation normalizedOperation : normalizedOperations )
+    {
+      if (!normalizedOperation.isRemoved())
+      {
+        result.add(normalizedOperation.getOperation());
+      }
+    }
+    if (log.isTraceEnabled() && result.size() != operations.size())
+    {
+      log.trace("Normalized {} patch operations to {} operations", operations.size(), result.size());
+    }
+    return result;
+  }
+
+  /**
+   * resolves the path of the given operation
+   *
+   * @return the resolved path or null if the operation must be treated as a barrier
+   */
+  private AttributePathRoot resolvePath(PatchRequestOperation operation)
+  {
+    String path = operation.getPath().orElse(null);
+    if (path == null || resourceType.getExtensionById(path).isPresent())
+    {
+      return null;
+    }
+    try
+    {
+      AttributePathRoot attributePath = RequestUtils.parsePatchPath(resourceType, path);
+      return attributePath.getSchemaAttribute() == null ? null : attributePath;
+    }
+    catch (Exception ex)
+    {
+      log.trace("Path '{}' will not be normalized: {}", path, ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * @return the next operation that is not yet removed and that is either a barrier or operates on the same
+   *         top-level attribute as the operation at the given index. Null if there is no such operation or if
+   *         the next relevant operation is a barrier
+   */
+  private NormalizedOperation getSuccessor(List<NormalizedOperation> normalizedOperations, int index)
+  {
+    SchemaAttribute topLevelAttribute = normalizedOperations.get(index).getTopLevelAttribute();
+    for ( int i = index + 1 ; i < normalizedOperations.size() ; i++ )
+    {
+      NormalizedOperation candidate = normalizedOperations.get(i);
+      if (candidate.isRemoved())
+      {
+        continue;
+      }
+      if (candidate.getPath() == null)
+      {
+        return null;
+      }
+      if (candidate.getTopLevelAttribute() == topLevelAttribute)
+      {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * removes the values from the given add operation that are removed again by the given remove operation
+   */
+  private void cancelRemovedValues(NormalizedOperation addOperation, NormalizedOperation removeOperation)
+  {
+    AttributePathRoot removePath = removeOperation.getPath();
+    boolean isRemoveWithKeyFilter = PatchOp.REMOVE.equals(removeOperation.getOperation().getOp())
+                                    && removePath.isWithFilter() && !removePath.isWithSubAttributeRef()
+                                    && removePath.getSchemaAttribute() == addOperation.getPath().getSchemaAttribute()
+                                    && removePath.getChild() instanceof AttributeExpressionLeaf;
+    if (!isRemoveWithKeyFilter)
+    {
+      return;
+    }
+    AttributeExpressionLeaf leaf = (AttributeExpressionLeaf)removePath.getChild();
+    SchemaAttribute keyAttribute = leaf.getSchemaAttribute();
+    boolean isKeyFilter = Comparator.EQ.equals(leaf.getComparator()) && !leaf.isNull() && leaf.getValue() != null
+                          && (Type.STRING.equals(keyAttribute.getType())
+                              || Type.REFERENCE.equals(keyAttribute.getType()))
+                          && !keyAttribute.isMultiValued()
+                          && keyAttribute.getParent() == removePath.getSchemaAttribute();
+    if (!isKeyFilter)
+    {
+      return;
+    }
+    ArrayNode values = addOperation.getValues();
+    if (!valueValidator.test(addOperation.getPath().getSchemaAttribute(), values))
+    {
+      // the values must be added so that the patch request fails
+      return;
+    }
+    ArrayNode remainingValues = new ArrayNode(JsonNodeFactory.instance);
+    for ( JsonNode value : values )
+    {
+      JsonNode key = value.get(keyAttribute.getName());
+      boolean isMatchingKey = key != null && key.isTextual() && (keyAttribute.isCaseExact()
+        ? key.textValue().equals(leaf.getValue()) : key.textValue().equalsIgnoreCase(leaf.getValue()));
+      if (isMatchingKey)
+      {
+        // the remove operation would have removed this value in any case
+        changeGuaranteed = true;
+      }
+      else
+      {
+        remainingValues.add(value);
+      }
+    }
+    if (remainingValues.isEmpty())
+    {
+      addOperation.setRemoved(true);
+    }
+    else if (remainingValues.size() != values.size())
+    {
+      addOperation.setValues(remainingValues);
+    }
+  }
+
+  /**
+   * @return true if the operation replaces a simple attribute that is neither multivalued nor complex
+   */
+  private boolean isReplaceOnSimpleAttribute(NormalizedOperation operation)
+  {
+    AttributePathRoot path = operation.getPath();
+    SchemaAttribute schemaAttribute = path.getDirectlyReferencedAttribute();
+    return PatchOp.REPLACE.equals(operation.getOperation().getOp()) && !path.isWithFilter()
+           && !schemaAttribute.isMultiValued() && !schemaAttribute.isComplexAttribute()
+           && !schemaAttribute.isChildOfMultivaluedComplexAttribute()
+           && (Mutability.READ_WRITE.equals(schemaAttribute.getMutability())
+               || Mutability.WRITE_ONLY.equals(schemaAttribute.getMutability()));
+  }
+
+  /**
+   * @return true if the operation adds values without filter to a multivalued complex attribute and none of the
+   *         values is a primary value. Primary values are excluded because they modify the other values of the
+   *         attribute
+   */
+  private boolean isAddOnMultivaluedComplexAttribute(NormalizedOperation operation)
+  {
+    AttributePathRoot path = operation.getPath();
+    if (!PatchOp.ADD.equals(operation.getOperation().getOp()) || path.isWithFilter() || path.isWithSubAttributeRef()
+        || !path.getSchemaAttribute().isMultivaluedComplexAttribute())
+    {
+      return false;
+    }
+    ArrayNode values = operation.getValues();
+    if (values == null || values.isEmpty())
+    {
+      return false;
+    }
+    for ( JsonNode value : values )
+    {
+      if (!value.isObject() || value.has(AttributeNames.RFC7643.PRIMARY))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the value of the given operation is valid for the attribute that it references
+   */
+  private boolean isValidValue(NormalizedOperation operation)
+  {
+    JsonNode value = operation.getOperation().getValue().orElse(null);
+    return valueValidator.test(operation.getPath().getDirectlyReferencedAttribute(), value);
+  }
+
+  /**
+   * @return true if both operations are referencing the same attribute
+   */
+  private boolean isSameAttribute(NormalizedOperation operation, NormalizedOperation successor)
+  {
+    return operation.getPath().getDirectlyReferencedAttribute() == successor.getPath().getDirectlyReferencedAttribute();
+  }
+
+  /**
+   * @return true if both operations have the same value
+   */
+  private boolean isEqualValue(NormalizedOperation operation, NormalizedOperation successor)
+  {
+    Optional<JsonNode> value = operation.getOperation().getValue();
+    Optional<JsonNode> successorValue = successor.getOperation().getValue();
+    return value.equals(successorValue);
+  }
+
+  /**
+   * a single operation of the patch request with its resolved path
+   */
+  @Getter
+  private static class NormalizedOperation
+  {
+
+    /**
+     * the resolved path or null if the operation is a barrier
+     */
+    private final AttributePathRoot path;
+
+    /**
+     * the top-level attribute that is affected by this operation or null if the operation is a barrier
+     */
+    private final SchemaAttribute topLevelAttribute;
+
+    /**
+     * the operation that should be executed. Might be replaced by a new operation if the values were changed
+     */
+    private PatchRequestOperation operation;
+
+    /**
+     * the values of the operation. Lazily parsed and only used for multivalued complex attributes
+     */
+    private ArrayNode values;
+
+    /**
+     * if this operation was folded into another operation
+     */
+    private boolean removed;
+
+    public NormalizedOperation(PatchRequestOperation operation, AttributePathRoot path)
+    {
+      this.operation = operation;
+      this.path = path;
+      if (path == null)
+      {
+        this.topLevelAttribute = null;
+      }
+      else
+      {
+        SchemaAttribute schemaAttribute = path.getSchemaAttribute();
+        while (schemaAttribute.getParent() != null)
+        {
+          schemaAttribute = schemaAttribute.getParent();
+        }
+        this.topLevelAttribute = schemaAttribute;
+      }
+    }
+
+    public ArrayNode getValues()
+    {
+      if (values == null)
+      {
+        values = operation.getValueNode().orElse(null);
+      }
+      return values;
+    }
+
+    public void setRemoved(boolean removed)
+    {
+      this.removed = removed;
+    }
+
+    /**
+     * replaces the values of this operation with the given values
+     */
+    public void setValues(ArrayNode values)
+    {
+      this.values = values;
+      this.operation = PatchRequestOperation.builder()
+                                            .op(operation.getOp())
+                                            .path(operation.getPath().orElse(null))
+                                            .valueNode(values)
+                                            .build();
+    }
+
+    /**
+     * puts the values of the given preceding operation in front of the values of this operation
+     */
+    public void mergeValues(NormalizedOperation precedingOperation)
+    {
+      ArrayNode mergedValues = new ArrayNode(JsonNodeFactory.instance);
+      mergedValues.addAll(precedingOperation.getValues());
+      mergedValues.addAll(getValues());
+      setValues(mergedValues);
+    }
+  }
+}
@@ -3,6 +3,7 @@ package de.captaingoldfish.scim.sdk.server.patch;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +57,7 @@ import de.captaingoldfish.scim.sdk.server.schemas.exceptions.AttributeValidation
 import de.captaingoldfish.scim.sdk.server.schemas.validation.RequestAttributeValidator;
 import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
 import de.captaingoldfish.scim.sdk.server.utils.ScimAttributeHelper;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -137,6 +139,13 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
    */
   private PatchOperationHandler<T> patchOperationHandler;
 
+  /**
+   * collects the operations of the current request if the {@link #patchOperationHandler} wants to receive all
+   * operations at once. Is null if the operations should be passed one by one
+   */
+  @Getter(AccessLevel.NONE)
+  private final BatchingPatchOperationHandler<T> batchingPatchOperationHandler;
+
   public PatchRequestHandler(String resourceId,
                              ResourceHandler resourceHandler,
                              List<Supplier<PatchWorkaround>> patchWorkarounds,
@@ -150,6 +159,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
     this.mainSchema = resourceType.getMainSchema();
     this.extensionSchemas = resourceType.getAllSchemaExtensions();
     this.patchOperationHandler = resourceHandler.getPatchOpResourceHandler(resourceId, context);
+    this.batchingPatchOperationHandler = getBatchingPatchOperationHandler();
     this.validationContext = new ValidationContext(resourceType);
     this.requestContext = context;
   }
@@ -176,10 +186,32 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
     this.mainSchema = resourceType.getMainSchema();
     this.extensionSchemas = resourceType.getAllSchemaExtensions();
     this.patchOperationHandler = patchOperationHandler;
+    this.batchingPatchOperationHandler = getBatchingPatchOperationHandler();
     this.validationContext = new ValidationContext(resourceType);
     this.requestContext = context;
   }
 
+  /**
+   * @return the collecting handler if the {@link #patchOperationHandler} wants to receive all operations at
+   *         once, null else
+   */
+  private BatchingPatchOperationHandler<T> getBatchingPatchOperationHandler()
+  {
+    if (patchOperationHandler == null || !patchOperationHandler.isBatchedOperationsSupported())
+    {
+      return null;
+    }
+    return new BatchingPatchOperationHandler<>(patchOperationHandler);
+  }
+
+  /**
+   * @return the handler that receives the single operations of the current request
+   */
+  private PatchOperationHandler<T> getOperationHandler()
+  {
+    return batchingPatchOperationHandler == null ? patchOperationHandler : batchingPatchOperationHandler;
+  }
+
   /**
    * delegate method to {@link PatchOperationHandler#getOldResourceSupplier(String, List, List, Context)}
    */
@@ -214,9 +246,17 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
    */
   public T handlePatchRequest(PatchOpRequest patchOpRequest)
   {
-    for ( PatchRequestOperation operation : patchOpRequest.getOperations() )
+    final boolean normalizeOperations = serviceProvider.isNormalizePatchOperations();
+    List<PatchRequestOperation> operations = patchOpRequest.getOperations();
+    if (normalizeOperations)
+    {
+      operations = normalizeOperations(operations);
+    }
+
+    for ( PatchRequestOperation operation : operations )
     {
-      handleSinglePatchOperation(operation);
+      // the workarounds were already applied on normalized operations
+      handleSinglePatchOperation(operation, !normalizeOperations);
     }
 
     if (validationContext.hasErrors())
@@ -225,6 +265,20 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
       throw new RequestContextException(validationContext);
     }
 
+    if (batchingPatchOperationHandler != null)
+    {
+      try
+      {
+        resourceChanged = batchingPatchOperationHandler.flush(resourceId) || resourceChanged;
+      }
+      catch (AttributeValidationException ex)
+      {
+        validationContext.addExceptionMessages(ex);
+        validationContext.logErrors();
+        throw new RequestContextException(validationContext);
+      }
+    }
+
     T resource = patchOperationHandler.getPatchedResource(resourceId);
     if (resourceChanged)
     {
@@ -242,19 +296,84 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
     return resource;
   }
 
+  /**
+   * applies the workarounds to the given operations and folds them into an equivalent smaller set of operations
+   * with the {@link PatchOperationNormalizer}. Operations whose workarounds are failing are handled in the same
+   * way as in {@link #handleSinglePatchOperation(PatchRequestOperation, boolean)}
+   *
+   * @param operations the operations of the patch request
+   * @return the normalized operations in the order in which they must be executed
+   */
+  private List<PatchRequestOperation> normalizeOperations(List<PatchRequestOperation> operations)
+  {
+    List<PatchRequestOperation> fixedOperations = new ArrayList<>(operations.size());
+    for ( PatchRequestOperation operation : operations )
+    {
+      if (!operation.getPath().isPresent())
+      {
+        fixedOperations.add(operation);
+        continue;
+      }
+      try
+      {
+        fixedOperations.add(applyWorkaroundsToPatchOperation(operation));
+      }
+      catch (AttributeValidationException ex)
+      {
+        validationContext.addExceptionMessages(ex);
+      }
+      catch (IgnoreWholeOperationException | IgnoreSingleAttributeException ex)
+      {
+        // do nothing
+        log.trace(ex.getMessage(), ex);
+      }
+    }
+    PatchOperationNormalizer normalizer = new PatchOperationNormalizer(resourceType, patchConfig,
+                                                                       this::isValidAttributeValue);
+    List<PatchRequestOperation> normalizedOperations = normalizer.normalize(fixedOperations);
+    resourceChanged = normalizer.isChangeGuaranteed() || resourceChanged;
+    return normalizedOperations;
+  }
+
+  /**
+   * used by the {@link PatchOperationNormalizer} to verify that the value of an operation that should be folded
+   * into another operation passes the same validation that would be executed if the operation was applied
+   *
+   * @param schemaAttribute the attribute that is referenced by the operation
+   * @param attributeValue the value of the operation
+   * @return true if the value is valid, false else
+   */
+  private boolean isValidAttributeValue(SchemaAttribute schemaAttribute, JsonNode attributeValue)
+  {
+    try
+    {
+      patchValidations.validateCurrentAttribute(schemaAttribute,
+                                                new AbstractMap.SimpleEntry<>(schemaAttribute.getName(),
+                                                                              attributeValue));
+      return true;
+    }
+    catch (Exception ex)
+    {
+      log.trace(ex.getMessage(), ex);
+      return false;
+    }
+  }
+
   /**
    * handles a single patch operation from the patch-request that might consist of several patch-operations
    *
    * @param patchRequestOperation the patch-operation to handle
+   * @param applyWorkarounds if the workarounds must be applied to the operation before it is handled
    */
-  private void handleSinglePatchOperation(PatchRequestOperation patchRequestOperation)
+  private void handleSinglePatchOperation(PatchRequestOperation patchRequestOperation, boolean applyWorkarounds)
   {
     final boolean isPathPresent = patchRequestOperation.getPath().isPresent();
     try
     {
       if (isPathPresent)
       {
-        PatchRequestOperation fixedOperation = applyWorkaroundsToPatchOperation(patchRequestOperation);
+        PatchRequestOperation fixedOperation = applyWorkarounds
+          ? applyWorkaroundsToPatchOperation(patchRequestOperation) : patchRequestOperation;
         patchValidations.validateRemoveOperation(true, fixedOperation);
 
         String path = fixedOperation.getPath().orElse(null);
@@ -404,7 +523,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
     // remove the whole extension
     if (PatchOp.REMOVE.equals(fixedOperation.getOp()))
     {
-      return patchOperationHandler.handleOperation(resourceId,
+      return getOperationHandler().handleOperation(resourceId,
                                                    new RemoveExtensionRefOperation(schema, fixedOperation.getOp()));
     }
 
@@ -520,7 +639,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
         MultivaluedComplexMultivaluedSubAttributeOperation multiComplexOperation = //
           new MultivaluedComplexMultivaluedSubAttributeOperation(attributePath, attributePath.getSubAttribute(),
                                                                  PatchOp.REMOVE);
-        return patchOperationHandler.handleOperation(resourceId, multiComplexOperation);
+        return getOperationHandler().handleOperation(resourceId, multiComplexOperation);
       }
       SchemaAttribute schemaAttribute = attributePath.getDirectlyReferencedAttribute();
       if (schemaAttribute.isMultiValued())
@@ -541,7 +660,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
         addAttributeToRequestedAttributes(schemaAttribute);
         MultivaluedComplexMultivaluedSubAttributeOperation multiComplexOperation = //
           new MultivaluedComplexMultivaluedSubAttributeOperation(attributePath, schemaAttribute, patchOp, arrayNode);
-        return patchOperationHandler.handleOperation(resourceId, multiComplexOperation);
+        return getOperationHandler().handleOperation(resourceId, multiComplexOperation);
       }
       else
       {
@@ -551,7 +670,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
         addAttributeToRequestedAttributes(schemaAttribute);
         MultivaluedComplexSimpleSubAttributeOperation multiComplexOperation = //
           new MultivaluedComplexSimpleSubAttributeOperation(attributePath, schemaAttribute, patchOp, value);
-        return patchOperationHandler.handleOperation(resourceId, multiComplexOperation);
+        return getOperationHandler().handleOperation(resourceId, multiComplexOperation);
       }
     }
 
@@ -572,7 +691,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
         // null values are considered implicit remove operations
         MultivaluedComplexAttributeOperation multiComplexOperation = //
           new MultivaluedComplexAttributeOperation(attributePath, PatchOp.REMOVE);
-        return patchOperationHandler.handleOperation(resourceId, multiComplexOperation);
+        return getOperationHandler().handleOperation(resourceId, multiComplexOperation);
       }
       ArrayNode arrayNode;
       if (attributeValue instanceof ArrayNode)
@@ -590,7 +709,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
       addAttributeToRequestedAttributes(multiComplexAttribute);
       MultivaluedComplexAttributeOperation multiComplexOperation = //
         new MultivaluedComplexAttributeOperation(attributePath, patchOp, arrayNode);
-      return patchOperationHandler.handleOperation(resourceId, multiComplexOperation);
+      return getOperationHandler().handleOperation(resourceId, multiComplexOperation);
     }
 
     /**
@@ -607,12 +726,12 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
       if (attributeValue == null || attributeValue.isNull())
       {
         // null values are considered implicit remove operations
-        return patchOperationHandler.handleOperation(resourceId,
+        return getOperationHandler().handleOperation(resourceId,
                                                      new MultivaluedSimpleAttributeOperation(attributePath,
                                                                                              PatchOp.REMOVE));
       }
       addAttributeToRequestedAttributes(schemaAttribute);
-      return patchOperationHandler.handleOperation(resourceId,
+      return getOperationHandler().handleOperation(resourceId,
                                                    new MultivaluedSimpleAttributeOperation(attributePath, patchOp,
                                                                                            (ArrayNode)attributeValue));
     }
@@ -630,7 +749,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
         patchValidations.validateMutability(complexAttribute);
         AttributePathRoot attributePath = new AttributePathRoot(complexAttribute);
         // null values are considered implicit remove operations
-        return patchOperationHandler.handleOperation(resourceId,
+        return getOperationHandler().handleOperation(resourceId,
                                                      new RemoveComplexAttributeOperation(attributePath,
                                                                                          PatchOp.REMOVE));
       }
@@ -706,11 +825,11 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
       if (attributeValue == null || attributeValue.isNull())
       {
         // null values are considered implicit remove operations
-        return patchOperationHandler.handleOperation(resourceId,
+        return getOperationHandler().handleOperation(resourceId,
                                                      new SimpleAttributeOperation(attributePath, PatchOp.REMOVE));
       }
       addAttributeToRequestedAttributes(schemaAttribute);
-      return patchOperationHandler.handleOperation(resourceId,
+      return getOperationHandler().handleOperation(resourceId,
                                                    new SimpleAttributeOperation(attributePath, patchOp,
                                                                                 attributeValue));
     }
@@ -736,7 +855,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
         {
           if (schemaAttribute.isMultiValued())
           {
-            return patchOperationHandler.handleOperation(resourceId,
+            return getOperationHandler().handleOperation(resourceId,
                                                          new MultivaluedComplexMultivaluedSubAttributeOperation(attributePath,
                                                                                                                 schemaAttribute,
                                                                                                                 patchOp,
@@ -744,7 +863,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
           }
           else
           {
-            return patchOperationHandler.handleOperation(resourceId,
+            return getOperationHandler().handleOperation(resourceId,
                                                          new MultivaluedComplexSimpleSubAttributeOperation(attributePath,
                                                                                                            schemaAttribute,
                                                                                                            patchOp,
@@ -755,13 +874,13 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
         {
           if (schemaAttribute.isComplexAttribute())
           {
-            return patchOperationHandler.handleOperation(resourceId,
+            return getOperationHandler().handleOperation(resourceId,
                                                          new MultivaluedComplexAttributeOperation(attributePath,
                                                                                                   patchOp, valueNode));
           }
           else
           {
-            return patchOperationHandler.handleOperation(resourceId,
+            return getOperationHandler().handleOperation(resourceId,
                                                          new MultivaluedSimpleAttributeOperation(attributePath, patchOp,
                                                                                                  (ArrayNode)valueNode));
           }
@@ -933,7 +1052,7 @@ public class PatchRequestHandler<T extends ResourceNode> implements ScimAttribut
       if (jsonNode.isNull() || jsonNode.isEmpty())
       {
         // a null node is considered a remove-operation
-        return patchOperationHandler.handleOperation(resourceId,
+        return getOperationHandler().handleOperation(resourceId,
                                                      new RemoveExtensionRefOperation(extensionSchema, PatchOp.REMOVE));
       }
       ObjectNode extensionNode = (ObjectNode)jsonNode;
@@ -1,7 +1,11 @@
 package de.captaingoldfish.scim.sdk.server.patch;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -29,6 +33,8 @@ import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
 import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
 import de.captaingoldfish.scim.sdk.server.filter.AttributeExpressionLeaf;
 import de.captaingoldfish.scim.sdk.server.filter.AttributePathRoot;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import de.captaingoldfish.scim.sdk.server.filter.OrExpressionNode;
 import de.captaingoldfish.scim.sdk.server.filter.resources.PatchFilterResolver;
 import de.captaingoldfish.scim.sdk.server.patch.operations.PatchOperation;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
@@ -98,16 +104,52 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
    */
   private SchemaAttribute schemaAttribute;
 
+  /**
+   * the indexes of the multivalued complex attributes of the patched resource. These indexes are shared between
+   * all operations of a single patch request and are discarded if an operation modifies the resource without
+   * keeping the indexes up to date
+   */
+  private final Map<ArrayNode, MultiValuedComplexIndex> multiValuedIndexes;
+
+  /**
+   * the key sub-attribute of the filter expression if the filter of the path can be resolved by a
+   * {@link MultiValuedComplexIndex} e.g. "members.value" for the path {@code members[value eq "123456"]}
+   */
+  private SchemaAttribute indexKeyAttribute;
+
+  /**
+   * the values of the filter expression that must be looked up in the {@link MultiValuedComplexIndex}
+   */
+  private final List<String> indexKeyValues = new ArrayList<>();
+
+  /**
+   * will be set to true if the current operation kept the {@link #multiValuedIndexes} up to date
+   */
+  private boolean multiValuedIndexesMaintained;
+
 
   public PatchTargetHandler(PatchConfig patchConfig, ResourceType resourceType, PatchOperation patchOperation)
+  {
+    this(patchConfig, resourceType, patchOperation, new IdentityHashMap<>());
+  }
+
+  PatchTargetHandler(PatchConfig patchConfig,
+                     ResourceType resourceType,
+                     PatchOperation patchOperation,
+                     Map<ArrayNode, MultiValuedComplexIndex> multiValuedIndexes)
   {
     super(resourceType);
     this.patchConfig = patchConfig;
     this.path = patchOperation.getAttributePath();
     this.patchOp = patchOperation.getPatchOp();
+    this.multiValuedIndexes = multiValuedIndexes;
     if (!(this.path instanceof PatchExtensionAttributePath))
     {
       this.schemaAttribute = getSchemaAttribute();
+      if (path.getChild() != null)
+      {
+        this.indexKeyAttribute = getIndexKeyAttribute(path.getChild());
+      }
     }
   }
 
@@ -120,11 +162,29 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
    */
   public boolean handleOperationValues(ResourceNode resource, List<String> values)
   {
-    if (path instanceof PatchExtensionAttributePath)
+    boolean operationSucceeded = false;
+    try
+    {
+      boolean changeWasMade;
+      if (path instanceof PatchExtensionAttributePath)
+      {
+        changeWasMade = handleExtensionOperation(resource, values);
+      }
+      else
+      {
+        changeWasMade = handlePathAttributeOperation(resource, values);
+      }
+      operationSucceeded = true;
+      return changeWasMade;
+    }
+    finally
     {
-      return handleExtensionOperation(resource, values);
+      if (!operationSucceeded || !multiValuedIndexesMaintained)
+      {
+        // the operation might have modified a multivalued complex attribute without updating its index
+        multiValuedIndexes.clear();
+      }
     }
-    return handlePathAttributeOperation(resource, values);
   }
 
   /**
@@ -765,13 +825,22 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
   private boolean handleDirectMultiValuedComplexPathReference(ArrayNode multiValued, List<String> values)
   {
     final int originalNodeSize = multiValued.size();
-    List<IndexNode> matchingComplexNodes = resolveFilter(multiValued, path);
+    final boolean isAddWithoutFilter = PatchOp.ADD.equals(patchOp) && path.getChild() == null;
+    // a replace operation with several values on a filter would add the matching nodes several times
+    final boolean isIndexSupported = isAddWithoutFilter || indexKeyAttribute != null
+                                                           && (!PatchOp.REPLACE.equals(patchOp) || values.size() == 1);
+    MultiValuedComplexIndex index = isIndexSupported ? getMultiValuedIndex(multiValued) : null;
+    multiValuedIndexesMaintained = isAddWithoutFilter || index != null;
+
+    // an add operation without filter will never touch the existing nodes
+    List<IndexNode> matchingComplexNodes = isAddWithoutFilter ? Collections.emptyList()
+      : resolveFilter(multiValued, path, index);
     if (PatchOp.REMOVE.equals(patchOp))
     {
       boolean changeWasMade = false;
       for ( int i = matchingComplexNodes.size() - 1 ; i >= 0 ; i-- )
       {
-        multiValued.remove(matchingComplexNodes.get(i).getIndex());
+        removeNode(multiValued, matchingComplexNodes.get(i), index);
         changeWasMade = true;
       }
       return changeWasMade;
@@ -814,15 +883,24 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
           indexNode.createCopy();
         }
         originalNodes.add((ObjectNode)multiValued.get(indexNode.getIndex()));
-        multiValued.remove(indexNode.getIndex());
+        removeNode(multiValued, indexNode, index);
       }
     }
 
+    // the original nodes are grouped by their hash values so that the replaced array can be compared with the
+    // new values in linear time
+    Map<Integer, List<ObjectNode>> originalNodesByHash = new HashMap<>();
+    for ( ObjectNode originalNode : originalNodes )
+    {
+      originalNodesByHash.computeIfAbsent(JsonHelper.getCanonicalHash(originalNode), hash -> new ArrayList<>())
+                         .add(originalNode);
+    }
+
     boolean isResourceChanged = false;
     for ( ObjectNode complexNode : valueNodes )
     {
       JsonNode primary = complexNode.get(AttributeNames.RFC7643.PRIMARY);
-      checkForPrimary(multiValued, primary != null && primary.booleanValue());
+      checkForPrimary(multiValued, primary != null && primary.booleanValue(), index);
 
       if (path.isWithFilter() && !matchingComplexNodes.isEmpty())
       {
@@ -851,20 +929,26 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
             }
           });
           isResourceChanged = isResourceChanged || !JsonHelper.isEqual(originalNode, matchingNode);
+          if (index != null && PatchOp.ADD.equals(patchOp))
+          {
+            index.reindex(matchingNode);
+          }
         }
         if (PatchOp.REPLACE.equals(patchOp))
         {
           for ( IndexNode matchingComplexNode : matchingComplexNodes )
           {
             isResourceChanged = isResourceChanged || matchingComplexNode.isResultUnchanged();
-            multiValued.add(matchingComplexNode.getObjectNode());
+            addNode(multiValued, matchingComplexNode.getObjectNode(), index);
           }
         }
       }
       else if (!path.isWithFilter() || matchingComplexNodes.isEmpty())
       {
-        multiValued.add(complexNode);
-        isResourceChanged = isResourceChanged || !JsonHelper.containsEqualObject(originalNodes, complexNode);
+        addNode(multiValued, complexNode, index);
+        List<ObjectNode> equalHashNodes = originalNodesByHash.getOrDefault(JsonHelper.getCanonicalHash(complexNode),
+                                                                           Collections.emptyList());
+        isResourceChanged = isResourceChanged || !JsonHelper.containsEqualObject(equalHashNodes, complexNode);
       }
     }
     return isResourceChanged || multiValued.size() != originalNodeSize;
@@ -876,13 +960,19 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
    *
    * @param multiValued the multivalued complex array that might hold any primary values
    * @param primary if the new value is primary or not
+   * @param index the index of the array or null if the array is not indexed
    */
-  private void checkForPrimary(ArrayNode multiValued, boolean primary)
+  private void checkForPrimary(ArrayNode multiValued, boolean primary, MultiValuedComplexIndex index)
   {
     if (!primary)
     {
       return;
     }
+    if (index != null)
+    {
+      index.removePrimaryAttributes();
+      return;
+    }
     multiValued.forEach(jsonNode -> {
       ((ObjectNode)jsonNode).remove(AttributeNames.RFC7643.PRIMARY);
     });
@@ -902,11 +992,13 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
                                                      List<String> values)
   {
     SchemaAttribute subAttribute = RequestUtils.getSchemaAttributeByAttributeName(resourceType, fullAttributeName);
-    List<IndexNode> matchingComplexNodes = resolveFilter(multiValued, path);
+    MultiValuedComplexIndex index = indexKeyAttribute == null ? null : getMultiValuedIndex(multiValued);
+    multiValuedIndexesMaintained = index != null;
+    List<IndexNode> matchingComplexNodes = resolveFilter(multiValued, path, index);
     AtomicBoolean changeWasMade = new AtomicBoolean(false);
     if (AttributeNames.RFC7643.PRIMARY.equals(subAttribute.getName()))
     {
-      checkForPrimary(multiValued, Boolean.parseBoolean(values.get(0)));
+      checkForPrimary(multiValued, Boolean.parseBoolean(values.get(0)), index);
     }
     if (path.getChild() != null && matchingComplexNodes.isEmpty())
     {
@@ -922,7 +1014,7 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
         {
           value.set(attributeExpressionLeaf.getSchemaAttribute().getName(),
                     new ScimTextNode(null, attributeExpressionLeaf.getValue()));
-          multiValued.add(value);
+          addNode(multiValued, value, index);
           return true;
         }
       }
@@ -947,21 +1039,145 @@ public class PatchTargetHandler extends AbstractPatch implements ScimAttributeHe
       changeWasMade.weakCompareAndSet(false, handleInnerComplexAttribute(subAttribute, complexNode, values));
       if (complexNode.size() == 0)
       {
-        multiValued.remove(matchingComplexNodes.get(i).getIndex());
+        removeNode(multiValued, matchingComplexNodes.get(i), index);
+      }
+      else if (index != null)
+      {
+        index.reindex(complexNode);
       }
     }
     return changeWasMade.get();
   }
 
+  /**
+   * appends the given node to the multivalued complex array
+   *
+   * @param multiValued the multivalued complex array
+   * @param complexNode the node to add
+   * @param index the index of the array or null if the array is not indexed
+   */
+  private void addNode(ArrayNode multiValued, ObjectNode complexNode, MultiValuedComplexIndex index)
+  {
+    if (index == null)
+    {
+      multiValued.add(complexNode);
+    }
+    else
+    {
+      index.add(complexNode);
+    }
+  }
+
+  /**
+   * removes the given node from the multivalued complex array
+   *
+   * @param multiValued the multivalued complex array
+   * @param indexNode the node to remove
+   * @param index the index of the array or null if the array is not indexed
+   */
+  private void removeNode(ArrayNode multiValued, IndexNode indexNode, MultiValuedComplexIndex index)
+  {
+    if (index == null)
+    {
+      multiValued.remove(indexNode.getIndex());
+    }
+    else
+    {
+      index.remove(indexNode.getObjectNode());
+    }
+  }
+
+  /**
+   * retrieves the index of the given multivalued complex array. If the current operation has a filter that can
+   * be resolved by an index, a missing index will be built. Otherwise, only an already existing index is
+   * returned so that it can be kept up to date
+   *
+   * @param multiValued the multivalued complex array
+   * @return the index of the array or null if the array cannot be indexed
+   */
+  private MultiValuedComplexIndex getMultiValuedIndex(ArrayNode multiValued)
+  {
+    MultiValuedComplexIndex index = multiValuedIndexes.get(multiValued);
+    if (indexKeyAttribute == null)
+    {
+      return index != null && index.isUsableFor(multiValued, index.getKeyAttribute()) ? index : null;
+    }
+    if (index == null || !index.isUsableFor(multiValued, indexKeyAttribute))
+    {
+      index = MultiValuedComplexIndex.build(multiValued, indexKeyAttribute);
+      if (index == null)
+      {
+        multiValuedIndexes.remove(multiValued);
+        return null;
+      }
+      multiValuedIndexes.put(multiValued, index);
+    }
+    return index;
+  }
+
+  /**
+   * checks if the given filter expression can be resolved by a {@link MultiValuedComplexIndex}. This is the
+   * case for simple equality expressions on a string sub-attribute like {@code members[value eq "123456"]} or a
+   * disjunction of such expressions on the same sub-attribute. The compare values of the expression are added
+   * to {@link #indexKeyValues}
+   *
+   * @param filterNode the filter expression of the path
+   * @return the sub-attribute that is used as key or null if the filter cannot be resolved by an index
+   */
+  private SchemaAttribute getIndexKeyAttribute(FilterNode filterNode)
+  {
+    if (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      SchemaAttribute leftKey = getIndexKeyAttribute(orExpressionNode.getLeftNode());
+      SchemaAttribute rightKey = getIndexKeyAttribute(orExpressionNode.getRightNode());
+      boolean isSameKey = leftKey != null && rightKey != null
+                          && leftKey.getFullResourceName().equals(rightKey.getFullResourceName());
+      return isSameKey ? leftKey : null;
+    }
+    if (!(filterNode instanceof AttributeExpressionLeaf))
+    {
+      return null;
+    }
+    AttributeExpressionLeaf attributeExpressionLeaf = (AttributeExpressionLeaf)filterNode;
+    SchemaAttribute keyAttribute = attributeExpressionLeaf.getSchemaAttribute();
+    boolean isIndexable = Comparator.EQ.equals(attributeExpressionLeaf.getComparator())
+                          && !attributeExpressionLeaf.isNull() && attributeExpressionLeaf.getValue() != null
+                          && (Type.STRING.equals(keyAttribute.getType())
+                              || Type.REFERENCE.equals(keyAttribute.getType()))
+                          && !keyAttribute.isMultiValued() && keyAttribute.getParent() != null
+                          && keyAttribute.getParent()
+                                         .getFullResourceName()
+                                         .equals(schemaAttribute.getFullResourceName());
+    if (!isIndexable)
+    {
+      return null;
+    }
+    indexKeyValues.add(attributeExpressionLeaf.getValue());
+    return keyAttribute;
+  }
+
   /**
    * this method will extract all complex types from the given array node that do match the filter
    *
    * @param multiValuedComplex the multi valued complex node
    * @param path the filter expression that must be resolved to get the matching nodes
+   * @param index the index of the array or null if the filter must be evaluated on each node
    * @return the list of nodes that should be modified
    */
-  private List<IndexNode> resolveFilter(ArrayNode multiValuedComplex, AttributePathRoot path)
+  private List<IndexNode> resolveFilter(ArrayNode multiValuedComplex,
+                                        AttributePathRoot path,
+                                        MultiValuedComplexIndex index)
   {
+    if (index != null && indexKeyAttribute != null)
+    {
+      List<IndexNode> matchingComplexNodes = new ArrayList<>();
+      for ( ObjectNode complexNode : index.getNodes(indexKeyValues) )
+      {
+        matchingComplexNodes.add(new IndexNode(index.getIndex(complexNode), complexNode));
+      }
+      return matchingComplexNodes;
+    }
     PatchFilterResolver patchFilterResolver = new PatchFilterResolver();
     List<IndexNode> matchingComplexNodes = new ArrayList<>();
     for ( int i = 0 ; i < multiValuedComplex.size() ; i++ )
@@ -57,4 +57,13 @@ public class PartialListResponse<T extends ResourceNode>
    */
   private String previousCursor;
 
+  /**
+   * only used if
+   * {@link de.captaingoldfish.scim.sdk.server.schemas.custom.ResourceTypeFeatures#isFilterPushdown()} is
+   * enabled. Contains the sub-expressions of the given filter that were completely applied by the resource
+   * handler e.g. the left node of an {@link de.captaingoldfish.scim.sdk.server.filter.AndExpressionNode}. The
+   * SDK evaluates only the remaining parts of the filter on the returned resources. If null, the complete
+   * filter is evaluated by the SDK
+   */
+  private List<FilterNode> appliedFilters;
 }
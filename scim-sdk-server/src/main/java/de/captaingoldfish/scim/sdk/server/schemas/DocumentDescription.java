@@ -1,6 +1,7 @@
 package de.captaingoldfish.scim.sdk.server.schemas;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -47,46 +48,85 @@ public class DocumentDescription
       throw new DocumentValidationException(errorMessage, HttpStatus.BAD_REQUEST, null);
     }
 
-    this.extensions = new ArrayList<>();
-
     ObjectNode resourceDocument = (ObjectNode)jsonNode;
+    List<String> presentExtensionUris = new ArrayList<>();
     for ( ResourceType.SchemaExtension schemaExtension : resourceType.getSchemaExtensions() )
     {
-      addPresentOrRemoveNonePresentExtensions(resourceType, resourceDocument, schemaExtension);
+      addPresentOrRemoveNonePresentExtensions(resourceDocument, schemaExtension, presentExtensionUris);
     }
-    ArrayNode schemasNode = new ArrayNode(JsonNodeFactory.instance);
-    final String mainSchemaUri = resourceType.getSchema();
-    schemasNode.add(mainSchemaUri);
-    extensions.stream().map(Schema::getNonNullId).forEach(schemasNode::add);
-    resourceDocument.set(AttributeNames.RFC7643.SCHEMAS, schemasNode);
+    SchemasDescription schemasDescription = resourceType.getSchemasDescriptionCache()
+                                                        .computeIfAbsent(presentExtensionUris,
+                                                                         uris -> new SchemasDescription(resourceType,
+                                                                                                        uris));
+    this.extensions = new ArrayList<>(schemasDescription.getExtensions());
+    resourceDocument.set(AttributeNames.RFC7643.SCHEMAS, schemasDescription.getSchemasNode().deepCopy());
 
-    this.metaSchema = resourceType.getMainSchema();
+    this.metaSchema = schemasDescription.getMetaSchema();
     log.trace("Determined main schema as '{}'", metaSchema.getNonNullId());
     log.trace("Determined present extensions '{}'", extensions);
   }
 
   /**
-   * checks if an extension is present in the document and adds the schema to the list of present extensions. If
-   * an extension is not set or is a null-node or an empty object the extension will be removed from the
-   * document.
+   * checks if an extension is present in the document and adds its uri to the list of present extensions. If an
+   * extension is not set or is a null-node or an empty object the extension will be removed from the document.
    *
    * @param resourceDocument the sent resource document
    * @param schemaExtension the schema extension attribute from this resource type definition
+   * @param presentExtensionUris the uris of the extensions that were found within the document
    */
-  private void addPresentOrRemoveNonePresentExtensions(ResourceType resourceType,
-                                                       ObjectNode resourceDocument,
-                                                       ResourceType.SchemaExtension schemaExtension)
+  private void addPresentOrRemoveNonePresentExtensions(ObjectNode resourceDocument,
+                                                       ResourceType.SchemaExtension schemaExtension,
+                                                       List<String> presentExtensionUris)
   {
     JsonNode extensionNode = resourceDocument.get(schemaExtension.getSchema());
     boolean isExtensionPresent = extensionNode != null && !extensionNode.isNull() && !extensionNode.isEmpty();
     if (isExtensionPresent)
     {
-      Schema extensionSchema = resourceType.getSchemaFactory().getResourceSchema(schemaExtension.getSchema());
-      this.extensions.add(extensionSchema);
+      presentExtensionUris.add(schemaExtension.getSchema());
     }
     else
     {
       resourceDocument.remove(schemaExtension.getSchema());
     }
   }
+
+  /**
+   * the schemas that describe a document with a specific combination of present extensions. Most documents of a
+   * resource type share only a few of these combinations so the resolved schemas are cached within the
+   * {@link ResourceType} and must not be resolved again for each request
+   */
+  @Getter
+  static class SchemasDescription
+  {
+
+    /**
+     * the main schema of the resource type
+     */
+    private final Schema metaSchema;
+
+    /**
+     * the schemas of the present extensions in the order of their definition within the resource type
+     */
+    private final List<Schema> extensions;
+
+    /**
+     * the value of the "schemas"-attribute for documents with this combination of extensions
+     */
+    private final ArrayNode schemasNode;
+
+    public SchemasDescription(ResourceType resourceType, List<String> presentExtensionUris)
+    {
+      this.metaSchema = resourceType.getMainSchema();
+      List<Schema> extensionSchemas = new ArrayList<>();
+      this.schemasNode = new ArrayNode(JsonNodeFactory.instance);
+      schemasNode.add(resourceType.getSchema());
+      for ( String extensionUri : presentExtensionUris )
+      {
+        Schema extensionSchema = resourceType.getSchemaFactory().getResourceSchema(extensionUri);
+        extensionSchemas.add(extensionSchema);
+        schemasNode.add(extensionSchema.getNonNullId());
+      }
+      this.extensions = Collections.unmodifiableList(extensionSchemas);
+    }
+  }
 }
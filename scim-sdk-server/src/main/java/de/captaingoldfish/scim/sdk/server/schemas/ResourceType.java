@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -33,10 +34,12 @@ import de.captaingoldfish.scim.sdk.common.schemas.Schema;
 import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
 import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
 import de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler;
+import de.captaingoldfish.scim.sdk.server.filter.AttributePathRoot;
+import de.captaingoldfish.scim.sdk.server.filter.ExpressionCache;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
 import de.captaingoldfish.scim.sdk.server.schemas.custom.ResourceTypeFeatures;
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -51,6 +54,12 @@ import lombok.extern.slf4j.Slf4j;
 public class ResourceType extends ResourceNode
 {
 
+  /**
+   * the maximum number of parsed expressions that are cached per resource type in the {@link #patchPathCache}
+   * and the {@link #filterCache}
+   */
+  private static final int EXPRESSION_CACHE_SIZE = 500;
+
   /**
    * used for unit tests in order to prevent application context pollution
    */
@@ -61,7 +70,6 @@ public class ResourceType extends ResourceNode
    * the resource handler implementation that is able to handle this kind of resource
    */
   @Getter(AccessLevel.PUBLIC)
-  @Setter(AccessLevel.PUBLIC)
   private ResourceHandler resourceHandlerImpl;
 
   /**
@@ -94,6 +102,42 @@ public class ResourceType extends ResourceNode
   @Getter(AccessLevel.PUBLIC)
   private List<SchemaAttribute> immutableAttributeRegister = new ArrayList<>();
 
+  /**
+   * contains the "value" sub-attributes of all complex attributes of all schemas of this resource-type that may
+   * hold a bulkId reference. (see {@link SchemaAttribute#isComplexBulkCandidate()})
+   */
+  @Getter(AccessLevel.PUBLIC)
+  private List<SchemaAttribute> complexBulkIdValueRegister = new ArrayList<>();
+
+  /**
+   * contains all simple attributes of all schemas of this resource-type that may hold a bulkId reference. (see
+   * {@link SchemaAttribute#isSimpleValueBulkCandidate()})
+   */
+  @Getter(AccessLevel.PUBLIC)
+  private List<SchemaAttribute> simpleBulkIdRegister = new ArrayList<>();
+
+  /**
+   * caches the parsed patch path expressions of this resource type so that frequently used paths like "members"
+   * or "emails[type eq "work"].value" are not parsed again for each patch operation
+   */
+  @Getter(AccessLevel.PUBLIC)
+  private final ExpressionCache<AttributePathRoot> patchPathCache = new ExpressionCache<>(EXPRESSION_CACHE_SIZE);
+
+  /**
+   * caches the parsed filter expressions of list requests on this resource type
+   */
+  @Getter(AccessLevel.PUBLIC)
+  private final ExpressionCache<FilterNode> filterCache = new ExpressionCache<>(EXPRESSION_CACHE_SIZE);
+
+  /**
+   * caches the resolved schemas of the documents of this resource type by the uris of the extensions that are
+   * present within the documents. The number of entries is limited by the possible combinations of the
+   * extensions of this resource type
+   */
+  @Getter(AccessLevel.PACKAGE)
+  private final Map<List<String>, DocumentDescription.SchemasDescription> schemasDescriptionCache = //
+    new ConcurrentHashMap<>();
+
   public ResourceType()
   {
     this.schemaFactory = null;
@@ -136,17 +180,42 @@ public class ResourceType extends ResourceNode
     setFeatures(resourceTypeFeatures);
   }
 
+  /**
+   * sets the resource handler implementation of this resource type. The expression caches are cleared because
+   * the parsing of expressions depends on the filter configuration of the handlers service provider
+   */
+  public void setResourceHandlerImpl(ResourceHandler resourceHandlerImpl)
+  {
+    this.resourceHandlerImpl = resourceHandlerImpl;
+    patchPathCache.clear();
+    filterCache.clear();
+  }
+
+  /**
+   * clears all caches that are holding references to the schemas of this resource type. Must be called whenever
+   * the main schema or one of the extensions of this resource type was changed or registered again
+   */
+  void clearSchemaCaches()
+  {
+    // parsed expressions are holding references to the schema attributes that might have changed
+    patchPathCache.clear();
+    filterCache.clear();
+    schemasDescriptionCache.clear();
+  }
+
   /**
    * fill the resource-type attribute-register
    */
   protected void loadAttributeRegister()
   {
+    clearSchemaCaches();
     Schema mainSchema = getMainSchema();
     attributeRegister.putAll(mainSchema.getAttributeRegister());
     complexRegister.putAll(mainSchema.getComplexRegister());
     multivaluedComplexRegister.putAll(mainSchema.getMultivaluedComplexRegister());
     readOnlyAttributeRegister.addAll(mainSchema.getReadOnlyAttributeRegister());
     immutableAttributeRegister.addAll(mainSchema.getImmutableAttributeRegister());
+    loadBulkIdRegister(mainSchema);
 
     for ( Schema schemaExtension : getAllSchemaExtensions() )
     {
@@ -155,7 +224,36 @@ public class ResourceType extends ResourceNode
       multivaluedComplexRegister.putAll(schemaExtension.getMultivaluedComplexRegister());
       readOnlyAttributeRegister.addAll(schemaExtension.getReadOnlyAttributeRegister());
       immutableAttributeRegister.addAll(schemaExtension.getImmutableAttributeRegister());
+      loadBulkIdRegister(schemaExtension);
+    }
+  }
+
+  /**
+   * adds the attributes of the given schema that may hold bulkId references to the bulkId registers. This is
+   * done once at registration so that bulkId references can be resolved without scanning the whole document
+   *
+   * @param schema the schema whose bulkId candidates should be registered
+   */
+  private void loadBulkIdRegister(Schema schema)
+  {
+    for ( SchemaAttribute complexBulkIdCandidate : schema.getComplexBulkIdCandidates() )
+    {
+      // the value-attribute is sure to be present within these nodes
+      complexBulkIdCandidate.getSubAttributes()
+                            .stream()
+                            .filter(subAttribute -> AttributeNames.RFC7643.VALUE.equals(subAttribute.getName()))
+                            .findAny()
+                            .ifPresent(complexBulkIdValueRegister::add);
     }
+    simpleBulkIdRegister.addAll(schema.getSimpleBulkIdCandidates());
+  }
+
+  /**
+   * @return true if at least one attribute of this resource-type is able to hold a bulkId reference
+   */
+  public boolean hasBulkIdCandidates()
+  {
+    return !complexBulkIdValueRegister.isEmpty() || !simpleBulkIdRegister.isEmpty();
   }
 
   /**
@@ -464,6 +562,7 @@ public class ResourceType extends ResourceNode
   private void setSchema(String schema)
   {
     setAttribute(AttributeNames.RFC7643.SCHEMA, schema);
+    clearSchemaCaches();
   }
 
   /**
@@ -480,6 +579,7 @@ public class ResourceType extends ResourceNode
   private void setSchemaExtensions(List<SchemaExtension> schemaExtensions)
   {
     setAttribute(AttributeNames.RFC7643.SCHEMA_EXTENSIONS, schemaExtensions);
+    clearSchemaCaches();
   }
 
   /**
@@ -498,10 +598,14 @@ public class ResourceType extends ResourceNode
   }
 
   /**
+   * sets the features of this resource type. The runtime state of the previous features like the uniqueness
+   * index is carried over to the new features unless it is set explicitly on the new features
+   *
    * @see ResourceTypeFeatures
    */
   public void setFeatures(ResourceTypeFeatures filterExtension)
   {
+    carryOverRuntimeState(filterExtension);
     setAttribute(SchemaUris.RESOURCE_TYPE_FEATURE_EXTENSION_URI, filterExtension);
     if (filterExtension == null)
     {
@@ -513,6 +617,38 @@ public class ResourceType extends ResourceNode
     }
   }
 
+  /**
+   * the runtime state of the features is not part of their json representation and would be lost if the
+   * features are replaced by a new instance e.g. a copy of the current features
+   *
+   * @param newFeatures the features that will replace the current features
+   */
+  private void carryOverRuntimeState(ResourceTypeFeatures newFeatures)
+  {
+    if (newFeatures == null)
+    {
+      return;
+    }
+    JsonNode featuresNode = get(SchemaUris.RESOURCE_TYPE_FEATURE_EXTENSION_URI);
+    if (!(featuresNode instanceof ResourceTypeFeatures) || featuresNode == newFeatures)
+    {
+      return;
+    }
+    ResourceTypeFeatures oldFeatures = (ResourceTypeFeatures)featuresNode;
+    if (newFeatures.getUniquenessIndex() == null)
+    {
+      newFeatures.setUniquenessIndex(oldFeatures.getUniquenessIndex());
+    }
+    if (newFeatures.getCursorSnapshotCache() == null)
+    {
+      newFeatures.setCursorSnapshotCache(oldFeatures.getCursorSnapshotCache());
+    }
+    if (newFeatures.getListQueryStatistics() == null)
+    {
+      newFeatures.setListQueryStatistics(oldFeatures.getListQueryStatistics());
+    }
+  }
+
   /**
    * @return true if this resource type was disabled, false else
    */
@@ -570,6 +706,7 @@ public class ResourceType extends ResourceNode
     public void setSchema(String schema)
     {
       setAttribute(AttributeNames.RFC7643.SCHEMA, schema);
+      clearSchemaCaches();
     }
 
 
@@ -93,6 +93,7 @@ public final class SchemaFactory
       {
         metaSchemas.put(schema.getNonNullId(), schema);
       }
+      clearSchemaCachesOfResourceTypes(schema.getNonNullId());
       return schema;
     }
     catch (DocumentValidationException ex)
@@ -101,6 +102,31 @@ public final class SchemaFactory
     }
   }
 
+  /**
+   * the resource types are caching the resolved schemas so they must be notified if a schema that they are
+   * using was registered again
+   *
+   * @param schemaId the id of the schema that was registered
+   */
+  private void clearSchemaCachesOfResourceTypes(String schemaId)
+  {
+    if (resourceTypeFactory == null)
+    {
+      return;
+    }
+    for ( ResourceType resourceType : resourceTypeFactory.getAllResourceTypes() )
+    {
+      boolean isSchemaUsed = schemaId.equals(resourceType.getSchema())
+                             || resourceType.getSchemaExtensions()
+                                            .stream()
+                                            .anyMatch(extension -> schemaId.equals(extension.getSchema()));
+      if (isSchemaUsed)
+      {
+        resourceType.clearSchemaCaches();
+      }
+    }
+  }
+
   /**
    * extracts a meta schema that will define the base of another schema like the user resource schema or group
    * resource schema
@@ -4,6 +4,9 @@ import java.util.Optional;
 
 import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
 import de.captaingoldfish.scim.sdk.common.resources.base.ScimObjectNode;
+import de.captaingoldfish.scim.sdk.server.uniqueness.UniquenessIndex;
+import de.captaingoldfish.scim.sdk.server.utils.CursorSnapshotCache;
+import de.captaingoldfish.scim.sdk.server.utils.ListQueryStatistics;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 
@@ -17,6 +20,24 @@ import lombok.NoArgsConstructor;
 public class ResourceTypeFeatures extends ScimObjectNode
 {
 
+  /**
+   * the uniqueness index is runtime state of the resource type and is therefore not part of the json
+   * representation of the features
+   */
+  private UniquenessIndex uniquenessIndex;
+
+  /**
+   * the snapshot cache is runtime state of the resource type and is therefore not part of the json
+   * representation of the features
+   */
+  private CursorSnapshotCache cursorSnapshotCache;
+
+  /**
+   * the list query statistics are runtime state of the resource type and are therefore not part of the json
+   * representation of the features
+   */
+  private ListQueryStatistics listQueryStatistics;
+
   @Builder
   public ResourceTypeFeatures(boolean autoFiltering,
                               boolean autoSorting,
@@ -116,6 +137,134 @@ public class ResourceTypeFeatures extends ScimObjectNode
     setAttribute(AttributeNames.Custom.AUTO_SORTING, autoSorting);
   }
 
+  /**
+   * if true only the attributes that were touched by a patch request are validated again after the patch
+   * operations were applied. Default is false so that the whole patched resource is validated. The partial
+   * validation should only be enabled if the stored resources are guaranteed to be valid and if the validation
+   * of an attribute does not depend on other attributes of the resource
+   */
+  public boolean isPartialPatchValidation()
+  {
+    return getBooleanAttribute(AttributeNames.Custom.PARTIAL_PATCH_VALIDATION).orElse(false);
+  }
+
+  /**
+   * if true only the attributes that were touched by a patch request are validated again after the patch
+   * operations were applied. Default is false so that the whole patched resource is validated. The partial
+   * validation should only be enabled if the stored resources are guaranteed to be valid and if the validation
+   * of an attribute does not depend on other attributes of the resource
+   */
+  public void setPartialPatchValidation(Boolean partialPatchValidation)
+  {
+    setAttribute(AttributeNames.Custom.PARTIAL_PATCH_VALIDATION, partialPatchValidation);
+  }
+
+  /**
+   * if true, an update request that does not change any writable attribute of the existing resource will not be
+   * passed to the {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler}. Instead the existing
+   * resource is returned with its current version. This saves unnecessary write operations for clients that
+   * push the full resources on each synchronization cycle
+   */
+  public boolean isSkipUnchangedUpdates()
+  {
+    return getBooleanAttribute(AttributeNames.Custom.SKIP_UNCHANGED_UPDATES).orElse(false);
+  }
+
+  /**
+   * if true, an update request that does not change any writable attribute of the existing resource will not be
+   * passed to the {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler}. Instead the existing
+   * resource is returned with its current version. This saves unnecessary write operations for clients that
+   * push the full resources on each synchronization cycle
+   */
+  public void setSkipUnchangedUpdates(Boolean skipUnchangedUpdates)
+  {
+    setAttribute(AttributeNames.Custom.SKIP_UNCHANGED_UPDATES, skipUnchangedUpdates);
+  }
+
+  /**
+   * only relevant if auto-filtering is enabled. If set to true the
+   * {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler} receives the filter expression anyway
+   * and may declare the sub-expressions that it applied by itself in
+   * {@link de.captaingoldfish.scim.sdk.server.response.PartialListResponse#getAppliedFilters()}. The SDK will
+   * then only evaluate the remaining parts of the filter in memory. The paging is still done by the SDK so the
+   * handler must return all resources that match the applied sub-expressions
+   */
+  public boolean isFilterPushdown()
+  {
+    return getBooleanAttribute(AttributeNames.Custom.FILTER_PUSHDOWN).orElse(false);
+  }
+
+  /**
+   * only relevant if auto-filtering is enabled. If set to true the
+   * {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler} receives the filter expression anyway
+   * and may declare the sub-expressions that it applied by itself in
+   * {@link de.captaingoldfish.scim.sdk.server.response.PartialListResponse#getAppliedFilters()}. The SDK will
+   * then only evaluate the remaining parts of the filter in memory. The paging is still done by the SDK so the
+   * handler must return all resources that match the applied sub-expressions
+   */
+  public void setFilterPushdown(Boolean filterPushdown)
+  {
+    setAttribute(AttributeNames.Custom.FILTER_PUSHDOWN, filterPushdown);
+  }
+
+  /**
+   * if set, the attributes with the uniqueness "server" of this resource type are enforced by the SDK before a
+   * resource is passed to the {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler} on create
+   * and update requests. The index is updated after each successful create, update, patch and delete request
+   */
+  public UniquenessIndex getUniquenessIndex()
+  {
+    return uniquenessIndex;
+  }
+
+  /**
+   * if set, the attributes with the uniqueness "server" of this resource type are enforced by the SDK before a
+   * resource is passed to the {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler} on create
+   * and update requests. The index is updated after each successful create, update, patch and delete request
+   */
+  public void setUniquenessIndex(UniquenessIndex uniquenessIndex)
+  {
+    this.uniquenessIndex = uniquenessIndex;
+  }
+
+  /**
+   * if set, list requests with cursor based pagination that are bridged to index based pagination store their
+   * filtered and sorted result set in this cache on the first page request. The following pages are then sliced
+   * from the stored result set instead of fetching, filtering and sorting the complete data set again
+   */
+  public CursorSnapshotCache getCursorSnapshotCache()
+  {
+    return cursorSnapshotCache;
+  }
+
+  /**
+   * if set, list requests with cursor based pagination that are bridged to index based pagination store their
+   * filtered and sorted result set in this cache on the first page request. The following pages are then sliced
+   * from the stored result set instead of fetching, filtering and sorting the complete data set again
+   */
+  public void setCursorSnapshotCache(CursorSnapshotCache cursorSnapshotCache)
+  {
+    this.cursorSnapshotCache = cursorSnapshotCache;
+  }
+
+  /**
+   * if set, the costs of all list requests on this resource type are recorded aggregated by the shape of their
+   * queries and slow requests are logged
+   */
+  public ListQueryStatistics getListQueryStatistics()
+  {
+    return listQueryStatistics;
+  }
+
+  /**
+   * if set, the costs of all list requests on this resource type are recorded aggregated by the shape of their
+   * queries and slow requests are logged
+   */
+  public void setListQueryStatistics(ListQueryStatistics listQueryStatistics)
+  {
+    this.listQueryStatistics = listQueryStatistics;
+  }
+
   /**
    * if the current resource type is disabled
    */
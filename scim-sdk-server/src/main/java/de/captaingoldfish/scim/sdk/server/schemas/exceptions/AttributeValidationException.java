@@ -5,6 +5,13 @@ import lombok.Getter;
 
 
 /**
+ * signals that an attribute does not match its schema definition. This exception is used as control flow
+ * within the schema validation and is always converted into a
+ * {@link de.captaingoldfish.scim.sdk.common.exceptions.DocumentValidationException} or an error of the
+ * {@link de.captaingoldfish.scim.sdk.server.endpoints.validation.ValidationContext} before it leaves the
+ * validation. Therefore, no stack trace is recorded because filling it is the most expensive part of creating
+ * the exception and invalid documents might contain a lot of invalid attributes
+ *
  * @author Pascal Knueppel
  * @since 09.04.2021
  */
@@ -16,13 +23,13 @@ public class AttributeValidationException extends RuntimeException
 
   public AttributeValidationException(SchemaAttribute schemaAttribute, String message)
   {
-    super(message);
+    super(message, null, true, false);
     this.schemaAttribute = schemaAttribute;
   }
 
   public AttributeValidationException(SchemaAttribute schemaAttribute, String message, Throwable cause)
   {
-    super(message, cause);
+    super(message, cause, true, false);
     this.schemaAttribute = schemaAttribute;
   }
 }
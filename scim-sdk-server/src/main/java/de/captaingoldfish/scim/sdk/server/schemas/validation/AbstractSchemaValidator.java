@@ -11,6 +11,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 
 import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
 import de.captaingoldfish.scim.sdk.common.constants.HttpStatus;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Mutability;
 import de.captaingoldfish.scim.sdk.common.exceptions.DocumentValidationException;
 import de.captaingoldfish.scim.sdk.common.resources.ResourceNode;
 import de.captaingoldfish.scim.sdk.common.resources.base.ScimArrayNode;
@@ -130,6 +131,15 @@ public abstract class AbstractSchemaValidator
       log.trace("Validating attribute '{}'", schemaAttribute.getScimNodeName());
       final String attributeName = schemaAttribute.getName();
       JsonNode attribute = attributeExtractor.getAttribute(schemaAttribute).orElse(null);
+      if (!isAttributeToValidate(schemaAttribute))
+      {
+        // read only attributes would have been removed by the validation so we do the same here
+        if (attribute != null && !Mutability.READ_ONLY.equals(schemaAttribute.getMutability()))
+        {
+          validatedResource.set(attributeName, attribute);
+        }
+        continue;
+      }
       Optional<JsonNode> validatedAttributeOptional = validateAttribute(schemaAttribute, attribute);
       validatedAttributeOptional.ifPresent(validatedAttribute -> {
         validatedResource.set(attributeName, validatedAttribute);
@@ -138,6 +148,19 @@ public abstract class AbstractSchemaValidator
     return validatedResource;
   }
 
+  /**
+   * tells if the given top-level attribute must be validated. Attributes that are not validated are taken over
+   * into the validated document as they are. This is used to restrict the validation on the attributes that
+   * were touched by a patch request
+   *
+   * @param schemaAttribute the top-level attribute of the currently validated schema
+   * @return true if the attribute must be validated, false if it should be taken over as it is
+   */
+  protected boolean isAttributeToValidate(SchemaAttribute schemaAttribute)
+  {
+    return true;
+  }
+
   /**
    * retrieves the attribute extractor that should be used based on the service providers configuration
    *
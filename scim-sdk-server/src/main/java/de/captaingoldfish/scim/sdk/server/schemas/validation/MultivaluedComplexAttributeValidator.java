@@ -1,7 +1,9 @@
 package de.captaingoldfish.scim.sdk.server.schemas.validation;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -55,13 +57,13 @@ class MultivaluedComplexAttributeValidator
     ScimArrayNode scimArrayNode = new ScimArrayNode(schemaAttribute);
     if (arrayNode.size() > 0)
     {
-      List<JsonNode> uniqueValueList = new ArrayList<>();
+      Map<Integer, List<JsonNode>> uniqueValues = new HashMap<>();
       boolean primaryValueFound = false;
       for ( JsonNode jsonNode : arrayNode )
       {
         jsonNode = checkIsObject(jsonNode, schemaAttribute, attribute);
         primaryValueFound = checkForDuplicatePrimary(primaryValueFound, jsonNode, schemaAttribute, attribute);
-        checkForUniqueness(uniqueValueList, jsonNode, schemaAttribute, attribute);
+        checkForUniqueness(uniqueValues, jsonNode, schemaAttribute, attribute);
 
         try
         {
@@ -88,21 +90,23 @@ class MultivaluedComplexAttributeValidator
    * verifies that no duplicate values are present within the multivalued complex type if the uniqueness has
    * another values than NONE
    *
-   * @param uniqueValueList the list of elements within the multi valued complex type over which the loop has
-   *          iterated so far
+   * @param uniqueValues the elements within the multi valued complex type over which the loop has iterated so
+   *          far grouped by their {@link JsonHelper#getCanonicalHash(JsonNode)}
    * @param jsonNode the current complex attribute that is checked for being a duplicate of another element
    * @param schemaAttribute the multi valued complex types schema definition
    * @param multivaluedComplexParent the multivalued complex attribute (only used for exception)
    * @throws AttributeValidationException if the multivalued complex type defines uniqueness and a duplicate
    *           value is discovered
    */
-  private static void checkForUniqueness(List<JsonNode> uniqueValueList,
+  private static void checkForUniqueness(Map<Integer, List<JsonNode>> uniqueValues,
                                          JsonNode jsonNode,
                                          SchemaAttribute schemaAttribute,
                                          JsonNode multivaluedComplexParent)
   {
     if (!Uniqueness.NONE.equals(schemaAttribute.getUniqueness()))
     {
+      List<JsonNode> uniqueValueList = uniqueValues.computeIfAbsent(JsonHelper.getCanonicalHash(jsonNode),
+                                                                    hash -> new ArrayList<>());
       if (uniqueValueList.contains(jsonNode))
       {
         String errorMessage = String.format("Array with uniqueness '%s' contains duplicate values '%s'",
@@ -1,6 +1,7 @@
 package de.captaingoldfish.scim.sdk.server.schemas.validation;
 
 import java.util.Optional;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -11,6 +12,7 @@ import de.captaingoldfish.scim.sdk.common.exceptions.DocumentValidationException
 import de.captaingoldfish.scim.sdk.common.resources.ResourceNode;
 import de.captaingoldfish.scim.sdk.common.resources.base.ScimObjectNode;
 import de.captaingoldfish.scim.sdk.common.resources.complex.Meta;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
 import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
 import de.captaingoldfish.scim.sdk.server.endpoints.Context;
 import de.captaingoldfish.scim.sdk.server.endpoints.validation.ValidationContext;
@@ -29,9 +31,22 @@ public class RequestResourceValidator extends AbstractResourceValidator
 {
 
   public RequestResourceValidator(Context context, ResourceType resourceType, HttpMethod httpMethod)
+  {
+    this(context, resourceType, httpMethod, null);
+  }
+
+  /**
+   * @param attributesToValidate the top-level attributes of the main schema and the extensions that should be
+   *          validated. All other attributes are taken over as they are. If null the whole document is
+   *          validated
+   */
+  public RequestResourceValidator(Context context,
+                                  ResourceType resourceType,
+                                  HttpMethod httpMethod,
+                                  Set<SchemaAttribute> attributesToValidate)
   {
     super(resourceType, new RequestSchemaValidator(context, resourceType.getResourceHandlerImpl().getType(), httpMethod,
-                                                   new ValidationContext(resourceType)));
+                                                   new ValidationContext(resourceType), attributesToValidate));
   }
 
   /**
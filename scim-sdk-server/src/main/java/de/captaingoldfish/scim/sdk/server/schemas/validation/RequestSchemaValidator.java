@@ -1,6 +1,9 @@
 package de.captaingoldfish.scim.sdk.server.schemas.validation;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Optional;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -35,6 +38,12 @@ public class RequestSchemaValidator extends AbstractSchemaValidator
   @Getter(AccessLevel.PROTECTED)
   private final ValidationContext validationContext;
 
+  /**
+   * the top-level attributes that should be validated. If null all attributes are validated. Other attributes
+   * are taken over into the validated document as they are
+   */
+  private final Set<SchemaAttribute> attributesToValidate;
+
   public RequestSchemaValidator(Context context, Class resourceNodeType, HttpMethod httpMethod)
   {
     this(context, resourceNodeType, httpMethod, null);
@@ -44,10 +53,39 @@ public class RequestSchemaValidator extends AbstractSchemaValidator
                                 Class resourceNodeType,
                                 HttpMethod httpMethod,
                                 ValidationContext validationContext)
+  {
+    this(context, resourceNodeType, httpMethod, validationContext, null);
+  }
+
+  public RequestSchemaValidator(Context context,
+                                Class resourceNodeType,
+                                HttpMethod httpMethod,
+                                ValidationContext validationContext,
+                                Set<SchemaAttribute> attributesToValidate)
   {
     super(context, resourceNodeType);
     this.httpMethod = httpMethod;
     this.validationContext = validationContext;
+    if (attributesToValidate == null)
+    {
+      this.attributesToValidate = null;
+    }
+    else
+    {
+      // schema attributes are json nodes with content based equality so we must compare them by identity
+      this.attributesToValidate = Collections.newSetFromMap(new IdentityHashMap<>());
+      this.attributesToValidate.addAll(attributesToValidate);
+    }
+  }
+
+  /**
+   * validates only the attributes that are present within the {@link #attributesToValidate} if the set is
+   * present
+   */
+  @Override
+  protected boolean isAttributeToValidate(SchemaAttribute schemaAttribute)
+  {
+    return attributesToValidate == null || attributesToValidate.contains(schemaAttribute);
   }
 
   /**
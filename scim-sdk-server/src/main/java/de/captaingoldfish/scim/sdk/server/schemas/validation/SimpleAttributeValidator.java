@@ -46,6 +46,11 @@ import lombok.extern.slf4j.Slf4j;
 class SimpleAttributeValidator
 {
 
+  /**
+   * characters that are not allowed anywhere within a URI and that are rejected by {@link URI#URI(String)}
+   */
+  private static final char[] ILLEGAL_URI_CHARACTERS = " \"<>\\^`{|}".toCharArray();
+
   /**
    * checks if the given node is a json leaf node
    *
@@ -229,8 +234,7 @@ class SimpleAttributeValidator
       catch (IllegalArgumentException ex)
       {
         log.trace(ex.getMessage(), ex);
-        log.debug(String.format("Data of attribute '%s' is not valid Base64 encoded data",
-                                schemaAttribute.getFullResourceName()));
+        log.debug("Data of attribute '{}' is not valid Base64 encoded data", schemaAttribute.getFullResourceName());
         return false;
       }
     }
@@ -297,6 +301,11 @@ class SimpleAttributeValidator
    */
   private static boolean parseUrl(String textValue)
   {
+    if (textValue.indexOf(':') < 0)
+    {
+      // a url without a protocol cannot be parsed so there is no need to create an exception
+      return false;
+    }
     try
     {
       new URL(textValue);
@@ -314,6 +323,11 @@ class SimpleAttributeValidator
    */
   private static boolean parseUri(String textValue)
   {
+    if (StringUtils.containsAny(textValue, ILLEGAL_URI_CHARACTERS))
+    {
+      // these characters are never accepted by the uri parser so there is no need to create an exception
+      return false;
+    }
     try
     {
       new URI(textValue);
@@ -1,8 +1,8 @@
 package de.captaingoldfish.scim.sdk.server.schemas.validation;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -44,7 +44,7 @@ class SimpleMultivaluedAttributeValidator
     ScimArrayNode scimArrayNode = new ScimArrayNode(schemaAttribute);
     if (arrayNode.size() > 0)
     {
-      List<String> uniqueValueList = new ArrayList<>();
+      Set<String> uniqueValueList = new HashSet<>();
       for ( JsonNode jsonNode : arrayNode )
       {
         if (!Uniqueness.NONE.equals(schemaAttribute.getUniqueness()))
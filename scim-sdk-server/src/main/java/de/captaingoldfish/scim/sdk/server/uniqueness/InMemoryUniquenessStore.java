@@ -0,0 +1,103 @@
+package de.captaingoldfish.scim.sdk.server.uniqueness;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * a {@link UniquenessStore} that keeps the values within the memory of the application. This store is
+ * sufficient if only a single instance of the application is modifying the resources
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class InMemoryUniquenessStore implements UniquenessStore
+{
+
+  /**
+   * maps the values to the ids of the resources that are holding them
+   */
+  private final Map<UniqueValue, String> resourceIdsByValue = new ConcurrentHashMap<>();
+
+  /**
+   * maps the ids of the resources to the values that they are holding. This is necessary to find the values
+   * that must be released if a resource is deleted
+   */
+  private final Map<String, Set<UniqueValue>> valuesByResourceId = new ConcurrentHashMap<>();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String putIfAbsent(UniqueValue uniqueValue, String resourceId)
+  {
+    String previousResourceId = resourceIdsByValue.putIfAbsent(uniqueValue, resourceId);
+    if (previousResourceId == null)
+    {
+      valuesByResourceId.computeIfAbsent(resourceId, id -> ConcurrentHashMap.newKeySet()).add(uniqueValue);
+    }
+    return previousResourceId;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean replace(UniqueValue uniqueValue, String oldResourceId, String newResourceId)
+  {
+    boolean isReplaced = resourceIdsByValue.replace(uniqueValue, oldResourceId, newResourceId);
+    if (isReplaced)
+    {
+      removeFromResource(uniqueValue, oldResourceId);
+      valuesByResourceId.computeIfAbsent(newResourceId, id -> ConcurrentHashMap.newKeySet()).add(uniqueValue);
+    }
+    return isReplaced;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void remove(UniqueValue uniqueValue, String resourceId)
+  {
+    if (resourceIdsByValue.remove(uniqueValue, resourceId))
+    {
+      removeFromResource(uniqueValue, resourceId);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<UniqueValue> getValues(String resourceId)
+  {
+    Set<UniqueValue> values = valuesByResourceId.get(resourceId);
+    return values == null ? Collections.emptySet() : new HashSet<>(values);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clear()
+  {
+    resourceIdsByValue.clear();
+    valuesByResourceId.clear();
+  }
+
+  /**
+   * removes the value from the values of the given resource and removes the resource entry if it does not hold
+   * any more values
+   */
+  private void removeFromResource(UniqueValue uniqueValue, String resourceId)
+  {
+    valuesByResourceId.computeIfPresent(resourceId, (id, values) -> {
+      values.remove(uniqueValue);
+      return values.isEmpty() ? null : values;
+    });
+  }
+}
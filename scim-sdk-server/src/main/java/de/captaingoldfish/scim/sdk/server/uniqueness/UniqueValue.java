@@ -0,0 +1,32 @@
+package de.captaingoldfish.scim.sdk.server.uniqueness;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+
+/**
+ * a value of an attribute with the uniqueness "server" that is held by exactly one resource of a resource
+ * type. Values of attributes that are not case-exact are stored in lower-case
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class UniqueValue
+{
+
+  /**
+   * the full resource name of the attribute e.g. "urn:ietf:params:scim:schemas:core:2.0:User:userName"
+   */
+  private final String attributeName;
+
+  /**
+   * the normalized value of the attribute
+   */
+  private final String value;
+}
@@ -0,0 +1,357 @@
+package de.captaingoldfish.scim.sdk.server.uniqueness;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.ScimType;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Type;
+import de.captaingoldfish.scim.sdk.common.constants.enums.Uniqueness;
+import de.captaingoldfish.scim.sdk.common.exceptions.ConflictException;
+import de.captaingoldfish.scim.sdk.common.exceptions.InternalServerException;
+import de.captaingoldfish.scim.sdk.common.resources.ResourceNode;
+import de.captaingoldfish.scim.sdk.common.schemas.Schema;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.server.endpoints.Context;
+import de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler;
+import de.captaingoldfish.scim.sdk.server.response.PartialListResponse;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * enforces the attributes with the uniqueness "server" of a resource type. The values of these attributes are
+ * reserved before a resource is passed to the {@link ResourceHandler} so that conflicting requests are
+ * rejected without calling the handler. The reservations are committed after the handler succeeded or rolled
+ * back if it failed. Only simple attributes that are not multivalued and that can be written by the client
+ * are enforced
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Slf4j
+public class UniquenessIndex
+{
+
+  /**
+   * the number of resources that are loaded at once when the index is rebuilt
+   */
+  private static final int REBUILD_PAGE_SIZE = 100;
+
+  /**
+   * the resource type whose attributes are enforced
+   */
+  private final ResourceType resourceType;
+
+  /**
+   * the store that holds the reserved values
+   */
+  @Getter
+  private final UniquenessStore uniquenessStore;
+
+  /**
+   * the attributes of the resource type that must be unique
+   */
+  @Getter
+  private final List<SchemaAttribute> uniqueAttributes;
+
+  public UniquenessIndex(ResourceType resourceType, UniquenessStore uniquenessStore)
+  {
+    this.resourceType = resourceType;
+    this.uniquenessStore = uniquenessStore;
+    this.uniqueAttributes = Collections.unmodifiableList(getUniqueAttributes(resourceType));
+  }
+
+  /**
+   * collects the attributes of the resource type that are enforced by this index
+   */
+  private static List<SchemaAttribute> getUniqueAttributes(ResourceType resourceType)
+  {
+    List<SchemaAttribute> uniqueAttributes = new ArrayList<>();
+    List<Schema> schemas = new ArrayList<>();
+    schemas.add(resourceType.getMainSchema());
+    schemas.addAll(resourceType.getAllSchemaExtensions());
+    for ( Schema schema : schemas )
+    {
+      for ( SchemaAttribute schemaAttribute : schema.getAttributes() )
+      {
+        if (schemaAttribute.isMultiValued())
+        {
+          continue;
+        }
+        if (Type.COMPLEX.equals(schemaAttribute.getType()))
+        {
+          schemaAttribute.getSubAttributes()
+                         .stream()
+                         .filter(UniquenessIndex::isEnforceable)
+                         .forEach(uniqueAttributes::add);
+        }
+        else if (isEnforceable(schemaAttribute))
+        {
+          uniqueAttributes.add(schemaAttribute);
+        }
+      }
+    }
+    log.trace("Enforcing uniqueness of attributes '{}' on resource type '{}'",
+              uniqueAttributes,
+              resourceType.getName());
+    return uniqueAttributes;
+  }
+
+  /**
+   * read-only attributes like the id are assigned by the resource handler and are therefore not enforced
+   */
+  private static boolean isEnforceable(SchemaAttribute schemaAttribute)
+  {
+    return Uniqueness.SERVER.equals(schemaAttribute.getUniqueness()) && !schemaAttribute.isMultiValued()
+           && !schemaAttribute.isReadOnly();
+  }
+
+  /**
+   * reserves the unique values of a resource that is about to be created
+   *
+   * @param resource the resource that should be created
+   * @return the reservation that must be committed or rolled back after the resource handler was called
+   * @throws ConflictException if a value is already held by another resource
+   */
+  public Reservation reserveForCreate(ResourceNode resource)
+  {
+    // the id of the resource is not known yet so the values are reserved for a temporary id
+    return reserve("reservation:" + UUID.randomUUID(), resource, true);
+  }
+
+  /**
+   * reserves the unique values of a resource that is about to be updated
+   *
+   * @param id the id of the resource
+   * @param resource the new state of the resource
+   * @return the reservation that must be committed or rolled back after the resource handler was called
+   * @throws ConflictException if a value is already held by another resource
+   */
+  public Reservation reserveForUpdate(String id, ResourceNode resource)
+  {
+    return reserve(id, resource, false);
+  }
+
+  /**
+   * releases all values of a deleted resource
+   *
+   * @param id the id of the resource that was deleted
+   */
+  public void release(String id)
+  {
+    uniquenessStore.getValues(id).forEach(uniqueValue -> uniquenessStore.remove(uniqueValue, id));
+  }
+
+  /**
+   * clears the index and adds the values of all resources that are returned by the resource handler of the
+   * resource type. This should be done at startup if the resources are not only created through this
+   * application
+   *
+   * @param context the context that is passed to the resource handler
+   */
+  public void rebuild(Context context)
+  {
+    uniquenessStore.clear();
+    ResourceHandler<ResourceNode> resourceHandler = resourceType.getResourceHandlerImpl();
+    long startIndex = 1;
+    int numberOfResources = 0;
+    List<ResourceNode> resources;
+    long totalResults;
+    do
+    {
+      PartialListResponse<ResourceNode> response = resourceHandler.listResources(startIndex,
+                                                                                 REBUILD_PAGE_SIZE,
+                                                                                 null,
+                                                                                 null,
+                                                                                 null,
+                                                                                 Collections.emptyList(),
+                                                                                 Collections.emptyList(),
+                                                                                 context);
+      if (response == null)
+      {
+        throw new InternalServerException(String.format("Cannot rebuild the uniqueness index of resource type '%s' "
+                                                        + "because the resource handler returned no list response "
+                                                        + "for startIndex '%s'",
+                                                        resourceType.getName(),
+                                                        startIndex));
+      }
+      resources = response.getResources() == null ? Collections.emptyList() : response.getResources();
+      totalResults = response.getTotalResults();
+      for ( ResourceNode resource : resources )
+      {
+        String id = resource.getId().orElse(null);
+        if (id == null)
+        {
+          continue;
+        }
+        for ( UniqueValue uniqueValue : getUniqueValues(resource) )
+        {
+          String holderId = uniquenessStore.putIfAbsent(uniqueValue, id);
+          if (holderId != null && !holderId.equals(id))
+          {
+            log.warn("The value of attribute '{}' of resource '{}' is already used by resource '{}'",
+                     uniqueValue.getAttributeName(),
+                     id,
+                     holderId);
+          }
+        }
+      }
+      numberOfResources += resources.size();
+      startIndex += resources.size();
+    }
+    // a totalResults of 0 means that the handler did not set it so only full pages are used to detect the end
+    while (resources.size() >= REBUILD_PAGE_SIZE && (totalResults <= 0 || startIndex <= totalResults));
+    log.debug("Rebuilt uniqueness index of resource type '{}' with {} resources",
+              resourceType.getName(),
+              numberOfResources);
+  }
+
+  /**
+   * reserves all unique values of the given resource for the given id
+   */
+  private Reservation reserve(String id, ResourceNode resource, boolean isCreate)
+  {
+    Reservation reservation = new Reservation(id, isCreate);
+    for ( UniqueValue uniqueValue : getUniqueValues(resource) )
+    {
+      String holderId = uniquenessStore.putIfAbsent(uniqueValue, id);
+      if (holderId == null)
+      {
+        reservation.addedValues.add(uniqueValue);
+      }
+      else if (!holderId.equals(id))
+      {
+        reservation.rollback();
+        String errorMessage = String.format("The value of attribute '%s' is already used by another resource",
+                                            uniqueValue.getAttributeName());
+        throw new ConflictException(errorMessage, ScimType.RFC7644.UNIQUENESS);
+      }
+    }
+    return reservation;
+  }
+
+  /**
+   * extracts the normalized values of the unique attributes from the given resource
+   */
+  private Set<UniqueValue> getUniqueValues(ResourceNode resource)
+  {
+    Set<UniqueValue> uniqueValues = new HashSet<>();
+    for ( SchemaAttribute schemaAttribute : uniqueAttributes )
+    {
+      JsonNode valueNode = getValueNode(resource, schemaAttribute);
+      if (valueNode == null || valueNode.isNull() || valueNode.isContainerNode())
+      {
+        continue;
+      }
+      String value = valueNode.asText();
+      if (!schemaAttribute.isCaseExact())
+      {
+        value = value.toLowerCase(Locale.ROOT);
+      }
+      uniqueValues.add(new UniqueValue(schemaAttribute.getFullResourceName(), value));
+    }
+    return uniqueValues;
+  }
+
+  /**
+   * retrieves the node of the given attribute from the resource. Extension attributes are located under the uri
+   * of their extension
+   */
+  private JsonNode getValueNode(ResourceNode resource, SchemaAttribute schemaAttribute)
+  {
+    JsonNode parentNode = resource;
+    if (!resourceType.getSchema().equals(schemaAttribute.getResourceUri()))
+    {
+      parentNode = parentNode.get(schemaAttribute.getResourceUri());
+    }
+    if (parentNode != null && schemaAttribute.getParent() != null)
+    {
+      parentNode = parentNode.get(schemaAttribute.getParent().getName());
+    }
+    return parentNode == null ? null : parentNode.get(schemaAttribute.getName());
+  }
+
+  /**
+   * the values that were reserved for a single create or update request
+   */
+  public class Reservation
+  {
+
+    /**
+     * the id for which the values were reserved
+     */
+    private final String id;
+
+    /**
+     * if the values were reserved for a resource that is not created yet
+     */
+    private final boolean isCreate;
+
+    /**
+     * the values that were newly reserved by this reservation
+     */
+    private final List<UniqueValue> addedValues = new ArrayList<>();
+
+    private Reservation(String id, boolean isCreate)
+    {
+      this.id = id;
+      this.isCreate = isCreate;
+    }
+
+    /**
+     * assigns the values to the stored resource and releases the values that the resource does not hold anymore
+     *
+     * @param storedResource the resource that was returned by the resource handler
+     */
+    public void commit(ResourceNode storedResource)
+    {
+      String resourceId = isCreate ? storedResource.getId().orElse(null) : id;
+      if (resourceId == null)
+      {
+        rollback();
+        return;
+      }
+      Set<UniqueValue> storedValues = getUniqueValues(storedResource);
+      for ( UniqueValue uniqueValue : storedValues )
+      {
+        if (isCreate && uniquenessStore.replace(uniqueValue, id, resourceId))
+        {
+          continue;
+        }
+        String holderId = uniquenessStore.putIfAbsent(uniqueValue, resourceId);
+        if (holderId != null && !holderId.equals(resourceId))
+        {
+          log.warn("The resource handler stored a value of attribute '{}' on resource '{}' that is already used by "
+                   + "resource '{}'",
+                   uniqueValue.getAttributeName(),
+                   resourceId,
+                   holderId);
+        }
+      }
+      for ( UniqueValue uniqueValue : uniquenessStore.getValues(id) )
+      {
+        if (isCreate || !storedValues.contains(uniqueValue))
+        {
+          uniquenessStore.remove(uniqueValue, id);
+        }
+      }
+    }
+
+    /**
+     * releases the values that were newly reserved by this reservation
+     */
+    public void rollback()
+    {
+      addedValues.forEach(uniqueValue -> uniquenessStore.remove(uniqueValue, id));
+      addedValues.clear();
+    }
+  }
+}
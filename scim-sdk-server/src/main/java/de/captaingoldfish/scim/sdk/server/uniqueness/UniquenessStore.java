@@ -0,0 +1,55 @@
+package de.captaingoldfish.scim.sdk.server.uniqueness;
+
+import java.util.Set;
+
+
+/**
+ * the backing store of a {@link UniquenessIndex}. Each resource type that uses a uniqueness index must have
+ * its own store instance. Implementations must execute each single method atomically because the index is
+ * used concurrently by all requests on the resource type. A store might be backed by a shared database or
+ * cache if several instances of the application are working on the same resources
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public interface UniquenessStore
+{
+
+  /**
+   * assigns the given value to the given resource if the value is not already held by another resource
+   *
+   * @param uniqueValue the value to assign
+   * @param resourceId the id of the resource that wants to hold the value
+   * @return the id of the resource that held the value before or null if the value was not assigned yet
+   */
+  String putIfAbsent(UniqueValue uniqueValue, String resourceId);
+
+  /**
+   * assigns the given value to a new resource if it is currently held by the given old resource
+   *
+   * @param uniqueValue the value to reassign
+   * @param oldResourceId the id of the resource that is expected to hold the value
+   * @param newResourceId the id of the resource that should hold the value
+   * @return true if the value was reassigned, false if it is not held by the old resource
+   */
+  boolean replace(UniqueValue uniqueValue, String oldResourceId, String newResourceId);
+
+  /**
+   * removes the given value if it is held by the given resource
+   *
+   * @param uniqueValue the value to remove
+   * @param resourceId the id of the resource that is expected to hold the value
+   */
+  void remove(UniqueValue uniqueValue, String resourceId);
+
+  /**
+   * @param resourceId the id of a resource
+   * @return all values that are currently held by the given resource
+   */
+  Set<UniqueValue> getValues(String resourceId);
+
+  /**
+   * removes all values from this store
+   */
+  void clear();
+}
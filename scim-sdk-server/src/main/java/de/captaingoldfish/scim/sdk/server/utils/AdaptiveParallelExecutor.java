@@ -0,0 +1,393 @@
+package de.captaingoldfish.scim.sdk.server.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import de.captaingoldfish.scim.sdk.common.exceptions.InternalServerException;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.server.metrics.NoOpScimMetrics;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * filters and sorts lists either sequentially or in parallel depending on the size of the list and the load
+ * of the {@link ServiceProvider#getThreadPool()}:
+ * <ul>
+ * <li>lists with fewer elements than {@link ServiceProvider#getParallelThreshold()} are processed
+ * sequentially within the calling thread</li>
+ * <li>if the pool is saturated the list is processed sequentially within the calling thread instead of
+ * queueing up behind the tasks of other requests</li>
+ * <li>otherwise the list is split into chunks whose size is based on the parallelism of the pool. If the
+ * calling thread is a worker of the pool the chunks are processed directly within the pool. Other threads
+ * submit the task and wait with a {@link ForkJoinPool.ManagedBlocker} so that a calling worker of another
+ * pool does not starve its own pool</li>
+ * </ul>
+ * the decisions are passed to {@link ScimMetrics#recordParallelDecision(Decision)} so that they are counted
+ * per {@link de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint} and not for the whole JVM
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Slf4j
+public final class AdaptiveParallelExecutor
+{
+
+  /**
+   * the number of chunks per thread of the pool. More chunks than threads balance chunks with different costs
+   */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  /**
+   * chunks are never smaller than this to keep the overhead of the tasks low
+   */
+  private static final int MIN_CHUNK_SIZE = 64;
+
+  private AdaptiveParallelExecutor()
+  {}
+
+  /**
+   * filters the given list without recording the decision
+   *
+   * @see #filter(ServiceProvider, ScimMetrics, List, Predicate)
+   */
+  public static <T> List<T> filter(ServiceProvider serviceProvider, List<T> elements, Predicate<? super T> predicate)
+  {
+    return filter(serviceProvider, NoOpScimMetrics.INSTANCE, elements, predicate);
+  }
+
+  /**
+   * filters the given list
+   *
+   * @param serviceProvider the service provider that holds the thread pool and the parallel threshold
+   * @param scimMetrics receives the decision of how the list is processed
+   * @param elements the elements to filter
+   * @param predicate the predicate that must match the elements to keep
+   * @return a new list with the matching elements in their original order
+   */
+  public static <T> List<T> filter(ServiceProvider serviceProvider,
+                                   ScimMetrics scimMetrics,
+                                   List<T> elements,
+                                   Predicate<? super T> predicate)
+  {
+    ForkJoinPool pool = serviceProvider.getThreadPool();
+    Decision decision = decide(pool, elements.size(), serviceProvider.getParallelThreshold());
+    recordDecision(scimMetrics, decision);
+    if (!decision.isParallel())
+    {
+      List<T> matchingElements = new ArrayList<>();
+      for ( T element : elements )
+      {
+        if (predicate.test(element))
+        {
+          matchingElements.add(element);
+        }
+      }
+      return matchingElements;
+    }
+    int chunkSize = getChunkSize(pool, elements.size());
+    return execute(pool, decision, new FilterTask<>(elements, predicate, 0, elements.size(), chunkSize));
+  }
+
+  /**
+   * passes the decision to the given metrics. Errors of the metrics implementation are logged and never change
+   * the result of the processing
+   */
+  private static void recordDecision(ScimMetrics scimMetrics, Decision decision)
+  {
+    try
+    {
+      scimMetrics.recordParallelDecision(decision);
+    }
+    catch (Exception ex)
+    {
+      log.warn("Failed to record the parallel decision '{}' with '{}'", decision, scimMetrics.getClass().getName(), ex);
+    }
+  }
+
+  /**
+   * sorts the given list without recording the decision
+   *
+   * @see #sort(ServiceProvider, ScimMetrics, List, Comparator)
+   */
+  public static <T> List<T> sort(ServiceProvider serviceProvider, List<T> elements, Comparator<? super T> comparator)
+  {
+    return sort(serviceProvider, NoOpScimMetrics.INSTANCE, elements, comparator);
+  }
+
+  /**
+   * sorts the given list. The sort is stable
+   *
+   * @param serviceProvider the service provider that holds the thread pool and the parallel threshold
+   * @param scimMetrics receives the decision of how the list is processed
+   * @param elements the elements to sort
+   * @param comparator the comparator that defines the order of the elements
+   * @return a new list with the sorted elements
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> List<T> sort(ServiceProvider serviceProvider,
+                                 ScimMetrics scimMetrics,
+                                 List<T> elements,
+                                 Comparator<? super T> comparator)
+  {
+    ForkJoinPool pool = serviceProvider.getThreadPool();
+    Decision decision = decide(pool, elements.size(), serviceProvider.getParallelThreshold());
+    recordDecision(scimMetrics, decision);
+    T[] array = (T[])elements.toArray();
+    if (decision.isParallel())
+    {
+      int chunkSize = getChunkSize(pool, array.length);
+      execute(pool,
+              decision,
+              new SortTask<>(array, (T[])new Object[array.length], comparator, 0, array.length, chunkSize));
+    }
+    else
+    {
+      Arrays.sort(array, comparator);
+    }
+    return new ArrayList<>(Arrays.asList(array));
+  }
+
+  /**
+   * decides how a list of the given size is processed
+   */
+  private static Decision decide(ForkJoinPool pool, int size, int parallelThreshold)
+  {
+    final Decision decision;
+    if (size < Math.max(parallelThreshold, 2) || pool.getParallelism() < 2)
+    {
+      decision = Decision.SEQUENTIAL_BELOW_THRESHOLD;
+    }
+    else if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool)
+    {
+      decision = Decision.PARALLEL_IN_POOL;
+    }
+    else if (pool.getQueuedSubmissionCount() > 0 || pool.getActiveThreadCount() >= pool.getParallelism())
+    {
+      decision = Decision.SEQUENTIAL_POOL_SATURATED;
+    }
+    else
+    {
+      decision = Decision.PARALLEL_SUBMITTED;
+    }
+    log.trace("Processing '{}' elements with decision '{}'", size, decision);
+    return decision;
+  }
+
+  /**
+   * @return the size of the chunks so that each thread of the pool gets several chunks
+   */
+  private static int getChunkSize(ForkJoinPool pool, int size)
+  {
+    int numberOfChunks = pool.getParallelism() * CHUNKS_PER_THREAD;
+    return Math.max(MIN_CHUNK_SIZE, (size + numberOfChunks - 1) / numberOfChunks);
+  }
+
+  /**
+   * executes the given task within the pool. A worker of the pool invokes the task directly. Any other thread
+   * submits the task and waits within {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}
+   */
+  private static <R> R execute(ForkJoinPool pool, Decision decision, ForkJoinTask<R> task)
+  {
+    if (Decision.PARALLEL_IN_POOL.equals(decision))
+    {
+      return task.invoke();
+    }
+    pool.execute(task);
+    try
+    {
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker()
+      {
+
+        @Override
+        public boolean block() throws InterruptedException
+        {
+          try
+          {
+            task.get();
+          }
+          catch (ExecutionException ex)
+          {
+            // the exception is rethrown by the join below
+          }
+          return true;
+        }
+
+        @Override
+        public boolean isReleasable()
+        {
+          return task.isDone();
+        }
+      });
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InternalServerException(e);
+    }
+    return task.join();
+  }
+
+  /**
+   * the decisions of how a list is processed
+   */
+  public enum Decision
+  {
+
+    /**
+     * the list is smaller than the parallel threshold or the pool has no parallelism
+     */
+    SEQUENTIAL_BELOW_THRESHOLD(false),
+
+    /**
+     * the pool is busy with other tasks so the calling thread processed the list itself
+     */
+    SEQUENTIAL_POOL_SATURATED(false),
+
+    /**
+     * the calling thread is a worker of the pool and processed the list in parallel within the pool
+     */
+    PARALLEL_IN_POOL(true),
+
+    /**
+     * the list was processed in parallel within the pool while the calling thread waited
+     */
+    PARALLEL_SUBMITTED(true);
+
+    private final boolean parallel;
+
+    Decision(boolean parallel)
+    {
+      this.parallel = parallel;
+    }
+
+    /**
+     * @return true if the list is processed in parallel
+     */
+    public boolean isParallel()
+    {
+      return parallel;
+    }
+  }
+
+  /**
+   * filters a range of a list by splitting it into chunks that are filtered in parallel
+   */
+  private static class FilterTask<T> extends RecursiveTask<List<T>>
+  {
+
+    private final List<T> elements;
+
+    private final Predicate<? super T> predicate;
+
+    private final int from;
+
+    private final int to;
+
+    private final int chunkSize;
+
+    public FilterTask(List<T> elements, Predicate<? super T> predicate, int from, int to, int chunkSize)
+    {
+      this.elements = elements;
+      this.predicate = predicate;
+      this.from = from;
+      this.to = to;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected List<T> compute()
+    {
+      if (to - from <= chunkSize)
+      {
+        List<T> matchingElements = new ArrayList<>();
+        for ( T element : elements.subList(from, to) )
+        {
+          if (predicate.test(element))
+          {
+            matchingElements.add(element);
+          }
+        }
+        return matchingElements;
+      }
+      int middle = (from + to) >>> 1;
+      FilterTask<T> right = new FilterTask<>(elements, predicate, middle, to, chunkSize);
+      right.fork();
+      List<T> matchingElements = new FilterTask<>(elements, predicate, from, middle, chunkSize).compute();
+      matchingElements.addAll(right.join());
+      return matchingElements;
+    }
+  }
+
+  /**
+   * sorts a range of an array with a merge sort whose halves are sorted in parallel until they fit into a
+   * single chunk
+   */
+  private static class SortTask<T> extends RecursiveAction
+  {
+
+    private final T[] array;
+
+    /**
+     * a buffer with the same length as the array that is used to merge the sorted halves
+     */
+    private final T[] buffer;
+
+    private final Comparator<? super T> comparator;
+
+    private final int from;
+
+    private final int to;
+
+    private final int chunkSize;
+
+    public SortTask(T[] array, T[] buffer, Comparator<? super T> comparator, int from, int to, int chunkSize)
+    {
+      this.array = array;
+      this.buffer = buffer;
+      this.comparator = comparator;
+      this.from = from;
+      this.to = to;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (to - from <= chunkSize)
+      {
+        Arrays.sort(array, from, to, comparator);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new SortTask<>(array, buffer, comparator, from, middle, chunkSize),
+                new SortTask<>(array, buffer, comparator, middle, to, chunkSize));
+      if (comparator.compare(array[middle - 1], array[middle]) <= 0)
+      {
+        return;
+      }
+      System.arraycopy(array, from, buffer, from, to - from);
+      int left = from;
+      int right = middle;
+      for ( int i = from ; i < to ; i++ )
+      {
+        if (right >= to || left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)
+        {
+          array[i] = buffer[left++];
+        }
+        else
+        {
+          array[i] = buffer[right++];
+        }
+      }
+    }
+  }
+}
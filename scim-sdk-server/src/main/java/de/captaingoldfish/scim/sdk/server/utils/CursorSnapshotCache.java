@@ -0,0 +1,443 @@
+package de.captaingoldfish.scim.sdk.server.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.SortOrder;
+import de.captaingoldfish.scim.sdk.common.resources.ResourceNode;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.endpoints.authorize.Authorization;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * a bounded and thread-safe cache for the filtered and sorted results of list requests that use cursor based
+ * pagination on resource types that are bridged to index based pagination (auto-filtering and auto-sorting
+ * enabled and no cursor support by the resource handler). Without this cache each page request must fetch,
+ * filter and sort the complete data set again just to return the next page. With this cache the first page
+ * request stores the ordered result set under a random snapshot id that is encoded into the returned cursors
+ * and all following pages are sliced from the stored result set. <br>
+ * <br>
+ * a snapshot is valid until its time to live expired. The memory is bounded by the maximum number of
+ * snapshots and the maximum number of resources over all snapshots. If a new snapshot exceeds these bounds
+ * the oldest snapshots are evicted. A result set that is larger than the maximum number of resources is not
+ * cached at all. The time to live should match the {@code cursorTimeout} of the
+ * {@link de.captaingoldfish.scim.sdk.common.resources.complex.PaginationConfig} <br>
+ * <br>
+ * a snapshot can only be read by the client that created it. The client is identified by the client id and
+ * the roles of its {@link Authorization}. Resource handlers that restrict the listed resources based on other
+ * information of the request should therefore not be used with this cache
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Slf4j
+public class CursorSnapshotCache
+{
+
+  /**
+   * separates the snapshot id from the start index within a decoded snapshot cursor
+   */
+  private static final String CURSOR_SEPARATOR = ":";
+
+  /**
+   * the maximum number of snapshots that are kept in this cache
+   */
+  @Getter
+  private final int maxSnapshots;
+
+  /**
+   * the maximum number of resources that are kept in this cache over all snapshots
+   */
+  @Getter
+  private final int maxResources;
+
+  /**
+   * the duration after which a snapshot expires
+   */
+  @Getter
+  private final Duration timeToLive;
+
+  /**
+   * used to determine the expiration of the snapshots
+   */
+  private final Clock clock;
+
+  /**
+   * the snapshots mapped by their ids in creation order
+   */
+  private final Map<String, Snapshot> snapshots = new LinkedHashMap<>();
+
+  /**
+   * the number of resources that are currently kept in this cache over all snapshots
+   */
+  private long cachedResources;
+
+  /**
+   * the number of pages that were served from a snapshot
+   */
+  private final AtomicLong hitCount = new AtomicLong();
+
+  /**
+   * the number of snapshot cursors whose snapshots were already expired or evicted
+   */
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * the number of snapshots that were removed before they expired to keep the cache within its bounds
+   */
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * the number of result sets that were not cached because they exceeded the maximum number of resources
+   */
+  private final AtomicLong rejectionCount = new AtomicLong();
+
+  public CursorSnapshotCache(int maxSnapshots, int maxResources, Duration timeToLive)
+  {
+    this(maxSnapshots, maxResources, timeToLive, Clock.systemUTC());
+  }
+
+  CursorSnapshotCache(int maxSnapshots, int maxResources, Duration timeToLive, Clock clock)
+  {
+    this.maxSnapshots = maxSnapshots;
+    this.maxResources = maxResources;
+    this.timeToLive = Objects.requireNonNull(timeToLive);
+    this.clock = clock;
+  }
+
+  /**
+   * creates the key that binds a snapshot to the query that created it so that a snapshot cursor cannot be used
+   * with another filter or sorting
+   *
+   * @param resourceTypeName the name of the resource type that is listed
+   * @param filterNode the filter of the query or null
+   * @param sortBy the sortBy attribute of the query or null
+   * @param sortOrder the sort order of the query or null
+   * @return the key of the query
+   */
+  public static String getQueryKey(String resourceTypeName,
+                                   FilterNode filterNode,
+                                   SchemaAttribute sortBy,
+                                   SortOrder sortOrder)
+  {
+    return String.join("|",
+                       resourceTypeName,
+                       filterNode == null ? "" : filterNode.getCanonicalForm(),
+                       sortBy == null ? "" : sortBy.getFullResourceName(),
+                       sortOrder == null ? "" : sortOrder.name());
+  }
+
+  /**
+   * creates the key that binds a snapshot to the client that created it so that a snapshot cursor cannot be
+   * used by another client that might not be allowed to see the same resources
+   *
+   * @param authorization the authorization of the current request or null
+   * @return the key of the client
+   */
+  public static String getOwnerKey(Authorization authorization)
+  {
+    if (authorization == null)
+    {
+      return "";
+    }
+    String roles = Optional.ofNullable(authorization.getClientRoles())
+                           .map(clientRoles -> clientRoles.stream().sorted().collect(Collectors.joining(",")))
+                           .orElse("");
+    return String.join("|", Optional.ofNullable(authorization.getClientId()).orElse(""), roles);
+  }
+
+  /**
+   * encodes the given snapshot id and start index into an opaque cursor. The cursor cannot be decoded by
+   * {@link RequestUtils#decodeCursorStartIndex(String)}
+   *
+   * @param snapshotId the id of the snapshot
+   * @param startIndex the 1-based index of the first resource of the page
+   * @return the base64url-encoded cursor
+   */
+  public static String encodeCursor(String snapshotId, long startIndex)
+  {
+    String cursor = snapshotId + CURSOR_SEPARATOR + Math.max(1, startIndex);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * decodes a cursor that was created by {@link #encodeCursor(String, long)}
+   *
+   * @param cursor the cursor from the client
+   * @return the decoded cursor or null if the given cursor is not a snapshot cursor
+   */
+  public static SnapshotCursor decodeCursor(String cursor)
+  {
+    if (StringUtils.isBlank(cursor))
+    {
+      return null;
+    }
+    try
+    {
+      String decodedCursor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = decodedCursor.split(CURSOR_SEPARATOR, -1);
+      if (parts.length != 2 || StringUtils.isBlank(parts[0]))
+      {
+        return null;
+      }
+      long startIndex = Long.parseLong(parts[1]);
+      return startIndex < 1 ? null : new SnapshotCursor(parts[0], startIndex);
+    }
+    catch (IllegalArgumentException ex)
+    {
+      log.trace("Cursor '{}' is not a snapshot cursor", cursor, ex);
+      return null;
+    }
+  }
+
+  /**
+   * stores the given result set as a new snapshot. The oldest snapshots are evicted if the cache would exceed
+   * its bounds
+   *
+   * @param queryKey the key of the query that created the result set. See
+   *          {@link #getQueryKey(String, FilterNode, SchemaAttribute, SortOrder)}
+   * @param ownerKey the key of the client that created the result set. See {@link #getOwnerKey(Authorization)}
+   * @param resources the filtered and sorted result set
+   * @return the id of the new snapshot or null if the result set is too large to be cached
+   */
+  public String createSnapshot(String queryKey, String ownerKey, List<? extends ResourceNode> resources)
+  {
+    if (maxSnapshots <= 0 || resources.size() > maxResources)
+    {
+      rejectionCount.incrementAndGet();
+      log.debug("Result set with '{}' resources is not cached. The snapshot cache allows at most '{}' resources",
+                resources.size(),
+                maxResources);
+      return null;
+    }
+    String snapshotId = UUID.randomUUID().toString().replace("-", "");
+    Snapshot snapshot = new Snapshot(queryKey, ownerKey, Collections.unmodifiableList(new ArrayList<>(resources)),
+                                     clock.instant().plus(timeToLive));
+    synchronized (snapshots)
+    {
+      removeExpiredSnapshots();
+      Iterator<Snapshot> iterator = snapshots.values().iterator();
+      while (iterator.hasNext()
+             && (snapshots.size() >= maxSnapshots || cachedResources + resources.size() > maxResources))
+      {
+        cachedResources -= iterator.next().getResources().size();
+        iterator.remove();
+        evictionCount.incrementAndGet();
+      }
+      snapshots.put(snapshotId, snapshot);
+      cachedResources += resources.size();
+    }
+    return snapshotId;
+  }
+
+  /**
+   * gets a page of the given snapshot. The returned resources are copies so that the stored snapshot is not
+   * modified by the further processing of the request
+   *
+   * @param snapshotId the id of the snapshot
+   * @param queryKey the key of the current query that must match the key of the snapshot
+   * @param ownerKey the key of the current client that must match the key of the client that created the
+   *          snapshot
+   * @param startIndex the 1-based index of the first resource of the page
+   * @param count the maximum number of resources of the page
+   * @return the page or null if the snapshot does not exist, has expired or belongs to another query or client
+   */
+  public <T extends ResourceNode> SnapshotPage<T> getPage(String snapshotId,
+                                                          String queryKey,
+                                                          String ownerKey,
+                                                          long startIndex,
+                                                          int count)
+  {
+    Snapshot snapshot;
+    synchronized (snapshots)
+    {
+      removeExpiredSnapshots();
+      snapshot = snapshots.get(snapshotId);
+    }
+    if (snapshot == null || !snapshot.getQueryKey().equals(queryKey) || !snapshot.getOwnerKey().equals(ownerKey))
+    {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    List<? extends ResourceNode> resources = snapshot.getResources();
+    int fromIndex = (int)Math.min(startIndex - 1, resources.size());
+    int toIndex = (int)Math.min((long)fromIndex + count, resources.size());
+    List<T> page = new ArrayList<>();
+    for ( ResourceNode resource : resources.subList(fromIndex, toIndex) )
+    {
+      page.add(copy(resource));
+    }
+    return new SnapshotPage<>(page, resources.size());
+  }
+
+  /**
+   * creates a deep copy of the given resource
+   */
+  @SuppressWarnings("unchecked")
+  private static <T extends ResourceNode> T copy(ResourceNode resource)
+  {
+    return JsonHelper.copyResourceToObject(resource.deepCopy(), (Class<T>)resource.getClass());
+  }
+
+  /**
+   * removes the expired snapshots. Must be called while holding the lock on {@link #snapshots}
+   */
+  private void removeExpiredSnapshots()
+  {
+    Instant now = clock.instant();
+    Iterator<Snapshot> iterator = snapshots.values().iterator();
+    while (iterator.hasNext())
+    {
+      Snapshot snapshot = iterator.next();
+      if (!snapshot.getExpiresAt().isAfter(now))
+      {
+        cachedResources -= snapshot.getResources().size();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * @return the number of pages that were served from a snapshot
+   */
+  public long getHitCount()
+  {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of snapshot cursors whose snapshots were already expired or evicted
+   */
+  public long getMissCount()
+  {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of snapshots that were removed before they expired to keep the cache within its bounds
+   */
+  public long getEvictionCount()
+  {
+    return evictionCount.get();
+  }
+
+  /**
+   * @return the number of result sets that were not cached because they exceeded the maximum number of
+   *         resources
+   */
+  public long getRejectionCount()
+  {
+    return rejectionCount.get();
+  }
+
+  /**
+   * @return the number of snapshots that are currently cached
+   */
+  public int size()
+  {
+    synchronized (snapshots)
+    {
+      return snapshots.size();
+    }
+  }
+
+  /**
+   * @return the number of resources that are currently cached over all snapshots
+   */
+  public long getCachedResources()
+  {
+    synchronized (snapshots)
+    {
+      return cachedResources;
+    }
+  }
+
+  /**
+   * a stored result set
+   */
+  @Getter
+  @RequiredArgsConstructor
+  private static class Snapshot
+  {
+
+    /**
+     * the key of the query that created this snapshot
+     */
+    private final String queryKey;
+
+    /**
+     * the key of the client that created this snapshot
+     */
+    private final String ownerKey;
+
+    /**
+     * the filtered and sorted resources
+     */
+    private final List<? extends ResourceNode> resources;
+
+    /**
+     * the instant at which this snapshot expires
+     */
+    private final Instant expiresAt;
+  }
+
+  /**
+   * a decoded snapshot cursor
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class SnapshotCursor
+  {
+
+    /**
+     * the id of the referenced snapshot
+     */
+    private final String snapshotId;
+
+    /**
+     * the 1-based index of the first resource of the requested page
+     */
+    private final long startIndex;
+  }
+
+  /**
+   * a page that was sliced from a snapshot
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class SnapshotPage<T extends ResourceNode>
+  {
+
+    /**
+     * the copied resources of the page
+     */
+    private final List<T> resources;
+
+    /**
+     * the number of resources within the snapshot
+     */
+    private final long totalResults;
+  }
+}
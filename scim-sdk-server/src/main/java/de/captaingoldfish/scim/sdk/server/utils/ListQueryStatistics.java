@@ -0,0 +1,436 @@
+package de.captaingoldfish.scim.sdk.server.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.SortOrder;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.server.filter.FilterCanonicalizer;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * records the costs of list requests aggregated by the shape of their queries. The shape of a query is the
+ * canonical filter with all compared values replaced by "?" together with the sortBy attribute and the sort
+ * order (see {@link #getQueryShape(FilterNode, SchemaAttribute, SortOrder)}). So all requests that are
+ * resolved in the same way by a resource handler are aggregated together and the statistics tell which
+ * filters and sort keys are expensive and would benefit from an index within the data store. <br>
+ * <br>
+ * the statistics are bounded by the maximum number of query shapes. If a new shape exceeds this bound the
+ * least recently used shape is removed. Requests that take longer than the slow query threshold are logged.
+ * Each recorded request is also passed to an optional {@link ListQueryStatisticsReporter} that may forward
+ * the statistics to a monitoring system
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@Slf4j
+public class ListQueryStatistics
+{
+
+  /**
+   * the maximum number of query shapes whose statistics are kept
+   */
+  @Getter
+  private final int maxQueryShapes;
+
+  /**
+   * the maximum number of durations per query shape that are kept to calculate the percentiles
+   */
+  @Getter
+  private final int maxSamples;
+
+  /**
+   * requests that take longer than this duration are logged. Null disables the logging of slow requests
+   */
+  @Getter
+  private final Duration slowQueryThreshold;
+
+  /**
+   * receives each recorded request together with the updated statistics of its query shape. May be null
+   */
+  @Getter
+  private final ListQueryStatisticsReporter reporter;
+
+  /**
+   * the statistics mapped by their query shapes in access order
+   */
+  private final Map<String, QueryShapeStatistics> statistics;
+
+  /**
+   * the number of requests that took longer than the slow query threshold
+   */
+  private final AtomicLong slowQueryCount = new AtomicLong();
+
+  public ListQueryStatistics(int maxQueryShapes,
+                             int maxSamples,
+                             Duration slowQueryThreshold,
+                             ListQueryStatisticsReporter reporter)
+  {
+    this.maxQueryShapes = maxQueryShapes;
+    this.maxSamples = Math.max(1, maxSamples);
+    this.slowQueryThreshold = slowQueryThreshold;
+    this.reporter = reporter;
+    this.statistics = new LinkedHashMap<String, QueryShapeStatistics>(16, 0.75f, true)
+    {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, QueryShapeStatistics> eldest)
+      {
+        return size() > ListQueryStatistics.this.maxQueryShapes;
+      }
+    };
+  }
+
+  /**
+   * creates the shape of a query under which its statistics are aggregated
+   *
+   * @param filterNode the filter of the query or null
+   * @param sortBy the sortBy attribute of the query or null
+   * @param sortOrder the sort order of the query or null
+   * @return the shape of the query
+   */
+  public static String getQueryShape(FilterNode filterNode, SchemaAttribute sortBy, SortOrder sortOrder)
+  {
+    return String.join("|",
+                       filterNode == null ? "" : FilterCanonicalizer.toCanonicalShape(filterNode),
+                       sortBy == null ? "" : sortBy.getFullResourceName(),
+                       sortOrder == null ? "" : sortOrder.name());
+  }
+
+  /**
+   * adds the given request to the statistics of its query shape, logs it if it is slow and passes it to the
+   * reporter. Errors of the reporter are logged and not passed to the caller
+   *
+   * @param record the measured costs of a single list request
+   */
+  public void record(ListQueryRecord record)
+  {
+    QueryShapeStatistics shapeStatistics = null;
+    if (maxQueryShapes > 0)
+    {
+      synchronized (statistics)
+      {
+        shapeStatistics = statistics.computeIfAbsent(record.getQueryShape(),
+                                                     queryShape -> new QueryShapeStatistics(queryShape, maxSamples));
+      }
+      shapeStatistics.add(record);
+    }
+    if (slowQueryThreshold != null && record.getTotalNanos() > slowQueryThreshold.toNanos())
+    {
+      slowQueryCount.incrementAndGet();
+      log.warn("Slow list request on resource type '{}' took '{}ms' with query shape '{}': handler '{}ms' returned "
+               + "'{}' resources, filtering '{}ms' matched '{}' resources, sorting '{}ms', validation '{}ms' of "
+               + "'{}' resources",
+               record.getResourceTypeName(),
+               TimeUnit.NANOSECONDS.toMillis(record.getTotalNanos()),
+               record.getQueryShape(),
+               TimeUnit.NANOSECONDS.toMillis(record.getHandlerNanos()),
+               record.getReturnedResources(),
+               TimeUnit.NANOSECONDS.toMillis(record.getFilterNanos()),
+               record.getMatchedResources(),
+               TimeUnit.NANOSECONDS.toMillis(record.getSortNanos()),
+               TimeUnit.NANOSECONDS.toMillis(record.getValidationNanos()),
+               record.getResponseSize());
+    }
+    if (reporter != null)
+    {
+      // a failing reporter must not turn a successful list request into an error
+      try
+      {
+        reporter.report(record, shapeStatistics);
+      }
+      catch (Exception ex)
+      {
+        log.warn("Failed to report list request with query shape '{}'", record.getQueryShape(), ex);
+      }
+    }
+  }
+
+  /**
+   * @return the statistics of all query shapes that are currently kept
+   */
+  public List<QueryShapeStatistics> getStatistics()
+  {
+    synchronized (statistics)
+    {
+      return new ArrayList<>(statistics.values());
+    }
+  }
+
+  /**
+   * @param queryShape the shape of a query. See {@link #getQueryShape(FilterNode, SchemaAttribute, SortOrder)}
+   * @return the statistics of the given query shape or an empty if no request with this shape was recorded
+   */
+  public Optional<QueryShapeStatistics> getStatistics(String queryShape)
+  {
+    synchronized (statistics)
+    {
+      return Optional.ofNullable(statistics.get(queryShape));
+    }
+  }
+
+  /**
+   * @return the number of requests that took longer than the slow query threshold
+   */
+  public long getSlowQueryCount()
+  {
+    return slowQueryCount.get();
+  }
+
+  /**
+   * removes all statistics
+   */
+  public void clear()
+  {
+    synchronized (statistics)
+    {
+      statistics.clear();
+    }
+  }
+
+  /**
+   * the measured costs of a single list request
+   */
+  @Getter
+  @Builder
+  public static class ListQueryRecord
+  {
+
+    /**
+     * the name of the resource type that was listed
+     */
+    private final String resourceTypeName;
+
+    /**
+     * the shape of the query. See {@link #getQueryShape(FilterNode, SchemaAttribute, SortOrder)}
+     */
+    private final String queryShape;
+
+    /**
+     * the time in nanoseconds that the resource handler needed to return its resources
+     */
+    private final long handlerNanos;
+
+    /**
+     * the number of resources that were returned by the resource handler
+     */
+    private final int returnedResources;
+
+    /**
+     * the time in nanoseconds that was needed to filter the returned resources
+     */
+    private final long filterNanos;
+
+    /**
+     * the number of resources that matched the filter
+     */
+    private final int matchedResources;
+
+    /**
+     * the time in nanoseconds that was needed to sort the matched resources
+     */
+    private final long sortNanos;
+
+    /**
+     * the time in nanoseconds that was needed to validate the resources of the response
+     */
+    private final long validationNanos;
+
+    /**
+     * the number of resources within the response
+     */
+    private final int responseSize;
+
+    /**
+     * @return the summed up time in nanoseconds of all measured steps of the request
+     */
+    public long getTotalNanos()
+    {
+      return handlerNanos + filterNanos + sortNanos + validationNanos;
+    }
+  }
+
+  /**
+   * the aggregated statistics of all requests with the same query shape
+   */
+  public static class QueryShapeStatistics
+  {
+
+    /**
+     * the shape of the aggregated queries
+     */
+    @Getter
+    private final String queryShape;
+
+    /**
+     * the total durations of the latest requests in a ring buffer
+     */
+    private final long[] samples;
+
+    /**
+     * the number of recorded requests
+     */
+    private long count;
+
+    private long handlerNanos;
+
+    private long filterNanos;
+
+    private long sortNanos;
+
+    private long validationNanos;
+
+    private long returnedResources;
+
+    private long matchedResources;
+
+    private long responseSize;
+
+    private QueryShapeStatistics(String queryShape, int maxSamples)
+    {
+      this.queryShape = queryShape;
+      this.samples = new long[maxSamples];
+    }
+
+    /**
+     * adds the given request to these statistics
+     */
+    private synchronized void add(ListQueryRecord record)
+    {
+      samples[(int)(count % samples.length)] = record.getTotalNanos();
+      count++;
+      handlerNanos += record.getHandlerNanos();
+      filterNanos += record.getFilterNanos();
+      sortNanos += record.getSortNanos();
+      validationNanos += record.getValidationNanos();
+      returnedResources += record.getReturnedResources();
+      matchedResources += record.getMatchedResources();
+      responseSize += record.getResponseSize();
+    }
+
+    /**
+     * @return the number of recorded requests
+     */
+    public synchronized long getCount()
+    {
+      return count;
+    }
+
+    /**
+     * @return the median of the total durations of the latest requests
+     */
+    public Duration getP50()
+    {
+      return getPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of the total durations of the latest requests
+     */
+    public Duration getP99()
+    {
+      return getPercentile(99);
+    }
+
+    /**
+     * calculates a percentile of the total durations of the latest requests with the nearest-rank method
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the duration of the given percentile
+     */
+    public synchronized Duration getPercentile(double percentile)
+    {
+      int numberOfSamples = (int)Math.min(count, samples.length);
+      if (numberOfSamples == 0)
+      {
+        return Duration.ZERO;
+      }
+      long[] sortedSamples = Arrays.copyOf(samples, numberOfSamples);
+      Arrays.sort(sortedSamples);
+      int rank = (int)Math.ceil(percentile / 100 * numberOfSamples);
+      return Duration.ofNanos(sortedSamples[Math.min(Math.max(rank, 1), numberOfSamples) - 1]);
+    }
+
+    /**
+     * @return the ratio of the resources that matched the filter to the resources that were returned by the
+     *         resource handler. A low selectivity means that the resource handler returns many resources that are
+     *         discarded afterwards
+     */
+    public synchronized double getSelectivity()
+    {
+      return returnedResources == 0 ? 1 : (double)matchedResources / returnedResources;
+    }
+
+    /**
+     * @return the average time that the resource handler needed to return its resources
+     */
+    public synchronized Duration getAverageHandlerTime()
+    {
+      return average(handlerNanos);
+    }
+
+    /**
+     * @return the average time that was needed to filter the returned resources
+     */
+    public synchronized Duration getAverageFilterTime()
+    {
+      return average(filterNanos);
+    }
+
+    /**
+     * @return the average time that was needed to sort the matched resources
+     */
+    public synchronized Duration getAverageSortTime()
+    {
+      return average(sortNanos);
+    }
+
+    /**
+     * @return the average time that was needed to validate the resources of the responses
+     */
+    public synchronized Duration getAverageValidationTime()
+    {
+      return average(validationNanos);
+    }
+
+    /**
+     * @return the total number of resources that were returned by the resource handler
+     */
+    public synchronized long getReturnedResources()
+    {
+      return returnedResources;
+    }
+
+    /**
+     * @return the total number of resources that matched the filter
+     */
+    public synchronized long getMatchedResources()
+    {
+      return matchedResources;
+    }
+
+    /**
+     * @return the average number of resources within the responses
+     */
+    public synchronized double getAverageResponseSize()
+    {
+      return count == 0 ? 0 : (double)responseSize / count;
+    }
+
+    private Duration average(long nanos)
+    {
+      return count == 0 ? Duration.ZERO : Duration.ofNanos(nanos / count);
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package de.captaingoldfish.scim.sdk.server.utils;
+
+/**
+ * receives the recorded list requests of a {@link ListQueryStatistics} e.g. to forward them to a monitoring
+ * system. The reporter is called synchronously within the list request and should therefore return quickly
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+@FunctionalInterface
+public interface ListQueryStatisticsReporter
+{
+
+  /**
+   * reports a recorded list request
+   *
+   * @param record the measured costs of the request
+   * @param statistics the updated statistics of the query shape of the request or null if the statistics do not
+   *          keep any query shapes
+   */
+  void report(ListQueryStatistics.ListQueryRecord record, ListQueryStatistics.QueryShapeStatistics statistics);
+}
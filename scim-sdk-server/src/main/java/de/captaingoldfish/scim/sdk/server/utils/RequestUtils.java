@@ -28,6 +28,7 @@ import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
 import de.captaingoldfish.scim.sdk.common.utils.EncodingUtils;
 import de.captaingoldfish.scim.sdk.server.exceptions.UnparseableFilterException;
 import de.captaingoldfish.scim.sdk.server.filter.AttributePathRoot;
+import de.captaingoldfish.scim.sdk.server.filter.FilterExpressionParser;
 import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
 import de.captaingoldfish.scim.sdk.server.filter.antlr.FilterAttributeName;
 import de.captaingoldfish.scim.sdk.server.filter.antlr.FilterRuleErrorListener;
@@ -116,20 +117,33 @@ public final class RequestUtils
     {
       return null;
     }
-    FilterRuleErrorListener filterRuleErrorListener = new FilterRuleErrorListener();
-    ScimFilterLexer lexer = new ScimFilterLexer(CharStreams.fromString(filter));
-    lexer.removeErrorListeners();
-    lexer.addErrorListener(filterRuleErrorListener);
-    CommonTokenStream commonTokenStream = new CommonTokenStream(lexer);
-    ScimFilterParser scimFilterParser = new ScimFilterParser(commonTokenStream);
-    scimFilterParser.removeErrorListeners();
-    scimFilterParser.addErrorListener(filterRuleErrorListener);
-    ScimFilterParser.FilterContext filterContext = scimFilterParser.filter();
-    FilterVisitor filterVisitor = new FilterVisitor(resourceType, false);
-    FilterNode filterNode;
+    if (resourceType == null)
+    {
+      return parseFilterExpression(null, filter);
+    }
+    return resourceType.getFilterCache().get(filter, expression -> parseFilterExpression(resourceType, expression));
+  }
+
+  /**
+   * parses the filter of a list request without using the filter cache of the resource type
+   *
+   * @see #parseFilter(ResourceType, String)
+   */
+  private static FilterNode parseFilterExpression(ResourceType resourceType, String filter)
+  {
     try
     {
-      filterNode = filterVisitor.visit(filterContext);
+      if (resourceType != null)
+      {
+        Optional<FilterNode> filterNode = FilterExpressionParser.parseFilter(resourceType, filter);
+        if (filterNode.isPresent())
+        {
+          return filterNode.get();
+        }
+      }
+      // the hand-written parser does not accept the expression. So it is either invalid or uses a syntax that
+      // is not supported by the hand-written parser. In both cases the ANTLR parser will produce the result
+      return parseFilterExpressionWithAntlr(resourceType, filter);
     }
     catch (UnparseableFilterException ex)
     {
@@ -140,7 +154,52 @@ public final class RequestUtils
       log.trace(error.getMessage(), error);
       throw new BadRequestException("Failed to parse patch-filter expression. Filter is too large");
     }
-    return filterNode;
+  }
+
+  /**
+   * parses the given filter expression with the ANTLR parser
+   */
+  private static FilterNode parseFilterExpressionWithAntlr(ResourceType resourceType, String filter)
+  {
+    FilterRuleErrorListener filterRuleErrorListener = new FilterRuleErrorListener();
+    ScimFilterLexer lexer = new ScimFilterLexer(CharStreams.fromString(filter));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(filterRuleErrorListener);
+    CommonTokenStream commonTokenStream = new CommonTokenStream(lexer);
+    ScimFilterParser scimFilterParser = new ScimFilterParser(commonTokenStream);
+    scimFilterParser.removeErrorListeners();
+    scimFilterParser.addErrorListener(filterRuleErrorListener);
+    ScimFilterParser.FilterContext filterContext = scimFilterParser.filter();
+    FilterVisitor filterVisitor = new FilterVisitor(resourceType, false);
+    return filterVisitor.visit(filterContext);
+  }
+
+  /**
+   * parses the given filter and creates its normalized canonical form. Filters that only differ in their
+   * spelling e.g. "userName EQ \"chuck\"" and "urn:ietf:params:scim:schemas:core:2.0:User:userName eq
+   * \"chuck\"" have the same canonical form
+   *
+   * @param resourceType the resource type that describes the endpoint on which the filter is used
+   * @param filter the filter expression that must apply to the given resource type
+   * @return the canonical form of the filter or null if the filter is blank
+   * @see de.captaingoldfish.scim.sdk.server.filter.FilterCanonicalizer
+   */
+  public static String getCanonicalFilter(ResourceType resourceType, String filter)
+  {
+    return Optional.ofNullable(parseFilter(resourceType, filter)).map(FilterNode::getCanonicalForm).orElse(null);
+  }
+
+  /**
+   * parses the given filter and creates the stable 64-bit fingerprint of its canonical form
+   *
+   * @param resourceType the resource type that describes the endpoint on which the filter is used
+   * @param filter the filter expression that must apply to the given resource type
+   * @return the fingerprint of the filter or null if the filter is blank
+   * @see #getCanonicalFilter(ResourceType, String)
+   */
+  public static Long getFilterFingerprint(ResourceType resourceType, String filter)
+  {
+    return Optional.ofNullable(parseFilter(resourceType, filter)).map(FilterNode::getFingerprint).orElse(null);
   }
 
   /**
@@ -157,6 +216,39 @@ public final class RequestUtils
     {
       return null;
     }
+    if (resourceType == null)
+    {
+      return parsePatchPathExpression(null, path);
+    }
+    return resourceType.getPatchPathCache().get(path, expression -> parsePatchPathExpression(resourceType, expression));
+  }
+
+  /**
+   * parses a value path context for patch path expressions without using the patch path cache of the resource
+   * type
+   *
+   * @see #parsePatchPath(ResourceType, String)
+   */
+  private static AttributePathRoot parsePatchPathExpression(ResourceType resourceType, String path)
+  {
+    FilterNode filterNode = Optional.ofNullable(resourceType)
+                                    .flatMap(type -> FilterExpressionParser.parseValuePath(type, path))
+                                    .orElseGet(() -> parsePatchPathExpressionWithAntlr(resourceType, path));
+    if (filterNode == null || !AttributePathRoot.class.isAssignableFrom(filterNode.getClass()))
+    {
+      throw new BadRequestException("the path expression is invalid and not supported for patch operations: '" + path
+                                    + "'", null, ScimType.RFC7644.INVALID_PATH);
+    }
+    AttributePathRoot attributePathRoot = (AttributePathRoot)filterNode;
+    attributePathRoot.setOriginalExpressionString(path);
+    return attributePathRoot;
+  }
+
+  /**
+   * parses the given patch path expression with the ANTLR parser
+   */
+  private static FilterNode parsePatchPathExpressionWithAntlr(ResourceType resourceType, String path)
+  {
     FilterRuleErrorListener filterRuleErrorListener = new FilterRuleErrorListener();
     ScimFilterLexer lexer = new ScimFilterLexer(CharStreams.fromString(path));
     lexer.removeErrorListeners();
@@ -167,15 +259,7 @@ public final class RequestUtils
     scimFilterParser.addErrorListener(filterRuleErrorListener);
     ScimFilterParser.ValuePathContext valuePathContext = scimFilterParser.valuePath();
     FilterVisitor filterVisitor = new FilterVisitor(resourceType, true);
-    FilterNode filterNode = filterVisitor.visit(valuePathContext);
-    if (filterNode == null || !AttributePathRoot.class.isAssignableFrom(filterNode.getClass()))
-    {
-      throw new BadRequestException("the path expression is invalid and not supported for patch operations: '" + path
-                                    + "'", null, ScimType.RFC7644.INVALID_PATH);
-    }
-    AttributePathRoot attributePathRoot = (AttributePathRoot)filterNode;
-    attributePathRoot.setOriginalExpressionString(path);
-    return attributePathRoot;
+    return filterVisitor.visit(valuePathContext);
   }
 
   /**
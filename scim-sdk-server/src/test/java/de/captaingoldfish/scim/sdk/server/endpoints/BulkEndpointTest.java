@@ -2381,7 +2381,115 @@ public class BulkEndpointTest extends AbstractBulkTest implements FileReferences
     Assertions.assertEquals(0, userResponses.get(1).getChildren().size());
   }
 
+  /**
+   * verifies that the transitive resources of a bulk-get request are retrieved with a single call to
+   * {@link ResourceHandler#getResources(java.util.Collection, List, List, Context)} per resource type and tree
+   * level if the handler supports batched retrieval
+   */
+  @Test
+  public void testUseBulkGetWithBatchedRetrieval()
+  {
+    serviceProvider.getBulkConfig().setSupported(true);
+    serviceProvider.getBulkConfig().setMaxOperations(20);
+    serviceProvider.getBulkConfig().setMaxPayloadSize(Long.MAX_VALUE);
+    serviceProvider.getBulkConfig().setSupportBulkGet(true);
 
+    Mockito.doAnswer(invocation -> {
+      List<String> ids = new ArrayList<>(invocation.getArgument(0));
+      return ids.stream()
+                .map(id -> userHandler.getInMemoryMap().get(id))
+                .filter(user -> user != null)
+                .map(user -> JsonHelper.copyResourceToObject(user.deepCopy(), User.class))
+                .collect(Collectors.toList());
+    }).when(userHandler).getResources(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+
+    final int numberOfMembers = 10;
+    List<Member> members = new ArrayList<>();
+    for ( int i = 0 ; i < numberOfMembers ; i++ )
+    {
+      User user = User.builder().id(String.valueOf(i)).userName("user" + i).build();
+      userHandler.getInMemoryMap().put(user.getId().get(), user);
+      members.add(Member.builder().value(user.getId().get()).type(ResourceTypeNames.USER).build());
+    }
+    // a reference to a resource that does not exist
+    members.add(Member.builder().value("unknown").type(ResourceTypeNames.USER).build());
+    Group group = Group.builder().id("1").displayName("group").members(members).build();
+    groupHandler.getInMemoryMap().put(group.getId().get(), group);
+
+    final String resourcePath = String.format("%s/%s", EndpointPaths.GROUPS, group.getId().get());
+    List<BulkRequestOperation> bulkRequestOperations = Arrays.asList(BulkRequestOperation.builder()
+                                                                                         .method(HttpMethod.GET)
+                                                                                         .path(resourcePath)
+                                                                                         .maxResourceLevel(2)
+                                                                                         .build());
+    BulkRequest bulkRequest = BulkRequest.builder().bulkRequestOperation(bulkRequestOperations).failOnErrors(0).build();
+
+    BulkResponse bulkResponse = bulkEndpoint.bulk(BASE_URI, bulkRequest.toString(), context);
+    Assertions.assertEquals(HttpStatus.OK, bulkResponse.getHttpStatus());
+
+    BulkResponseOperation responseOperation = bulkResponse.getBulkResponseOperations().get(0);
+    BulkResponseGetOperation responseGetOperation = responseOperation.getResponse(BulkResponseGetOperation.class).get();
+    Assertions.assertEquals(numberOfMembers + 1, responseGetOperation.getChildren().size());
+    for ( int i = 0 ; i < numberOfMembers ; i++ )
+    {
+      BulkResponseGetOperation child = responseGetOperation.getChildren().get(i);
+      Assertions.assertEquals(HttpStatus.OK, child.getStatus());
+      Assertions.assertEquals(String.valueOf(i), child.getResourceId());
+      Assertions.assertEquals(String.valueOf(i), child.getResource(User.class).getId().get());
+    }
+    BulkResponseGetOperation unknownChild = responseGetOperation.getChildren().get(numberOfMembers);
+    Assertions.assertEquals(HttpStatus.NOT_FOUND, unknownChild.getStatus());
+
+    Mockito.verify(userHandler, Mockito.times(1))
+           .getResources(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    Mockito.verify(userHandler, Mockito.never())
+           .getResource(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+  }
+
+  /**
+   * verifies that the transitive resources of a bulk-get request are retrieved one by one if the handler does
+   * not support batched retrieval
+   */
+  @Test
+  public void testUseBulkGetWithBatchedRetrievalFallback()
+  {
+    serviceProvider.getBulkConfig().setSupported(true);
+    serviceProvider.getBulkConfig().setMaxOperations(20);
+    serviceProvider.getBulkConfig().setMaxPayloadSize(Long.MAX_VALUE);
+    serviceProvider.getBulkConfig().setSupportBulkGet(true);
+
+    final int numberOfMembers = 5;
+    List<Member> members = new ArrayList<>();
+    for ( int i = 0 ; i < numberOfMembers ; i++ )
+    {
+      User user = User.builder().id(String.valueOf(i)).userName("user" + i).build();
+      userHandler.getInMemoryMap().put(user.getId().get(), user);
+      members.add(Member.builder().value(user.getId().get()).type(ResourceTypeNames.USER).build());
+    }
+    Group group = Group.builder().id("1").displayName("group").members(members).build();
+    groupHandler.getInMemoryMap().put(group.getId().get(), group);
+
+    final String resourcePath = String.format("%s/%s", EndpointPaths.GROUPS, group.getId().get());
+    List<BulkRequestOperation> bulkRequestOperations = Arrays.asList(BulkRequestOperation.builder()
+                                                                                         .method(HttpMethod.GET)
+                                                                                         .path(resourcePath)
+                                                                                         .maxResourceLevel(1)
+                                                                                         .build());
+    BulkRequest bulkRequest = BulkRequest.builder().bulkRequestOperation(bulkRequestOperations).failOnErrors(0).build();
+
+    BulkResponse bulkResponse = bulkEndpoint.bulk(BASE_URI, bulkRequest.toString(), context);
+    Assertions.assertEquals(HttpStatus.OK, bulkResponse.getHttpStatus());
+
+    BulkResponseOperation responseOperation = bulkResponse.getBulkResponseOperations().get(0);
+    BulkResponseGetOperation responseGetOperation = responseOperation.getResponse(BulkResponseGetOperation.class).get();
+    Assertions.assertEquals(numberOfMembers, responseGetOperation.getChildren().size());
+    responseGetOperation.getChildren().forEach(child -> Assertions.assertEquals(HttpStatus.OK, child.getStatus()));
+
+    Mockito.verify(userHandler, Mockito.times(1))
+           .getResources(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    Mockito.verify(userHandler, Mockito.times(numberOfMembers))
+           .getResource(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+  }
 
   /**
    * This test shall show that the following bulk-request can be correctly handled
@@ -2513,6 +2621,197 @@ public class BulkEndpointTest extends AbstractBulkTest implements FileReferences
     Assertions.assertEquals(0, bulkResponse.getFailedOperations().count());
   }
 
+  /**
+   * verifies that consecutive patch operations on the same resource are merged into a single patch request if
+   * the feature is enabled and that each original operation gets its own response
+   */
+  @DisplayName("Consecutive patch operations on the same resource are coalesced")
+  @Test
+  public void testCoalescePatchOperationsOnSameResource()
+  {
+    serviceProvider.getBulkConfig().setSupported(true);
+    serviceProvider.getBulkConfig().setMaxOperations(10);
+    serviceProvider.setCoalesceBulkPatchOperations(true);
+    serviceProvider.getPatchConfig().setSupported(true);
+
+    String adminGroupId = UUID.randomUUID().toString();
+    Group adminGroup = Group.builder().id(adminGroupId).displayName("admin").build();
+    groupHandler.getInMemoryMap().put(adminGroupId, adminGroup);
+
+    final int numberOfOperations = 5;
+    List<BulkRequestOperation> bulkRequestOperations = new ArrayList<>();
+    for ( int i = 0 ; i < numberOfOperations ; i++ )
+    {
+      bulkRequestOperations.add(getAddMemberOperation(String.valueOf(i), adminGroupId, UUID.randomUUID().toString()));
+    }
+    BulkRequest bulkRequest = BulkRequest.builder()
+                                         .failOnErrors(10)
+                                         .bulkRequestOperation(bulkRequestOperations)
+                                         .build();
+
+    BulkResponse bulkResponse = bulkEndpoint.bulk(BASE_URI, bulkRequest.toString(), context);
+    Assertions.assertEquals(HttpStatus.OK, bulkResponse.getHttpStatus(), bulkResponse.toPrettyString());
+
+    List<BulkResponseOperation> responseOperations = bulkResponse.getBulkResponseOperations();
+    Assertions.assertEquals(numberOfOperations, responseOperations.size());
+    for ( int i = 0 ; i < numberOfOperations ; i++ )
+    {
+      BulkResponseOperation responseOperation = responseOperations.get(i);
+      Assertions.assertEquals(String.valueOf(i), responseOperation.getBulkId().get());
+      Assertions.assertEquals(HttpMethod.PATCH, responseOperation.getMethod());
+      Assertions.assertEquals(HttpStatus.OK, responseOperation.getStatus());
+      Assertions.assertEquals(adminGroupId, responseOperation.getResourceId().get());
+    }
+    Mockito.verify(groupHandler, Mockito.times(1)).updateResource(Mockito.any(), Mockito.any());
+    Group patchedGroup = groupHandler.getInMemoryMap().get(adminGroupId);
+    Assertions.assertEquals(numberOfOperations, patchedGroup.getMembers().size());
+  }
+
+  /**
+   * verifies that all coalesced patch operations are reported as failed if the merged patch request fails. The
+   * operations must not be executed again one by one because the handler might already have written parts of
+   * the merged request
+   */
+  @DisplayName("Coalesced patch operations fail together if the merged request fails")
+  @Test
+  public void testCoalescedPatchOperationsFailTogether()
+  {
+    serviceProvider.getBulkConfig().setSupported(true);
+    serviceProvider.getBulkConfig().setMaxOperations(10);
+    serviceProvider.setCoalesceBulkPatchOperations(true);
+    serviceProvider.getPatchConfig().setSupported(true);
+
+    String adminGroupId = UUID.randomUUID().toString();
+    Group adminGroup = Group.builder().id(adminGroupId).displayName("admin").build();
+    groupHandler.getInMemoryMap().put(adminGroupId, adminGroup);
+
+    List<BulkRequestOperation> bulkRequestOperations = new ArrayList<>();
+    bulkRequestOperations.add(getAddMemberOperation("1", adminGroupId, UUID.randomUUID().toString()));
+    {
+      List<PatchRequestOperation> patchOperations = new ArrayList<>();
+      patchOperations.add(PatchRequestOperation.builder()
+                                               .op(PatchOp.ADD)
+                                               .path("unknownAttribute")
+                                               .value("unknown")
+                                               .build());
+      PatchOpRequest patchOpRequest = PatchOpRequest.builder().operations(patchOperations).build();
+      bulkRequestOperations.add(BulkRequestOperation.builder()
+                                                    .bulkId("2")
+                                                    .path(String.format("%s/%s", EndpointPaths.GROUPS, adminGroupId))
+                                                    .method(HttpMethod.PATCH)
+                                                    .data(patchOpRequest.toString())
+                                                    .build());
+    }
+    bulkRequestOperations.add(getAddMemberOperation("3", adminGroupId, UUID.randomUUID().toString()));
+    BulkRequest bulkRequest = BulkRequest.builder()
+                                         .failOnErrors(10)
+                                         .bulkRequestOperation(bulkRequestOperations)
+                                         .build();
+
+    BulkResponse bulkResponse = bulkEndpoint.bulk(BASE_URI, bulkRequest.toString(), context);
+    Assertions.assertEquals(HttpStatus.OK, bulkResponse.getHttpStatus(), bulkResponse.toPrettyString());
+
+    List<BulkResponseOperation> responseOperations = bulkResponse.getBulkResponseOperations();
+    Assertions.assertEquals(3, responseOperations.size());
+    for ( int i = 0 ; i < responseOperations.size() ; i++ )
+    {
+      BulkResponseOperation responseOperation = responseOperations.get(i);
+      Assertions.assertEquals(String.valueOf(i + 1), responseOperation.getBulkId().get());
+      Assertions.assertEquals(HttpStatus.BAD_REQUEST, responseOperation.getStatus());
+      Assertions.assertTrue(responseOperation.getResponse().isPresent());
+    }
+    Assertions.assertEquals(3, context.getBulkRequestContext().get().getFailedOperations().size());
+    Assertions.assertEquals(3, context.getBulkRequestContext().get().getCurrentNumberOfErrors());
+    // the failed merged request must not have reached the resource handler and is not replayed
+    Mockito.verify(groupHandler, Mockito.never()).updateResource(Mockito.any(), Mockito.any());
+  }
+
+  /**
+   * verifies that coalesced patch operations do not get bulkIds that were not sent by the client and that the
+   * resource is only returned for the operations that asked for it
+   */
+  @DisplayName("Coalesced patch operations keep the bulkIds and returnResource values of the client")
+  @Test
+  public void testCoalescedPatchOperationsKeepClientValues()
+  {
+    serviceProvider.getBulkConfig().setSupported(true);
+    serviceProvider.getBulkConfig().setReturnResourcesEnabled(true);
+    serviceProvider.getBulkConfig().setMaxOperations(10);
+    serviceProvider.setCoalesceBulkPatchOperations(true);
+    serviceProvider.getPatchConfig().setSupported(true);
+
+    String adminGroupId = UUID.randomUUID().toString();
+    Group adminGroup = Group.builder().id(adminGroupId).displayName("admin").build();
+    groupHandler.getInMemoryMap().put(adminGroupId, adminGroup);
+
+    List<BulkRequestOperation> bulkRequestOperations = new ArrayList<>();
+    bulkRequestOperations.add(getAddMemberOperation(null, adminGroupId, UUID.randomUUID().toString()));
+    BulkRequestOperation returnResourceOperation = getAddMemberOperation("2",
+                                                                         adminGroupId,
+                                                                         UUID.randomUUID().toString());
+    returnResourceOperation.setReturnResource(true);
+    bulkRequestOperations.add(returnResourceOperation);
+    bulkRequestOperations.add(getAddMemberOperation("3", adminGroupId, UUID.randomUUID().toString()));
+    BulkRequest bulkRequest = BulkRequest.builder()
+                                         .failOnErrors(10)
+                                         .bulkRequestOperation(bulkRequestOperations)
+                                         .build();
+
+    List<BulkRequestOperation> currentlyHandledOperations = new ArrayList<>();
+    Mockito.doAnswer(invocation -> {
+      currentlyHandledOperations.add(context.getBulkRequestContext().get().getCurrentlyHandledOperation());
+      return invocation.callRealMethod();
+    }).when(groupHandler).updateResource(Mockito.any(), Mockito.any());
+
+    BulkResponse bulkResponse = bulkEndpoint.bulk(BASE_URI, bulkRequest.toString(), context);
+    Assertions.assertEquals(HttpStatus.OK, bulkResponse.getHttpStatus(), bulkResponse.toPrettyString());
+
+    List<BulkResponseOperation> responseOperations = bulkResponse.getBulkResponseOperations();
+    Assertions.assertEquals(3, responseOperations.size());
+    Assertions.assertFalse(responseOperations.get(0).getBulkId().isPresent());
+    Assertions.assertFalse(responseOperations.get(0).getResponse().isPresent());
+    Assertions.assertEquals("2", responseOperations.get(1).getBulkId().get());
+    Assertions.assertTrue(responseOperations.get(1).getResponse().isPresent());
+    Assertions.assertEquals("3", responseOperations.get(2).getBulkId().get());
+    Assertions.assertFalse(responseOperations.get(2).getResponse().isPresent());
+
+    // the handler sees the merged operation that holds the patch operations of all coalesced operations
+    Assertions.assertEquals(1, currentlyHandledOperations.size());
+    BulkRequestOperation mergedOperation = currentlyHandledOperations.get(0);
+    Assertions.assertFalse(mergedOperation.getBulkId().isPresent());
+    PatchOpRequest mergedPatchRequest = JsonHelper.readJsonDocument(mergedOperation.getData().get(),
+                                                                    PatchOpRequest.class);
+    Assertions.assertEquals(3, mergedPatchRequest.getOperations().size());
+    // after the merged request each original operation is registered as the currently handled operation
+    Assertions.assertEquals("3",
+                            context.getBulkRequestContext().get().getCurrentlyHandledOperation().getBulkId().get());
+    Assertions.assertTrue(context.getBulkRequestContext().get().isLastOperation());
+    Assertions.assertEquals(3, groupHandler.getInMemoryMap().get(adminGroupId).getMembers().size());
+  }
+
+  /**
+   * creates a patch operation that adds the given member to the given group
+   */
+  private BulkRequestOperation getAddMemberOperation(String bulkId, String groupId, String memberId)
+  {
+    List<PatchRequestOperation> patchOperations = new ArrayList<>();
+    patchOperations.add(PatchRequestOperation.builder()
+                                             .op(PatchOp.ADD)
+                                             .path(AttributeNames.RFC7643.MEMBERS)
+                                             .valueNode(Member.builder()
+                                                              .value(memberId)
+                                                              .type(ResourceTypeNames.USER)
+                                                              .build())
+                                             .build());
+    PatchOpRequest patchOpRequest = PatchOpRequest.builder().operations(patchOperations).build();
+    return BulkRequestOperation.builder()
+                               .bulkId(bulkId)
+                               .path(String.format("%s/%s", EndpointPaths.GROUPS, groupId))
+                               .method(HttpMethod.PATCH)
+                               .data(patchOpRequest.toString())
+                               .build();
+  }
+
   private boolean isUuid(String id)
   {
     try
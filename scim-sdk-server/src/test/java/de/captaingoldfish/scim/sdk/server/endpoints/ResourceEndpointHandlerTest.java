@@ -2,6 +2,7 @@ package de.captaingoldfish.scim.sdk.server.endpoints;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -93,6 +94,7 @@ import de.captaingoldfish.scim.sdk.server.endpoints.handler.GroupHandlerImpl;
 import de.captaingoldfish.scim.sdk.server.endpoints.handler.ResourceTypeHandler;
 import de.captaingoldfish.scim.sdk.server.endpoints.handler.ServiceProviderHandler;
 import de.captaingoldfish.scim.sdk.server.endpoints.handler.UserHandlerImpl;
+import de.captaingoldfish.scim.sdk.server.filter.AndExpressionNode;
 import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
 import de.captaingoldfish.scim.sdk.server.interceptor.Interceptor;
 import de.captaingoldfish.scim.sdk.server.interceptor.NoopInterceptor;
@@ -100,7 +102,9 @@ import de.captaingoldfish.scim.sdk.server.response.PartialListResponse;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
 import de.captaingoldfish.scim.sdk.server.schemas.custom.ResourceTypeFeatures;
+import de.captaingoldfish.scim.sdk.server.utils.CursorSnapshotCache;
 import de.captaingoldfish.scim.sdk.server.utils.FileReferences;
+import de.captaingoldfish.scim.sdk.server.utils.ListQueryStatistics;
 import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
 import de.captaingoldfish.scim.sdk.server.utils.UriInfos;
 import lombok.extern.slf4j.Slf4j;
@@ -1663,6 +1667,68 @@ public class ResourceEndpointHandlerTest implements FileReferences
                              Matchers.containsInAnyOrder(Matchers.equalTo("charlie"), Matchers.equalTo("chandler")));
   }
 
+  /**
+   * verifies that the resource handler receives the filter if filter pushdown is enabled and that only the
+   * sub-expressions that were not applied by the handler are evaluated by the SDK
+   */
+  @Test
+  public void testFilterPushdownEvaluatesResidualFilter()
+  {
+    resourceEndpointHandler.getServiceProvider().getFilterConfig().setSupported(true);
+    ResourceType userResourceType = resourceEndpointHandler.getResourceTypeByName(ResourceTypeNames.USER).get();
+    userResourceType.getFeatures().setAutoFiltering(true);
+    userResourceType.getFeatures().setFilterPushdown(true);
+
+    List<User> allUsers = new ArrayList<>();
+    for ( String userName : Arrays.asList("chuck", "charles", "chewy", "goldfish") )
+    {
+      String id = UUID.randomUUID().toString();
+      Meta meta = Meta.builder().created(Instant.now()).lastModified(Instant.now()).build();
+      String nickName = userName.contains("e") ? null : "nick";
+      allUsers.add(User.builder().id(id).userName(userName).nickName(nickName).meta(meta).build());
+    }
+    Mockito.doAnswer(invocation -> {
+      AndExpressionNode filter = invocation.getArgument(2);
+      Assertions.assertNotNull(filter);
+      // simulates a data store that is only able to evaluate the userName condition
+      List<User> candidates = allUsers.stream()
+                                      .filter(user -> user.getUserName().get().startsWith("ch"))
+                                      .collect(Collectors.toList());
+      return PartialListResponse.<User> builder()
+                                .resources(candidates)
+                                .totalResults(candidates.size())
+                                .appliedFilters(Collections.singletonList(filter.getLeftNode()))
+                                .build();
+    })
+           .when(userHandler)
+           .listResources(Mockito.anyLong(),
+                          Mockito.anyInt(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any());
+
+    ScimResponse scimResponse = resourceEndpointHandler.listResources(EndpointPaths.USERS,
+                                                                      1L,
+                                                                      10,
+                                                                      "userName sw \"ch\" and nickName pr",
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      new Context(null));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ListResponse.class));
+    ListResponse<ScimObjectNode> listResponse = (ListResponse<ScimObjectNode>)scimResponse;
+    Assertions.assertEquals(1, listResponse.getTotalResults());
+    Assertions.assertEquals("chuck",
+                            JsonHelper.copyResourceToObject(listResponse.getListedResources().get(0), User.class)
+                                      .getUserName()
+                                      .get());
+  }
+
   /**
    * this test verifies that the framework reacts with an {@link InternalServerException} wrapped in a
    * {@link ErrorResponse} if an exception is thrown in the developer implementation of listResources
@@ -4093,4 +4159,195 @@ public class ResourceEndpointHandlerTest implements FileReferences
     MatcherAssert.assertThat(scimResponse.getClass(), Matchers.not(Matchers.typeCompatibleWith(ErrorResponse.class)));
     Assertions.assertEquals(HttpStatus.OK, scimResponse.getHttpStatus());
   }
+
+  /**
+   * Snapshot cache: the first page request stores the filtered and sorted result set and all following pages
+   * are sliced from the snapshot without calling the resource handler again
+   */
+  @Test
+  public void testCursorAutoBridgeWithSnapshotCache()
+  {
+    resourceEndpointHandler.getServiceProvider().getFilterConfig().setMaxResults(100);
+    resourceEndpointHandler.getServiceProvider().setPaginationConfig(PaginationConfig.builder().cursor(true).build());
+    resourceEndpointHandler.getServiceProvider().getSortConfig().setSupported(true);
+    ResourceType userResourceType = resourceTypeFactory.getResourceType(EndpointPaths.USERS);
+    userResourceType.getFeatures().setAutoFiltering(true);
+    userResourceType.getFeatures().setAutoSorting(true);
+    CursorSnapshotCache snapshotCache = new CursorSnapshotCache(10, 1000, Duration.ofMinutes(5));
+    userResourceType.getFeatures().setCursorSnapshotCache(snapshotCache);
+    List<String> expectedIds = createUsers(7).stream()
+                                             .map(user -> user.getId().get())
+                                             .sorted()
+                                             .collect(Collectors.toList());
+
+    List<String> listedIds = new ArrayList<>();
+    String cursor = "";
+    String previousCursor = null;
+    do
+    {
+      ScimResponse scimResponse = resourceEndpointHandler.listResources(EndpointPaths.USERS,
+                                                                        null,
+                                                                        3,
+                                                                        null,
+                                                                        "id",
+                                                                        null,
+                                                                        null,
+                                                                        null,
+                                                                        cursor,
+                                                                        null,
+                                                                        new Context(null));
+      MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ListResponse.class));
+      ListResponse<ScimObjectNode> listResponse = (ListResponse<ScimObjectNode>)scimResponse;
+      Assertions.assertEquals(7L, listResponse.getTotalResults());
+      Assertions.assertEquals(previousCursor == null, !listResponse.getPreviousCursor().isPresent());
+      listResponse.getListedResources()
+                  .forEach(resource -> listedIds.add(resource.get(AttributeNames.RFC7643.ID).textValue()));
+      previousCursor = cursor;
+      cursor = (String)listResponse.getNextCursor().orElse(null);
+    }
+    while (cursor != null);
+
+    Assertions.assertEquals(expectedIds, listedIds);
+    Mockito.verify(userHandler, Mockito.times(1))
+           .listResources(Mockito.anyLong(),
+                          Mockito.anyInt(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any());
+    Assertions.assertEquals(1, snapshotCache.size());
+    Assertions.assertEquals(3, snapshotCache.getHitCount());
+  }
+
+  /**
+   * Snapshot cache: a cursor that references an unknown or expired snapshot is rejected with
+   * {@code expiredCursor}
+   */
+  @Test
+  public void testCursorAutoBridgeWithExpiredSnapshot()
+  {
+    resourceEndpointHandler.getServiceProvider().getFilterConfig().setMaxResults(100);
+    resourceEndpointHandler.getServiceProvider().setPaginationConfig(PaginationConfig.builder().cursor(true).build());
+    ResourceType userResourceType = resourceTypeFactory.getResourceType(EndpointPaths.USERS);
+    userResourceType.getFeatures().setAutoFiltering(true);
+    userResourceType.getFeatures().setAutoSorting(true);
+    userResourceType.getFeatures().setCursorSnapshotCache(new CursorSnapshotCache(10, 1000, Duration.ofMinutes(5)));
+    createUsers(3);
+
+    ScimResponse scimResponse = resourceEndpointHandler.listResources(EndpointPaths.USERS,
+                                                                      null,
+                                                                      2,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      CursorSnapshotCache.encodeCursor("unknown", 3),
+                                                                      null,
+                                                                      new Context(null));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ErrorResponse.class));
+    ErrorResponse errorResponse = (ErrorResponse)scimResponse;
+    Assertions.assertEquals(HttpStatus.BAD_REQUEST, errorResponse.getHttpStatus());
+    Assertions.assertEquals(RFC9865.EXPIRED_CURSOR, errorResponse.getScimException().getScimType());
+  }
+
+  /**
+   * Snapshot cache: a cursor of a snapshot that was created by another client is rejected with
+   * {@code expiredCursor}
+   */
+  @Test
+  public void testCursorAutoBridgeWithSnapshotOfAnotherClient()
+  {
+    resourceEndpointHandler.getServiceProvider().getFilterConfig().setMaxResults(100);
+    resourceEndpointHandler.getServiceProvider().setPaginationConfig(PaginationConfig.builder().cursor(true).build());
+    ResourceType userResourceType = resourceTypeFactory.getResourceType(EndpointPaths.USERS);
+    userResourceType.getFeatures().setAutoFiltering(true);
+    userResourceType.getFeatures().setAutoSorting(true);
+    userResourceType.getFeatures().setCursorSnapshotCache(new CursorSnapshotCache(10, 1000, Duration.ofMinutes(5)));
+    createUsers(3);
+
+    ScimResponse scimResponse = resourceEndpointHandler.listResources(EndpointPaths.USERS,
+                                                                      null,
+                                                                      2,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      null,
+                                                                      "",
+                                                                      null,
+                                                                      new Context(new ResourceEndpointTest.ClientAuthorization("goldfish")));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ListResponse.class));
+    String nextCursor = (String)((ListResponse<ScimObjectNode>)scimResponse).getNextCursor().get();
+
+    scimResponse = resourceEndpointHandler.listResources(EndpointPaths.USERS,
+                                                         null,
+                                                         2,
+                                                         null,
+                                                         null,
+                                                         null,
+                                                         null,
+                                                         null,
+                                                         nextCursor,
+                                                         null,
+                                                         new Context(new ResourceEndpointTest.ClientAuthorization("other")));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ErrorResponse.class));
+    ErrorResponse errorResponse = (ErrorResponse)scimResponse;
+    Assertions.assertEquals(HttpStatus.BAD_REQUEST, errorResponse.getHttpStatus());
+    Assertions.assertEquals(RFC9865.EXPIRED_CURSOR, errorResponse.getScimException().getScimType());
+  }
+
+  /**
+   * verifies that the costs of list requests are recorded by the shape of their queries and that slow requests
+   * are counted and reported
+   */
+  @Test
+  public void testListQueryStatistics()
+  {
+    resourceEndpointHandler.getServiceProvider().getFilterConfig().setSupported(true);
+    resourceEndpointHandler.getServiceProvider().getSortConfig().setSupported(true);
+    ResourceType userResourceType = resourceTypeFactory.getResourceType(EndpointPaths.USERS);
+    userResourceType.getFeatures().setAutoFiltering(true);
+    userResourceType.getFeatures().setAutoSorting(true);
+    List<ListQueryStatistics.ListQueryRecord> records = new ArrayList<>();
+    ListQueryStatistics listQueryStatistics = new ListQueryStatistics(10, 100, Duration.ZERO,
+                                                                      (record, statistics) -> records.add(record));
+    userResourceType.getFeatures().setListQueryStatistics(listQueryStatistics);
+    List<User> users = createUsers(4);
+
+    for ( User user : users.subList(0, 2) )
+    {
+      ScimResponse scimResponse = resourceEndpointHandler.listResources(EndpointPaths.USERS,
+                                                                        1L,
+                                                                        10,
+                                                                        "id eq \"" + user.getId().get() + "\"",
+                                                                        "userName",
+                                                                        null,
+                                                                        null,
+                                                                        null,
+                                                                        null,
+                                                                        null,
+                                                                        new Context(null));
+      MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ListResponse.class));
+    }
+
+    Assertions.assertEquals(2, records.size());
+    Assertions.assertEquals(2, listQueryStatistics.getSlowQueryCount());
+    Assertions.assertEquals(1, listQueryStatistics.getStatistics().size());
+    ListQueryStatistics.QueryShapeStatistics statistics = listQueryStatistics.getStatistics().get(0);
+    Assertions.assertEquals("urn:ietf:params:scim:schemas:core:2.0:User:id EQ ?"
+                            + "|urn:ietf:params:scim:schemas:core:2.0:User:userName|ASCENDING",
+                            statistics.getQueryShape());
+    Assertions.assertEquals(2, statistics.getCount());
+    Assertions.assertEquals(8, statistics.getReturnedResources());
+    Assertions.assertEquals(2, statistics.getMatchedResources());
+    Assertions.assertEquals(0.25, statistics.getSelectivity());
+    Assertions.assertEquals(1.0, statistics.getAverageResponseSize());
+    Assertions.assertTrue(statistics.getP99().compareTo(statistics.getP50()) >= 0);
+    Assertions.assertEquals(userResourceType.getName(), records.get(0).getResourceTypeName());
+    Assertions.assertEquals(4, records.get(0).getReturnedResources());
+    Assertions.assertEquals(1, records.get(0).getMatchedResources());
+  }
 }
@@ -45,6 +45,7 @@ import de.captaingoldfish.scim.sdk.common.constants.SchemaUris;
 import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
 import de.captaingoldfish.scim.sdk.common.constants.enums.PatchOp;
 import de.captaingoldfish.scim.sdk.common.constants.enums.Returned;
+import de.captaingoldfish.scim.sdk.common.etag.ETag;
 import de.captaingoldfish.scim.sdk.common.exceptions.BadRequestException;
 import de.captaingoldfish.scim.sdk.common.exceptions.NotImplementedException;
 import de.captaingoldfish.scim.sdk.common.exceptions.ResponseException;
@@ -67,6 +68,7 @@ import de.captaingoldfish.scim.sdk.common.resources.complex.Name;
 import de.captaingoldfish.scim.sdk.common.resources.complex.PatchConfig;
 import de.captaingoldfish.scim.sdk.common.resources.complex.SortConfig;
 import de.captaingoldfish.scim.sdk.common.resources.multicomplex.AuthenticationScheme;
+import de.captaingoldfish.scim.sdk.common.resources.multicomplex.Email;
 import de.captaingoldfish.scim.sdk.common.response.BulkResponse;
 import de.captaingoldfish.scim.sdk.common.response.BulkResponseOperation;
 import de.captaingoldfish.scim.sdk.common.response.CreateResponse;
@@ -84,12 +86,16 @@ import de.captaingoldfish.scim.sdk.server.endpoints.base.UserEndpointDefinition;
 import de.captaingoldfish.scim.sdk.server.endpoints.features.EndpointType;
 import de.captaingoldfish.scim.sdk.server.endpoints.handler.SingletonUserHandlerImpl;
 import de.captaingoldfish.scim.sdk.server.endpoints.handler.UserHandlerImpl;
+import de.captaingoldfish.scim.sdk.server.metrics.InMemoryScimMetrics;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimMetrics;
+import de.captaingoldfish.scim.sdk.server.metrics.ScimPhase;
 import de.captaingoldfish.scim.sdk.server.resources.AllTypes;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
 import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
 import de.captaingoldfish.scim.sdk.server.schemas.custom.EndpointControlFeature;
 import de.captaingoldfish.scim.sdk.server.schemas.custom.ResourceTypeAuthorization;
 import de.captaingoldfish.scim.sdk.server.schemas.custom.ResourceTypeFeatures;
+import de.captaingoldfish.scim.sdk.server.utils.AdaptiveParallelExecutor;
 import de.captaingoldfish.scim.sdk.server.utils.FileReferences;
 import de.captaingoldfish.scim.sdk.server.utils.TestHelper;
 import de.captaingoldfish.scim.sdk.server.utils.UriInfos;
@@ -450,6 +456,65 @@ public class ResourceEndpointTest extends AbstractBulkTest implements FileRefere
                             returnedUser.getMeta().get().getLocation().get());
   }
 
+  /**
+   * verifies that an update request that does not change the resource is not passed to the resource handler if
+   * the resource type is configured to skip unchanged updates
+   */
+  @Test
+  public void testUnchangedUpdateIsSkipped()
+  {
+    ResourceType userResourceType = resourceEndpoint.getResourceTypeFactory().getResourceType(EndpointPaths.USERS);
+    userResourceType.getFeatures().setSkipUnchangedUpdates(true);
+    serviceProvider.getETagConfig().setSupported(true);
+    userResourceType.getFeatures().getETagFeature().setEnabled(true);
+
+    final String id = UUID.randomUUID().toString();
+    Meta meta = Meta.builder()
+                    .resourceType(ResourceTypeNames.USER)
+                    .created(LocalDateTime.now())
+                    .lastModified(LocalDateTime.now())
+                    .build();
+    final User user = User.builder()
+                          .id(id)
+                          .userName("chuck_norris")
+                          .nickName("chuck")
+                          .emails(Arrays.asList(Email.builder().value("chuck@norris.com").type("work").build()))
+                          .meta(meta)
+                          .build();
+    meta.setVersion(ETag.builder().tag("1").build());
+    userHandler.getInMemoryMap().put(id, user);
+    // the version check and the change detection must both be executed on the old resource
+    httpHeaders.put(HttpHeader.IF_MATCH_HEADER, meta.getVersion().get().getEntityTag());
+    // the read-only meta-attribute is ignored by the comparison
+    User unchangedUser = JsonHelper.copyResourceToObject(user.deepCopy(), User.class);
+    unchangedUser.remove(AttributeNames.RFC7643.META);
+    final String url = BASE_URI + EndpointPaths.USERS + "/" + id;
+    ScimResponse scimResponse = resourceEndpoint.handleRequest(url,
+                                                               HttpMethod.PUT,
+                                                               unchangedUser.toString(),
+                                                               httpHeaders,
+                                                               new Context(null));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(UpdateResponse.class));
+    Assertions.assertEquals(HttpStatus.OK, scimResponse.getHttpStatus());
+    User returnedUser = JsonHelper.copyResourceToObject(scimResponse, User.class);
+    Assertions.assertEquals("chuck", returnedUser.getNickName().get());
+    Mockito.verify(userHandler, Mockito.times(0)).updateResource(Mockito.any(), Mockito.any());
+    // the old resource is retrieved only once for the version check and the change detection
+    Mockito.verify(userHandler, Mockito.times(1))
+           .getResourceForUpdate(Mockito.eq(id), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+
+    httpHeaders.remove(HttpHeader.IF_MATCH_HEADER);
+    unchangedUser.setNickName("norris");
+    scimResponse = resourceEndpoint.handleRequest(url,
+                                                  HttpMethod.PUT,
+                                                  unchangedUser.toString(),
+                                                  httpHeaders,
+                                                  new Context(null));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(UpdateResponse.class));
+    Mockito.verify(userHandler, Mockito.times(1)).updateResource(Mockito.any(), Mockito.any());
+    Assertions.assertEquals("norris", userHandler.getInMemoryMap().get(id).getNickName().get());
+  }
+
   /**
    * this test will verify that an update request is processed successfully if parameters are correctly set and
    * if a resource type consumer is set
@@ -1644,6 +1709,95 @@ public class ResourceEndpointTest extends AbstractBulkTest implements FileRefere
     Assertions.assertFalse(copiedUser.isActive().get());
   }
 
+  /**
+   * verifies that only the attributes that were touched by a patch request are validated again after the patch
+   * operations were applied if the partial patch validation is enabled. The stored user is missing its required
+   * userName attribute which is detected by the default full validation only
+   */
+  @Test
+  public void testPatchValidatesOnlyTouchedAttributes()
+  {
+    serviceProvider.getPatchConfig().setSupported(true);
+
+    List<PatchRequestOperation> operations = Arrays.asList(PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REPLACE)
+                                                                                .path(AttributeNames.RFC7643.NICK_NAME)
+                                                                                .values(Arrays.asList("chuck"))
+                                                                                .build());
+    final String patchOpString = PatchOpRequest.builder().operations(operations).build().toString();
+
+    Meta meta = Meta.builder()
+                    .resourceType(ResourceTypeNames.USER)
+                    .created(LocalDateTime.now())
+                    .lastModified(LocalDateTime.now())
+                    .build();
+    String id = UUID.randomUUID().toString();
+    User user = User.builder().id(id).userName("goldfish").nickName("captain").meta(meta).build();
+    user.remove(AttributeNames.RFC7643.USER_NAME);
+    userHandler.getInMemoryMap().put(id, user);
+
+    final String url = BASE_URI + EndpointPaths.USERS + "/" + id;
+    ScimResponse scimResponse = resourceEndpoint.handleRequest(url,
+                                                               HttpMethod.PATCH,
+                                                               patchOpString,
+                                                               httpHeaders,
+                                                               getContext(id, HttpMethod.PATCH));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ErrorResponse.class));
+    Assertions.assertEquals(HttpStatus.BAD_REQUEST, scimResponse.getHttpStatus());
+    Assertions.assertFalse(userHandler.getInMemoryMap().get(id).getUserName().isPresent());
+    Assertions.assertEquals("captain", userHandler.getInMemoryMap().get(id).getNickName().get());
+
+    ResourceType userResourceType = resourceEndpoint.getResourceTypeFactory().getResourceType(EndpointPaths.USERS);
+    userResourceType.getFeatures().setPartialPatchValidation(true);
+    scimResponse = resourceEndpoint.handleRequest(url,
+                                                  HttpMethod.PATCH,
+                                                  patchOpString,
+                                                  httpHeaders,
+                                                  getContext(id, HttpMethod.PATCH));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(UpdateResponse.class));
+    Assertions.assertFalse(userHandler.getInMemoryMap().get(id).getUserName().isPresent());
+    Assertions.assertEquals("chuck", userHandler.getInMemoryMap().get(id).getNickName().get());
+  }
+
+  /**
+   * verifies that a required attribute that is removed by a patch request is still detected by the validation
+   * of the touched attributes
+   */
+  @Test
+  public void testPatchRemoveRequiredAttributeIsValidated()
+  {
+    serviceProvider.getPatchConfig().setSupported(true);
+    resourceEndpoint.getResourceTypeFactory()
+                    .getResourceType(EndpointPaths.USERS)
+                    .getFeatures()
+                    .setPartialPatchValidation(true);
+
+    List<PatchRequestOperation> operations = Arrays.asList(PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REMOVE)
+                                                                                .path(AttributeNames.RFC7643.USER_NAME)
+                                                                                .build());
+    final String patchOpString = PatchOpRequest.builder().operations(operations).build().toString();
+
+    Meta meta = Meta.builder()
+                    .resourceType(ResourceTypeNames.USER)
+                    .created(LocalDateTime.now())
+                    .lastModified(LocalDateTime.now())
+                    .build();
+    String id = UUID.randomUUID().toString();
+    User user = User.builder().id(id).userName("goldfish").nickName("captain").meta(meta).build();
+    userHandler.getInMemoryMap().put(id, user);
+
+    final String url = BASE_URI + EndpointPaths.USERS + "/" + id;
+    ScimResponse scimResponse = resourceEndpoint.handleRequest(url,
+                                                               HttpMethod.PATCH,
+                                                               patchOpString,
+                                                               httpHeaders,
+                                                               getContext(id, HttpMethod.PATCH));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ErrorResponse.class));
+    Assertions.assertEquals(HttpStatus.BAD_REQUEST, scimResponse.getHttpStatus());
+    Assertions.assertEquals("goldfish", userHandler.getInMemoryMap().get(id).getUserName().get());
+  }
+
   /**
    * verifies that a patch operation request with a none string type value is processed successfully:
    *
@@ -4054,6 +4208,221 @@ public class ResourceEndpointTest extends AbstractBulkTest implements FileRefere
     Assertions.assertEquals(errorMessage, errorResponse.getErrorMessages().get(0), errorResponse.toPrettyString());
   }
 
+  /**
+   * verifies that the phases of the request pipeline, the requests and the bulk operations are passed to the
+   * configured {@link ScimMetrics}
+   */
+  @Test
+  public void testScimMetrics()
+  {
+    InMemoryScimMetrics scimMetrics = new InMemoryScimMetrics();
+    resourceEndpoint.setScimMetrics(scimMetrics);
+
+    User user = User.builder().userName("goldfish").build();
+    // the context of the request tells the serialization to which resource type and endpoint it belongs
+    Context createContext = new Context(null);
+    ScimResponse createResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.USERS,
+                                                                 HttpMethod.POST,
+                                                                 user.toString(),
+                                                                 httpHeaders,
+                                                                 createContext);
+    Assertions.assertEquals(HttpStatus.CREATED, createResponse.getHttpStatus());
+    Assertions.assertEquals(createResponse.toString(),
+                            resourceEndpoint.serializeResponse(createResponse, createContext));
+
+    ScimResponse listResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.USERS,
+                                                               HttpMethod.GET,
+                                                               null,
+                                                               httpHeaders,
+                                                               new Context(null));
+    Assertions.assertEquals(HttpStatus.OK, listResponse.getHttpStatus());
+
+    for ( ScimPhase phase : new ScimPhase[]{ScimPhase.URL_ROUTING, ScimPhase.AUTHORIZATION, ScimPhase.BODY_PARSING,
+                                            ScimPhase.REQUEST_VALIDATION, ScimPhase.HANDLER, ScimPhase.SERIALIZATION} )
+    {
+      Assertions.assertEquals(1,
+                              scimMetrics.getHistogram(ResourceTypeNames.USER, EndpointType.CREATE, phase)
+                                         .map(InMemoryScimMetrics.Histogram::getCount)
+                                         .orElse(0L),
+                              phase.name());
+    }
+    Assertions.assertTrue(scimMetrics.getHistogram(ResourceTypeNames.USER, EndpointType.LIST, ScimPhase.HANDLER)
+                                     .isPresent());
+    Assertions.assertEquals(1, scimMetrics.getRequestCount(ResourceTypeNames.USER, EndpointType.CREATE, 201));
+    Assertions.assertEquals(1, scimMetrics.getRequestCount(ResourceTypeNames.USER, EndpointType.LIST, 200));
+
+    serviceProvider.getBulkConfig().setSupported(true);
+    serviceProvider.getBulkConfig().setMaxOperations(10);
+    serviceProvider.getBulkConfig().setMaxPayloadSize(Long.MAX_VALUE);
+    List<BulkRequestOperation> operations = getCreateUserBulkOperations(3);
+    operations.add(BulkRequestOperation.builder()
+                                       .bulkId(UUID.randomUUID().toString())
+                                       .method(HttpMethod.DELETE)
+                                       .path(EndpointPaths.USERS + "/" + UUID.randomUUID())
+                                       .build());
+    BulkRequest bulkRequest = BulkRequest.builder().failOnErrors(10).bulkRequestOperation(operations).build();
+    ScimResponse bulkResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.BULK,
+                                                               HttpMethod.POST,
+                                                               bulkRequest.toString(),
+                                                               httpHeaders,
+                                                               new Context(null));
+    Assertions.assertEquals(HttpStatus.OK, bulkResponse.getHttpStatus(), bulkResponse.toPrettyString());
+
+    Assertions.assertEquals(3, scimMetrics.getBulkOperationCount(HttpMethod.POST, HttpStatus.CREATED));
+    Assertions.assertEquals(1, scimMetrics.getBulkOperationCount(HttpMethod.DELETE, HttpStatus.NOT_FOUND));
+    Assertions.assertEquals(1,
+                            scimMetrics.getBulkFailureCount(HttpMethod.DELETE, String.valueOf(HttpStatus.NOT_FOUND)));
+    Assertions.assertTrue(scimMetrics.getHistogram(null, null, ScimPhase.BODY_PARSING).isPresent());
+    Assertions.assertEquals(1, scimMetrics.getRequestCount(null, null, HttpStatus.OK));
+    // the operations of the bulk request are counted as bulk operations and not as requests
+    Assertions.assertEquals(1, scimMetrics.getRequestCount(ResourceTypeNames.USER, EndpointType.CREATE, 201));
+  }
+
+  /**
+   * verifies that the etag generation and the response validation of a list request are recorded once per
+   * request and not once per returned resource
+   */
+  @Test
+  public void testListPhasesAreRecordedOncePerRequest()
+  {
+    InMemoryScimMetrics scimMetrics = new InMemoryScimMetrics();
+    resourceEndpoint.setScimMetrics(scimMetrics);
+    serviceProvider.getFilterConfig().setMaxResults(10);
+
+    for ( int i = 0 ; i < 3 ; i++ )
+    {
+      User user = User.builder().userName("goldfish-" + i).build();
+      ScimResponse createResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.USERS,
+                                                                   HttpMethod.POST,
+                                                                   user.toString(),
+                                                                   httpHeaders,
+                                                                   new Context(null));
+      Assertions.assertEquals(HttpStatus.CREATED, createResponse.getHttpStatus());
+    }
+
+    ScimResponse listResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.USERS,
+                                                               HttpMethod.GET,
+                                                               null,
+                                                               httpHeaders,
+                                                               new Context(null));
+    Assertions.assertEquals(HttpStatus.OK, listResponse.getHttpStatus(), listResponse.toPrettyString());
+    Assertions.assertEquals(3, ((ListResponse)listResponse).getListedResources().size());
+
+    for ( ScimPhase phase : new ScimPhase[]{ScimPhase.HANDLER, ScimPhase.ETAG_GENERATION,
+                                            ScimPhase.RESPONSE_VALIDATION} )
+    {
+      Assertions.assertEquals(1,
+                              scimMetrics.getHistogram(ResourceTypeNames.USER, EndpointType.LIST, phase)
+                                         .map(InMemoryScimMetrics.Histogram::getCount)
+                                         .orElse(0L),
+                              phase.name());
+    }
+  }
+
+  /**
+   * verifies that errors of the {@link ScimMetrics} implementation never change the response of a request
+   */
+  @Test
+  public void testFailingScimMetricsDoNotChangeResponses()
+  {
+    resourceEndpoint.setScimMetrics(new ScimMetrics()
+    {
+
+      @Override
+      public void recordPhase(String resourceType, EndpointType endpointType, ScimPhase phase, long nanos)
+      {
+        throw new IllegalStateException("recordPhase failure");
+      }
+
+      @Override
+      public void recordRequest(String resourceType, EndpointType endpointType, int httpStatus)
+      {
+        throw new IllegalStateException("recordRequest failure");
+      }
+
+      @Override
+      public void recordBulkOperation(HttpMethod method, int httpStatus, String failureReason)
+      {
+        throw new IllegalStateException("recordBulkOperation failure");
+      }
+
+      @Override
+      public void recordParallelDecision(AdaptiveParallelExecutor.Decision decision)
+      {
+        throw new IllegalStateException("recordParallelDecision failure");
+      }
+    });
+    serviceProvider.getFilterConfig().setSupported(true);
+    serviceProvider.getFilterConfig().setMaxResults(10);
+    ResourceType userResourceType = resourceEndpoint.getResourceTypeByName(ResourceTypeNames.USER).get();
+    userResourceType.getFeatures().setAutoFiltering(true);
+
+    User user = User.builder().userName("goldfish").build();
+    ScimResponse createResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.USERS,
+                                                                 HttpMethod.POST,
+                                                                 user.toString(),
+                                                                 httpHeaders,
+                                                                 new Context(null));
+    Assertions.assertEquals(HttpStatus.CREATED, createResponse.getHttpStatus(), createResponse.toPrettyString());
+    Assertions.assertEquals(1, userHandler.getInMemoryMap().size());
+
+    ScimResponse listResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.USERS
+                                                               + "?filter=userName%20eq%20%22goldfish%22",
+                                                               HttpMethod.GET,
+                                                               null,
+                                                               httpHeaders,
+                                                               new Context(null));
+    Assertions.assertEquals(HttpStatus.OK, listResponse.getHttpStatus(), listResponse.toPrettyString());
+    Assertions.assertEquals(1, ((ListResponse)listResponse).getListedResources().size());
+
+    serviceProvider.getBulkConfig().setSupported(true);
+    serviceProvider.getBulkConfig().setMaxOperations(10);
+    serviceProvider.getBulkConfig().setMaxPayloadSize(Long.MAX_VALUE);
+    BulkRequest bulkRequest = BulkRequest.builder()
+                                         .failOnErrors(10)
+                                         .bulkRequestOperation(getCreateUserBulkOperations(2))
+                                         .build();
+    ScimResponse bulkResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.BULK,
+                                                               HttpMethod.POST,
+                                                               bulkRequest.toString(),
+                                                               httpHeaders,
+                                                               new Context(null));
+    Assertions.assertEquals(HttpStatus.OK, bulkResponse.getHttpStatus(), bulkResponse.toPrettyString());
+    Assertions.assertEquals(3, userHandler.getInMemoryMap().size());
+  }
+
+  /**
+   * verifies that the decisions of the {@link AdaptiveParallelExecutor} are passed to the {@link ScimMetrics}
+   * of the endpoint that filtered the resources
+   */
+  @Test
+  public void testParallelDecisionsAreRecordedByScimMetrics()
+  {
+    InMemoryScimMetrics scimMetrics = new InMemoryScimMetrics();
+    resourceEndpoint.setScimMetrics(scimMetrics);
+    serviceProvider.getFilterConfig().setSupported(true);
+    resourceEndpoint.getResourceTypeFactory()
+                    .getResourceType(EndpointPaths.USERS)
+                    .setFeatures(ResourceTypeFeatures.builder().autoFiltering(true).build());
+    String id = UUID.randomUUID().toString();
+    Meta meta = Meta.builder()
+                    .resourceType(ResourceTypeNames.USER)
+                    .created(LocalDateTime.now())
+                    .lastModified(LocalDateTime.now())
+                    .build();
+    userHandler.getInMemoryMap().put(id, User.builder().id(id).userName("goldfish").meta(meta).build());
+
+    ScimResponse scimResponse = resourceEndpoint.handleRequest(BASE_URI + EndpointPaths.USERS
+                                                               + "?filter=userName eq \"goldfish\"",
+                                                               HttpMethod.GET,
+                                                               null,
+                                                               httpHeaders,
+                                                               new Context(null));
+    Assertions.assertEquals(HttpStatus.OK, scimResponse.getHttpStatus(), scimResponse.toPrettyString());
+    Assertions.assertEquals(1,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.SEQUENTIAL_BELOW_THRESHOLD));
+  }
+
   /**
    * tests if a resource type endpoint protected with authorization roles is inaccessible if the necessary roles
    * are not present
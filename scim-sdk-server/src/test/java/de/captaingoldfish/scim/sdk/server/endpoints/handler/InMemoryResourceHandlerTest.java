@@ -0,0 +1,209 @@
+package de.captaingoldfish.scim.sdk.server.endpoints.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import de.captaingoldfish.scim.sdk.common.constants.EndpointPaths;
+import de.captaingoldfish.scim.sdk.common.constants.HttpHeader;
+import de.captaingoldfish.scim.sdk.common.constants.HttpStatus;
+import de.captaingoldfish.scim.sdk.common.constants.ResourceTypeNames;
+import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
+import de.captaingoldfish.scim.sdk.common.constants.enums.SortOrder;
+import de.captaingoldfish.scim.sdk.common.etag.ETag;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.User;
+import de.captaingoldfish.scim.sdk.common.resources.complex.ETagConfig;
+import de.captaingoldfish.scim.sdk.common.resources.complex.Meta;
+import de.captaingoldfish.scim.sdk.common.response.ErrorResponse;
+import de.captaingoldfish.scim.sdk.common.response.ScimResponse;
+import de.captaingoldfish.scim.sdk.common.response.UpdateResponse;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.endpoints.Context;
+import de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint;
+import de.captaingoldfish.scim.sdk.server.endpoints.base.UserEndpointDefinition;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import de.captaingoldfish.scim.sdk.server.response.PartialListResponse;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class InMemoryResourceHandlerTest
+{
+
+  /**
+   * the user names of the users that are added for each test
+   */
+  private static final List<String> USER_NAMES = Arrays.asList("anna", "Bob", "bernd", "carl", "dora");
+
+  /**
+   * the handler under test with an index on the userName and the nickName
+   */
+  private InMemoryResourceHandler<User> userHandler;
+
+  /**
+   * the endpoint on which the handler is registered
+   */
+  private ResourceEndpoint resourceEndpoint;
+
+  /**
+   * the user resource type
+   */
+  private ResourceType userResourceType;
+
+  /**
+   * registers the handler and adds some users
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    ServiceProvider serviceProvider = ServiceProvider.builder()
+                                                     .eTagConfig(ETagConfig.builder().supported(true).build())
+                                                     .build();
+    userHandler = new InMemoryResourceHandler<>(User.class, "userName", "nickName");
+    resourceEndpoint = new ResourceEndpoint(serviceProvider, new UserEndpointDefinition(userHandler));
+    userResourceType = resourceEndpoint.getResourceTypeByName(ResourceTypeNames.USER).get();
+    userResourceType.getFeatures().getETagFeature().setEnabled(true);
+    for ( String userName : USER_NAMES )
+    {
+      userHandler.createResource(User.builder().userName(userName).nickName(userName).build(), null);
+    }
+  }
+
+  /**
+   * verifies that filter expressions on indexed attributes return the same results as an evaluation on all
+   * resources
+   */
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {"userName eq \"BOB\";Bob", "userName sw \"b\";bernd,Bob",
+                                       "userName gt \"bob\";carl,dora", "userName le \"bernd\";anna,bernd",
+                                       "userName sw \"b\" and nickName ne \"bob\";bernd",
+                                       "userName eq \"anna\" or userName eq \"dora\";anna,dora",
+                                       "userName eq \"anna\" or title pr;anna", "not (userName lt \"c\");carl,dora"})
+  public void testFilterIsResolved(String filter, String expectedUserNames)
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    PartialListResponse<User> response = userHandler.listResources(1,
+                                                                   10,
+                                                                   filterNode,
+                                                                   null,
+                                                                   null,
+                                                                   Collections.emptyList(),
+                                                                   Collections.emptyList(),
+                                                                   new Context(null));
+    List<String> userNames = response.getResources()
+                                     .stream()
+                                     .map(user -> user.getUserName().get())
+                                     .sorted(String.CASE_INSENSITIVE_ORDER)
+                                     .collect(Collectors.toList());
+    Assertions.assertEquals(Arrays.asList(expectedUserNames.split(",")), userNames);
+    Assertions.assertEquals(userNames.size(), response.getTotalResults());
+  }
+
+  /**
+   * verifies that the resources are sorted by the index and that the paging is applied afterwards
+   */
+  @Test
+  public void testResourcesAreSortedAndPaged()
+  {
+    SchemaAttribute userName = userResourceType.getSchemaAttribute("userName").get();
+    PartialListResponse<User> response = userHandler.listResources(2,
+                                                                   2,
+                                                                   null,
+                                                                   userName,
+                                                                   SortOrder.DESCENDING,
+                                                                   Collections.emptyList(),
+                                                                   Collections.emptyList(),
+                                                                   new Context(null));
+    Assertions.assertEquals(USER_NAMES.size(), response.getTotalResults());
+    MatcherAssert.assertThat(response.getResources()
+                                     .stream()
+                                     .map(user -> user.getUserName().get())
+                                     .collect(Collectors.toList()),
+                             Matchers.contains("carl", "Bob"));
+  }
+
+  /**
+   * verifies that the stored resources cannot be modified by changing the returned instances and that changed
+   * values are moved within the indexes
+   */
+  @Test
+  public void testResourcesAreIsolated()
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, "userName eq \"anna\"");
+    User anna = userHandler.listResources(1,
+                                          10,
+                                          filterNode,
+                                          null,
+                                          null,
+                                          Collections.emptyList(),
+                                          Collections.emptyList(),
+                                          new Context(null))
+                           .getResources()
+                           .get(0);
+    anna.setUserName("hanna");
+    Assertions.assertEquals("anna", userHandler.getResource(anna.getId().get(), null, null, null).getUserName().get());
+
+    userHandler.updateResource(anna, null);
+    Assertions.assertEquals(0,
+                            userHandler.listResources(1,
+                                                      10,
+                                                      filterNode,
+                                                      null,
+                                                      null,
+                                                      Collections.emptyList(),
+                                                      Collections.emptyList(),
+                                                      new Context(null))
+                                       .getTotalResults());
+    Assertions.assertEquals(USER_NAMES.size(), userHandler.size());
+  }
+
+  /**
+   * verifies that each update increments the version of a resource and that updates with an outdated version
+   * are rejected
+   */
+  @Test
+  public void testUpdateWithOutdatedVersionIsRejected()
+  {
+    User user = userHandler.createResource(User.builder().userName("goldfish").build(), null);
+    ETag initialVersion = user.getMeta().flatMap(Meta::getVersion).get();
+    String url = "https://localhost/scim/v2" + EndpointPaths.USERS + "/" + user.getId().get();
+    Map<String, String> httpHeaders = new HashMap<>();
+    httpHeaders.put(HttpHeader.CONTENT_TYPE_HEADER, HttpHeader.SCIM_CONTENT_TYPE);
+    httpHeaders.put(HttpHeader.IF_MATCH_HEADER, initialVersion.toString());
+
+    User changedUser = User.builder().userName("goldfish").nickName("fish").build();
+    ScimResponse scimResponse = resourceEndpoint.handleRequest(url,
+                                                               HttpMethod.PUT,
+                                                               changedUser.toString(),
+                                                               httpHeaders,
+                                                               new Context(null));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(UpdateResponse.class));
+    User updatedUser = JsonHelper.copyResourceToObject(scimResponse, User.class);
+    Assertions.assertNotEquals(initialVersion, updatedUser.getMeta().flatMap(Meta::getVersion).get());
+
+    scimResponse = resourceEndpoint.handleRequest(url,
+                                                  HttpMethod.PUT,
+                                                  changedUser.toString(),
+                                                  httpHeaders,
+                                                  new Context(null));
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ErrorResponse.class));
+    Assertions.assertEquals(HttpStatus.PRECONDITION_FAILED, ((ErrorResponse)scimResponse).getStatus());
+  }
+}
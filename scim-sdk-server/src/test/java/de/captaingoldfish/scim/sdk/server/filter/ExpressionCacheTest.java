@@ -0,0 +1,118 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.ClassPathReferences;
+import de.captaingoldfish.scim.sdk.common.exceptions.InvalidFilterException;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
+import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class ExpressionCacheTest
+{
+
+  /**
+   * the user resource type
+   */
+  private ResourceType userResourceType;
+
+  /**
+   * initializes the user resource type for the following tests
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    ResourceTypeFactory resourceTypeFactory = new ResourceTypeFactory();
+    JsonNode userResourceTypeJson = JsonHelper.loadJsonDocument(ClassPathReferences.USER_RESOURCE_TYPE_JSON);
+    JsonNode userSchema = JsonHelper.loadJsonDocument(ClassPathReferences.USER_SCHEMA_JSON);
+    JsonNode enterpriseUser = JsonHelper.loadJsonDocument(ClassPathReferences.ENTERPRISE_USER_SCHEMA_JSON);
+    this.userResourceType = resourceTypeFactory.registerResourceType(null,
+                                                                     userResourceTypeJson,
+                                                                     userSchema,
+                                                                     enterpriseUser);
+  }
+
+  /**
+   * verifies that a patch path is parsed only once and that the same instance is returned on subsequent calls
+   */
+  @Test
+  public void testPatchPathIsParsedOnlyOnce()
+  {
+    final String path = "emails[type eq \"work\"].value";
+    ExpressionCache<AttributePathRoot> patchPathCache = userResourceType.getPatchPathCache();
+
+    AttributePathRoot attributePathRoot = RequestUtils.parsePatchPath(userResourceType, path);
+    Assertions.assertEquals(0, patchPathCache.getHitCount());
+    Assertions.assertEquals(1, patchPathCache.getMissCount());
+
+    Assertions.assertSame(attributePathRoot, RequestUtils.parsePatchPath(userResourceType, path));
+    Assertions.assertEquals(1, patchPathCache.getHitCount());
+    Assertions.assertEquals(1, patchPathCache.getMissCount());
+    Assertions.assertEquals(1, patchPathCache.size());
+    Assertions.assertEquals(0, userResourceType.getFilterCache().size());
+  }
+
+  /**
+   * verifies that filter expressions are cached separately from the patch paths
+   */
+  @Test
+  public void testFilterIsParsedOnlyOnce()
+  {
+    final String filter = "userName eq \"chuck\" and emails.type eq \"work\"";
+    ExpressionCache<FilterNode> filterCache = userResourceType.getFilterCache();
+
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    Assertions.assertSame(filterNode, RequestUtils.parseFilter(userResourceType, filter));
+    Assertions.assertEquals(1, filterCache.getHitCount());
+    Assertions.assertEquals(1, filterCache.getMissCount());
+    Assertions.assertEquals(0, userResourceType.getPatchPathCache().size());
+  }
+
+  /**
+   * verifies that expressions that cannot be parsed are not cached
+   */
+  @Test
+  public void testInvalidExpressionsAreNotCached()
+  {
+    final String path = "unknownAttribute";
+    ExpressionCache<AttributePathRoot> patchPathCache = userResourceType.getPatchPathCache();
+
+    Assertions.assertThrows(InvalidFilterException.class, () -> RequestUtils.parsePatchPath(userResourceType, path));
+    Assertions.assertThrows(InvalidFilterException.class, () -> RequestUtils.parsePatchPath(userResourceType, path));
+    Assertions.assertEquals(0, patchPathCache.getHitCount());
+    Assertions.assertEquals(2, patchPathCache.getMissCount());
+    Assertions.assertEquals(0, patchPathCache.size());
+  }
+
+  /**
+   * verifies that the least recently used expression is evicted if the cache reaches its maximum size
+   */
+  @Test
+  public void testLeastRecentlyUsedExpressionIsEvicted()
+  {
+    ExpressionCache<AttributePathRoot> cache = new ExpressionCache<>(2);
+    cache.get("userName", path -> RequestUtils.parsePatchPath(userResourceType, path));
+    cache.get("nickName", path -> RequestUtils.parsePatchPath(userResourceType, path));
+    // access userName so that nickName becomes the least recently used expression
+    cache.get("userName", path -> Assertions.fail("userName should have been cached"));
+    cache.get("title", path -> RequestUtils.parsePatchPath(userResourceType, path));
+
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertEquals(1, cache.getHitCount());
+    Assertions.assertEquals(3, cache.getMissCount());
+    cache.get("userName", path -> Assertions.fail("userName should have been cached"));
+    cache.get("title", path -> Assertions.fail("title should have been cached"));
+    Assertions.assertNotNull(cache.get("nickName", path -> RequestUtils.parsePatchPath(userResourceType, path)));
+    Assertions.assertEquals(4, cache.getMissCount());
+  }
+}
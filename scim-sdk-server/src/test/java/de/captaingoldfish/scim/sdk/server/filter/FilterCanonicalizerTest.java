@@ -0,0 +1,184 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.ClassPathReferences;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.complex.FilterConfig;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.endpoints.handler.UserHandlerImpl;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
+import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class FilterCanonicalizerTest
+{
+
+  /**
+   * the user resource type
+   */
+  private ResourceType userResourceType;
+
+  /**
+   * initializes the user resource type
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    ResourceTypeFactory resourceTypeFactory = new ResourceTypeFactory();
+    JsonNode userResourceTypeJson = JsonHelper.loadJsonDocument(ClassPathReferences.USER_RESOURCE_TYPE_JSON);
+    JsonNode userSchema = JsonHelper.loadJsonDocument(ClassPathReferences.USER_SCHEMA_JSON);
+    JsonNode enterpriseUser = JsonHelper.loadJsonDocument(ClassPathReferences.ENTERPRISE_USER_SCHEMA_JSON);
+    this.userResourceType = resourceTypeFactory.registerResourceType(null,
+                                                                     userResourceTypeJson,
+                                                                     userSchema,
+                                                                     enterpriseUser);
+  }
+
+  /**
+   * verifies that filters are converted into the expected canonical form
+   */
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {"userName eq \"chuck\";urn:ietf:params:scim:schemas:core:2.0:User:userName EQ \"chuck\"",
+                                       "title pr;urn:ietf:params:scim:schemas:core:2.0:User:title PR",
+                                       "active eq true;urn:ietf:params:scim:schemas:core:2.0:User:active EQ true",
+                                       "title eq null;urn:ietf:params:scim:schemas:core:2.0:User:title EQ null",
+                                       "name.givenName sw \"a\\\"b\";urn:ietf:params:scim:schemas:core:2.0:User:name.givenName SW \"a\\\"b\"",
+                                       "urn:ietf:params:scim:schemas:extension:enterprise:2.0:User:employeeNumber ne \"1\";urn:ietf:params:scim:schemas:extension:enterprise:2.0:User:employeeNumber NE \"1\"",
+                                       "title pr and (userName eq \"a\" or nickName eq \"b\");(urn:ietf:params:scim:schemas:core:2.0:User:nickName EQ \"b\" OR urn:ietf:params:scim:schemas:core:2.0:User:userName EQ \"a\") AND urn:ietf:params:scim:schemas:core:2.0:User:title PR",
+                                       "not (title pr);NOT (urn:ietf:params:scim:schemas:core:2.0:User:title PR)",
+                                       "emails[type eq \"work\" and primary eq true].value;urn:ietf:params:scim:schemas:core:2.0:User:emails[primary EQ true AND type EQ \"work\"].value"})
+  public void testCanonicalForm(String filter, String expectedCanonicalForm)
+  {
+    Assertions.assertEquals(expectedCanonicalForm, RequestUtils.getCanonicalFilter(userResourceType, filter));
+  }
+
+  /**
+   * verifies that different spellings of the same filter have the same canonical form and fingerprint
+   */
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {"userName eq \"chuck\";urn:ietf:params:scim:schemas:core:2.0:User:userName EQ   \"chuck\"",
+                                       "((userName eq \"chuck\"));userName eq \"chuck\"",
+                                       "userName eq \"a\" and title pr;title PR AND userName Eq \"a\"",
+                                       "(userName eq \"a\" and title pr) and nickName pr;userName eq \"a\" and (title pr and nickName pr)",
+                                       "userName eq \"a\" or userName eq \"a\";userName eq \"a\"",
+                                       "(userName eq \"a\" or userName eq \"a\") and title pr;title pr and userName eq \"a\"",
+                                       "emails[type eq \"work\" or value co \"@\"];emails[value co \"@\" or type eq \"work\"]"})
+  public void testEquivalentFilters(String filter, String equivalentFilter)
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    FilterNode equivalentFilterNode = RequestUtils.parseFilter(userResourceType, equivalentFilter);
+    Assertions.assertEquals(filterNode.getCanonicalForm(), equivalentFilterNode.getCanonicalForm());
+    Assertions.assertEquals(filterNode.getFingerprint(), equivalentFilterNode.getFingerprint());
+  }
+
+  /**
+   * verifies that filters with different meanings have different canonical forms and fingerprints
+   */
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {"userName eq \"chuck\";userName eq \"Chuck\"",
+                                       "userName eq \"a\" and title pr;userName eq \"a\" or title pr",
+                                       "(userName eq \"a\" and title pr) or nickName pr;userName eq \"a\" and (title pr or nickName pr)",
+                                       "emails[type eq \"work\" and value co \"@\"];emails.type eq \"work\" and emails.value co \"@\"",
+                                       "emails[type eq \"work\"].value;emails[type eq \"work\"].display"})
+  public void testDifferentFilters(String filter, String differentFilter)
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    FilterNode differentFilterNode = RequestUtils.parseFilter(userResourceType, differentFilter);
+    Assertions.assertNotEquals(filterNode.getCanonicalForm(), differentFilterNode.getCanonicalForm());
+    Assertions.assertNotEquals(filterNode.getFingerprint(), differentFilterNode.getFingerprint());
+  }
+
+  /**
+   * verifies that the fingerprint is the 64-bit FNV-1a hash of the canonical form
+   */
+  @Test
+  public void testFingerprintIsStable()
+  {
+    Assertions.assertEquals(0xcbf29ce484222325L, FilterCanonicalizer.getFingerprint(""));
+    Assertions.assertEquals(0xaf63dc4c8601ec8cL, FilterCanonicalizer.getFingerprint("a"));
+    String canonicalForm = RequestUtils.getCanonicalFilter(userResourceType, "userName eq \"chuck\"");
+    Assertions.assertEquals(FilterCanonicalizer.getFingerprint(canonicalForm),
+                            RequestUtils.getFilterFingerprint(userResourceType, "userName eq \"chuck\""));
+    Assertions.assertNull(RequestUtils.getCanonicalFilter(userResourceType, " "));
+    Assertions.assertNull(RequestUtils.getFilterFingerprint(userResourceType, null));
+  }
+
+  /**
+   * verifies that the canonical shape does not contain the compared values
+   */
+  @Test
+  public void testCanonicalShape()
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType,
+                                                     "userName eq \"a\" and emails[type eq \"work\"]");
+    FilterNode otherFilterNode = RequestUtils.parseFilter(userResourceType,
+                                                          "emails[type eq \"home\"] and userName eq \"b\"");
+    Assertions.assertEquals("urn:ietf:params:scim:schemas:core:2.0:User:emails[type EQ ?] AND "
+                            + "urn:ietf:params:scim:schemas:core:2.0:User:userName EQ ?",
+                            FilterCanonicalizer.toCanonicalShape(filterNode));
+    Assertions.assertEquals(FilterCanonicalizer.toCanonicalShape(filterNode),
+                            FilterCanonicalizer.toCanonicalShape(otherFilterNode));
+    Assertions.assertNotEquals(filterNode.getCanonicalForm(), otherFilterNode.getCanonicalForm());
+  }
+
+  /**
+   * verifies that the masked operands of a shape are not deduplicated so that the shape keeps the number of
+   * compared values
+   */
+  @Test
+  public void testCanonicalShapeKeepsOperandCount()
+  {
+    FilterNode singleId = RequestUtils.parseFilter(userResourceType, "id eq \"1\"");
+    FilterNode twoIds = RequestUtils.parseFilter(userResourceType, "id eq \"1\" or id eq \"2\"");
+    FilterNode otherTwoIds = RequestUtils.parseFilter(userResourceType, "id eq \"3\" or id eq \"4\"");
+    Assertions.assertEquals("urn:ietf:params:scim:schemas:core:2.0:User:id EQ ? OR "
+                            + "urn:ietf:params:scim:schemas:core:2.0:User:id EQ ?",
+                            FilterCanonicalizer.toCanonicalShape(twoIds));
+    Assertions.assertNotEquals(FilterCanonicalizer.toCanonicalShape(singleId),
+                               FilterCanonicalizer.toCanonicalShape(twoIds));
+    Assertions.assertEquals(FilterCanonicalizer.toCanonicalShape(twoIds),
+                            FilterCanonicalizer.toCanonicalShape(otherTwoIds));
+  }
+
+  /**
+   * verifies that long chains of "or" expressions are canonicalized without exhausting the stack
+   */
+  @Test
+  public void testCanonicalizeLongOrChain()
+  {
+    final int numberOfIds = 20_000;
+    ServiceProvider serviceProvider = ServiceProvider.builder()
+                                                     .filterConfig(FilterConfig.builder()
+                                                                               .maxFilterDepth(numberOfIds)
+                                                                               .build())
+                                                     .build();
+    userResourceType.setResourceHandlerImpl(new UserHandlerImpl(false)
+    {
+
+      @Override
+      public ServiceProvider getServiceProvider()
+      {
+        return serviceProvider;
+      }
+    });
+    StringBuilder filter = new StringBuilder();
+    for ( int i = 0 ; i < numberOfIds ; i++ )
+    {
+      filter.append(i == 0 ? "" : " or ").append("id eq \"").append(i).append('"');
+    }
+    String canonicalForm = RequestUtils.getCanonicalFilter(userResourceType, filter.toString());
+    Assertions.assertEquals(numberOfIds - 1, canonicalForm.split(" OR ").length - 1);
+  }
+}
@@ -0,0 +1,481 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.ClassPathReferences;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.complex.FilterConfig;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.endpoints.handler.UserHandlerImpl;
+import de.captaingoldfish.scim.sdk.server.exceptions.UnparseableFilterException;
+import de.captaingoldfish.scim.sdk.server.filter.antlr.FilterRuleErrorListener;
+import de.captaingoldfish.scim.sdk.server.filter.antlr.FilterVisitor;
+import de.captaingoldfish.scim.sdk.server.filter.antlr.ScimFilterLexer;
+import de.captaingoldfish.scim.sdk.server.filter.antlr.ScimFilterParser;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
+
+
+/**
+ * compares the results of the {@link FilterExpressionParser} with the results of the ANTLR parser
+ *
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class FilterExpressionParserTest
+{
+
+  /**
+   * the attributes that are used within the generated expressions. "unknown" is not defined by the user
+   * resource type
+   */
+  private static final String[] ATTRIBUTES = {"userName", "nickName", "title", "active", "id", "name.givenName",
+                                              "emails.value", "emails.type", "emails.primary", "meta.created",
+                                              "urn:ietf:params:scim:schemas:core:2.0:User:userName",
+                                              "urn:ietf:params:scim:schemas:core:2.0:User:name.familyName",
+                                              "urn:ietf:params:scim:schemas:extension:enterprise:2.0:User:employeeNumber",
+                                              "urn:ietf:params:scim:schemas:extension:enterprise:2.0:User:manager.value",
+                                              "unknown"};
+
+  /**
+   * the multivalued complex attributes that are used as value paths within the generated expressions
+   */
+  private static final String[] VALUE_PATHS = {"emails", "phoneNumbers", "addresses",
+                                               "urn:ietf:params:scim:schemas:core:2.0:User:emails", "name"};
+
+  /**
+   * the sub attributes that are used within and behind the brackets of value paths
+   */
+  private static final String[] SUB_ATTRIBUTES = {"value", "type", "primary", "display", "givenName"};
+
+  /**
+   * the comparators that are used within the generated expressions
+   */
+  private static final String[] COMPARATORS = {"eq", "ne", "co", "sw", "ew", "gt", "ge", "lt", "le"};
+
+  /**
+   * the values that are used within the generated expressions
+   */
+  private static final String[] VALUES = {"\"chuck\"", "\"a\\\"b\\\\c\\u00e4\"", "\"2019-09-29T24:00:00Z\"", "\"\"",
+                                          "42", "-1.5", "0", "true", "false", "null"};
+
+  /**
+   * the characters that are inserted into the generated expressions to create invalid expressions
+   */
+  private static final String MUTATIONS = "()[].\" :-1aeqornt\\\r";
+
+  /**
+   * the user resource type
+   */
+  private ResourceType userResourceType;
+
+  /**
+   * initializes the user resource type
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    ResourceTypeFactory resourceTypeFactory = new ResourceTypeFactory();
+    JsonNode userResourceTypeJson = JsonHelper.loadJsonDocument(ClassPathReferences.USER_RESOURCE_TYPE_JSON);
+    JsonNode userSchema = JsonHelper.loadJsonDocument(ClassPathReferences.USER_SCHEMA_JSON);
+    JsonNode enterpriseUser = JsonHelper.loadJsonDocument(ClassPathReferences.ENTERPRISE_USER_SCHEMA_JSON);
+    this.userResourceType = resourceTypeFactory.registerResourceType(null,
+                                                                     userResourceTypeJson,
+                                                                     userSchema,
+                                                                     enterpriseUser);
+  }
+
+  /**
+   * verifies that some typical filter expressions are accepted and parsed identically to the ANTLR parser
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"userName eq \"chuck\"", "userName Eq \"chuck\" AND not (nickName pr)",
+                          "userName eq \"a\" or nickName eq \"b\" and title eq \"c\" or id pr",
+                          "(userName eq \"a\" or nickName eq \"b\") and title eq \"c\"",
+                          "emails[type eq \"work\" and value co \"@\"]", "emails[type eq \"work\"].value",
+                          "emails[type eq \"work\"].value sw \"chuck\"", "name.givenName sw \"c\"",
+                          "urn:ietf:params:scim:schemas:core:2.0:User:name.givenName eq \"c\"",
+                          "urn:ietf:params:scim:schemas:extension:enterprise:2.0:User:employeeNumber eq \"1\"",
+                          "urn:ietf:params:scim:schemas:core:2.0:User:emails[value sw \"c\"]",
+                          "meta.created gt \"2019-09-29T24:00:00Z\"", "active eq true", "active eq \"x\"",
+                          "emails[not (type eq \"work\")]", "emails[primary eq true].display ew \"x\""})
+  public void testParseFilter(String filter)
+  {
+    String expected = getResult(() -> parseFilterWithAntlr(filter));
+    String actual = getResult(() -> FilterExpressionParser.parseFilter(userResourceType, filter)
+                                                          .orElseThrow(IllegalStateException::new));
+    Assertions.assertEquals(expected, actual);
+  }
+
+  /**
+   * generates random valid and invalid filter expressions and verifies that the hand-written parser either
+   * rejects an expression or produces exactly the same result as the ANTLR parser
+   */
+  @Test
+  public void testFilterParsersAreEquivalent()
+  {
+    Random random = new Random(1337);
+    int acceptedExpressions = 0;
+    for ( int i = 0 ; i < 3000 ; i++ )
+    {
+      String filter = generateFilter(random, 3);
+      boolean mutated = i % 2 == 1;
+      if (mutated)
+      {
+        filter = mutate(random, filter);
+      }
+      final String expression = filter;
+      Optional<String> actual = getOptionalResult(() -> FilterExpressionParser.parseFilter(userResourceType,
+                                                                                           expression));
+      if (!actual.isPresent())
+      {
+        Assertions.assertTrue(mutated, expression);
+        continue;
+      }
+      acceptedExpressions++;
+      Assertions.assertEquals(getResult(() -> parseFilterWithAntlr(expression)), actual.get(), expression);
+    }
+    Assertions.assertTrue(acceptedExpressions > 1500, String.valueOf(acceptedExpressions));
+  }
+
+  /**
+   * generates random valid and invalid patch paths and verifies that the hand-written parser either rejects an
+   * expression or produces exactly the same result as the ANTLR parser
+   */
+  @Test
+  public void testPatchPathParsersAreEquivalent()
+  {
+    Random random = new Random(4711);
+    int acceptedExpressions = 0;
+    for ( int i = 0 ; i < 2000 ; i++ )
+    {
+      String path = generatePatchPath(random);
+      boolean mutated = i % 2 == 1;
+      if (mutated)
+      {
+        path = mutate(random, path);
+      }
+      final String expression = path;
+      Optional<String> actual = getOptionalResult(() -> FilterExpressionParser.parseValuePath(userResourceType,
+                                                                                              expression));
+      if (!actual.isPresent())
+      {
+        Assertions.assertTrue(mutated, expression);
+        continue;
+      }
+      acceptedExpressions++;
+      Assertions.assertEquals(getResult(() -> parsePatchPathWithAntlr(expression)), actual.get(), expression);
+    }
+    Assertions.assertTrue(acceptedExpressions > 1000, String.valueOf(acceptedExpressions));
+  }
+
+  /**
+   * verifies that a chain of thousands of "or" expressions is parsed without exhausting the stack
+   */
+  @Test
+  public void testParseLongOrChain()
+  {
+    final int numberOfIds = 20_000;
+    ServiceProvider serviceProvider = ServiceProvider.builder()
+                                                     .filterConfig(FilterConfig.builder()
+                                                                               .maxFilterDepth(numberOfIds)
+                                                                               .build())
+                                                     .build();
+    userResourceType.setResourceHandlerImpl(new UserHandlerImpl(false)
+    {
+
+      @Override
+      public ServiceProvider getServiceProvider()
+      {
+        return serviceProvider;
+      }
+    });
+    StringBuilder filter = new StringBuilder();
+    for ( int i = 0 ; i < numberOfIds ; i++ )
+    {
+      filter.append(i == 0 ? "" : " or ").append("id eq \"").append(i).append('"');
+    }
+
+    FilterNode filterNode = FilterExpressionParser.parseFilter(userResourceType, filter.toString()).get();
+    int numberOfOperands = 1;
+    while (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      AttributeExpressionLeaf leaf = (AttributeExpressionLeaf)orExpressionNode.getRightNode();
+      Assertions.assertEquals(String.valueOf(numberOfIds - numberOfOperands), leaf.getValue());
+      filterNode = orExpressionNode.getLeftNode();
+      numberOfOperands++;
+    }
+    Assertions.assertEquals(numberOfIds, numberOfOperands);
+    Assertions.assertEquals("0", ((AttributeExpressionLeaf)filterNode).getValue());
+  }
+
+  /**
+   * generates a random filter expression with random whitespaces and random letter cases of the keywords
+   */
+  private static String generateFilter(Random random, int depth)
+  {
+    int choice = random.nextInt(depth <= 0 ? 3 : 8);
+    switch (choice)
+    {
+      case 0:
+      case 1:
+        return pick(random, ATTRIBUTES) + space(random) + randomCase(random, pick(random, COMPARATORS)) + space(random)
+               + pick(random, VALUES);
+      case 2:
+        return pick(random, ATTRIBUTES) + space(random) + randomCase(random, "pr");
+      case 3:
+        return generateFilter(random, depth - 1) + space(random) + randomCase(random, "and") + space(random)
+               + generateFilter(random, depth - 1);
+      case 4:
+        return generateFilter(random, depth - 1) + space(random) + randomCase(random, "or") + space(random)
+               + generateFilter(random, depth - 1);
+      case 5:
+        return randomCase(random, "not") + optionalSpace(random) + "(" + optionalSpace(random)
+               + generateFilter(random, depth - 1) + optionalSpace(random) + ")";
+      case 6:
+        return "(" + optionalSpace(random) + generateFilter(random, depth - 1) + optionalSpace(random) + ")";
+      default:
+        return generateValuePath(random, depth - 1, true);
+    }
+  }
+
+  /**
+   * generates a random value path with a bracket filter
+   */
+  private static String generateValuePath(Random random, int depth, boolean withComparison)
+  {
+    String valuePath = pick(random, VALUE_PATHS) + "[" + optionalSpace(random) + generateInnerFilter(random, depth)
+                       + optionalSpace(random) + "]";
+    if (random.nextBoolean())
+    {
+      valuePath += "." + pick(random, SUB_ATTRIBUTES);
+      if (withComparison && random.nextBoolean())
+      {
+        valuePath += space(random) + randomCase(random, pick(random, COMPARATORS)) + space(random)
+                     + pick(random, VALUES);
+      }
+    }
+    return valuePath;
+  }
+
+  /**
+   * generates a random filter expression that is used within the brackets of a value path
+   */
+  private static String generateInnerFilter(Random random, int depth)
+  {
+    int choice = random.nextInt(depth <= 0 ? 2 : 5);
+    switch (choice)
+    {
+      case 0:
+        return pick(random, SUB_ATTRIBUTES) + space(random) + randomCase(random, pick(random, COMPARATORS))
+               + space(random) + pick(random, VALUES);
+      case 1:
+        return pick(random, SUB_ATTRIBUTES) + space(random) + randomCase(random, "pr");
+      case 2:
+        return generateInnerFilter(random, depth - 1) + space(random)
+               + randomCase(random, random.nextBoolean() ? "and" : "or") + space(random)
+               + generateInnerFilter(random, depth - 1);
+      case 3:
+        return randomCase(random, "not") + " (" + generateInnerFilter(random, depth - 1) + ")";
+      default:
+        return generateValuePath(random, depth - 1, false);
+    }
+  }
+
+  /**
+   * generates a random patch path
+   */
+  private static String generatePatchPath(Random random)
+  {
+    if (random.nextBoolean())
+    {
+      return random.nextBoolean() ? pick(random, ATTRIBUTES) : pick(random, VALUE_PATHS);
+    }
+    return generateValuePath(random, 2, true);
+  }
+
+  /**
+   * deletes, inserts or replaces a random character of the given expression
+   */
+  private static String mutate(Random random, String expression)
+  {
+    int index = random.nextInt(expression.length());
+    char character = MUTATIONS.charAt(random.nextInt(MUTATIONS.length()));
+    switch (random.nextInt(4))
+    {
+      case 0:
+        return expression.substring(0, index) + expression.substring(index + 1);
+      case 1:
+        return expression.substring(0, index) + character + expression.substring(index);
+      case 2:
+        return expression.substring(0, index) + character + expression.substring(index + 1);
+      default:
+        return expression.substring(0, index);
+    }
+  }
+
+  private static String pick(Random random, String[] values)
+  {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static String space(Random random)
+  {
+    return random.nextInt(5) == 0 ? " \t " : " ";
+  }
+
+  private static String optionalSpace(Random random)
+  {
+    return random.nextBoolean() ? "" : space(random);
+  }
+
+  private static String randomCase(Random random, String keyword)
+  {
+    StringBuilder stringBuilder = new StringBuilder();
+    for ( char character : keyword.toCharArray() )
+    {
+      stringBuilder.append(random.nextBoolean() ? Character.toUpperCase(character) : character);
+    }
+    return stringBuilder.toString();
+  }
+
+  /**
+   * parses the given filter with the ANTLR parser just like it was done before the hand-written parser existed
+   */
+  private FilterNode parseFilterWithAntlr(String filter)
+  {
+    ScimFilterParser scimFilterParser = createAntlrParser(filter);
+    try
+    {
+      return new FilterVisitor(userResourceType, false).visit(scimFilterParser.filter());
+    }
+    catch (UnparseableFilterException ex)
+    {
+      throw new IllegalArgumentException(String.format("Failed to parse patch-filter expression '%s'", filter));
+    }
+  }
+
+  /**
+   * parses the given patch path with the ANTLR parser just like it was done before the hand-written parser
+   * existed
+   */
+  private FilterNode parsePatchPathWithAntlr(String path)
+  {
+    ScimFilterParser scimFilterParser = createAntlrParser(path);
+    return new FilterVisitor(userResourceType, true).visit(scimFilterParser.valuePath());
+  }
+
+  private static ScimFilterParser createAntlrParser(String expression)
+  {
+    FilterRuleErrorListener filterRuleErrorListener = new FilterRuleErrorListener();
+    ScimFilterLexer lexer = new ScimFilterLexer(CharStreams.fromString(expression));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(filterRuleErrorListener);
+    ScimFilterParser scimFilterParser = new ScimFilterParser(new CommonTokenStream(lexer));
+    scimFilterParser.removeErrorListeners();
+    scimFilterParser.addErrorListener(filterRuleErrorListener);
+    return scimFilterParser;
+  }
+
+  /**
+   * @return a description of the parsed filter or of the thrown exception
+   */
+  private static String getResult(Supplier<FilterNode> parser)
+  {
+    try
+    {
+      return describe(parser.get());
+    }
+    catch (IllegalStateException ex)
+    {
+      return "not accepted by the hand-written parser";
+    }
+    catch (RuntimeException ex)
+    {
+      return ex.getClass().getName() + ": " + ex.getMessage();
+    }
+  }
+
+  /**
+   * @return a description of the parsed filter or of the thrown exception or an empty if the hand-written
+   *         parser did not accept the expression
+   */
+  private static Optional<String> getOptionalResult(Supplier<Optional<FilterNode>> parser)
+  {
+    try
+    {
+      return parser.get().map(FilterExpressionParserTest::describe);
+    }
+    catch (RuntimeException ex)
+    {
+      return Optional.of(ex.getClass().getName() + ": " + ex.getMessage());
+    }
+  }
+
+  /**
+   * describes the given node with all of its properties that are relevant for the evaluation of filters
+   */
+  private static String describe(FilterNode filterNode)
+  {
+    if (filterNode == null)
+    {
+      return "null";
+    }
+    String description = filterNode.getClass().getSimpleName() + "{subAttributeName=" + filterNode.getSubAttributeName()
+                         + ", parent="
+                         + Optional.ofNullable(filterNode.getParent())
+                                   .map(parent -> parent.getClass().getSimpleName())
+                                   .orElse(null);
+    if (filterNode instanceof AndExpressionNode)
+    {
+      AndExpressionNode andExpressionNode = (AndExpressionNode)filterNode;
+      return description + ", left=" + describe(andExpressionNode.getLeftNode()) + ", right="
+             + describe(andExpressionNode.getRightNode()) + "}";
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      OrExpressionNode orExpressionNode = (OrExpressionNode)filterNode;
+      return description + ", left=" + describe(orExpressionNode.getLeftNode()) + ", right="
+             + describe(orExpressionNode.getRightNode()) + "}";
+    }
+    else if (filterNode instanceof NotExpressionNode)
+    {
+      return description + ", child=" + describe(((NotExpressionNode)filterNode).getRightNode()) + "}";
+    }
+    else if (filterNode instanceof AttributeExpressionLeaf)
+    {
+      AttributeExpressionLeaf leaf = (AttributeExpressionLeaf)filterNode;
+      return description + ", resourceUri=" + leaf.getResourceUri() + ", fullName=" + leaf.getFullName()
+             + ", shortName=" + leaf.getShortName() + ", attributeName=" + leaf.getAttributeName()
+             + ", parentAttributeName=" + leaf.getParentAttributeName() + ", complexSubAttributeName="
+             + leaf.getComplexSubAttributeName() + ", schemaAttribute="
+             + leaf.getSchemaAttribute().getFullResourceName() + ", comparator=" + leaf.getComparator() + ", value="
+             + leaf.getValue() + ", isNull=" + leaf.isNull() + ", number=" + leaf.getNumberValue() + ", boolean="
+             + leaf.getBooleanValue() + ", mainSchemaNode=" + leaf.isMainSchemaNode() + ", string=" + leaf + "}";
+    }
+    AttributePathRoot attributePathRoot = (AttributePathRoot)filterNode;
+    return description + ", resourceUri=" + attributePathRoot.getResourceUri() + ", fullName="
+           + attributePathRoot.getFullName() + ", shortName=" + attributePathRoot.getShortName() + ", attributeName="
+           + attributePathRoot.getAttributeName() + ", parentAttributeName="
+           + attributePathRoot.getParentAttributeName() + ", complexSubAttributeName="
+           + attributePathRoot.getComplexSubAttributeName() + ", schemaAttribute="
+           + attributePathRoot.getSchemaAttribute().getFullResourceName() + ", subAttribute="
+           + Optional.ofNullable(attributePathRoot.getSubAttribute())
+                     .map(attribute -> attribute.getFullResourceName())
+                     .orElse(null)
+           + ", string=" + attributePathRoot + ", child=" + describe(attributePathRoot.getChild()) + "}";
+  }
+}
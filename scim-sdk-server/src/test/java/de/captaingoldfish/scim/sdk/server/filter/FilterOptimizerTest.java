@@ -0,0 +1,220 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.ClassPathReferences;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.User;
+import de.captaingoldfish.scim.sdk.common.resources.multicomplex.Email;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.filter.resources.FilterResourceResolver;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
+import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class FilterOptimizerTest
+{
+
+  /**
+   * the user resource type
+   */
+  private ResourceType userResourceType;
+
+  /**
+   * the users on which the filters are evaluated
+   */
+  private List<User> users;
+
+  /**
+   * initializes the user resource type and some users
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    ResourceTypeFactory resourceTypeFactory = new ResourceTypeFactory();
+    JsonNode userResourceTypeJson = JsonHelper.loadJsonDocument(ClassPathReferences.USER_RESOURCE_TYPE_JSON);
+    JsonNode userSchema = JsonHelper.loadJsonDocument(ClassPathReferences.USER_SCHEMA_JSON);
+    JsonNode enterpriseUser = JsonHelper.loadJsonDocument(ClassPathReferences.ENTERPRISE_USER_SCHEMA_JSON);
+    this.userResourceType = resourceTypeFactory.registerResourceType(null,
+                                                                     userResourceTypeJson,
+                                                                     userSchema,
+                                                                     enterpriseUser);
+    Email workMail = Email.builder().type("work").value("anna@work.de").build();
+    Email homeMail = Email.builder().type("home").value("bob@home.de").build();
+    users = Arrays.asList(User.builder().userName("anna").title("dr").emails(Arrays.asList(workMail)).build(),
+                          User.builder().userName("bob").nickName("b").emails(Arrays.asList(homeMail)).build(),
+                          User.builder().userName("carl").nickName("c").title("prof").build(),
+                          User.builder().userName("dora").build());
+  }
+
+  /**
+   * verifies that the filters are rewritten as expected
+   */
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {"emails.value co \"x\" and userName eq \"bob\";userName EQ \"bob\" and emails.value CO \"x\"",
+                                       "(title pr and userName sw \"a\") and (nickName eq \"b\" and userName eq \"a\");nickName EQ \"b\" and userName EQ \"a\" and title PR and userName SW \"a\"",
+                                       "title co \"r\" or (nickName eq \"b\" or title pr);nickName EQ \"b\" or title PR or title CO \"r\"",
+                                       "not (not (userName eq \"a\"));userName EQ \"a\"",
+                                       "userName eq \"a\" or userName eq \"a\";userName EQ \"a\"",
+                                       "title pr and (userName eq \"a\" or not (userName eq \"a\"));title PR",
+                                       "title pr or (userName eq \"a\" and not (userName eq \"a\"));title PR"})
+  public void testOptimizeFilter(String filter, String expectedFilter)
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    FilterOptimizer.OptimizedFilter optimizedFilter = FilterOptimizer.optimize(filterNode);
+    Assertions.assertFalse(optimizedFilter.isConstant());
+    Assertions.assertEquals(expectedFilter, optimizedFilter.getFilterNode().toString());
+  }
+
+  /**
+   * verifies that tautologies and contradictions are folded into constants
+   */
+  @Test
+  public void testFoldConstants()
+  {
+    FilterNode tautology = RequestUtils.parseFilter(userResourceType,
+                                                    "userName eq \"a\" or not (not (not (userName eq \"a\")))");
+    FilterOptimizer.OptimizedFilter optimizedFilter = FilterOptimizer.optimize(tautology);
+    Assertions.assertTrue(optimizedFilter.isConstant());
+    Assertions.assertTrue(optimizedFilter.isMatchingAll());
+
+    FilterNode contradiction = RequestUtils.parseFilter(userResourceType,
+                                                        "title pr and userName eq \"a\" and not (userName eq \"a\")");
+    optimizedFilter = FilterOptimizer.optimize(contradiction);
+    Assertions.assertTrue(optimizedFilter.isMatchingNone());
+    Assertions.assertEquals(Collections.emptyList(),
+                            FilterResourceResolver.filterResources(ServiceProvider.builder().build(),
+                                                                   users,
+                                                                   contradiction));
+  }
+
+  /**
+   * verifies that value path expressions are evaluated after simple comparisons
+   */
+  @Test
+  public void testValuePathIsEvaluatedLast()
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType,
+                                                     "emails[type eq \"work\"] or userName eq \"bob\"");
+    OrExpressionNode orExpressionNode = (OrExpressionNode)FilterOptimizer.optimize(filterNode).getFilterNode();
+    Assertions.assertEquals(AttributeExpressionLeaf.class, orExpressionNode.getLeftNode().getClass());
+    Assertions.assertEquals(AttributePathRoot.class, orExpressionNode.getRightNode().getClass());
+  }
+
+  /**
+   * verifies that optimizing a filter does not change the parents of its nodes because the parsed filters are
+   * shared by concurrent requests through the filter cache of the resource type
+   */
+  @Test
+  public void testOptimizeDoesNotModifyCachedFilter()
+  {
+    String filter = "(title pr and userName eq \"anna\") and not (not (nickName pr or title pr))";
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    Assertions.assertSame(filterNode, RequestUtils.parseFilter(userResourceType, filter));
+    Map<FilterNode, FilterNode> parents = FilterPushdownTest.getParents(filterNode);
+
+    Assertions.assertNotSame(filterNode, FilterOptimizer.optimize(filterNode).getFilterNode());
+
+    Map<FilterNode, FilterNode> parentsAfterOptimization = FilterPushdownTest.getParents(filterNode);
+    Assertions.assertEquals(parents.size(), parentsAfterOptimization.size());
+    parentsAfterOptimization.forEach((node, parent) -> Assertions.assertSame(parents.get(node), parent));
+  }
+
+  /**
+   * verifies that the optimized filters select exactly the same resources as a strict left to right evaluation
+   * of the original filters
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"emails.value co \"@\" and userName eq \"bob\"",
+                          "not (title pr) and (nickName eq \"b\" or userName sw \"d\")",
+                          "emails[type eq \"work\"] or (nickName pr and not (not (title pr)))",
+                          "userName eq \"anna\" or not (userName eq \"anna\") and title pr",
+                          "(userName gt \"b\" or title eq \"dr\") and (userName lt \"d\" or nickName pr)",
+                          "not (userName eq \"anna\" and not (userName eq \"anna\"))"})
+  public void testOptimizedFilterMatchesSameResources(String filter)
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    List<User> expectedUsers = users.stream()
+                                    .filter(user -> filterNode.accept(new StrictEvaluator(user)))
+                                    .collect(Collectors.toList());
+    List<User> filteredUsers = FilterResourceResolver.filterResources(ServiceProvider.builder().build(),
+                                                                      users,
+                                                                      RequestUtils.parseFilter(userResourceType,
+                                                                                               filter));
+    Assertions.assertEquals(expectedUsers, filteredUsers);
+  }
+
+  /**
+   * evaluates the operands of a filter strictly from left to right. Only the single comparisons are delegated
+   * to the {@link FilterResourceResolver}
+   */
+  private static class StrictEvaluator implements FilterNodeVisitor<Boolean>
+  {
+
+    /**
+     * the user to evaluate
+     */
+    private final User user;
+
+    public StrictEvaluator(User user)
+    {
+      this.user = user;
+    }
+
+    @Override
+    public Boolean visitAndExpression(AndExpressionNode andExpressionNode)
+    {
+      return andExpressionNode.getLeftNode().accept(this) && andExpressionNode.getRightNode().accept(this);
+    }
+
+    @Override
+    public Boolean visitOrExpression(OrExpressionNode orExpressionNode)
+    {
+      return orExpressionNode.getLeftNode().accept(this) || orExpressionNode.getRightNode().accept(this);
+    }
+
+    @Override
+    public Boolean visitNotExpression(NotExpressionNode notExpressionNode)
+    {
+      return !notExpressionNode.getRightNode().accept(this);
+    }
+
+    @Override
+    public Boolean visitAttributeExpression(AttributeExpressionLeaf attributeExpressionLeaf)
+    {
+      return matches(attributeExpressionLeaf);
+    }
+
+    @Override
+    public Boolean visitAttributePath(AttributePathRoot attributePathRoot)
+    {
+      return matches(attributePathRoot);
+    }
+
+    private boolean matches(FilterNode filterNode)
+    {
+      return !FilterResourceResolver.filterResources(ServiceProvider.builder().build(),
+                                                     Collections.singletonList(user),
+                                                     filterNode)
+                                    .isEmpty();
+    }
+  }
+}
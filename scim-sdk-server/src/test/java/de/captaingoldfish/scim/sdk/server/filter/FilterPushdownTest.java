@@ -0,0 +1,242 @@
+package de.captaingoldfish.scim.sdk.server.filter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.ClassPathReferences;
+import de.captaingoldfish.scim.sdk.common.exceptions.NotImplementedException;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.User;
+import de.captaingoldfish.scim.sdk.common.resources.complex.Name;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.filter.resources.FilterResourceResolver;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceTypeFactory;
+import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class FilterPushdownTest
+{
+
+  /**
+   * the attributes that can be evaluated by the simulated data store
+   */
+  private static final Set<String> PUSHDOWN_ATTRIBUTES = new HashSet<>(Arrays.asList("userName", "nickName"));
+
+  /**
+   * the user resource type
+   */
+  private ResourceType userResourceType;
+
+  /**
+   * the users on which the split filters are evaluated
+   */
+  private List<User> users;
+
+  /**
+   * initializes the user resource type and some users
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    ResourceTypeFactory resourceTypeFactory = new ResourceTypeFactory();
+    JsonNode userResourceTypeJson = JsonHelper.loadJsonDocument(ClassPathReferences.USER_RESOURCE_TYPE_JSON);
+    JsonNode userSchema = JsonHelper.loadJsonDocument(ClassPathReferences.USER_SCHEMA_JSON);
+    JsonNode enterpriseUser = JsonHelper.loadJsonDocument(ClassPathReferences.ENTERPRISE_USER_SCHEMA_JSON);
+    this.userResourceType = resourceTypeFactory.registerResourceType(null,
+                                                                     userResourceTypeJson,
+                                                                     userSchema,
+                                                                     enterpriseUser);
+    users = Arrays.asList(User.builder().userName("anna").nickName("a").title("dr").build(),
+                          User.builder().userName("bob").name(Name.builder().givenName("bob").build()).build(),
+                          User.builder().userName("carl").nickName("c").title("prof").build(),
+                          User.builder().userName("dora").build());
+  }
+
+  /**
+   * verifies that the filter is split as expected and that the split filters select the same resources as the
+   * original filter
+   */
+  @ParameterizedTest
+  @CsvSource(delimiter = ';', value = {"userName eq \"anna\";userName EQ \"anna\";",
+                                       "userName sw \"a\" and title pr;userName SW \"a\";title PR",
+                                       "title pr and (userName eq \"anna\" or nickName eq \"c\");userName EQ \"anna\" or nickName EQ \"c\";title PR",
+                                       "userName eq \"anna\" or title eq \"prof\";;userName EQ \"anna\" or title EQ \"prof\"",
+                                       "(userName eq \"anna\" and title pr) or userName eq \"bob\";userName EQ \"anna\" or userName EQ \"bob\";userName EQ \"anna\" and title PR or userName EQ \"bob\"",
+                                       "not (title pr) and nickName pr;nickName PR;not ( title PR )",
+                                       "name.givenName eq \"bob\";;name.givenName EQ \"bob\""})
+  public void testSplitFilter(String filter, String expectedPushdownFilter, String expectedResidualFilter)
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    FilterPushdown filterPushdown = FilterPushdown.split(filterNode, this::isPushdownable);
+
+    Assertions.assertEquals(expectedPushdownFilter,
+                            filterPushdown.getPushdownFilter() == null ? null
+                              : filterPushdown.getPushdownFilter().toString());
+    Assertions.assertEquals(expectedResidualFilter,
+                            filterPushdown.getResidualFilter() == null ? null
+                              : filterPushdown.getResidualFilter().toString());
+    Assertions.assertEquals(expectedResidualFilter == null, filterPushdown.isComplete());
+
+    ServiceProvider serviceProvider = ServiceProvider.builder().build();
+    List<User> candidates = filterPushdown.getPushdownFilter() == null ? users
+      : FilterResourceResolver.filterResources(serviceProvider, users, filterPushdown.getPushdownFilter());
+    List<User> result = filterPushdown.getResidualFilter() == null ? candidates
+      : FilterResourceResolver.filterResources(serviceProvider, candidates, filterPushdown.getResidualFilter());
+    Assertions.assertEquals(FilterResourceResolver.filterResources(serviceProvider,
+                                                                   users,
+                                                                   RequestUtils.parseFilter(userResourceType, filter)),
+                            result);
+  }
+
+  /**
+   * verifies that splitting a filter does not change the parents of its nodes because the parsed filters are
+   * shared by concurrent requests through the filter cache of the resource type
+   */
+  @Test
+  public void testSplitDoesNotModifyCachedFilter()
+  {
+    String filter = "title pr and (userName eq \"anna\" or nickName eq \"c\") and nickName pr";
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    Assertions.assertSame(filterNode, RequestUtils.parseFilter(userResourceType, filter));
+    Map<FilterNode, FilterNode> parents = getParents(filterNode);
+
+    FilterPushdown filterPushdown = FilterPushdown.split(filterNode, this::isPushdownable);
+    Assertions.assertNotNull(filterPushdown.getPushdownFilter());
+    Assertions.assertNotNull(filterPushdown.getResidualFilter());
+
+    Assertions.assertEquals(parents.size(), getParents(filterNode).size());
+    getParents(filterNode).forEach((node, parent) -> Assertions.assertSame(parents.get(node), parent));
+  }
+
+  /**
+   * verifies that custom filter nodes that do not implement the visitor method are passed to the fallback of
+   * the visitor
+   */
+  @Test
+  public void testCustomNodeIsPassedToFallback()
+  {
+    FilterNode customNode = new FilterNode()
+    {};
+    FilterNode filterNode = new AndExpressionNode(RequestUtils.parseFilter(userResourceType, "userName eq \"a\""),
+                                                  customNode, false);
+
+    FilterPushdown filterPushdown = FilterPushdown.split(filterNode, node -> node instanceof AttributeExpressionLeaf);
+    Assertions.assertEquals("userName EQ \"a\"", filterPushdown.getPushdownFilter().toString());
+    Assertions.assertSame(customNode, filterPushdown.getResidualFilter());
+
+    Assertions.assertThrows(NotImplementedException.class, () -> customNode.accept(new FilterNodeVisitor<Boolean>()
+    {
+
+      @Override
+      public Boolean visitAndExpression(AndExpressionNode andExpressionNode)
+      {
+        return true;
+      }
+
+      @Override
+      public Boolean visitOrExpression(OrExpressionNode orExpressionNode)
+      {
+        return true;
+      }
+
+      @Override
+      public Boolean visitNotExpression(NotExpressionNode notExpressionNode)
+      {
+        return true;
+      }
+
+      @Override
+      public Boolean visitAttributeExpression(AttributeExpressionLeaf attributeExpressionLeaf)
+      {
+        return true;
+      }
+
+      @Override
+      public Boolean visitAttributePath(AttributePathRoot attributePathRoot)
+      {
+        return true;
+      }
+    }));
+  }
+
+  /**
+   * @return the parents of all nodes of the given filter mapped by the nodes
+   */
+  static Map<FilterNode, FilterNode> getParents(FilterNode filterNode)
+  {
+    Map<FilterNode, FilterNode> parents = new IdentityHashMap<>();
+    parents.put(filterNode, filterNode.getParent());
+    if (filterNode instanceof AndExpressionNode)
+    {
+      parents.putAll(getParents(((AndExpressionNode)filterNode).getLeftNode()));
+      parents.putAll(getParents(((AndExpressionNode)filterNode).getRightNode()));
+    }
+    else if (filterNode instanceof OrExpressionNode)
+    {
+      parents.putAll(getParents(((OrExpressionNode)filterNode).getLeftNode()));
+      parents.putAll(getParents(((OrExpressionNode)filterNode).getRightNode()));
+    }
+    else if (filterNode instanceof NotExpressionNode)
+    {
+      parents.putAll(getParents(((NotExpressionNode)filterNode).getRightNode()));
+    }
+    return parents;
+  }
+
+  /**
+   * a node can be pushed down if all of its comparisons are on one of the {@link #PUSHDOWN_ATTRIBUTES}
+   */
+  private boolean isPushdownable(FilterNode filterNode)
+  {
+    return filterNode.accept(new FilterNodeVisitor<Boolean>()
+    {
+
+      @Override
+      public Boolean visitAndExpression(AndExpressionNode andExpressionNode)
+      {
+        return andExpressionNode.getLeftNode().accept(this) && andExpressionNode.getRightNode().accept(this);
+      }
+
+      @Override
+      public Boolean visitOrExpression(OrExpressionNode orExpressionNode)
+      {
+        return orExpressionNode.getLeftNode().accept(this) && orExpressionNode.getRightNode().accept(this);
+      }
+
+      @Override
+      public Boolean visitNotExpression(NotExpressionNode notExpressionNode)
+      {
+        return notExpressionNode.getRightNode().accept(this);
+      }
+
+      @Override
+      public Boolean visitAttributeExpression(AttributeExpressionLeaf attributeExpressionLeaf)
+      {
+        return PUSHDOWN_ATTRIBUTES.contains(attributeExpressionLeaf.getShortName());
+      }
+
+      @Override
+      public Boolean visitAttributePath(AttributePathRoot attributePathRoot)
+      {
+        return false;
+      }
+    });
+  }
+}
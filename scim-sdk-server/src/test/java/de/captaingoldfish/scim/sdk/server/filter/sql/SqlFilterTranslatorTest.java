@@ -0,0 +1,389 @@
+package de.captaingoldfish.scim.sdk.server.filter.sql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.captaingoldfish.scim.sdk.common.constants.ResourceTypeNames;
+import de.captaingoldfish.scim.sdk.common.constants.enums.SortOrder;
+import de.captaingoldfish.scim.sdk.common.exceptions.InvalidConfigException;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.User;
+import de.captaingoldfish.scim.sdk.common.resources.complex.Meta;
+import de.captaingoldfish.scim.sdk.common.resources.complex.Name;
+import de.captaingoldfish.scim.sdk.common.resources.multicomplex.Email;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
+import de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint;
+import de.captaingoldfish.scim.sdk.server.endpoints.base.UserEndpointDefinition;
+import de.captaingoldfish.scim.sdk.server.endpoints.handler.UserHandlerImpl;
+import de.captaingoldfish.scim.sdk.server.filter.FilterNode;
+import de.captaingoldfish.scim.sdk.server.filter.resources.FilterResourceResolver;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.utils.RequestUtils;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class SqlFilterTranslatorTest
+{
+
+  /**
+   * the users that are stored in the embedded database. Some of the mapped attributes are not present
+   */
+  private static final List<User> USERS = Arrays.asList(getUser("anna",
+                                                                "A1",
+                                                                "Anna",
+                                                                true,
+                                                                "2026-01-01T00:00:00Z",
+                                                                getEmail("anna@work.de", "work")),
+                                                        getUser("bob",
+                                                                null,
+                                                                null,
+                                                                false,
+                                                                "2026-01-02T00:00:00Z",
+                                                                getEmail("bob@home.de", "home")),
+                                                        getUser("carl", "C1", null, null, "2026-01-03T00:00:00Z"),
+                                                        getUser("dora",
+                                                                null,
+                                                                "Dora",
+                                                                null,
+                                                                "2026-01-04T00:00:00Z",
+                                                                getEmail("dora@work.de", "work"),
+                                                                getEmail("d@home.de", "home")));
+
+  /**
+   * the user resource type on which the filters are parsed
+   */
+  private ResourceType userResourceType;
+
+  /**
+   * the translator under test
+   */
+  private SqlFilterTranslator sqlFilterTranslator;
+
+  /**
+   * initializes the user resource type and maps some of its attributes to columns
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    ResourceEndpoint resourceEndpoint = new ResourceEndpoint(ServiceProvider.builder().build(),
+                                                             new UserEndpointDefinition(new UserHandlerImpl(false)));
+    userResourceType = resourceEndpoint.getResourceTypeByName(ResourceTypeNames.USER).get();
+    SqlColumnMapping columnMapping = SqlColumnMapping.builder()
+                                                     .column("userName", "u.user_name")
+                                                     .column("externalId", "u.external_id")
+                                                     .column("active", "u.active")
+                                                     .column("name.givenName", "u.given_name")
+                                                     .column("meta.created", "u.created")
+                                                     .column("urn:ietf:params:scim:schemas:extension:enterprise:2.0:User:"
+                                                             + "costCenter",
+                                                             "u.cost_center")
+                                                     .column("emails.value", "e.email")
+                                                     .column("emails.type", "e.type")
+                                                     .joinTable("emails",
+                                                                new SqlJoinTable("user_emails e", "e.user_id = u.id"))
+                                                     .build();
+    sqlFilterTranslator = new SqlFilterTranslator(columnMapping);
+  }
+
+  /**
+   * verifies that the filter expressions are translated into the expected sql expressions
+   */
+  @ParameterizedTest
+  @CsvSource(delimiter = '|', value = {"userName eq \"Chuck\"|LOWER(u.user_name) = ?|chuck",
+                                       "externalId eq \"Chuck\"|u.external_id = ?|Chuck",
+                                       "userName ne \"chuck\"|(u.user_name IS NULL OR LOWER(u.user_name) <> ?)|chuck",
+                                       "userName sw \"c_%!\"|LOWER(u.user_name) LIKE ? ESCAPE '!'|c!_!%!!%",
+                                       "userName ew \"k\"|LOWER(u.user_name) LIKE ? ESCAPE '!'|%k",
+                                       "externalId co \"K\"|u.external_id LIKE ? ESCAPE '!'|%K%",
+                                       "name.givenName pr|u.given_name IS NOT NULL|",
+                                       "externalId eq null|u.external_id IS NULL|",
+                                       "active eq false|COALESCE(u.active, ?) = ?|false,false",
+                                       "userName gt \"a\" and not (name.givenName le \"b\")|(LOWER(u.user_name) > ? AND (CASE WHEN LOWER(u.given_name) <= ? THEN 1 ELSE 0 END = 0))|a,b",
+                                       "userName eq \"a\" or costCenter eq \"b\"|(LOWER(u.user_name) = ? OR LOWER(u.cost_center) = ?)|a,b",
+                                       "emails.value ew \"@example.com\"|EXISTS (SELECT 1 FROM user_emails e WHERE e.user_id = u.id AND LOWER(e.email) LIKE ? ESCAPE '!')|%@example.com",
+                                       "emails.value ne \"a@b.de\"|NOT EXISTS (SELECT 1 FROM user_emails e WHERE e.user_id = u.id AND LOWER(e.email) = ?)|a@b.de",
+                                       "emails[type eq \"work\" and value co \"@\"]|EXISTS (SELECT 1 FROM user_emails e WHERE e.user_id = u.id AND (LOWER(e.type) = ? AND LOWER(e.email) LIKE ? ESCAPE '!'))|work,%@%"})
+  public void testTranslateFilter(String filter, String expectedSql, String expectedParameters)
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    Assertions.assertTrue(sqlFilterTranslator.isTranslatable(filterNode));
+
+    SqlClause sqlClause = sqlFilterTranslator.translateFilter(filterNode);
+    Assertions.assertEquals(expectedSql, sqlClause.getSql());
+    Assertions.assertEquals(expectedParameters == null ? Collections.emptyList()
+      : Arrays.asList(expectedParameters.split(",")),
+                            sqlClause.getParameters().stream().map(String::valueOf).collect(Collectors.toList()));
+  }
+
+  /**
+   * verifies that dates are bound as timestamps
+   */
+  @Test
+  public void testTypedParameters()
+  {
+    Instant created = Instant.parse("2026-10-19T10:00:00Z");
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, "meta.created ge \"" + created + "\"");
+    SqlClause sqlClause = sqlFilterTranslator.translateFilter(filterNode);
+    Assertions.assertEquals("u.created >= ?", sqlClause.getSql());
+    Assertions.assertEquals(Collections.singletonList(Timestamp.from(created)), sqlClause.getParameters());
+  }
+
+  /**
+   * verifies that filters on attributes without a column are detected as not translatable
+   */
+  @Test
+  public void testUnmappedAttributeIsNotTranslatable()
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, "userName eq \"a\" and nickName eq \"b\"");
+    Assertions.assertFalse(sqlFilterTranslator.isTranslatable(filterNode));
+    Assertions.assertThrows(InvalidConfigException.class, () -> sqlFilterTranslator.translateFilter(filterNode));
+
+    FilterNode likeOnDate = RequestUtils.parseFilter(userResourceType, "meta.created sw \"2026\"");
+    Assertions.assertFalse(sqlFilterTranslator.isTranslatable(likeOnDate));
+  }
+
+  /**
+   * verifies that a complete select statement with sorting and paging is built
+   */
+  @Test
+  public void testTranslateSelectStatement()
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, "userName sw \"c\"");
+    SqlClause sqlClause = sqlFilterTranslator.translate("SELECT u.* FROM users u",
+                                                        filterNode,
+                                                        userResourceType.getSchemaAttribute("userName").get(),
+                                                        SortOrder.DESCENDING,
+                                                        11,
+                                                        5);
+    Assertions.assertEquals("SELECT u.* FROM users u WHERE LOWER(u.user_name) LIKE ? ESCAPE '!' ORDER BY "
+                            + "CASE WHEN u.user_name IS NULL THEN 1 ELSE 0 END, LOWER(u.user_name) DESC "
+                            + "LIMIT ? OFFSET ?",
+                            sqlClause.getSql());
+    Assertions.assertEquals(Arrays.asList("c%", 5, 10L), sqlClause.getParameters());
+  }
+
+  /**
+   * verifies that "lt" and "le" on string attributes only match resources without the attribute if this was
+   * enabled explicitly
+   */
+  @Test
+  public void testMatchMissingStringsOnLessThan()
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, "name.givenName lt \"b\"");
+    Assertions.assertEquals("LOWER(u.given_name) < ?", sqlFilterTranslator.translateFilter(filterNode).getSql());
+
+    sqlFilterTranslator.setMatchMissingStringsOnLessThan(true);
+    Assertions.assertEquals("(u.given_name IS NULL OR LOWER(u.given_name) < ?)",
+                            sqlFilterTranslator.translateFilter(filterNode).getSql());
+  }
+
+  /**
+   * verifies that the paging clause is created by the configured dialect
+   */
+  @Test
+  public void testTranslateSelectStatementWithOffsetFetch()
+  {
+    SqlFilterTranslator translator = new SqlFilterTranslator(sqlFilterTranslator.getColumnMapping(),
+                                                             new OffsetFetchSqlDialect("(SELECT NULL)"));
+    SqlClause sqlClause = translator.translate("SELECT u.* FROM users u", null, null, null, 11, 5);
+    Assertions.assertEquals("SELECT u.* FROM users u ORDER BY (SELECT NULL) OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
+                            sqlClause.getSql());
+    Assertions.assertEquals(Arrays.asList(10L, 5), sqlClause.getParameters());
+
+    sqlClause = translator.translate("SELECT u.* FROM users u",
+                                     null,
+                                     userResourceType.getSchemaAttribute("userName").get(),
+                                     null,
+                                     1,
+                                     5);
+    Assertions.assertEquals("SELECT u.* FROM users u ORDER BY CASE WHEN u.user_name IS NULL THEN 1 ELSE 0 END, "
+                            + "LOWER(u.user_name) ASC OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
+                            sqlClause.getSql());
+  }
+
+  /**
+   * verifies on an embedded database that the translated filters select the same resources as the
+   * {@link FilterResourceResolver} if some of the mapped columns are null
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"name.givenName lt \"b\"", "not (name.givenName le \"b\")", "not (externalId eq \"A1\")",
+                          "not (externalId ne \"A1\")", "not (externalId eq \"A1\" or name.givenName sw \"d\")",
+                          "not (not (name.givenName gt \"b\"))", "not (active eq true) and userName pr",
+                          "userName eq \"bob\" or not (externalId co \"1\" and name.givenName pr)",
+                          "emails.value ew \"@work.de\"", "emails[type eq \"work\" and value sw \"d\"]",
+                          "not (emails[type eq \"home\"])", "meta.created gt \"2026-01-02T00:00:00Z\""})
+  public void testTranslatedFilterMatchesSameResources(String filter) throws SQLException
+  {
+    sqlFilterTranslator.setMatchMissingStringsOnLessThan(true);
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, filter);
+    SqlClause whereClause = sqlFilterTranslator.translateFilter(filterNode);
+
+    List<String> expectedUserNames = FilterResourceResolver.filterResources(ServiceProvider.builder().build(),
+                                                                            USERS,
+                                                                            filterNode)
+                                                           .stream()
+                                                           .map(user -> user.getUserName().get())
+                                                           .collect(Collectors.toList());
+    SqlClause sqlClause = new SqlClause("SELECT u.user_name FROM users u WHERE " + whereClause.getSql()
+                                        + " ORDER BY u.user_name", whereClause.getParameters());
+    Assertions.assertEquals(expectedUserNames, executeQuery(sqlClause), sqlClause.getSql());
+  }
+
+  /**
+   * verifies on an embedded database that "lt" does not match resources without the attribute by default
+   */
+  @Test
+  public void testMissingStringsDoNotMatchLessThanByDefault() throws SQLException
+  {
+    FilterNode filterNode = RequestUtils.parseFilter(userResourceType, "name.givenName lt \"b\"");
+    SqlClause whereClause = sqlFilterTranslator.translateFilter(filterNode);
+    SqlClause sqlClause = new SqlClause("SELECT u.user_name FROM users u WHERE " + whereClause.getSql(),
+                                        whereClause.getParameters());
+    Assertions.assertEquals(Collections.singletonList("anna"), executeQuery(sqlClause));
+  }
+
+  /**
+   * verifies on an embedded database that the select statements of both dialects return the requested page
+   */
+  @Test
+  public void testPagingOnEmbeddedDatabase() throws SQLException
+  {
+    SchemaAttribute userName = userResourceType.getSchemaAttribute("userName").get();
+    for ( SqlDialect dialect : new SqlDialect[]{LimitOffsetSqlDialect.INSTANCE, new OffsetFetchSqlDialect()} )
+    {
+      SqlFilterTranslator translator = new SqlFilterTranslator(sqlFilterTranslator.getColumnMapping(), dialect);
+      FilterNode filterNode = RequestUtils.parseFilter(userResourceType, "not (userName eq \"anna\")");
+      SqlClause sqlClause = translator.translate("SELECT u.user_name FROM users u",
+                                                 filterNode,
+                                                 userName,
+                                                 SortOrder.DESCENDING,
+                                                 2,
+                                                 2);
+      Assertions.assertEquals(Arrays.asList("carl", "bob"), executeQuery(sqlClause), sqlClause.getSql());
+
+      sqlClause = translator.translate("SELECT u.user_name FROM users u", null, null, null, 3, 10);
+      Assertions.assertEquals(2, executeQuery(sqlClause).size(), sqlClause.getSql());
+    }
+  }
+
+  /**
+   * creates a user whose optional attributes are not present if the given values are null
+   */
+  private static User getUser(String userName,
+                              String externalId,
+                              String givenName,
+                              Boolean active,
+                              String created,
+                              Email... emails)
+  {
+    User user = User.builder()
+                    .userName(userName)
+                    .externalId(externalId)
+                    .active(active)
+                    .meta(Meta.builder().created(Instant.parse(created)).build())
+                    .build();
+    if (givenName != null)
+    {
+      user.setName(Name.builder().givenName(givenName).build());
+    }
+    if (emails.length > 0)
+    {
+      user.setEmails(Arrays.asList(emails));
+    }
+    return user;
+  }
+
+  /**
+   * creates an email with the given value and type
+   */
+  private static Email getEmail(String value, String type)
+  {
+    return Email.builder().value(value).type(type).build();
+  }
+
+  /**
+   * creates the tables of the column mapping in a new in-memory database and stores the {@link #USERS} in them
+   */
+  private Connection createDatabase() throws SQLException
+  {
+    Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+    try (Statement statement = connection.createStatement())
+    {
+      statement.execute("CREATE TABLE users (id INT PRIMARY KEY, user_name VARCHAR(64), external_id VARCHAR(64), "
+                        + "given_name VARCHAR(64), active BOOLEAN, created TIMESTAMP, cost_center VARCHAR(64))");
+      statement.execute("CREATE TABLE user_emails (user_id INT, email VARCHAR(64), type VARCHAR(64))");
+    }
+    try (PreparedStatement insertUser = connection.prepareStatement("INSERT INTO users VALUES (?, ?, ?, ?, ?, ?, ?)");
+      PreparedStatement insertEmail = connection.prepareStatement("INSERT INTO user_emails VALUES (?, ?, ?)"))
+    {
+      for ( int id = 0 ; id < USERS.size() ; id++ )
+      {
+        User user = USERS.get(id);
+        insertUser.setInt(1, id);
+        insertUser.setObject(2, user.getUserName().orElse(null));
+        insertUser.setObject(3, user.getExternalId().orElse(null));
+        insertUser.setObject(4, user.getName().flatMap(Name::getGivenName).orElse(null));
+        insertUser.setObject(5, user.isActive().orElse(null));
+        insertUser.setObject(6, user.getMeta().flatMap(Meta::getCreated).map(Timestamp::from).orElse(null));
+        insertUser.setObject(7, null);
+        insertUser.executeUpdate();
+        for ( Email email : user.getEmails() )
+        {
+          insertEmail.setInt(1, id);
+          insertEmail.setObject(2, email.getValue().orElse(null));
+          insertEmail.setObject(3, email.getType().orElse(null));
+          insertEmail.executeUpdate();
+        }
+      }
+    }
+    return connection;
+  }
+
+  /**
+   * executes the given select statement on a new in-memory database
+   *
+   * @return the values of the first column of the selected rows
+   */
+  private List<String> executeQuery(SqlClause sqlClause) throws SQLException
+  {
+    try (Connection connection = createDatabase();
+      PreparedStatement preparedStatement = connection.prepareStatement(sqlClause.getSql()))
+    {
+      for ( int i = 0 ; i < sqlClause.getParameters().size() ; i++ )
+      {
+        preparedStatement.setObject(i + 1, sqlClause.getParameters().get(i));
+      }
+      List<String> values = new ArrayList<>();
+      try (ResultSet resultSet = preparedStatement.executeQuery())
+      {
+        while (resultSet.next())
+        {
+          values.add(resultSet.getString(1));
+        }
+      }
+      return values;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package de.captaingoldfish.scim.sdk.server.metrics;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
+import de.captaingoldfish.scim.sdk.server.endpoints.features.EndpointType;
+import de.captaingoldfish.scim.sdk.server.utils.AdaptiveParallelExecutor;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class InMemoryScimMetricsTest
+{
+
+  /**
+   * the metrics under test
+   */
+  private InMemoryScimMetrics scimMetrics;
+
+  /**
+   * creates empty metrics
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    scimMetrics = new InMemoryScimMetrics();
+  }
+
+  /**
+   * verifies that the recorded durations are aggregated correctly
+   */
+  @Test
+  public void testHistogram()
+  {
+    for ( int i = 1 ; i <= 100 ; i++ )
+    {
+      scimMetrics.recordPhase("User", EndpointType.CREATE, ScimPhase.HANDLER, i * 1000L);
+    }
+    InMemoryScimMetrics.Histogram histogram = scimMetrics.getHistogram("User", EndpointType.CREATE, ScimPhase.HANDLER)
+                                                         .get();
+    Assertions.assertEquals(100, histogram.getCount());
+    Assertions.assertEquals(Duration.ofNanos(1000), histogram.getMin());
+    Assertions.assertEquals(Duration.ofNanos(100_000), histogram.getMax());
+    Assertions.assertEquals(Duration.ofNanos(50_500), histogram.getMean());
+    Assertions.assertEquals(Duration.ofNanos(5_050_000), histogram.getTotal());
+    Assertions.assertEquals(Duration.ofNanos(100_000), histogram.getPercentile(100));
+
+    // the percentiles are estimated by the upper bound of their power of two bucket
+    long median = histogram.getPercentile(50).toNanos();
+    Assertions.assertTrue(median >= 50_000 && median < 2 * 50_000, String.valueOf(median));
+    long p99 = histogram.getPercentile(99).toNanos();
+    Assertions.assertTrue(p99 >= 99_000 && p99 <= 100_000, String.valueOf(p99));
+
+    Assertions.assertFalse(scimMetrics.getHistogram("User", EndpointType.GET, ScimPhase.HANDLER).isPresent());
+    Assertions.assertEquals(1, scimMetrics.getHistograms().size());
+    Assertions.assertTrue(scimMetrics.getHistograms().containsKey("User|CREATE|HANDLER"));
+  }
+
+  /**
+   * verifies that phases without resource type and endpoint type are recorded e.g. for bulk requests
+   */
+  @Test
+  public void testHistogramWithoutResourceType()
+  {
+    scimMetrics.recordPhase(null, null, ScimPhase.BODY_PARSING, 0);
+    InMemoryScimMetrics.Histogram histogram = scimMetrics.getHistogram(null, null, ScimPhase.BODY_PARSING).get();
+    Assertions.assertEquals(1, histogram.getCount());
+    Assertions.assertEquals(Duration.ZERO, histogram.getMin());
+    Assertions.assertEquals(Duration.ZERO, histogram.getPercentile(50));
+    Assertions.assertTrue(scimMetrics.getHistograms().containsKey("||BODY_PARSING"));
+  }
+
+  /**
+   * verifies that the requests and bulk operations are counted
+   */
+  @Test
+  public void testCounters()
+  {
+    scimMetrics.recordRequest("User", EndpointType.CREATE, 201);
+    scimMetrics.recordRequest("User", EndpointType.CREATE, 201);
+    scimMetrics.recordRequest("User", EndpointType.CREATE, 409);
+    scimMetrics.recordBulkOperation(HttpMethod.POST, 201, null);
+    scimMetrics.recordBulkOperation(HttpMethod.POST, 409, "uniqueness");
+    scimMetrics.recordParallelDecision(AdaptiveParallelExecutor.Decision.PARALLEL_SUBMITTED);
+
+    Assertions.assertEquals(2, scimMetrics.getRequestCount("User", EndpointType.CREATE, 201));
+    Assertions.assertEquals(1, scimMetrics.getRequestCount("User", EndpointType.CREATE, 409));
+    Assertions.assertEquals(0, scimMetrics.getRequestCount("Group", EndpointType.CREATE, 201));
+    Assertions.assertEquals(1, scimMetrics.getBulkOperationCount(HttpMethod.POST, 201));
+    Assertions.assertEquals(1, scimMetrics.getBulkOperationCount(HttpMethod.POST, 409));
+    Assertions.assertEquals(1, scimMetrics.getBulkFailureCount(HttpMethod.POST, "uniqueness"));
+    Assertions.assertEquals(1,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.PARALLEL_SUBMITTED));
+    Assertions.assertEquals(0,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.SEQUENTIAL_BELOW_THRESHOLD));
+    Assertions.assertEquals(Long.valueOf(2), scimMetrics.getCounters().get("request|User|CREATE|201"));
+
+    scimMetrics.clear();
+    Assertions.assertTrue(scimMetrics.getCounters().isEmpty());
+    Assertions.assertTrue(scimMetrics.getHistograms().isEmpty());
+  }
+}
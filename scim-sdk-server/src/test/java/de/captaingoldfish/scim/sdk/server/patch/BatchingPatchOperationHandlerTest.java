@@ -0,0 +1,144 @@
+package de.captaingoldfish.scim.sdk.server.patch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.captaingoldfish.scim.sdk.common.constants.enums.PatchOp;
+import de.captaingoldfish.scim.sdk.common.request.PatchOpRequest;
+import de.captaingoldfish.scim.sdk.common.request.PatchRequestOperation;
+import de.captaingoldfish.scim.sdk.server.endpoints.Context;
+import de.captaingoldfish.scim.sdk.server.patch.operations.PatchOperation;
+import de.captaingoldfish.scim.sdk.server.patch.operations.SimpleAttributeOperation;
+import de.captaingoldfish.scim.sdk.server.patch.validationtests.AbstractPatchTest;
+import de.captaingoldfish.scim.sdk.server.resources.AllTypes;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class BatchingPatchOperationHandlerTest extends AbstractPatchTest
+{
+
+  /**
+   * verifies that a handler that supports batched operations receives all operations of a patch request at
+   * once, grouped by the attributes that they are targeting and in their original order within each group
+   */
+  @Test
+  public void testOperationsArePassedAtOnce()
+  {
+    AllTypes allTypes = new AllTypes(true);
+    addAllTypesToProvider(allTypes);
+
+    List<PatchRequestOperation> operations = Arrays.asList(PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REPLACE)
+                                                                                .path("number")
+                                                                                .values(Arrays.asList("5"))
+                                                                                .build(),
+                                                           PatchRequestOperation.builder()
+                                                                                .op(PatchOp.ADD)
+                                                                                .path("stringArray")
+                                                                                .values(Arrays.asList("hello"))
+                                                                                .build(),
+                                                           PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REPLACE)
+                                                                                .path("number")
+                                                                                .values(Arrays.asList("6"))
+                                                                                .build());
+    PatchOpRequest patchOpRequest = PatchOpRequest.builder().operations(operations).build();
+
+    BatchedPatchOperationHandler batchedHandler = new BatchedPatchOperationHandler();
+    PatchRequestHandler<AllTypes> patchRequestHandler = new PatchRequestHandler<>(allTypes.getId().get(),
+                                                                                  serviceProvider, allTypesResourceType,
+                                                                                  batchedHandler);
+    AllTypes patchedAllTypes = patchRequestHandler.handlePatchRequest(patchOpRequest);
+
+    Assertions.assertTrue(patchRequestHandler.isResourceChanged());
+    Assertions.assertEquals(1, batchedHandler.getReceivedBatches().size());
+    List<PatchOperation<?>> batch = batchedHandler.getReceivedBatches().get(0);
+    Assertions.assertEquals(3, batch.size());
+    Assertions.assertEquals("number", batch.get(0).getSchemaAttribute().getName());
+    Assertions.assertEquals("6", ((SimpleAttributeOperation)batch.get(1)).getValuesNode().asText());
+    Assertions.assertEquals("stringArray", batch.get(2).getSchemaAttribute().getName());
+
+    Assertions.assertEquals(6L, patchedAllTypes.getNumber().get());
+    Assertions.assertEquals(Arrays.asList("hello"), patchedAllTypes.getStringArray());
+  }
+
+  /**
+   * verifies that a handler that does not support batched operations still receives the operations one by one
+   */
+  @Test
+  public void testOperationsArePassedOneByOneByDefault()
+  {
+    AllTypes allTypes = new AllTypes(true);
+    addAllTypesToProvider(allTypes);
+
+    List<PatchRequestOperation> operations = Arrays.asList(PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REPLACE)
+                                                                                .path("number")
+                                                                                .values(Arrays.asList("5"))
+                                                                                .build());
+    PatchOpRequest patchOpRequest = PatchOpRequest.builder().operations(operations).build();
+
+    BatchedPatchOperationHandler batchedHandler = new BatchedPatchOperationHandler();
+    batchedHandler.setBatchingSupported(false);
+    PatchRequestHandler<AllTypes> patchRequestHandler = new PatchRequestHandler<>(allTypes.getId().get(),
+                                                                                  serviceProvider, allTypesResourceType,
+                                                                                  batchedHandler);
+    AllTypes patchedAllTypes = patchRequestHandler.handlePatchRequest(patchOpRequest);
+
+    Assertions.assertTrue(patchRequestHandler.isResourceChanged());
+    Assertions.assertEquals(0, batchedHandler.getReceivedBatches().size());
+    Assertions.assertEquals(5L, patchedAllTypes.getNumber().get());
+  }
+
+  /**
+   * a default patch operation handler that remembers the batches that it received
+   */
+  private class BatchedPatchOperationHandler extends DefaultPatchOperationHandler<AllTypes>
+  {
+
+    /**
+     * the operations that were received by {@link #handleOperations(String, List)}
+     */
+    private final List<List<PatchOperation<?>>> receivedBatches = new ArrayList<>();
+
+    /**
+     * if this handler wants to receive the operations at once
+     */
+    private boolean batchingSupported = true;
+
+    public BatchedPatchOperationHandler()
+    {
+      super(AllTypes.class, serviceProvider.getPatchConfig(), allTypesResourceType, new Context(null));
+    }
+
+    public List<List<PatchOperation<?>>> getReceivedBatches()
+    {
+      return receivedBatches;
+    }
+
+    public void setBatchingSupported(boolean batchingSupported)
+    {
+      this.batchingSupported = batchingSupported;
+    }
+
+    @Override
+    public boolean isBatchedOperationsSupported()
+    {
+      return batchingSupported;
+    }
+
+    @Override
+    public boolean handleOperations(String id, List<PatchOperation<?>> patchOperations)
+    {
+      receivedBatches.add(patchOperations);
+      return super.handleOperations(id, patchOperations);
+    }
+  }
+}
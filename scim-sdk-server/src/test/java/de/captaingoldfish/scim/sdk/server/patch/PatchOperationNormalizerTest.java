@@ -0,0 +1,187 @@
+package de.captaingoldfish.scim.sdk.server.patch;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
+import de.captaingoldfish.scim.sdk.common.constants.enums.PatchOp;
+import de.captaingoldfish.scim.sdk.common.request.PatchOpRequest;
+import de.captaingoldfish.scim.sdk.common.request.PatchRequestOperation;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.endpoints.Context;
+import de.captaingoldfish.scim.sdk.server.endpoints.validation.RequestContextException;
+import de.captaingoldfish.scim.sdk.server.patch.validationtests.AbstractPatchTest;
+import de.captaingoldfish.scim.sdk.server.resources.AllTypes;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class PatchOperationNormalizerTest extends AbstractPatchTest
+{
+
+  /**
+   * verifies that a sequence of redundant operations as it is typically sent by MsAzure is folded into a
+   * smaller set of operations and that the normalized operations lead to the same result as the original
+   * operations
+   */
+  @Test
+  public void testRedundantOperationsAreFolded()
+  {
+    serviceProvider.getPatchConfig().setDoNotFailOnNoTarget(true);
+    List<PatchRequestOperation> operations = Arrays.asList(replace("string", "a"),
+                                                           replace("string", "b"),
+                                                           add("multiComplex", "1"),
+                                                           add("multiComplex", "2"),
+                                                           PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REMOVE)
+                                                                                .path("multiComplex[string eq \"1\"]")
+                                                                                .build(),
+                                                           add("multiComplex", "1"),
+                                                           add("multiComplex", "3"));
+
+    PatchOperationNormalizer normalizer = new PatchOperationNormalizer(allTypesResourceType,
+                                                                       serviceProvider.getPatchConfig(),
+                                                                       (schemaAttribute, value) -> true);
+    List<PatchRequestOperation> normalizedOperations = normalizer.normalize(operations);
+    Assertions.assertEquals(4, normalizedOperations.size());
+    Assertions.assertEquals(Arrays.asList("b"), normalizedOperations.get(0).getValues());
+    Assertions.assertEquals(1, normalizedOperations.get(1).getValueNode().get().size());
+    Assertions.assertEquals(PatchOp.REMOVE, normalizedOperations.get(2).getOp());
+    Assertions.assertEquals(2, normalizedOperations.get(3).getValueNode().get().size());
+    Assertions.assertTrue(normalizer.isChangeGuaranteed());
+
+    AllTypes expectedAllTypes = patch(operations, false);
+    AllTypes normalizedAllTypes = patch(operations, true);
+    expectedAllTypes.remove(AttributeNames.RFC7643.META);
+    normalizedAllTypes.remove(AttributeNames.RFC7643.META);
+    expectedAllTypes.remove(AttributeNames.RFC7643.ID);
+    normalizedAllTypes.remove(AttributeNames.RFC7643.ID);
+    Assertions.assertEquals(expectedAllTypes, normalizedAllTypes);
+    Assertions.assertEquals(3, normalizedAllTypes.getMultiComplex().size());
+  }
+
+  /**
+   * verifies that a removed operation that would have changed the resource still marks the resource as changed
+   * even if the remaining operation does not change the resource
+   */
+  @Test
+  public void testChangeDetectionIsPreserved()
+  {
+    serviceProvider.setNormalizePatchOperations(true);
+    AllTypes allTypes = new AllTypes(true);
+    allTypes.setString("b");
+    addAllTypesToProvider(allTypes);
+
+    List<PatchRequestOperation> operations = Arrays.asList(replace("string", "a"), replace("string", "b"));
+    // a new patch operation handler is needed for each request because it holds the patched resource
+    DefaultPatchOperationHandler<AllTypes> patchOperationHandler = //
+      new DefaultPatchOperationHandler<>(AllTypes.class, serviceProvider.getPatchConfig(), allTypesResourceType,
+                                         new Context(null));
+    PatchRequestHandler<AllTypes> patchRequestHandler = new PatchRequestHandler<>(allTypes.getId().get(),
+                                                                                  serviceProvider, allTypesResourceType,
+                                                                                  patchOperationHandler);
+    AllTypes patchedAllTypes = patchRequestHandler.handlePatchRequest(PatchOpRequest.builder()
+                                                                                    .operations(operations)
+                                                                                    .build());
+    Assertions.assertTrue(patchRequestHandler.isResourceChanged());
+    Assertions.assertEquals("b", patchedAllTypes.getString().get());
+  }
+
+  /**
+   * verifies that add and remove operations on the same value are not folded if a remove operation without
+   * target must fail
+   */
+  @Test
+  public void testAddAndRemoveAreNotCancelledIfNoTargetFails()
+  {
+    List<PatchRequestOperation> operations = Arrays.asList(add("multiComplex", "1"),
+                                                           PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REMOVE)
+                                                                                .path("multiComplex[string eq \"1\"]")
+                                                                                .build());
+    PatchOperationNormalizer normalizer = new PatchOperationNormalizer(allTypesResourceType,
+                                                                       serviceProvider.getPatchConfig(),
+                                                                       (schemaAttribute, value) -> true);
+    Assertions.assertEquals(2, normalizer.normalize(operations).size());
+    Assertions.assertFalse(normalizer.isChangeGuaranteed());
+  }
+
+  /**
+   * verifies that an operation with an invalid value is not folded into a following operation so that the patch
+   * request fails in the same way as without normalization
+   */
+  @Test
+  public void testInvalidValuesAreNotFolded()
+  {
+    serviceProvider.getPatchConfig().setDoNotFailOnNoTarget(true);
+    List<PatchRequestOperation> operations = Arrays.asList(replace("number", "abc"),
+                                                           replace("number", "5"),
+                                                           add("multiComplex", "1"),
+                                                           PatchRequestOperation.builder()
+                                                                                .op(PatchOp.REMOVE)
+                                                                                .path("multiComplex[string eq \"1\"]")
+                                                                                .build());
+    PatchOperationNormalizer normalizer = new PatchOperationNormalizer(allTypesResourceType,
+                                                                       serviceProvider.getPatchConfig(),
+                                                                       (schemaAttribute, value) -> false);
+    Assertions.assertEquals(4, normalizer.normalize(operations).size());
+    Assertions.assertFalse(normalizer.isChangeGuaranteed());
+
+    for ( boolean normalize : new boolean[]{false, true} )
+    {
+      Assertions.assertThrows(RequestContextException.class,
+                              () -> patch(Arrays.asList(replace("number", "abc"), replace("number", "5")), normalize));
+    }
+  }
+
+  /**
+   * executes the given operations on a new resource
+   */
+  private AllTypes patch(List<PatchRequestOperation> operations, boolean normalize)
+  {
+    serviceProvider.setNormalizePatchOperations(normalize);
+    AllTypes allTypes = new AllTypes(true);
+    allTypes.setString("original");
+    addAllTypesToProvider(allTypes);
+    // a new patch operation handler is needed for each request because it holds the patched resource
+    DefaultPatchOperationHandler<AllTypes> patchOperationHandler = //
+      new DefaultPatchOperationHandler<>(AllTypes.class, serviceProvider.getPatchConfig(), allTypesResourceType,
+                                         new Context(null));
+    PatchRequestHandler<AllTypes> patchRequestHandler = new PatchRequestHandler<>(allTypes.getId().get(),
+                                                                                  serviceProvider, allTypesResourceType,
+                                                                                  patchOperationHandler);
+    // the operations are copied because the handler might modify the value nodes
+    List<PatchRequestOperation> copiedOperations = Arrays.asList(operations.stream()
+                                                                           .map(operation -> JsonHelper.copyResourceToObject(operation.deepCopy(),
+                                                                                                                             PatchRequestOperation.class))
+                                                                           .toArray(PatchRequestOperation[]::new));
+    AllTypes patchedAllTypes = patchRequestHandler.handlePatchRequest(PatchOpRequest.builder()
+                                                                                    .operations(copiedOperations)
+                                                                                    .build());
+    Assertions.assertTrue(patchRequestHandler.isResourceChanged());
+    return patchedAllTypes;
+  }
+
+  private PatchRequestOperation replace(String path, String value)
+  {
+    return PatchRequestOperation.builder().op(PatchOp.REPLACE).path(path).values(Arrays.asList(value)).build();
+  }
+
+  private PatchRequestOperation add(String path, String stringValue)
+  {
+    ObjectNode value = new ObjectNode(JsonNodeFactory.instance);
+    value.put("string", stringValue);
+    ArrayNode values = new ArrayNode(JsonNodeFactory.instance);
+    values.add(value);
+    return PatchRequestOperation.builder().op(PatchOp.ADD).path(path).valueNode(values).build();
+  }
+}
@@ -5489,4 +5489,132 @@ public class PatchTargetHandlerTest implements FileReferences
     Assertions.assertTrue(patchedAllTypes.has(AttributeNames.RFC7643.META));
     Assertions.assertTrue(patchedAllTypes.has(timeZoneAttribute.getName()));
   }
+
+  /**
+   * verifies that several operations on a multivalued complex attribute within a single patch request that are
+   * resolved by the transient index of the multivalued attribute produce the same result as a linear filter
+   * evaluation. The operations are interleaved with an operation on another attribute that forces the index to
+   * be rebuilt
+   */
+  @Test
+  public void testIndexedMultivaluedComplexOperationsWithinSinglePatchRequest()
+  {
+    GroupHandlerImpl groupHandler = new GroupHandlerImpl();
+    ResourceType groupResourceType = resourceEndpoint.registerEndpoint(new GroupEndpointDefinition(groupHandler));
+
+    Group group = Group.builder()
+                       .displayName("admin")
+                       .members(Arrays.asList(Member.builder().value("m1").build(),
+                                              Member.builder().value("m2").build(),
+                                              Member.builder().value("m3").build(),
+                                              Member.builder().value("m4").build(),
+                                              Member.builder().value("m5").build()))
+                       .build();
+    addGroupToProvider(groupHandler, group);
+
+    // @formatter:off
+    List<PatchRequestOperation> operations = Arrays.asList(
+      PatchRequestOperation.builder()
+                           .op(PatchOp.ADD)
+                           .path(RFC7643.MEMBERS)
+                           .values(Arrays.asList("{\"value\": \"new1\"}", "{\"value\": \"new2\"}"))
+                           .build(),
+      PatchRequestOperation.builder().op(PatchOp.REMOVE).path("members[value eq \"m2\"]").build(),
+      PatchRequestOperation.builder()
+                           .op(PatchOp.REPLACE)
+                           .path("members[value eq \"m3\"]")
+                           .values(Arrays.asList("{\"value\": \"m3\", \"display\": \"three\"}"))
+                           .build(),
+      PatchRequestOperation.builder()
+                           .op(PatchOp.ADD)
+                           .path("members[value eq \"NEW1\"]")
+                           .values(Arrays.asList("{\"value\": \"new1\", \"display\": \"one\"}"))
+                           .build(),
+      PatchRequestOperation.builder()
+                           .op(PatchOp.REMOVE)
+                           .path("members[value eq \"m4\" or value eq \"new2\"]")
+                           .build(),
+      PatchRequestOperation.builder().op(PatchOp.REPLACE).path(RFC7643.DISPLAY_NAME).value("root").build(),
+      PatchRequestOperation.builder().op(PatchOp.REMOVE).path("members[value eq \"m5\"]").build(),
+      PatchRequestOperation.builder()
+                           .op(PatchOp.REPLACE)
+                           .path("members[value eq \"m1\"].display")
+                           .value("first")
+                           .build());
+    // @formatter:on
+    PatchOpRequest patchOpRequest = PatchOpRequest.builder().operations(operations).build();
+
+    PatchRequestHandler<Group> patchRequestHandler = new PatchRequestHandler(group.getId().get(),
+                                                                             groupResourceType.getResourceHandlerImpl(),
+                                                                             resourceEndpoint.getPatchWorkarounds(),
+                                                                             new Context(null));
+    Group patchedResource = patchRequestHandler.handlePatchRequest(patchOpRequest);
+    Assertions.assertTrue(patchRequestHandler.isResourceChanged());
+
+    Assertions.assertEquals("root", patchedResource.getDisplayName().get());
+    List<Member> members = patchedResource.getMembers();
+    Assertions.assertEquals(3, members.size(), patchedResource.toPrettyString());
+    Assertions.assertEquals("m1", members.get(0).getValue().get());
+    Assertions.assertEquals("first", members.get(0).getDisplay().get());
+    Assertions.assertEquals("new1", members.get(1).getValue().get());
+    Assertions.assertEquals("one", members.get(1).getDisplay().get());
+    Assertions.assertEquals("m3", members.get(2).getValue().get());
+    Assertions.assertEquals("three", members.get(2).getDisplay().get());
+  }
+
+  /**
+   * verifies that the primary handling of RFC7644 is still applied if several operations on a multivalued
+   * complex attribute are resolved by the transient index of the attribute
+   */
+  @Test
+  public void testIndexedMultivaluedComplexOperationsKeepPrimaryHandling()
+  {
+    JsonNode emailsDef = JsonHelper.loadJsonDocument(EMAILS_ATTRIBUTE);
+    Schema allTypesSchema = resourceTypeFactory.getSchemaFactory().getResourceSchema(AllTypes.ALL_TYPES_URI);
+    allTypesSchema.addAttribute(emailsDef);
+    List<Email> emails = Arrays.asList(Email.builder().value("1@1.de").primary(true).build(),
+                                       Email.builder().value("2@2.de").build(),
+                                       Email.builder().value("3@3.de").primary(false).build());
+    AllTypes allTypes = new AllTypes(true);
+    ArrayNode emailArray = new ScimArrayNode(null);
+    emails.forEach(emailArray::add);
+    allTypes.set(RFC7643.EMAILS, emailArray);
+
+    // @formatter:off
+    List<PatchRequestOperation> operations = Arrays.asList(
+      PatchRequestOperation.builder()
+                           .op(PatchOp.ADD)
+                           .path("emails")
+                           .values(Arrays.asList("{\"value\": \"4@4.de\", \"primary\": true}"))
+                           .build(),
+      PatchRequestOperation.builder()
+                           .op(PatchOp.ADD)
+                           .path("emails[value eq \"2@2.de\"]")
+                           .values(Arrays.asList("{\"primary\": true}"))
+                           .build(),
+      PatchRequestOperation.builder()
+                           .op(PatchOp.REPLACE)
+                           .path("emails[value eq \"3@3.de\"].primary")
+                           .value("true")
+                           .build());
+    // @formatter:on
+    PatchOpRequest patchOpRequest = PatchOpRequest.builder().operations(operations).build();
+
+    AllTypes patchedAllTypes = patchAllTypes(allTypes, patchOpRequest, true);
+
+    emailArray = (ArrayNode)patchedAllTypes.get(RFC7643.EMAILS);
+    Assertions.assertEquals(4, emailArray.size(), patchedAllTypes.toPrettyString());
+    for ( JsonNode email : emailArray )
+    {
+      String emailText = email.get(RFC7643.VALUE).textValue();
+      if (emailText.equals("3@3.de"))
+      {
+        Assertions.assertTrue(email.get(RFC7643.PRIMARY).booleanValue(), patchedAllTypes.toPrettyString());
+      }
+      else
+      {
+        Assertions.assertNull(email.get(RFC7643.PRIMARY), patchedAllTypes.toPrettyString());
+      }
+    }
+  }
 }
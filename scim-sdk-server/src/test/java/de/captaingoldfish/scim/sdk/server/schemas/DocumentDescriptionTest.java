@@ -16,6 +16,7 @@ import com.fasterxml.jackson.databind.node.TextNode;
 import de.captaingoldfish.scim.sdk.common.constants.AttributeNames;
 import de.captaingoldfish.scim.sdk.common.constants.ClassPathReferences;
 import de.captaingoldfish.scim.sdk.common.constants.SchemaUris;
+import de.captaingoldfish.scim.sdk.common.schemas.Schema;
 import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
 import de.captaingoldfish.scim.sdk.server.utils.FileReferences;
 
@@ -177,4 +178,57 @@ public class DocumentDescriptionTest implements FileReferences
     JsonHelper.addAttribute(chuckNorris, roleUri, adminRole);
     Assertions.assertDoesNotThrow(() -> new DocumentDescription(userResourceType, chuckNorris));
   }
+
+  /**
+   * verifies that documents with the same combination of present extensions share the resolved schemas and that
+   * each document still receives its own schemas-attribute
+   */
+  @Test
+  public void testSchemasAreResolvedOncePerExtensionCombination()
+  {
+    ResourceType userResourceType = new ResourceType(schemaFactory,
+                                                     JsonHelper.loadJsonDocument(ClassPathReferences.USER_RESOURCE_TYPE_JSON));
+    JsonNode firstUser = JsonHelper.loadJsonDocument(USER_RESOURCE_ENTERPRISE);
+    JsonNode secondUser = JsonHelper.loadJsonDocument(USER_RESOURCE_ENTERPRISE);
+    JsonNode userWithoutExtension = JsonHelper.loadJsonDocument(USER_RESOURCE);
+
+    DocumentDescription firstDescription = new DocumentDescription(userResourceType, firstUser);
+    Assertions.assertEquals(1, userResourceType.getSchemasDescriptionCache().size());
+    DocumentDescription secondDescription = new DocumentDescription(userResourceType, secondUser);
+    Assertions.assertEquals(1, userResourceType.getSchemasDescriptionCache().size());
+    Assertions.assertEquals(firstDescription.getExtensions(), secondDescription.getExtensions());
+    Assertions.assertNotSame(firstUser.get(AttributeNames.RFC7643.SCHEMAS),
+                             secondUser.get(AttributeNames.RFC7643.SCHEMAS));
+    Assertions.assertEquals(firstUser.get(AttributeNames.RFC7643.SCHEMAS),
+                            secondUser.get(AttributeNames.RFC7643.SCHEMAS));
+
+    DocumentDescription descriptionWithoutExtension = new DocumentDescription(userResourceType, userWithoutExtension);
+    Assertions.assertEquals(2, userResourceType.getSchemasDescriptionCache().size());
+    Assertions.assertEquals(0, descriptionWithoutExtension.getExtensions().size());
+    Assertions.assertEquals(1, userWithoutExtension.get(AttributeNames.RFC7643.SCHEMAS).size());
+  }
+
+  /**
+   * verifies that the resolved schemas are discarded if a schema of the resource type is registered again so
+   * that new documents are described by the new schema instance
+   */
+  @Test
+  public void testSchemasDescriptionCacheIsClearedOnSchemaRegistration()
+  {
+    ResourceTypeFactory resourceTypeFactory = new ResourceTypeFactory();
+    ResourceType userResourceType = resourceTypeFactory.registerResourceType(null,
+                                                                             JsonHelper.loadJsonDocument(ClassPathReferences.USER_RESOURCE_TYPE_JSON),
+                                                                             JsonHelper.loadJsonDocument(ClassPathReferences.USER_SCHEMA_JSON),
+                                                                             JsonHelper.loadJsonDocument(ClassPathReferences.ENTERPRISE_USER_SCHEMA_JSON));
+    SchemaFactory userSchemaFactory = resourceTypeFactory.getSchemaFactory();
+    new DocumentDescription(userResourceType, JsonHelper.loadJsonDocument(USER_RESOURCE_ENTERPRISE));
+    Assertions.assertEquals(1, userResourceType.getSchemasDescriptionCache().size());
+
+    Schema enterpriseSchema = userSchemaFactory.registerResourceSchema(JsonHelper.loadJsonDocument(ClassPathReferences.ENTERPRISE_USER_SCHEMA_JSON));
+    Assertions.assertEquals(0, userResourceType.getSchemasDescriptionCache().size());
+
+    DocumentDescription documentDescription = new DocumentDescription(userResourceType,
+                                                                      JsonHelper.loadJsonDocument(USER_RESOURCE_ENTERPRISE));
+    Assertions.assertSame(enterpriseSchema, documentDescription.getExtensions().get(0));
+  }
 }
@@ -1,5 +1,10 @@
 package de.captaingoldfish.scim.sdk.server.schemas;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +24,7 @@ import de.captaingoldfish.scim.sdk.common.exceptions.InvalidResourceTypeExceptio
 import de.captaingoldfish.scim.sdk.common.exceptions.InvalidSchemaException;
 import de.captaingoldfish.scim.sdk.common.resources.base.ScimObjectNode;
 import de.captaingoldfish.scim.sdk.common.schemas.Schema;
+import de.captaingoldfish.scim.sdk.common.schemas.SchemaAttribute;
 import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
 import de.captaingoldfish.scim.sdk.server.endpoints.ResourceHandler;
 
@@ -81,6 +87,34 @@ public class ResourceTypeFactoryTest
     Assertions.assertNotNull(resourceType, "this resource type must be present!");
   }
 
+  /**
+   * verifies that the attributes that are able to hold bulkId references are registered within the
+   * resource-type when the resource-type is registered
+   */
+  @Test
+  public void testBulkIdRegisterIsLoadedOnRegistration()
+  {
+    ResourceType resourceType = resourceTypeFactory.registerResourceType(null,
+                                                                         userResourceType,
+                                                                         userResourceSchema,
+                                                                         enterpriseUserExtension);
+    Assertions.assertTrue(resourceType.hasBulkIdCandidates());
+    Assertions.assertTrue(resourceType.getSimpleBulkIdRegister().isEmpty());
+
+    List<String> complexBulkIdValueNames = resourceType.getComplexBulkIdValueRegister()
+                                                       .stream()
+                                                       .map(SchemaAttribute::getFullResourceName)
+                                                       .collect(Collectors.toList());
+    MatcherAssert.assertThat(complexBulkIdValueNames,
+                             Matchers.hasItem(SchemaUris.ENTERPRISE_USER_URI + ":" + AttributeNames.RFC7643.MANAGER
+                                              + "." + AttributeNames.RFC7643.VALUE));
+    for ( SchemaAttribute schemaAttribute : resourceType.getComplexBulkIdValueRegister() )
+    {
+      Assertions.assertEquals(AttributeNames.RFC7643.VALUE, schemaAttribute.getName());
+      Assertions.assertTrue(schemaAttribute.getParent().isComplexBulkCandidate());
+    }
+  }
+
   /**
    * this test will verify that a {@link DocumentValidationException} is thrown if the schema-validation of the
    * resource type fails.
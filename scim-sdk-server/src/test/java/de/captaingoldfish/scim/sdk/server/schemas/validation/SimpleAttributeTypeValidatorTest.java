@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -540,6 +541,26 @@ public class SimpleAttributeTypeValidatorTest
     Assertions.assertEquals(content, parsedNode.textValue());
   }
 
+  /**
+   * shows that invalid uri and url references are rejected with an exception that does not carry a stack trace
+   */
+  @ParameterizedTest
+  @CsvSource({"URI,hello world", "URI,urn:{id}", "URL,localhost/hello-world"})
+  public void testInvalidReferenceIsRejected(ReferenceTypes referenceType, String content)
+  {
+    SchemaAttribute schemaAttribute = SchemaAttributeBuilder.builder()
+                                                            .name("id")
+                                                            .type(Type.REFERENCE)
+                                                            .referenceTypes(referenceType)
+                                                            .build();
+
+    JsonNode attribute = new TextNode(content);
+    AttributeValidationException ex = Assertions.assertThrows(AttributeValidationException.class,
+                                                              () -> SimpleAttributeValidator.parseNodeTypeAndValidate(schemaAttribute,
+                                                                                                                      attribute));
+    Assertions.assertEquals(0, ex.getStackTrace().length);
+  }
+
   /**
    * shows that a reference of type external is correctly parsed to a string node
    */
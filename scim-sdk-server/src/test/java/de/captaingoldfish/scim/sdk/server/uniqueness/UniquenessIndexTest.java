@@ -0,0 +1,247 @@
+package de.captaingoldfish.scim.sdk.server.uniqueness;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import de.captaingoldfish.scim.sdk.common.constants.EndpointPaths;
+import de.captaingoldfish.scim.sdk.common.constants.HttpHeader;
+import de.captaingoldfish.scim.sdk.common.constants.HttpStatus;
+import de.captaingoldfish.scim.sdk.common.constants.ResourceTypeNames;
+import de.captaingoldfish.scim.sdk.common.constants.ScimType;
+import de.captaingoldfish.scim.sdk.common.constants.enums.HttpMethod;
+import de.captaingoldfish.scim.sdk.common.exceptions.InternalServerException;
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.common.resources.User;
+import de.captaingoldfish.scim.sdk.common.response.CreateResponse;
+import de.captaingoldfish.scim.sdk.common.response.ErrorResponse;
+import de.captaingoldfish.scim.sdk.common.response.ScimResponse;
+import de.captaingoldfish.scim.sdk.common.response.UpdateResponse;
+import de.captaingoldfish.scim.sdk.common.utils.JsonHelper;
+import de.captaingoldfish.scim.sdk.server.endpoints.Context;
+import de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpoint;
+import de.captaingoldfish.scim.sdk.server.endpoints.base.UserEndpointDefinition;
+import de.captaingoldfish.scim.sdk.server.endpoints.handler.UserHandlerImpl;
+import de.captaingoldfish.scim.sdk.server.response.PartialListResponse;
+import de.captaingoldfish.scim.sdk.server.schemas.ResourceType;
+import de.captaingoldfish.scim.sdk.server.schemas.custom.ResourceTypeFeatures;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class UniquenessIndexTest
+{
+
+  /**
+   * a simple basic uri used in these tests
+   */
+  private static final String BASE_URI = "https://localhost/scim/v2";
+
+  /**
+   * the resource endpoint under test
+   */
+  private ResourceEndpoint resourceEndpoint;
+
+  /**
+   * a mockito spy to verify the calls that have been made on this instance
+   */
+  private UserHandlerImpl userHandler;
+
+  /**
+   * the uniqueness index of the user resource type
+   */
+  private UniquenessIndex uniquenessIndex;
+
+  /**
+   * the http header map that is validated on a request
+   */
+  private Map<String, String> httpHeaders = new HashMap<>();
+
+  /**
+   * initializes the user endpoint with a uniqueness index
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    userHandler = Mockito.spy(new UserHandlerImpl(false));
+    resourceEndpoint = new ResourceEndpoint(ServiceProvider.builder().build(), new UserEndpointDefinition(userHandler));
+    ResourceType userResourceType = resourceEndpoint.getResourceTypeByName(ResourceTypeNames.USER).get();
+    uniquenessIndex = new UniquenessIndex(userResourceType, new InMemoryUniquenessStore());
+    userResourceType.getFeatures().setUniquenessIndex(uniquenessIndex);
+    httpHeaders.put(HttpHeader.CONTENT_TYPE_HEADER, HttpHeader.SCIM_CONTENT_TYPE);
+  }
+
+  /**
+   * verifies that a user with a userName that differs only in its case from an existing user is rejected
+   * without calling the resource handler
+   */
+  @Test
+  public void testCreateWithDuplicateUserNameIsRejected()
+  {
+    createUser("goldfish");
+
+    ScimResponse scimResponse = handleRequest(EndpointPaths.USERS, HttpMethod.POST, "GoldFish");
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(ErrorResponse.class));
+    ErrorResponse errorResponse = (ErrorResponse)scimResponse;
+    Assertions.assertEquals(HttpStatus.CONFLICT, errorResponse.getStatus());
+    Assertions.assertEquals(ScimType.RFC7644.UNIQUENESS, errorResponse.getScimType().get());
+    Mockito.verify(userHandler, Mockito.times(1)).createResource(Mockito.any(), Mockito.any());
+    Assertions.assertEquals(1, userHandler.getInMemoryMap().size());
+  }
+
+  /**
+   * verifies that the values of updated and deleted resources are released from the index
+   */
+  @Test
+  public void testUpdateAndDeleteReleaseValues()
+  {
+    String firstId = createUser("goldfish");
+    String secondId = createUser("chuck");
+
+    ScimResponse scimResponse = handleRequest(EndpointPaths.USERS + "/" + secondId, HttpMethod.PUT, "goldfish");
+    Assertions.assertEquals(HttpStatus.CONFLICT, ((ErrorResponse)scimResponse).getStatus());
+
+    scimResponse = handleRequest(EndpointPaths.USERS + "/" + firstId, HttpMethod.PUT, "norris");
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(UpdateResponse.class));
+    scimResponse = handleRequest(EndpointPaths.USERS + "/" + secondId, HttpMethod.PUT, "goldfish");
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(UpdateResponse.class));
+
+    handleRequest(EndpointPaths.USERS + "/" + firstId, HttpMethod.DELETE, null);
+    createUser("norris");
+    Assertions.assertEquals(2, userHandler.getInMemoryMap().size());
+  }
+
+  /**
+   * verifies that the index can be rebuilt from the resources of the resource handler
+   */
+  @Test
+  public void testIndexIsRebuiltFromResourceHandler()
+  {
+    String id = createUser("goldfish");
+    uniquenessIndex.getUniquenessStore().clear();
+    Assertions.assertEquals(0, uniquenessIndex.getUniquenessStore().getValues(id).size());
+    uniquenessIndex.rebuild(new Context(null));
+
+    Assertions.assertEquals(1, uniquenessIndex.getUniquenessStore().getValues(id).size());
+    ScimResponse scimResponse = handleRequest(EndpointPaths.USERS, HttpMethod.POST, "goldfish");
+    Assertions.assertEquals(HttpStatus.CONFLICT, ((ErrorResponse)scimResponse).getStatus());
+  }
+
+  /**
+   * verifies that the uniqueness index is still enforced after the features of the resource type were replaced
+   * by a copy that does not contain the runtime state of the features
+   */
+  @Test
+  public void testUniquenessIsEnforcedAfterFeaturesAreReplaced()
+  {
+    createUser("goldfish");
+    ResourceType userResourceType = resourceEndpoint.getResourceTypeByName(ResourceTypeNames.USER).get();
+    ResourceTypeFeatures featuresCopy = JsonHelper.readJsonDocument(userResourceType.getFeatures().toString(),
+                                                                    ResourceTypeFeatures.class);
+    Assertions.assertNull(featuresCopy.getUniquenessIndex());
+    userResourceType.setFeatures(featuresCopy);
+
+    Assertions.assertSame(uniquenessIndex, userResourceType.getFeatures().getUniquenessIndex());
+    ScimResponse scimResponse = handleRequest(EndpointPaths.USERS, HttpMethod.POST, "goldfish");
+    Assertions.assertEquals(HttpStatus.CONFLICT, ((ErrorResponse)scimResponse).getStatus());
+  }
+
+  /**
+   * verifies that all pages are loaded on a rebuild if the resource handler does not set the totalResults
+   */
+  @Test
+  public void testIndexIsRebuiltFromAllPagesWithoutTotalResults()
+  {
+    List<User> users = new ArrayList<>();
+    for ( int i = 0 ; i < 250 ; i++ )
+    {
+      users.add(User.builder().id(UUID.randomUUID().toString()).userName("user-" + i).build());
+    }
+    Mockito.doAnswer(invocation -> {
+      int startIndex = (int)(long)invocation.getArgument(0);
+      int count = invocation.getArgument(1);
+      int fromIndex = Math.min(startIndex - 1, users.size());
+      List<User> page = users.subList(fromIndex, Math.min(fromIndex + count, users.size()));
+      return PartialListResponse.<User> builder().resources(new ArrayList<>(page)).build();
+    })
+           .when(userHandler)
+           .listResources(Mockito.anyLong(),
+                          Mockito.anyInt(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any());
+
+    uniquenessIndex.rebuild(new Context(null));
+
+    for ( User user : users )
+    {
+      Assertions.assertEquals(1, uniquenessIndex.getUniquenessStore().getValues(user.getId().get()).size());
+    }
+    Mockito.verify(userHandler, Mockito.times(3))
+           .listResources(Mockito.anyLong(),
+                          Mockito.anyInt(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any());
+  }
+
+  /**
+   * verifies that a rebuild fails with a clear error if the resource handler does not return a list response
+   */
+  @Test
+  public void testRebuildFailsIfResourceHandlerReturnsNull()
+  {
+    Mockito.doReturn(null)
+           .when(userHandler)
+           .listResources(Mockito.anyLong(),
+                          Mockito.anyInt(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any(),
+                          Mockito.any());
+
+    InternalServerException ex = Assertions.assertThrows(InternalServerException.class,
+                                                         () -> uniquenessIndex.rebuild(new Context(null)));
+    MatcherAssert.assertThat(ex.getMessage(), Matchers.containsString(ResourceTypeNames.USER));
+  }
+
+  /**
+   * creates a user with the given userName
+   *
+   * @return the id of the created user
+   */
+  private String createUser(String userName)
+  {
+    ScimResponse scimResponse = handleRequest(EndpointPaths.USERS, HttpMethod.POST, userName);
+    MatcherAssert.assertThat(scimResponse.getClass(), Matchers.typeCompatibleWith(CreateResponse.class));
+    return JsonHelper.copyResourceToObject(scimResponse, User.class).getId().get();
+  }
+
+  /**
+   * sends a request with a user that has the given userName
+   */
+  private ScimResponse handleRequest(String path, HttpMethod httpMethod, String userName)
+  {
+    String body = userName == null ? null : User.builder().userName(userName).build().toString();
+    return resourceEndpoint.handleRequest(BASE_URI + path, httpMethod, body, httpHeaders, new Context(null));
+  }
+}
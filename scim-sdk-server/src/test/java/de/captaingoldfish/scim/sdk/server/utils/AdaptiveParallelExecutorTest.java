@@ -0,0 +1,199 @@
+package de.captaingoldfish.scim.sdk.server.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.captaingoldfish.scim.sdk.common.resources.ServiceProvider;
+import de.captaingoldfish.scim.sdk.server.metrics.InMemoryScimMetrics;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class AdaptiveParallelExecutorTest
+{
+
+  /**
+   * a dedicated pool so that the decisions do not depend on the load of the common pool
+   */
+  private ForkJoinPool pool;
+
+  /**
+   * the service provider that uses the dedicated pool
+   */
+  private ServiceProvider serviceProvider;
+
+  /**
+   * creates the dedicated pool
+   */
+  @BeforeEach
+  public void initialize()
+  {
+    pool = new ForkJoinPool(4);
+    serviceProvider = ServiceProvider.builder().forkJoinPool(pool).build();
+    serviceProvider.setParallelThreshold(100);
+  }
+
+  /**
+   * shuts the dedicated pool down
+   */
+  @AfterEach
+  public void destroy()
+  {
+    pool.shutdownNow();
+  }
+
+  /**
+   * creates a list of random numbers with duplicates
+   */
+  private static List<Integer> createNumbers(int size)
+  {
+    Random random = new Random(size);
+    List<Integer> numbers = new ArrayList<>();
+    for ( int i = 0 ; i < size ; i++ )
+    {
+      numbers.add(random.nextInt(size / 2 + 1));
+    }
+    return numbers;
+  }
+
+  /**
+   * verifies that small and large lists are filtered and sorted with the same results as sequential streams
+   */
+  @Test
+  public void testResultsMatchSequentialProcessing()
+  {
+    for ( int size : new int[]{0, 1, 99, 100, 1000, 12345} )
+    {
+      List<Integer> numbers = createNumbers(size);
+      Assertions.assertEquals(numbers.stream().filter(i -> i % 3 == 0).collect(Collectors.toList()),
+                              AdaptiveParallelExecutor.filter(serviceProvider, numbers, i -> i % 3 == 0));
+      Assertions.assertEquals(numbers.stream().sorted().collect(Collectors.toList()),
+                              AdaptiveParallelExecutor.sort(serviceProvider, numbers, Comparator.naturalOrder()));
+    }
+  }
+
+  /**
+   * verifies that the parallel sort keeps the order of equal elements
+   */
+  @Test
+  public void testSortIsStable()
+  {
+    List<int[]> pairs = new ArrayList<>();
+    Random random = new Random(1);
+    for ( int i = 0 ; i < 5000 ; i++ )
+    {
+      pairs.add(new int[]{random.nextInt(10), i});
+    }
+    List<int[]> sortedPairs = AdaptiveParallelExecutor.sort(serviceProvider,
+                                                            pairs,
+                                                            Comparator.comparingInt(pair -> pair[0]));
+    for ( int i = 1 ; i < sortedPairs.size() ; i++ )
+    {
+      int[] previous = sortedPairs.get(i - 1);
+      int[] current = sortedPairs.get(i);
+      Assertions.assertTrue(previous[0] < current[0] || previous[0] == current[0] && previous[1] < current[1]);
+    }
+  }
+
+  /**
+   * verifies that the decisions depend on the size of the lists and on the calling thread
+   */
+  @Test
+  public void testDecisions() throws Exception
+  {
+    InMemoryScimMetrics scimMetrics = new InMemoryScimMetrics();
+    AdaptiveParallelExecutor.filter(serviceProvider, scimMetrics, createNumbers(99), i -> true);
+    AdaptiveParallelExecutor.filter(serviceProvider, scimMetrics, createNumbers(100), i -> true);
+    pool.submit(() -> AdaptiveParallelExecutor.sort(serviceProvider,
+                                                    scimMetrics,
+                                                    createNumbers(100),
+                                                    Comparator.naturalOrder()))
+        .get();
+
+    Assertions.assertEquals(1,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.SEQUENTIAL_BELOW_THRESHOLD));
+    Assertions.assertEquals(1,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.PARALLEL_SUBMITTED));
+    Assertions.assertEquals(1,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.PARALLEL_IN_POOL));
+    Assertions.assertEquals(0,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.SEQUENTIAL_POOL_SATURATED));
+
+    // the decisions are only recorded by the metrics that were passed to the executor
+    InMemoryScimMetrics otherMetrics = new InMemoryScimMetrics();
+    AdaptiveParallelExecutor.filter(serviceProvider, otherMetrics, createNumbers(99), i -> true);
+    Assertions.assertEquals(1,
+                            otherMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.SEQUENTIAL_BELOW_THRESHOLD));
+    Assertions.assertEquals(1,
+                            scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.SEQUENTIAL_BELOW_THRESHOLD));
+  }
+
+  /**
+   * verifies that the calling thread processes the list itself if all threads of the pool are busy
+   */
+  @Test
+  public void testSaturatedPoolIsNotBlocking() throws Exception
+  {
+    ForkJoinPool busyPool = new ForkJoinPool(2);
+    serviceProvider.setThreadPool(busyPool);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(2);
+    try
+    {
+      for ( int i = 0 ; i < 2 ; i++ )
+      {
+        busyPool.execute(() -> {
+          started.countDown();
+          try
+          {
+            release.await();
+          }
+          catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+          }
+        });
+      }
+      started.await();
+      InMemoryScimMetrics scimMetrics = new InMemoryScimMetrics();
+      List<Integer> numbers = createNumbers(1000);
+      Assertions.assertEquals(numbers.size(),
+                              AdaptiveParallelExecutor.filter(serviceProvider, scimMetrics, numbers, i -> true).size());
+      Assertions.assertEquals(1,
+                              scimMetrics.getParallelDecisionCount(AdaptiveParallelExecutor.Decision.SEQUENTIAL_POOL_SATURATED));
+    }
+    finally
+    {
+      release.countDown();
+      busyPool.shutdownNow();
+    }
+  }
+
+  /**
+   * verifies that exceptions of the parallel processing are passed to the caller
+   */
+  @Test
+  public void testExceptionIsPassedToCaller()
+  {
+    List<Integer> numbers = createNumbers(1000);
+    IllegalStateException ex = Assertions.assertThrows(IllegalStateException.class,
+                                                       () -> AdaptiveParallelExecutor.filter(serviceProvider,
+                                                                                             numbers,
+                                                                                             i -> {
+                                                                                               throw new IllegalStateException("failed");
+                                                                                             }));
+    Assertions.assertTrue(ex.getMessage().contains("failed"), ex.getMessage());
+  }
+}
@@ -0,0 +1,169 @@
+package de.captaingoldfish.scim.sdk.server.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+import de.captaingoldfish.scim.sdk.common.resources.User;
+import de.captaingoldfish.scim.sdk.server.endpoints.ResourceEndpointTest.ClientAuthorization;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class CursorSnapshotCacheTest
+{
+
+  /**
+   * the key of the query of the snapshots within these tests
+   */
+  private static final String QUERY_KEY = CursorSnapshotCache.getQueryKey("User", null, null, null);
+
+  /**
+   * the key of the client that creates the snapshots within these tests
+   */
+  private static final String OWNER_KEY = CursorSnapshotCache.getOwnerKey(new ClientAuthorization("goldfish", "user",
+                                                                                                  "admin"));
+
+  /**
+   * creates the given number of users
+   */
+  private static List<User> createUsers(int numberOfUsers)
+  {
+    return IntStream.range(0, numberOfUsers)
+                    .mapToObj(i -> User.builder().id(String.valueOf(i)).userName("user-" + i).build())
+                    .collect(Collectors.toList());
+  }
+
+  /**
+   * verifies that the snapshot cursors can be decoded again and are not mistaken for start index cursors
+   */
+  @Test
+  public void testEncodeAndDecodeCursor()
+  {
+    String cursor = CursorSnapshotCache.encodeCursor("abc", 11);
+    CursorSnapshotCache.SnapshotCursor snapshotCursor = CursorSnapshotCache.decodeCursor(cursor);
+    Assertions.assertEquals("abc", snapshotCursor.getSnapshotId());
+    Assertions.assertEquals(11, snapshotCursor.getStartIndex());
+    Assertions.assertEquals(-1, RequestUtils.decodeCursorStartIndex(cursor));
+  }
+
+  /**
+   * verifies that cursors that were not created by the snapshot cache are not decoded
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"", "not-a-cursor!@#", "MTE", "YWJj", "OjE", "YWJjOjA", "YWJjOng"})
+  public void testDecodeForeignCursor(String cursor)
+  {
+    Assertions.assertNull(CursorSnapshotCache.decodeCursor(cursor));
+  }
+
+  /**
+   * verifies that the pages are sliced from the snapshot and that the returned resources are copies
+   */
+  @Test
+  public void testGetPage()
+  {
+    CursorSnapshotCache snapshotCache = new CursorSnapshotCache(5, 100, Duration.ofMinutes(1));
+    List<User> users = createUsers(5);
+    String snapshotId = snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, users);
+
+    CursorSnapshotCache.SnapshotPage<User> page = snapshotCache.getPage(snapshotId, QUERY_KEY, OWNER_KEY, 3, 2);
+    Assertions.assertEquals(5, page.getTotalResults());
+    Assertions.assertEquals(users.subList(2, 4), page.getResources());
+    Assertions.assertNotSame(users.get(2), page.getResources().get(0));
+    Assertions.assertEquals(User.class, page.getResources().get(0).getClass());
+
+    Assertions.assertEquals(1,
+                            snapshotCache.<User> getPage(snapshotId, QUERY_KEY, OWNER_KEY, 5, 2).getResources().size());
+    Assertions.assertEquals(0,
+                            snapshotCache.<User> getPage(snapshotId, QUERY_KEY, OWNER_KEY, 6, 2).getResources().size());
+    Assertions.assertNull(snapshotCache.getPage(snapshotId, "another query", OWNER_KEY, 1, 2));
+    Assertions.assertEquals(3, snapshotCache.getHitCount());
+    Assertions.assertEquals(1, snapshotCache.getMissCount());
+  }
+
+  /**
+   * verifies that a snapshot can only be read by the client that created it
+   */
+  @Test
+  public void testSnapshotIsBoundToClient()
+  {
+    CursorSnapshotCache snapshotCache = new CursorSnapshotCache(5, 100, Duration.ofMinutes(1));
+    String snapshotId = snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, createUsers(3));
+
+    String sameClient = CursorSnapshotCache.getOwnerKey(new ClientAuthorization("goldfish", "admin", "user"));
+    Assertions.assertNotNull(snapshotCache.getPage(snapshotId, QUERY_KEY, sameClient, 1, 2));
+
+    String otherClient = CursorSnapshotCache.getOwnerKey(new ClientAuthorization("other", "user", "admin"));
+    Assertions.assertNull(snapshotCache.getPage(snapshotId, QUERY_KEY, otherClient, 1, 2));
+    String otherRoles = CursorSnapshotCache.getOwnerKey(new ClientAuthorization("goldfish", "user"));
+    Assertions.assertNull(snapshotCache.getPage(snapshotId, QUERY_KEY, otherRoles, 1, 2));
+    Assertions.assertNull(snapshotCache.getPage(snapshotId, QUERY_KEY, CursorSnapshotCache.getOwnerKey(null), 1, 2));
+    Assertions.assertEquals(1, snapshotCache.getHitCount());
+    Assertions.assertEquals(3, snapshotCache.getMissCount());
+  }
+
+  /**
+   * verifies that the snapshots expire after their time to live
+   */
+  @Test
+  public void testSnapshotExpires()
+  {
+    AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2026-10-19T10:00:00Z"));
+    Clock clock = Mockito.mock(Clock.class);
+    Mockito.doAnswer(invocation -> now.get()).when(clock).instant();
+    CursorSnapshotCache snapshotCache = new CursorSnapshotCache(5, 100, Duration.ofMinutes(1), clock);
+    String snapshotId = snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, createUsers(3));
+
+    now.set(now.get().plusSeconds(59));
+    Assertions.assertNotNull(snapshotCache.getPage(snapshotId, QUERY_KEY, OWNER_KEY, 1, 2));
+
+    now.set(now.get().plusSeconds(1));
+    Assertions.assertNull(snapshotCache.getPage(snapshotId, QUERY_KEY, OWNER_KEY, 1, 2));
+    Assertions.assertEquals(0, snapshotCache.size());
+    Assertions.assertEquals(0, snapshotCache.getCachedResources());
+    Assertions.assertEquals(0, snapshotCache.getEvictionCount());
+  }
+
+  /**
+   * verifies that the oldest snapshots are evicted if the cache exceeds its bounds and that result sets that
+   * are too large are not cached at all
+   */
+  @Test
+  public void testMemoryBounds()
+  {
+    CursorSnapshotCache snapshotCache = new CursorSnapshotCache(2, 10, Duration.ofMinutes(1));
+    String firstSnapshotId = snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, createUsers(4));
+    String secondSnapshotId = snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, createUsers(4));
+    String thirdSnapshotId = snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, createUsers(4));
+
+    Assertions.assertNull(snapshotCache.getPage(firstSnapshotId, QUERY_KEY, OWNER_KEY, 1, 1));
+    Assertions.assertNotNull(snapshotCache.getPage(secondSnapshotId, QUERY_KEY, OWNER_KEY, 1, 1));
+    Assertions.assertNotNull(snapshotCache.getPage(thirdSnapshotId, QUERY_KEY, OWNER_KEY, 1, 1));
+    Assertions.assertEquals(2, snapshotCache.size());
+    Assertions.assertEquals(8, snapshotCache.getCachedResources());
+    Assertions.assertEquals(1, snapshotCache.getEvictionCount());
+
+    String fourthSnapshotId = snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, createUsers(7));
+    Assertions.assertNotNull(fourthSnapshotId);
+    Assertions.assertEquals(1, snapshotCache.size());
+    Assertions.assertEquals(7, snapshotCache.getCachedResources());
+    Assertions.assertEquals(3, snapshotCache.getEvictionCount());
+
+    Assertions.assertNull(snapshotCache.createSnapshot(QUERY_KEY, OWNER_KEY, createUsers(11)));
+    Assertions.assertEquals(1, snapshotCache.getRejectionCount());
+    Assertions.assertEquals(1, snapshotCache.size());
+  }
+}
@@ -0,0 +1,120 @@
+package de.captaingoldfish.scim.sdk.server.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Pascal Knueppel
+ * @since 19.10.2026
+ */
+public class ListQueryStatisticsTest
+{
+
+  /**
+   * creates a record of a request with the given shape and duration
+   */
+  private static ListQueryStatistics.ListQueryRecord createRecord(String queryShape, long millis)
+  {
+    return ListQueryStatistics.ListQueryRecord.builder()
+                                              .resourceTypeName("User")
+                                              .queryShape(queryShape)
+                                              .handlerNanos(Duration.ofMillis(millis).toNanos())
+                                              .returnedResources(10)
+                                              .matchedResources(2)
+                                              .responseSize(2)
+                                              .build();
+  }
+
+  /**
+   * verifies that the percentiles and the selectivity are calculated from the recorded requests
+   */
+  @Test
+  public void testAggregateStatistics()
+  {
+    ListQueryStatistics listQueryStatistics = new ListQueryStatistics(10, 1000, null, null);
+    for ( int i = 1 ; i <= 100 ; i++ )
+    {
+      listQueryStatistics.record(createRecord("shape", i));
+    }
+    ListQueryStatistics.QueryShapeStatistics statistics = listQueryStatistics.getStatistics("shape").get();
+    Assertions.assertEquals(100, statistics.getCount());
+    Assertions.assertEquals(Duration.ofMillis(50), statistics.getP50());
+    Assertions.assertEquals(Duration.ofMillis(99), statistics.getP99());
+    Assertions.assertEquals(Duration.ofNanos(Duration.ofMillis(5050).toNanos() / 100),
+                            statistics.getAverageHandlerTime());
+    Assertions.assertEquals(0.2, statistics.getSelectivity());
+    Assertions.assertEquals(2.0, statistics.getAverageResponseSize());
+    Assertions.assertEquals(0, listQueryStatistics.getSlowQueryCount());
+  }
+
+  /**
+   * verifies that only the latest durations are used to calculate the percentiles
+   */
+  @Test
+  public void testPercentilesUseLatestSamples()
+  {
+    ListQueryStatistics listQueryStatistics = new ListQueryStatistics(10, 10, null, null);
+    for ( int i = 1 ; i <= 20 ; i++ )
+    {
+      listQueryStatistics.record(createRecord("shape", i < 15 ? 1000 : 1));
+    }
+    ListQueryStatistics.QueryShapeStatistics statistics = listQueryStatistics.getStatistics("shape").get();
+    Assertions.assertEquals(20, statistics.getCount());
+    Assertions.assertEquals(Duration.ofMillis(1), statistics.getP50());
+    Assertions.assertEquals(Duration.ofMillis(1000), statistics.getP99());
+  }
+
+  /**
+   * verifies that the least recently used query shape is removed if the statistics exceed their bounds
+   */
+  @Test
+  public void testMaxQueryShapes()
+  {
+    ListQueryStatistics listQueryStatistics = new ListQueryStatistics(2, 10, null, null);
+    listQueryStatistics.record(createRecord("first", 1));
+    listQueryStatistics.record(createRecord("second", 1));
+    listQueryStatistics.getStatistics("first");
+    listQueryStatistics.record(createRecord("third", 1));
+
+    Assertions.assertTrue(listQueryStatistics.getStatistics("first").isPresent());
+    Assertions.assertFalse(listQueryStatistics.getStatistics("second").isPresent());
+    Assertions.assertTrue(listQueryStatistics.getStatistics("third").isPresent());
+    Assertions.assertEquals(2, listQueryStatistics.getStatistics().size());
+  }
+
+  /**
+   * verifies that slow requests are counted and that all requests are passed to the reporter
+   */
+  @Test
+  public void testSlowQueriesAndReporter()
+  {
+    AtomicInteger reportedRequests = new AtomicInteger();
+    ListQueryStatistics listQueryStatistics = new ListQueryStatistics(10, 10, Duration.ofMillis(100),
+                                                                      (record, statistics) -> {
+                                                                        Assertions.assertEquals(record.getQueryShape(),
+                                                                                                statistics.getQueryShape());
+                                                                        reportedRequests.incrementAndGet();
+                                                                      });
+    listQueryStatistics.record(createRecord("shape", 100));
+    listQueryStatistics.record(createRecord("shape", 101));
+    Assertions.assertEquals(1, listQueryStatistics.getSlowQueryCount());
+    Assertions.assertEquals(2, reportedRequests.get());
+  }
+
+  /**
+   * verifies that an error of the reporter is not passed to the caller
+   */
+  @Test
+  public void testFailingReporterIsIgnored()
+  {
+    ListQueryStatistics listQueryStatistics = new ListQueryStatistics(10, 10, null, (record, statistics) -> {
+      throw new IllegalStateException("reporter failure");
+    });
+    Assertions.assertDoesNotThrow(() -> listQueryStatistics.record(createRecord("shape", 1)));
+    Assertions.assertEquals(1, listQueryStatistics.getStatistics("shape").get().getCount());
+  }
+}
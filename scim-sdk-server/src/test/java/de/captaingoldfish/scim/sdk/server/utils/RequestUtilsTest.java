@@ -322,14 +322,18 @@ public class RequestUtilsTest
       };
       userResourceType.setResourceHandlerImpl(userHandler);
 
+      // long chains of "or" expressions are parsed iteratively, so only deeply nested parentheses will exhaust
+      // the stack
+      final int nestingDepth = 100_000;
       StringBuilder stringBuilder = new StringBuilder();
-      for ( int i = 0 ; i < maxFilterDepth + 1 ; i++ )
+      for ( int i = 0 ; i < nestingDepth ; i++ )
       {
-        if (i > 0)
-        {
-          stringBuilder.append(" or ");
-        }
-        stringBuilder.append("userName eq \"test" + 1 + "\"");
+        stringBuilder.append("(");
+      }
+      stringBuilder.append("userName eq \"test1\"");
+      for ( int i = 0 ; i < nestingDepth ; i++ )
+      {
+        stringBuilder.append(")");
       }
       BadRequestException ex = Assertions.assertThrows(BadRequestException.class,
                                                        () -> RequestUtils.parseFilter(userResourceType,